@@ -0,0 +1,129 @@
+package org.cloudbus.cloudsim.examples;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009, The University of Melbourne, Australia
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.CloudletSchedulerVirtualClock;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+
+/**
+ * A microbenchmark of the time-shared cloudlet schedulers of a single VM. Each run submits a
+ * number of cloudlets of different lengths to the scheduler and updates it at the estimated finish
+ * time of the next cloudlet until all of them have finished, as the datacenter does. The time of
+ * an update grows linearly with the number of cloudlets in the VM for the
+ * {@link CloudletSchedulerTimeShared}, and logarithmically for the
+ * {@link CloudletSchedulerVirtualClock}.
+ *
+ * Usage: CloudletSchedulerBenchmark [cloudlets per VM...], 1000 by default.
+ */
+public class CloudletSchedulerBenchmark {
+
+	/** The number of runs not measured, letting the JIT compile the scheduler. */
+	private static final int WARMUP_RUNS = 3;
+
+	/** The number of measured runs. */
+	private static final int RUNS = 5;
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args the numbers of cloudlets per VM
+	 */
+	public static void main(String[] args) {
+		int[] sizes = {1000};
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		Log.printLine("Scheduler\tCloudlets\tUpdates\tTime per update (us)");
+		for (boolean virtualClock : new boolean[] {false, true}) {
+			String name = virtualClock ? "VirtualClock" : "TimeShared";
+			for (int size : sizes) {
+				for (int i = 0; i < WARMUP_RUNS; i++) {
+					run(createScheduler(virtualClock), size);
+				}
+				long updates = 0;
+				long time = 0;
+				for (int i = 0; i < RUNS; i++) {
+					CloudletScheduler scheduler = createScheduler(virtualClock);
+					long start = System.nanoTime();
+					updates += run(scheduler, size);
+					time += System.nanoTime() - start;
+				}
+				Log.printLine(name + "\t" + size + "\t" + updates / RUNS + "\t"
+						+ String.format("%.2f", time / 1000.0 / updates));
+			}
+		}
+	}
+
+	/**
+	 * Creates the scheduler of a VM.
+	 *
+	 * @param virtualClock true for a {@link CloudletSchedulerVirtualClock}
+	 * @return the scheduler
+	 */
+	private static CloudletScheduler createScheduler(boolean virtualClock) {
+		return virtualClock ? new CloudletSchedulerVirtualClock() : new CloudletSchedulerTimeShared();
+	}
+
+	/**
+	 * Runs all the cloudlets of a VM to completion.
+	 *
+	 * @param scheduler the scheduler of the VM
+	 * @param size the number of cloudlets
+	 * @return the number of updates of the scheduler
+	 */
+	private static long run(CloudletScheduler scheduler, int size) {
+		List<Double> mipsShare = new ArrayList<Double>();
+		for (int i = 0; i < 4; i++) {
+			mipsShare.add(1000.0);
+		}
+
+		scheduler.updateVmProcessing(0.0, mipsShare);
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		for (int id = 0; id < size; id++) {
+			// lengths spread so that the cloudlets finish at different times
+			long length = 10000 + 37L * id;
+			int pes = 1 + id % 2;
+			Cloudlet cloudlet = new Cloudlet(id, length, pes, 300, 300, utilizationModel,
+					utilizationModel, utilizationModel);
+			// as if submitted by a datacenter, otherwise it starts as finished
+			cloudlet.setResourceParameter(0, 0, 0);
+			scheduler.cloudletSubmit(cloudlet);
+		}
+
+		long updates = 0;
+		double time = 0.0;
+		while (scheduler.runningCloudlets() > 0) {
+			double nextEvent = scheduler.updateVmProcessing(time, mipsShare);
+			updates++;
+			if (nextEvent == Double.MAX_VALUE) {
+				break;
+			}
+			time = nextEvent;
+		}
+		// cloudlets that never ran all finish at the first update
+		if (time == 0.0) {
+			throw new IllegalStateException("The cloudlets finished without running");
+		}
+		return updates;
+	}
+
+}
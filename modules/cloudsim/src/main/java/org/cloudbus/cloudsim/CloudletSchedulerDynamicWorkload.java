@@ -103,6 +103,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 
 		for (ResCloudlet rgl : cloudletsToFinish) {
 			getCloudletExecList().remove(rgl);
+			removePesInUse(rgl);
 			cloudletFinish(rgl);
 		}
 
@@ -130,6 +131,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		}
 
 		getCloudletExecList().add(rcl);
+		addPesInUse(rcl);
 		return getEstimatedFinishTime(rcl, getPreviousTime());
 	}
 
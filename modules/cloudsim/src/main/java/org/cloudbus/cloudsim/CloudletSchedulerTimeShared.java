@@ -8,6 +8,8 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
@@ -28,6 +30,18 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
          * {@link #updateVmProcessing(double, java.util.List)} method. */
 	protected int currentCPUs;
 
+	/** The number of PEs used by the cloudlets of the exec list, updated when a cloudlet enters
+	 * or leaves the exec list. */
+	private int pesInUse;
+
+	/** Whether {@link #pesInUse} is up to date, or has to be counted again because the exec list
+	 * has been changed in another way. */
+	private boolean pesInUseValid;
+
+	/** The smallest remaining length of the running cloudlets using each number of PEs, reused by
+	 * {@link #updateVmProcessing(double, java.util.List)}. */
+	private long[] minRemainingLengths = new long[0];
+
 	/**
 	 * Creates a new CloudletSchedulerTimeShared object. This method must be invoked before starting
 	 * the actual simulation.
@@ -40,36 +54,57 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		currentCPUs = 0;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The progress of the cloudlets is updated, the finished ones removed and the finish time of
+	 * the others estimated in a single pass over the exec list. The capacity of each PE does not
+	 * change during the progress update, and after it the earliest finish time among the cloudlets
+	 * using the same number of PEs is the one of the cloudlet with the smallest remaining length.
+	 */
 	@Override
 	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
 		setCurrentMipsShare(mipsShare);
 		double timeSpam = currentTime - getPreviousTime();
-
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			rcl.updateCloudletFinishedSoFar((long) (getCapacity(mipsShare) * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
-		}
-
-		if (getCloudletExecList().size() == 0) {
+		if (getCloudletExecList().isEmpty()) {
 			setPreviousTime(currentTime);
 			return 0.0;
 		}
+		double totalMips = getTotalMips(mipsShare);
+		double capacity = totalMips / Math.max(getPesInUse(), currentCPUs);
 
-		// check finished cloudlets
-		double nextEvent = Double.MAX_VALUE;
-		List<ResCloudlet> toRemove = new ArrayList<>();
-		for (ResCloudlet rcl : getCloudletExecList()) {
+		Arrays.fill(minRemainingLengths, Long.MAX_VALUE);
+		for (Iterator<ResCloudlet> it = this.<ResCloudlet> getCloudletExecList().iterator(); it.hasNext();) {
+			ResCloudlet rcl = it.next();
+			rcl.updateCloudletFinishedSoFar((long) (capacity * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
 			long remainingLength = rcl.getRemainingCloudletLength();
 			if (remainingLength == 0) {// finished: remove from the list
-				toRemove.add(rcl);
+				it.remove();
+				removePesInUse(rcl);
 				cloudletFinish(rcl);
+				continue;
+			}
+			int pes = rcl.getNumberOfPes();
+			if (pes >= minRemainingLengths.length) {
+				int length = minRemainingLengths.length;
+				minRemainingLengths = Arrays.copyOf(minRemainingLengths, pes + 1);
+				Arrays.fill(minRemainingLengths, length, pes + 1, Long.MAX_VALUE);
+			}
+			if (remainingLength < minRemainingLengths[pes]) {
+				minRemainingLengths[pes] = remainingLength;
 			}
 		}
-		getCloudletExecList().removeAll(toRemove);
+
+		setPreviousTime(currentTime);
 
 		// estimate finish time of cloudlets
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			double estimatedFinishTime = currentTime
-					+ (rcl.getRemainingCloudletLength() / (getCapacity(mipsShare) * rcl.getNumberOfPes()));
+		double nextEvent = Double.MAX_VALUE;
+		capacity = totalMips / Math.max(getPesInUse(), currentCPUs);
+		for (int pes = 0; pes < minRemainingLengths.length; pes++) {
+			if (minRemainingLengths[pes] == Long.MAX_VALUE) {
+				continue;
+			}
+			double estimatedFinishTime = currentTime + (minRemainingLengths[pes] / (capacity * pes));
 			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
 				estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
 			}
@@ -78,8 +113,6 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 				nextEvent = estimatedFinishTime;
 			}
 		}
-
-		setPreviousTime(currentTime);
 		return nextEvent;
 	}
 
@@ -91,6 +124,19 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	 * @return the capacity of each PE
 	 */
 	protected double getCapacity(List<Double> mipsShare) {
+		double capacity = getTotalMips(mipsShare);
+		capacity /= Math.max(getPesInUse(), currentCPUs);
+		return capacity;
+	}
+
+	/**
+	 * Gets the total MIPS of the PEs available for the scheduler, and updates the number of PEs
+	 * available.
+	 * 
+	 * @param mipsShare list with MIPS share of each PE available to the scheduler
+	 * @return the total MIPS
+	 */
+	private double getTotalMips(List<Double> mipsShare) {
 		double capacity = 0.0;
 		int cpus = 0;
 		for (Double mips : mipsShare) {
@@ -100,14 +146,62 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 			}
 		}
 		currentCPUs = cpus;
+		return capacity;
+	}
 
-		int pesInUse = 0;
-		for (ResCloudlet rcl : getCloudletExecList()) {
+	/**
+	 * Gets the number of PEs used by the cloudlets of the exec list. It is counted again after
+	 * {@link #invalidatePesInUse()}.
+	 * 
+	 * @return the number of PEs in use
+	 */
+	protected int getPesInUse() {
+		if (!pesInUseValid) {
+			pesInUse = 0;
+			for (ResCloudlet rcl : getCloudletExecList()) {
+				pesInUse += rcl.getNumberOfPes();
+			}
+			pesInUseValid = true;
+		}
+		return pesInUse;
+	}
+
+	/**
+	 * Counts the PEs of a cloudlet just added to the exec list. A subclass adding a cloudlet to
+	 * the exec list must call it, or {@link #invalidatePesInUse()}.
+	 * 
+	 * @param rcl the cloudlet
+	 */
+	protected void addPesInUse(ResCloudlet rcl) {
+		if (pesInUseValid) {
 			pesInUse += rcl.getNumberOfPes();
 		}
+	}
 
-		capacity /= Math.max(pesInUse, currentCPUs);
-		return capacity;
+	/**
+	 * Stops counting the PEs of a cloudlet just removed from the exec list. A subclass removing
+	 * a cloudlet from the exec list must call it, or {@link #invalidatePesInUse()}.
+	 * 
+	 * @param rcl the cloudlet
+	 */
+	protected void removePesInUse(ResCloudlet rcl) {
+		if (pesInUseValid) {
+			pesInUse -= rcl.getNumberOfPes();
+		}
+	}
+
+	/**
+	 * Makes the PEs in use be counted again, after the exec list has been changed other than by
+	 * adding or removing a single cloudlet.
+	 */
+	protected void invalidatePesInUse() {
+		pesInUseValid = false;
+	}
+
+	@Override
+	protected <T extends ResCloudlet> void setCloudletExecList(List<T> cloudletExecList) {
+		super.setCloudletExecList(cloudletExecList);
+		invalidatePesInUse();
 	}
 
 	@Override
@@ -140,6 +234,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 
 		if (found) {
 			ResCloudlet rcl = getCloudletExecList().remove(position);
+			removePesInUse(rcl);
 			if (rcl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rcl);
 			} else {
@@ -183,6 +278,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		if (found) {
 			// remove cloudlet from the exec list and put it in the paused list
 			ResCloudlet rcl = getCloudletExecList().remove(position);
+			removePesInUse(rcl);
 			if (rcl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rcl);
 			} else {
@@ -219,6 +315,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 			ResCloudlet rgl = getCloudletPausedList().remove(position);
 			rgl.setCloudletStatus(Cloudlet.INEXEC);
 			getCloudletExecList().add(rgl);
+			addPesInUse(rgl);
 
 			// calculate the expected time for cloudlet completion
 			// first: how many PEs do we have?
@@ -242,6 +339,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		}
 
 		getCloudletExecList().add(rcl);
+		addPesInUse(rcl);
 
 		// use the current capacity to estimate the extra amount of
 		// time to file transferring. It must be added to the cloudlet length
@@ -305,6 +403,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	@Override
 	public Cloudlet migrateCloudlet() {
 		ResCloudlet rgl = getCloudletExecList().remove(0);
+		removePesInUse(rgl);
 		rgl.finalizeCloudlet();
 		return rgl.getCloudlet();
 	}
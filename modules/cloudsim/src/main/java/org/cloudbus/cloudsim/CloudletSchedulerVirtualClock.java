@@ -0,0 +1,323 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * CloudletSchedulerVirtualClock shares the PEs of a VM among its cloudlets as the
+ * {@link CloudletSchedulerTimeShared}, but keeps the running cloudlets in a min-heap ordered by
+ * their virtual finish time, so that an update does not need to advance every cloudlet.
+ * <p>
+ * All the running cloudlets progress at the same rate per PE, the capacity of a PE. The scheduler
+ * keeps a virtual clock counting the instructions executed so far by each PE used by a cloudlet,
+ * and the virtual finish time of a cloudlet is the value of this clock when the cloudlet will
+ * have executed all its instructions. An update just advances the virtual clock and removes from
+ * the heap the cloudlets whose virtual finish time has passed, in O(log k) for each finished
+ * cloudlet of the k running ones; the next finish time is the one of the heap top. When nothing
+ * finishes the update costs O(1). Each cloudlet also knows its position in the exec list, so that
+ * a cloudlet leaves the exec list in O(1) by moving the last one to its place, and pausing,
+ * canceling or migrating a running cloudlet costs O(log k) as well.
+ * <p>
+ * The progress of a running cloudlet is only brought up to date when it leaves the exec list, by
+ * finishing, pausing, being canceled or migrated, so the remaining length of the
+ * {@link ResCloudlet ResCloudlets} in the exec list is the one of when they entered it, and the
+ * exec list is not kept in the order the cloudlets entered it. Cloudlets must be added and
+ * removed through the methods of the scheduler, not by changing the exec list directly, and the
+ * running cloudlets must have different ids.
+ * <p>
+ * A cloudlet finishes when all its instructions are executed, while the time-shared scheduler
+ * estimates the finish times from the remaining length rounded down to a MI, so the finish times
+ * of the two schedulers may differ by the time needed to execute a MI. Combined with
+ * {@link Datacenter#setCompletionTracking(boolean)}, the datacenter only looks for finished
+ * cloudlets in the VMs where some finished.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudletSchedulerTimeShared
+ */
+public class CloudletSchedulerVirtualClock extends CloudletSchedulerTimeShared {
+
+	/** The positions of a running cloudlet in the heap and in the exec list, with its virtual times. */
+	private static class Entry {
+
+		/** The cloudlet. */
+		private final ResCloudlet rcl;
+
+		/** The insertion sequence, ordering the cloudlets with the same finish time. */
+		private final long sequence;
+
+		/** The virtual time when the progress of the cloudlet was last updated. */
+		private double syncTime;
+
+		/** The virtual time when the cloudlet finishes. */
+		private double finishTime;
+
+		/** The index of the entry in the heap. */
+		private int index;
+
+		/** The index of the cloudlet in the exec list. */
+		private int position;
+
+		private Entry(ResCloudlet rcl, long sequence) {
+			this.rcl = rcl;
+			this.sequence = sequence;
+		}
+
+		private boolean before(Entry other) {
+			return finishTime < other.finishTime
+					|| (finishTime == other.finishTime && sequence < other.sequence);
+		}
+	}
+
+	/**
+	 * The instructions per PE that may be left to a cloudlet considered finished, absorbing the
+	 * rounding errors of the virtual clock.
+	 */
+	private static final double FINISH_TOLERANCE = 1000;
+
+	/** The virtual clock, in instructions executed by each PE used by a cloudlet. */
+	private double virtualTime;
+
+	/** The running cloudlets, as a binary min-heap ordered by virtual finish time. */
+	private Entry[] heap = new Entry[16];
+
+	/** The number of cloudlets in the heap. */
+	private int heapSize;
+
+	/** The heap entry of each running cloudlet, by cloudlet id. */
+	private final Map<Integer, Entry> entries = new HashMap<>();
+
+	/** The next insertion sequence. */
+	private long nextSequence;
+
+	/**
+	 * Creates a new CloudletSchedulerVirtualClock object.
+	 */
+	public CloudletSchedulerVirtualClock() {
+		super();
+	}
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+		double timeSpam = currentTime - getPreviousTime();
+		setPreviousTime(currentTime);
+		if (getCloudletExecList().isEmpty()) {
+			virtualTime = 0.0;
+			return 0.0;
+		}
+
+		virtualTime += getCapacity(mipsShare) * timeSpam * Consts.MILLION;
+		while (heapSize > 0 && heap[0].finishTime <= virtualTime + FINISH_TOLERANCE) {
+			Entry entry = heap[0];
+			leave(entry);
+			cloudletFinish(entry.rcl);
+		}
+
+		if (heapSize == 0) {
+			virtualTime = 0.0;
+			return Double.MAX_VALUE;
+		}
+
+		// estimate the finish time of the first cloudlet
+		double capacity = getCapacity(mipsShare) * Consts.MILLION;
+		if (capacity <= 0.0) {
+			return Double.MAX_VALUE;
+		}
+		double estimatedFinishTime = currentTime + (heap[0].finishTime - virtualTime) / capacity;
+		if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+			estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+		}
+		return estimatedFinishTime;
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		double time = super.cloudletSubmit(cloudlet, fileTransferTime);
+		add(getCloudletExecList().get(getCloudletExecList().size() - 1));
+		return time;
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		int size = getCloudletExecList().size();
+		double time = super.cloudletResume(cloudletId);
+		if (getCloudletExecList().size() > size) {
+			add(getCloudletExecList().get(size));
+		}
+		return time;
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		Entry entry = entries.get(cloudletId);
+		if (entry == null) {
+			return super.cloudletPause(cloudletId);
+		}
+		ResCloudlet rcl = leave(entry);
+		if (rcl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rcl);
+		} else {
+			rcl.setCloudletStatus(Cloudlet.PAUSED);
+			getCloudletPausedList().add(rcl);
+		}
+		return true;
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		Entry entry = entries.get(cloudletId);
+		if (entry == null) {
+			return super.cloudletCancel(cloudletId);
+		}
+		ResCloudlet rcl = leave(entry);
+		if (rcl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rcl);
+		} else {
+			rcl.setCloudletStatus(Cloudlet.CANCELED);
+		}
+		return rcl.getCloudlet();
+	}
+
+	@Override
+	public Cloudlet migrateCloudlet() {
+		ResCloudlet rcl = getCloudletExecList().get(0);
+		Entry entry = entries.get(rcl.getCloudletId());
+		if (entry == null) {
+			return super.migrateCloudlet();
+		}
+		leave(entry);
+		rcl.finalizeCloudlet();
+		return rcl.getCloudlet();
+	}
+
+	/**
+	 * Gets the virtual clock of the scheduler.
+	 *
+	 * @return the instructions executed so far by each PE used by a cloudlet
+	 */
+	public double getVirtualTime() {
+		return virtualTime;
+	}
+
+	/**
+	 * Brings up to date the progress of a running cloudlet, and removes it from the heap and from
+	 * the exec list, where the last cloudlet takes its place.
+	 *
+	 * @param entry the entry of the cloudlet
+	 * @return the cloudlet
+	 */
+	private ResCloudlet leave(Entry entry) {
+		sync(entry);
+		remove(entry);
+		List<ResCloudlet> execList = getCloudletExecList();
+		ResCloudlet last = execList.remove(execList.size() - 1);
+		if (last != entry.rcl) {
+			execList.set(entry.position, last);
+			entries.get(last.getCloudletId()).position = entry.position;
+		}
+		removePesInUse(entry.rcl);
+		return entry.rcl;
+	}
+
+	/**
+	 * Adds to the heap a cloudlet just added at the end of the exec list.
+	 *
+	 * @param rcl the cloudlet
+	 */
+	private void add(ResCloudlet rcl) {
+		Entry entry = new Entry(rcl, nextSequence++);
+		entry.syncTime = virtualTime;
+		entry.finishTime = getFinishTime(rcl);
+		entry.position = getCloudletExecList().size() - 1;
+		entries.put(rcl.getCloudletId(), entry);
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, heapSize * 2);
+		}
+		entry.index = heapSize++;
+		heap[entry.index] = entry;
+		siftUp(entry);
+	}
+
+	/**
+	 * Gets the virtual finish time of a cloudlet whose progress is up to date.
+	 *
+	 * @param rcl the cloudlet
+	 * @return the virtual finish time
+	 */
+	private double getFinishTime(ResCloudlet rcl) {
+		long remaining = rcl.getCloudletTotalLength() * Consts.MILLION - rcl.getCloudletFinishedSoFar();
+		return virtualTime + (double) Math.max(remaining, 0) / rcl.getNumberOfPes();
+	}
+
+	/**
+	 * Adds to a cloudlet the instructions executed since its progress was last updated.
+	 *
+	 * @param entry the entry of the cloudlet
+	 */
+	private void sync(Entry entry) {
+		entry.rcl.updateCloudletFinishedSoFar(
+				Math.round((virtualTime - entry.syncTime) * entry.rcl.getNumberOfPes()));
+		entry.syncTime = virtualTime;
+	}
+
+	private void remove(Entry entry) {
+		entries.remove(entry.rcl.getCloudletId());
+		Entry last = heap[--heapSize];
+		heap[heapSize] = null;
+		if (last != entry) {
+			last.index = entry.index;
+			heap[last.index] = last;
+			siftUp(last);
+			siftDown(last);
+		}
+	}
+
+	private void siftUp(Entry entry) {
+		int index = entry.index;
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (!entry.before(heap[parent])) {
+				break;
+			}
+			heap[index] = heap[parent];
+			heap[index].index = index;
+			index = parent;
+		}
+		heap[index] = entry;
+		entry.index = index;
+	}
+
+	private void siftDown(Entry entry) {
+		int index = entry.index;
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heap[child + 1].before(heap[child])) {
+				child++;
+			}
+			if (!heap[child].before(entry)) {
+				break;
+			}
+			heap[index] = heap[child];
+			heap[index].index = index;
+			index = child;
+		}
+		heap[index] = entry;
+		entry.index = index;
+	}
+
+}
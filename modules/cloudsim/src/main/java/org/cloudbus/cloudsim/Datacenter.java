@@ -8,15 +8,21 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 
 /**
  * Datacenter class is a CloudResource whose hostList are virtualized. It deals with processing of
@@ -59,6 +65,99 @@ public class Datacenter extends SimEntity {
 	/** The scheduling delay to process each datacenter received event. */
 	private double schedulingInterval;
 
+	/**
+	 * Indicates if the internal {@link CloudSimTags#VM_DATACENTER_EVENT} events are coalesced,
+	 * keeping at most one of them pending at any time.
+	 * @see #scheduleNextWakeup(double)
+	 */
+	private boolean wakeupCoalescing;
+
+	/** The time of the pending internal update event, or {@link Double#MAX_VALUE} if there is none. */
+	private double wakeupTime = Double.MAX_VALUE;
+
+	/**
+	 * The times of the requested internal update events that have not been processed yet, including
+	 * the pending one. Only the earliest of them is in the future event queue.
+	 */
+	private final TreeSet<Double> wakeupTimes = new TreeSet<>();
+
+	/** The data of the internal update events scheduled while coalescing, telling them apart. */
+	private final Object wakeupData = new Object();
+
+	/** Matches the pending internal update event. */
+	private final Predicate wakeupPredicate = new Predicate() {
+
+		@Override
+		public boolean match(SimEvent ev) {
+			return ev.getTag() == CloudSimTags.VM_DATACENTER_EVENT && ev.getData() == wakeupData;
+		}
+	};
+
+	/** The number of internal update events actually scheduled. */
+	private long scheduledWakeups;
+
+	/** The number of internal update requests dropped since their time was already recorded. */
+	private long suppressedWakeups;
+
+	/** The number of internal update requests recorded for later, behind the pending event. */
+	private long deferredWakeups;
+
+	/** The number of pending internal update events replaced by an earlier one. */
+	private long replacedWakeups;
+
+	/**
+	 * Indicates if the VMs with finished cloudlets are recorded as they are updated, so that
+	 * {@link #checkCloudletCompletion()} only looks at them.
+	 * @see #addCompletedVm(Vm)
+	 */
+	private boolean completionTracking;
+
+	/** The VMs recorded with finished cloudlets since the last completion check. */
+	private final List<Vm> completedVms = new ArrayList<>();
+
+	/**
+	 * Indicates if an update only processes the hosts changed since their last update and the ones
+	 * whose next event is due, instead of all the hosts.
+	 * @see #getHostsToUpdate()
+	 */
+	private boolean hostTracking;
+
+	/** The hosts changed since their last update. */
+	private final Set<Host> dirtyHosts = new HashSet<>();
+
+	/** The hosts with running cloudlets at their last update. */
+	private final Set<Host> activeHosts = new HashSet<>();
+
+	/** The last time each host was updated. */
+	private final Map<Host, Double> hostUpdateTimes = new HashMap<>();
+
+	/** The time of the next event expected by each host at its last update. */
+	private final Map<Host, Double> hostEventTimes = new HashMap<>();
+
+	/**
+	 * The next events expected by the hosts, ordered by time. An event is stale if the host
+	 * expected another time at a later update.
+	 */
+	private final PriorityQueue<HostEvent> hostEvents = new PriorityQueue<>(
+			Comparator.comparingDouble(HostEvent::getTime));
+
+	/** The next event expected by a host. */
+	private static class HostEvent {
+
+		private final Host host;
+
+		private final double time;
+
+		private HostEvent(Host host, double time) {
+			this.host = host;
+			this.time = time;
+		}
+
+		private double getTime() {
+			return time;
+		}
+	}
+
 	/**
 	 * Allocates a new Datacenter object.
 	 * 
@@ -208,8 +307,12 @@ public class Datacenter extends SimEntity {
 			case CloudSimTags.VM_DATA_DEL -> processDataDelete(ev, false);
 			case CloudSimTags.VM_DATA_DEL_ACK -> processDataDelete(ev, true);
 			case CloudSimTags.VM_DATACENTER_EVENT -> {
-				updateCloudletProcessing();
-				checkCloudletCompletion();
+				if (ev.getSource() == getId() && ev.getData() == wakeupData) {
+					processWakeup();
+				} else {
+					updateCloudletProcessing();
+					checkCloudletCompletion();
+				}
 			}
 
 			// other unknown tags are processed by this method
@@ -397,6 +500,8 @@ public class Datacenter extends SimEntity {
 	protected void processVmCreate(SimEvent ev, boolean ack) {
 		Vm vm = (Vm) ev.getData();
 
+		// the new VM may change the MIPS of the VMs on any host
+		catchUpActiveHosts();
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
 
 		if (ack) {
@@ -421,6 +526,7 @@ public class Datacenter extends SimEntity {
 
 			vm.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(vm).getVmScheduler()
 					.getAllocatedMipsForVm(vm));
+			markHostDirty(getVmAllocationPolicy().getHost(vm));
 		}
 
 	}
@@ -439,6 +545,7 @@ public class Datacenter extends SimEntity {
 	 */
 	protected void processVmDestroy(SimEvent ev, boolean ack) {
 		Vm vm = (Vm) ev.getData();
+		markHostDirty(vm.getHost());
 		getVmAllocationPolicy().deallocateHostForVm(vm);
 
 		if (ack) {
@@ -476,6 +583,9 @@ public class Datacenter extends SimEntity {
 		Vm vm = (Vm) migrate.get("vm");
 		Host host = (Host) migrate.get("host");
 		
+		markHostDirty(vm.getHost());
+		markHostDirty(host);
+
 		//destroy VM in src host
 		getVmAllocationPolicy().deallocateHostForVm(vm);
 		host.removeMigratingInVm(vm);
@@ -580,8 +690,9 @@ public class Datacenter extends SimEntity {
 		int destId = array[4];
 
 		// get the cloudlet
-		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletCancel(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		markHostDirty(host);
+		Cloudlet cl = host.getVm(vmId,userId).getCloudletScheduler().cloudletCancel(cloudletId);
 
 		boolean failed = false;
 		if (cl == null) {// cloudlet doesn't exist
@@ -602,12 +713,14 @@ public class Datacenter extends SimEntity {
 
 			// the cloudlet will migrate from one vm to another does the destination VM exist?
 			if (destId == getId()) {
-				Vm vm = getVmAllocationPolicy().getHost(vmDestId, userId).getVm(vmDestId,userId);
+				Host destHost = getVmAllocationPolicy().getHost(vmDestId, userId);
+				Vm vm = destHost.getVm(vmDestId,userId);
 				if (vm == null) {
 					failed = true;
 				} else {
 					// time to transfer the files
 					double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
+					markHostDirty(destHost);
 					vm.getCloudletScheduler().cloudletSubmit(cl, fileTransferTime);
 				}
 			} else {// the cloudlet will migrate from one resource to another
@@ -689,13 +802,14 @@ public class Datacenter extends SimEntity {
 
 			Host host = getVmAllocationPolicy().getHost(vmId, userId);
 			Vm vm = host.getVm(vmId, userId);
+			markHostDirty(host);
 			CloudletScheduler scheduler = vm.getCloudletScheduler();
 			double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
 
 			// if this cloudlet is in the exec queue
 			if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
 				estimatedFinishTime += fileTransferTime;
-				send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+				scheduleNextWakeup(estimatedFinishTime);
 			}
 
 			if (ack) {
@@ -754,14 +868,15 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletResume(int cloudletId, int userId, int vmId, boolean ack) {
-		double eventTime = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletResume(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		markHostDirty(host);
+		double eventTime = host.getVm(vmId,userId).getCloudletScheduler().cloudletResume(cloudletId);
 
 		boolean status = false;
 		if (eventTime > 0.0) { // if this cloudlet is in the exec queue
 			status = true;
 			if (eventTime > CloudSim.clock()) {
-				schedule(getId(), eventTime, CloudSimTags.VM_DATACENTER_EVENT);
+				scheduleNextWakeup(eventTime);
 			}
 		}
 
@@ -791,8 +906,14 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletPause(int cloudletId, int userId, int vmId, boolean ack) {
-		boolean status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletPause(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		markHostDirty(host);
+		Vm vm = host.getVm(vmId,userId);
+		boolean status = vm.getCloudletScheduler().cloudletPause(cloudletId);
+		// a cloudlet paused when it had nothing left to execute finishes
+		if (vm.getCloudletScheduler().isFinishedCloudlets()) {
+			addCompletedVm(vm);
+		}
 
 		if (ack) {
 			int[] data = new int[3];
@@ -818,8 +939,9 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletCancel(int cloudletId, int userId, int vmId) {
-		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletCancel(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		markHostDirty(host);
+		Cloudlet cl = host.getVm(vmId,userId).getCloudletScheduler().cloudletCancel(cloudletId);
 		sendNow(userId, CloudSimTags.CLOUDLET_CANCEL, cl);
 	}
 
@@ -836,28 +958,94 @@ public class Datacenter extends SimEntity {
 		// R: for term is to allow loop at simulation start. Otherwise, one initial
 		// simulation step is skipped and schedulers are not properly initialized
 		if (CloudSim.clock() < 0.111 || CloudSim.clock() >= getLastProcessTime() + CloudSim.getMinTimeBetweenEvents()) {
-			List<? extends Host> list = getVmAllocationPolicy().getHostList();
+			List<? extends Host> list = getHostsToUpdate();
 			double smallerTime = Double.MAX_VALUE;
 			// for each host...
 			for (Host host : list) {
 				// inform VMs to update processing
 				double time = host.updateVmsProcessing(CloudSim.clock());
+				setHostUpdated(host, time);
 				// what time do we expect that the next cloudlet will finish?
 				if (time < smallerTime) {
 					smallerTime = time;
 				}
 			}
+			// and the hosts not updated
+			smallerTime = Math.min(smallerTime, getNextHostEventTime());
 			// gurantees a minimal interval before scheduling the event
 			if (smallerTime < CloudSim.clock() + CloudSim.getMinTimeBetweenEvents() + 0.01) {
 				smallerTime = CloudSim.clock() + CloudSim.getMinTimeBetweenEvents() + 0.01;
 			}
 			if (smallerTime != Double.MAX_VALUE) {
-				schedule(getId(), (smallerTime - CloudSim.clock()), CloudSimTags.VM_DATACENTER_EVENT);
+				scheduleNextWakeup(smallerTime - CloudSim.clock());
 			}
 			setLastProcessTime(CloudSim.clock());
 		}
 	}
 
+	/**
+	 * Schedules an internal {@link CloudSimTags#VM_DATACENTER_EVENT} to update the processing of
+	 * the cloudlets after a given delay. If {@link #isWakeupCoalescing() coalescing} is enabled,
+	 * the datacenter keeps at most one of these events in the future event queue: a request for
+	 * a time already recorded is dropped, a request later than the pending event is only
+	 * recorded, and an earlier one replaces the pending event. Once the pending event is processed, the earliest recorded time is
+	 * scheduled, so every requested update still happens at its own time.
+	 * 
+	 * @param delay the delay of the event
+	 */
+	protected void scheduleNextWakeup(double delay) {
+		if (!isWakeupCoalescing()) {
+			schedule(getId(), delay, CloudSimTags.VM_DATACENTER_EVENT);
+			return;
+		}
+
+		double time = CloudSim.clock() + delay;
+		if (!wakeupTimes.add(time)) {
+			suppressedWakeups++;
+			return;
+		}
+		if (time > wakeupTimes.first()) {
+			deferredWakeups++;
+			return;
+		}
+		if (wakeupTime != Double.MAX_VALUE) {
+			CloudSim.cancel(getId(), wakeupPredicate);
+			replacedWakeups++;
+		}
+		schedule(getId(), delay, CloudSimTags.VM_DATACENTER_EVENT, wakeupData);
+		scheduledWakeups++;
+		wakeupTime = time;
+	}
+
+	/**
+	 * Processes the pending internal update event scheduled by {@link #scheduleNextWakeup(double)}
+	 * and schedules the earliest of the recorded update times that are still to come.
+	 */
+	private void processWakeup() {
+		double time = Math.max(wakeupTime, CloudSim.clock());
+		wakeupTime = Double.MAX_VALUE;
+		while (!wakeupTimes.isEmpty() && wakeupTimes.first() <= time) {
+			wakeupTimes.pollFirst();
+		}
+
+		updateCloudletProcessing();
+		checkCloudletCompletion();
+
+		if (wakeupTime == Double.MAX_VALUE && !wakeupTimes.isEmpty()) {
+			wakeupTime = wakeupTimes.first();
+			// the event must happen at the recorded time itself, not one ulp away from it
+			double delay = wakeupTime - CloudSim.clock();
+			while (CloudSim.clock() + delay < wakeupTime) {
+				delay = Math.nextUp(delay);
+			}
+			while (CloudSim.clock() + delay > wakeupTime) {
+				delay = Math.nextDown(delay);
+			}
+			schedule(getId(), delay, CloudSimTags.VM_DATACENTER_EVENT, wakeupData);
+			scheduledWakeups++;
+		}
+	}
+
 	/**
 	 * Verifies if some cloudlet inside this Datacenter already finished. 
          * If yes, send it to the User/Broker
@@ -866,19 +1054,206 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void checkCloudletCompletion() {
+		if (isCompletionTracking() || isHostTracking()) {
+			for (int i = 0; i < completedVms.size(); i++) {
+				returnFinishedCloudlets(completedVms.get(i));
+			}
+			completedVms.clear();
+			return;
+		}
 		List<? extends Host> list = getVmAllocationPolicy().getHostList();
 		for (Host host : list) {
 			for (Vm vm : host.getVmList()) {
-				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-					if (cl != null) {
-						sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-					}
-				}
+				returnFinishedCloudlets(vm);
+			}
+		}
+	}
+
+	/**
+	 * Sends the finished cloudlets of a VM to their users.
+	 * 
+	 * @param vm the VM
+	 */
+	private void returnFinishedCloudlets(Vm vm) {
+		while (vm.getCloudletScheduler().isFinishedCloudlets()) {
+			Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
+			if (cl != null) {
+				returnCloudlet(cl);
 			}
 		}
 	}
 
+	/**
+	 * Sends a finished cloudlet to its user.
+	 * 
+	 * @param cl the cloudlet
+	 */
+	protected void returnCloudlet(Cloudlet cl) {
+		sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+	}
+
+	/**
+	 * Records that a VM of this datacenter has finished cloudlets, when
+	 * {@link #isCompletionTracking() completion tracking} or {@link #isHostTracking() host
+	 * tracking} is enabled. It is called by the VMs after updating their cloudlets.
+	 * 
+	 * @param vm the VM
+	 */
+	public void addCompletedVm(Vm vm) {
+		if (isCompletionTracking() || isHostTracking()) {
+			completedVms.add(vm);
+		}
+	}
+
+	/**
+	 * Gets the hosts to update in an update of the cloudlets processing. Without
+	 * {@link #isHostTracking() host tracking} these are all the hosts. Otherwise they are the
+	 * hosts changed since their last update, the ones whose next event is due, and, if the
+	 * updates of the hosts can't be deferred, the ones with running cloudlets. The caller must
+	 * report the update of each host with {@link #setHostUpdated(Host, double)}.
+	 * 
+	 * @param <T> the generic type
+	 * @return the hosts to update, ordered by id when host tracking is enabled
+	 */
+	protected <T extends Host> List<T> getHostsToUpdate() {
+		if (!isHostTracking()) {
+			return getVmAllocationPolicy().getHostList();
+		}
+
+		double time = CloudSim.clock() + CloudSim.getMinTimeBetweenEvents();
+		while (!hostEvents.isEmpty() && hostEvents.peek().time <= time) {
+			HostEvent event = hostEvents.poll();
+			Double eventTime = hostEventTimes.get(event.host);
+			if (eventTime != null && eventTime == event.time) {
+				hostEventTimes.remove(event.host);
+				dirtyHosts.add(event.host);
+			}
+		}
+		if (!isHostUpdateDeferrable()) {
+			dirtyHosts.addAll(activeHosts);
+		}
+
+		@SuppressWarnings("unchecked")
+		List<T> hosts = new ArrayList<>((Set<T>) dirtyHosts);
+		dirtyHosts.clear();
+		hosts.sort(Comparator.comparingInt(Host::getId));
+		return hosts;
+	}
+
+	/**
+	 * Records the update of a host returned by {@link #getHostsToUpdate()}, with the time of its
+	 * next event, when {@link #isHostTracking() host tracking} is enabled.
+	 * 
+	 * @param host the host
+	 * @param nextEventTime the time returned by {@link Host#updateVmsProcessing(double)}
+	 */
+	protected void setHostUpdated(Host host, double nextEventTime) {
+		if (isHostTracking()) {
+			setHostUpdated(host, CloudSim.clock(), nextEventTime);
+		}
+	}
+
+	private void setHostUpdated(Host host, double time, double nextEventTime) {
+		hostUpdateTimes.put(host, time);
+		if (isHostActive(host)) {
+			activeHosts.add(host);
+		} else {
+			activeHosts.remove(host);
+		}
+
+		if (nextEventTime > 0.0 && nextEventTime != Double.MAX_VALUE) {
+			Double previous = hostEventTimes.put(host, nextEventTime);
+			if (previous == null || previous != nextEventTime) {
+				hostEvents.add(new HostEvent(host, nextEventTime));
+			}
+		} else {
+			hostEventTimes.remove(host);
+		}
+	}
+
+	/**
+	 * Gets the time of the earliest next event expected by a host, so that an update scheduling
+	 * the next one also accounts for the hosts it did not update.
+	 * 
+	 * @return the time of the next event, or {@link Double#MAX_VALUE} if no host expects one
+	 */
+	protected double getNextHostEventTime() {
+		while (!hostEvents.isEmpty()) {
+			HostEvent event = hostEvents.peek();
+			Double eventTime = hostEventTimes.get(event.host);
+			if (eventTime != null && eventTime == event.time) {
+				return event.time;
+			}
+			hostEvents.poll();
+		}
+		return Double.MAX_VALUE;
+	}
+
+	/**
+	 * Marks a host as changed, so that the next update processes it, when
+	 * {@link #isHostTracking() host tracking} is enabled. It must be called before changing the
+	 * cloudlets or the VMs of the host: if the host was not updated at the last update of the
+	 * datacenter, it is brought up to that time first, since the next update accounts the time
+	 * since the last one with the new state of the host.
+	 * 
+	 * @param host the host, ignored if null
+	 */
+	protected void markHostDirty(Host host) {
+		if (!isHostTracking() || host == null) {
+			return;
+		}
+		// a host never updated has run no cloudlets
+		Double updateTime = hostUpdateTimes.get(host);
+		if (updateTime != null && updateTime < getLastProcessTime()) {
+			setHostUpdated(host, getLastProcessTime(), host.updateVmsProcessing(getLastProcessTime()));
+		}
+		dirtyHosts.add(host);
+	}
+
+	/**
+	 * Brings up to the last update of the datacenter the hosts with running cloudlets not
+	 * updated then, before a change that may affect any host.
+	 */
+	private void catchUpActiveHosts() {
+		if (!isHostTracking()) {
+			return;
+		}
+		for (Host host : new ArrayList<>(activeHosts)) {
+			if (hostUpdateTimes.get(host) < getLastProcessTime()) {
+				setHostUpdated(host, getLastProcessTime(), host.updateVmsProcessing(getLastProcessTime()));
+			}
+		}
+	}
+
+	/**
+	 * Checks if a host has to be updated while nothing changes in it, i.e., if it has running
+	 * cloudlets. Subclasses whose hosts change in other ways can extend it.
+	 * 
+	 * @param host the host
+	 * @return true, if the host is active
+	 */
+	protected boolean isHostActive(Host host) {
+		for (Vm vm : host.getVmList()) {
+			if (vm.getCloudletScheduler().runningCloudlets() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if an active host whose state does not change can be updated only at the time of its
+	 * next event, which is exact when the progress of its cloudlets only depends on the MIPS of
+	 * their VMs. Datacenters whose hosts progress in other ways, like by time-varying utilization
+	 * models or network transfers, return false so that their active hosts are updated by every
+	 * update, and only the idle ones are skipped.
+	 * 
+	 * @return true, if the update of a host can be deferred to its next event
+	 */
+	protected boolean isHostUpdateDeferrable() {
+		return true;
+	}
+
 	/**
 	 * Adds a file into the resource's storage before the experiment starts. 
          * If the file is a master file, then it will be registered to the RC 
@@ -982,6 +1357,11 @@ public class Datacenter extends SimEntity {
 	@Override
 	public void shutdownEntity() {
 		Log.printConcatLine(getName(), " is shutting down...");
+		if (isWakeupCoalescing()) {
+			Log.printConcatLine(getName(), ": ", getScheduledWakeups(), " update events scheduled, ",
+					getSuppressedWakeups(), " suppressed, ", getDeferredWakeups(), " deferred, ",
+					getReplacedWakeups(), " replaced");
+		}
 	}
 
 	@Override
@@ -1138,4 +1518,128 @@ public class Datacenter extends SimEntity {
 		this.schedulingInterval = schedulingInterval;
 	}
 
+	/**
+	 * Checks if the internal update events are coalesced.
+	 * 
+	 * @return true, if at most one internal update event is kept pending
+	 * @see #scheduleNextWakeup(double)
+	 */
+	public boolean isWakeupCoalescing() {
+		return wakeupCoalescing;
+	}
+
+	/**
+	 * Enables or disables the coalescing of the internal update events. It should not be enabled
+	 * for datacenters that schedule or cancel {@link CloudSimTags#VM_DATACENTER_EVENT} events on
+	 * their own, such as the power-aware ones, since cancelling the pending event would drop the
+	 * updates recorded after it.
+	 * 
+	 * @param wakeupCoalescing true to keep at most one internal update event pending
+	 * @see #scheduleNextWakeup(double)
+	 */
+	public void setWakeupCoalescing(boolean wakeupCoalescing) {
+		this.wakeupCoalescing = wakeupCoalescing;
+	}
+
+	/**
+	 * Gets the number of internal update events actually scheduled while coalescing is enabled.
+	 * 
+	 * @return the number of scheduled events
+	 */
+	public long getScheduledWakeups() {
+		return scheduledWakeups;
+	}
+
+	/**
+	 * Gets the number of internal update requests dropped, since an update at the same time was
+	 * already requested.
+	 * 
+	 * @return the number of suppressed requests
+	 */
+	public long getSuppressedWakeups() {
+		return suppressedWakeups;
+	}
+
+	/**
+	 * Gets the number of internal update requests later than the pending event, whose time was
+	 * recorded and is scheduled once the earlier events are processed.
+	 * 
+	 * @return the number of deferred requests
+	 */
+	public long getDeferredWakeups() {
+		return deferredWakeups;
+	}
+
+	/**
+	 * Gets the number of pending internal update events replaced by an earlier one.
+	 * 
+	 * @return the number of replaced events
+	 */
+	public long getReplacedWakeups() {
+		return replacedWakeups;
+	}
+
+	/**
+	 * Checks if the VMs with finished cloudlets are tracked.
+	 * 
+	 * @return true, if {@link #checkCloudletCompletion()} only looks at the VMs recorded with
+	 *         finished cloudlets
+	 * @see #addCompletedVm(Vm)
+	 */
+	public boolean isCompletionTracking() {
+		return completionTracking;
+	}
+
+	/**
+	 * Enables or disables the tracking of the VMs with finished cloudlets. When it is enabled,
+	 * {@link #checkCloudletCompletion()} returns the finished cloudlets of the VMs recorded since
+	 * the last check instead of sweeping all the VMs of all the hosts. It should only be enabled
+	 * if the cloudlets finish while the VMs are updated, as with the schedulers of this package,
+	 * and not for datacenters whose VMs are updated without
+	 * {@link Vm#updateVmProcessing(double, List)}.
+	 * 
+	 * @param completionTracking true to track the VMs with finished cloudlets
+	 * @see CloudletSchedulerVirtualClock
+	 */
+	public void setCompletionTracking(boolean completionTracking) {
+		this.completionTracking = completionTracking;
+		completedVms.clear();
+	}
+
+	/**
+	 * Checks if the hosts to update are tracked.
+	 * 
+	 * @return true, if an update only processes the hosts changed since their last update and the
+	 *         ones whose next event is due
+	 * @see #getHostsToUpdate()
+	 */
+	public boolean isHostTracking() {
+		return hostTracking;
+	}
+
+	/**
+	 * Enables or disables the tracking of the hosts to update. When it is enabled, an update of
+	 * the cloudlets processing skips the hosts that did not change since their last update and
+	 * whose next event is not due, keeping the next events of the hosts in a priority queue, and
+	 * {@link #checkCloudletCompletion()} only looks at the VMs with finished cloudlets, as with
+	 * {@link #setCompletionTracking(boolean) completion tracking}. It should be enabled before the
+	 * simulation starts, and only if the hosts are changed through the datacenter.
+	 * 
+	 * @param hostTracking true to track the hosts to update
+	 * @see #isHostUpdateDeferrable()
+	 */
+	public void setHostTracking(boolean hostTracking) {
+		this.hostTracking = hostTracking;
+		completedVms.clear();
+		activeHosts.clear();
+		hostUpdateTimes.clear();
+		hostEventTimes.clear();
+		hostEvents.clear();
+		dirtyHosts.clear();
+		if (hostTracking) {
+			// the first update processes all the hosts
+			dirtyHosts.addAll(getHostList());
+		}
+	}
+
 }
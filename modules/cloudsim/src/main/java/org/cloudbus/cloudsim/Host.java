@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * A Host is a Physical Machine (PM) inside a Datacenter. It is also called as a Server.
@@ -45,6 +46,9 @@ public class Host {
 	/** The list of VMs assigned to the host. */
 	private final List<? extends Vm> vmList = new ArrayList<>();
 
+	/** The VMs of {@link #vmList} by {@link Vm#getKey() VM key}, to find them without a scan. */
+	private final LongHashMap<Vm> vmIndex = new LongHashMap<>();
+
 	/** The Processing Elements (PEs) of the host, that
          * represent the CPU cores of it, and thus, its processing capacity. */
 	private List<? extends Pe> peList;
@@ -152,6 +156,7 @@ public class Host {
 
 			getVmsMigratingIn().add(vm);
 			getVmList().add(vm);
+			vmIndex.put(vm.getKey(), vm);
 			updateVmsProcessing(CloudSim.clock());
 			vm.getHost().updateVmsProcessing(CloudSim.clock());
 		}
@@ -166,6 +171,7 @@ public class Host {
 		vmDeallocate(vm);
 		getVmsMigratingIn().remove(vm);
 		getVmList().remove(vm);
+		unindexVm(vm);
 		getVmScheduler().getVmsMigratingIn().remove(vm.getUid());
 		vm.setInMigration(false);
 	}
@@ -178,6 +184,7 @@ public class Host {
 		for (Vm vm : getVmsMigratingIn()) {
 			if (!getVmList().contains(vm)) {
 				getVmList().add(vm);
+				vmIndex.put(vm.getKey(), vm);
 			}
 			if (!getVmScheduler().getVmsMigratingIn().contains(vm.getUid())) {
 				getVmScheduler().getVmsMigratingIn().add(vm.getUid());
@@ -241,6 +248,7 @@ public class Host {
 
 		setStorage(getStorage() - vm.getSize());
 		getVmList().add(vm);
+		vmIndex.put(vm.getKey(), vm);
 		vm.setHost(this);
 		return true;
 	}
@@ -256,6 +264,7 @@ public class Host {
 		if (vm != null) {
 			vmDeallocate(vm);
 			getVmList().remove(vm);
+			unindexVm(vm);
 			vm.setHost(null);
 		}
 	}
@@ -273,6 +282,18 @@ public class Host {
 			setStorage(getStorage() + vm.getSize());
 		}
 		getVmList().clear();
+		vmIndex.clear();
+	}
+
+	/**
+	 * Removes a VM just removed from the vm list from the index of the VMs.
+	 * 
+	 * @param vm the VM
+	 */
+	private void unindexVm(Vm vm) {
+		if (vmIndex.get(vm.getKey()) == vm) {
+			vmIndex.remove(vm.getKey());
+		}
 	}
 
 	/**
@@ -297,7 +318,8 @@ public class Host {
 	}
 
 	/**
-	 * Gets a VM by its id and user.
+	 * Gets a VM by its id and user. The VMs added and removed by the methods of the host
+	 * are found by their key; the vm list is only scanned for the others.
 	 * 
 	 * @param vmId the vm id
 	 * @param userId ID of VM's owner
@@ -306,6 +328,10 @@ public class Host {
 	 * @post $none
 	 */
 	public Vm getVm(int vmId, int userId) {
+		Vm indexed = vmIndex.get(Vm.getKey(userId, vmId));
+		if (indexed != null) {
+			return indexed;
+		}
 		for (Vm vm : getVmList()) {
 			if (vm.getId() == vmId && vm.getUserId() == userId) {
 				return vm;
@@ -482,6 +482,15 @@ public class ResCloudlet {
 		cloudletFinishedSoFar += miLength;
 	}
 
+	/**
+	 * Gets the length of cloudlet that has already been completed, on all its PEs.
+	 * 
+	 * @return the completed length in Instructions (I)
+	 */
+	public long getCloudletFinishedSoFar() {
+		return cloudletFinishedSoFar;
+	}
+
 	/**
 	 * Gets arrival time of a cloudlet.
 	 * 
@@ -152,7 +152,12 @@ public class Vm {
 	 */
 	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
 		if (mipsShare != null) {
-			return getCloudletScheduler().updateVmProcessing(currentTime, mipsShare);
+			double time = getCloudletScheduler().updateVmProcessing(currentTime, mipsShare);
+			if (getCloudletScheduler().isFinishedCloudlets() && getHost() != null
+					&& getHost().getDatacenter() != null) {
+				getHost().getDatacenter().addCompletedVm(this);
+			}
+			return time;
 		}
 		return 0.0;
 	}
@@ -275,6 +280,55 @@ public class Vm {
 		return userId + "-" + vmId;
 	}
 
+	/**
+	 * Gets the unique key of the VM, identifying it as its uid in the tables indexed by VM.
+	 *
+	 * @return the key
+	 * @see #getKey(int, int)
+	 */
+	public long getKey() {
+		return getKey(getUserId(), getId());
+	}
+
+	/**
+	 * Generates the unique key of a VM, with the user id in the high 32 bits and the VM id in the
+	 * low 32 bits. Unlike the uid, it is not built for each lookup.
+	 *
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the key
+	 * @see org.cloudbus.cloudsim.util.LongHashMap
+	 */
+	public static long getKey(int userId, int vmId) {
+		return ((long) userId << 32) | (vmId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the key of a VM from its uid.
+	 *
+	 * @param uid the uid, as built by {@link #getUid(int, int)}
+	 * @return the key
+	 * @throws IllegalArgumentException if the uid is not made of two ids
+	 */
+	public static long getKey(String uid) {
+		int separator = uid.indexOf('-', 1);
+		if (separator < 0) {
+			throw new IllegalArgumentException("Invalid VM uid: " + uid);
+		}
+		return getKey(Integer.parseInt(uid.substring(0, separator)),
+				Integer.parseInt(uid.substring(separator + 1)));
+	}
+
+	/**
+	 * Gets the uid of a VM from its key.
+	 *
+	 * @param key the key, as built by {@link #getKey(int, int)}
+	 * @return the uid
+	 */
+	public static String getUid(long key) {
+		return getUid((int) (key >> 32), (int) key);
+	}
+
 	/**
 	 * Gets the VM id.
 	 * 
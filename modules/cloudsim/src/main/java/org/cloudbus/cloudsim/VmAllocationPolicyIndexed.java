@@ -0,0 +1,285 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * VmAllocationPolicyIndexed is a {@link VmAllocationPolicySimple} that keeps the free PEs of the
+ * hosts in an index, so that choosing a host costs O(log H) for H hosts instead of a scan of all
+ * the hosts. It supports three ways of choosing the host of a VM, given by {@link Fit}.
+ * <p>
+ * The free PEs of the hosts are kept in a segment tree, a complete binary tree whose leaves are
+ * the free PEs of the hosts in the order of the host list and whose inner nodes are the maximum
+ * of their children, which finds the first host with enough free PEs and the host with most free
+ * PEs. The best fit also keeps the hosts in a sorted set by free PEs. When a host fails to create
+ * the VM, it is masked from the index until the allocation ends, and the next host is chosen the
+ * same way.
+ * <p>
+ * With {@link Fit#WORST_FIT} the policy chooses the same hosts as
+ * {@link VmAllocationPolicySimple}, including trying the hosts with fewer free PEs than the VM
+ * requires, which a time-shared {@link VmScheduler} may still accept. With the other fits, only
+ * the hosts with enough free PEs are tried.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see VmAllocationPolicySimple
+ */
+public class VmAllocationPolicyIndexed extends VmAllocationPolicySimple {
+
+	/**
+	 * The ways of choosing the host of a VM.
+	 */
+	public enum Fit {
+
+		/** The first host of the host list with enough free PEs. */
+		FIRST_FIT,
+
+		/** The host with the fewest free PEs among those with enough, the first one on ties. */
+		BEST_FIT,
+
+		/** The host with the most free PEs, the first one on ties. */
+		WORST_FIT
+	}
+
+	/** The value of the hosts masked from the index. */
+	private static final int MASKED = Integer.MIN_VALUE;
+
+	/** The way of choosing the host of a VM. */
+	private final Fit fit;
+
+	/** The free PEs of each host in the index, or {@link #MASKED}. */
+	private final int[] indexedPes;
+
+	/**
+	 * The segment tree, where node 1 is the root, the children of node i are nodes 2i and 2i+1,
+	 * and the leaves start at {@link #leaves}.
+	 */
+	private final int[] tree;
+
+	/** The index of the first leaf in the tree, a power of two not less than the number of hosts. */
+	private final int leaves;
+
+	/**
+	 * The hosts sorted by free PEs then by position, as given by {@link #getSortKey(int, int)},
+	 * only kept for {@link Fit#BEST_FIT}.
+	 */
+	private final TreeSet<Long> sortedHosts;
+
+	/** The position of each host in the host list. */
+	private final Map<Host, Integer> hostIndex = new IdentityHashMap<>();
+
+	/**
+	 * Creates a new VmAllocationPolicyIndexed object choosing the host with most free PEs, as
+	 * {@link VmAllocationPolicySimple}.
+	 *
+	 * @param list the list of hosts
+	 * @pre $none
+	 * @post $none
+	 */
+	public VmAllocationPolicyIndexed(List<? extends Host> list) {
+		this(list, Fit.WORST_FIT);
+	}
+
+	/**
+	 * Creates a new VmAllocationPolicyIndexed object.
+	 *
+	 * @param list the list of hosts
+	 * @param fit the way of choosing the host of a VM
+	 * @pre $none
+	 * @post $none
+	 */
+	public VmAllocationPolicyIndexed(List<? extends Host> list, Fit fit) {
+		super(list);
+		this.fit = fit;
+
+		int hosts = getHostList().size();
+		int size = 1;
+		while (size < hosts) {
+			size *= 2;
+		}
+		leaves = size;
+		tree = new int[2 * size];
+		Arrays.fill(tree, MASKED);
+		indexedPes = new int[hosts];
+		Arrays.fill(indexedPes, MASKED);
+		sortedHosts = fit == Fit.BEST_FIT ? new TreeSet<>() : null;
+
+		for (int i = 0; i < hosts; i++) {
+			hostIndex.put(getHostList().get(i), i);
+			updateIndex(i, getFreePes().get(i));
+		}
+	}
+
+	/**
+	 * Allocates a host for a given VM, chosen as given by {@link #getFit()}.
+	 *
+	 * @param vm {@inheritDoc}
+	 * @return {@inheritDoc}
+	 * @pre $none
+	 * @post $none
+	 */
+	@Override
+	public boolean allocateHostForVm(Vm vm) {
+		if (getVmTableByKey().containsKey(vm.getKey())) { // if this vm was already created
+			return false;
+		}
+
+		int requiredPes = vm.getNumberOfPes();
+		List<Integer> masked = new ArrayList<>();
+		boolean result = false;
+		int idx;
+		while ((idx = findHost(requiredPes)) >= 0) {
+			Host host = getHostList().get(idx);
+			if (host.vmCreate(vm)) { // if vm were succesfully created in the host
+				getVmTableByKey().put(vm.getKey(), host);
+				getUsedPesByKey().put(vm.getKey(), requiredPes);
+				setHostFreePes(idx, getFreePes().get(idx) - requiredPes);
+				result = true;
+				break;
+			}
+			// the host is not tried again for this vm
+			updateIndex(idx, MASKED);
+			masked.add(idx);
+		}
+
+		for (int i : masked) {
+			updateIndex(i, getFreePes().get(i));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean allocateHostForVm(Vm vm, Host host) {
+		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
+			getVmTableByKey().put(vm.getKey(), host);
+
+			int requiredPes = vm.getNumberOfPes();
+			int idx = hostIndex.get(host);
+			getUsedPesByKey().put(vm.getKey(), requiredPes);
+			setHostFreePes(idx, getFreePes().get(idx) - requiredPes);
+
+			Log.formatLine(
+					"%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
+					CloudSim.clock());
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void deallocateHostForVm(Vm vm) {
+		Host host = getVmTableByKey().remove(vm.getKey());
+		Integer pes = getUsedPesByKey().remove(vm.getKey());
+		if (host != null) {
+			host.vmDestroy(vm);
+			int idx = hostIndex.get(host);
+			setHostFreePes(idx, getFreePes().get(idx) + pes);
+		}
+	}
+
+	/**
+	 * Gets the way of choosing the host of a VM.
+	 *
+	 * @return the fit
+	 */
+	public Fit getFit() {
+		return fit;
+	}
+
+	/**
+	 * Finds the host to try for a VM among the hosts in the index.
+	 *
+	 * @param requiredPes the number of PEs of the VM
+	 * @return the position of the host in the host list, or -1 if there is none to try
+	 */
+	protected int findHost(int requiredPes) {
+		switch (fit) {
+			case FIRST_FIT:
+				return findFirst(requiredPes);
+			case BEST_FIT:
+				Long key = sortedHosts.ceiling(getSortKey(requiredPes, 0));
+				return key == null ? -1 : (int) (key & 0xFFFFFFFFL);
+			default:
+				return findFirst(tree[1]);
+		}
+	}
+
+	/**
+	 * Finds the first host in the index with at least some free PEs, following from the root the
+	 * left child whenever its maximum is enough.
+	 *
+	 * @param minFreePes the minimum free PEs
+	 * @return the position of the host in the host list, or -1 if there is none
+	 */
+	private int findFirst(int minFreePes) {
+		if (tree[1] == MASKED || tree[1] < minFreePes) {
+			return -1;
+		}
+		int node = 1;
+		while (node < leaves) {
+			node = tree[2 * node] >= minFreePes ? 2 * node : 2 * node + 1;
+		}
+		return node - leaves;
+	}
+
+	/**
+	 * Sets the free PEs of a host, in the free pes list and in the index.
+	 *
+	 * @param idx the position of the host in the host list
+	 * @param freePes the free PEs
+	 */
+	private void setHostFreePes(int idx, int freePes) {
+		getFreePes().set(idx, freePes);
+		updateIndex(idx, freePes);
+	}
+
+	/**
+	 * Updates the free PEs of a host in the index, in O(log H).
+	 *
+	 * @param idx the position of the host in the host list
+	 * @param freePes the free PEs, or {@link #MASKED} to leave the host out of the index
+	 */
+	private void updateIndex(int idx, int freePes) {
+		if (sortedHosts != null) {
+			if (indexedPes[idx] != MASKED) {
+				sortedHosts.remove(getSortKey(indexedPes[idx], idx));
+			}
+			if (freePes != MASKED) {
+				sortedHosts.add(getSortKey(freePes, idx));
+			}
+		}
+		indexedPes[idx] = freePes;
+
+		int node = leaves + idx;
+		tree[node] = freePes;
+		for (node /= 2; node >= 1; node /= 2) {
+			tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+		}
+	}
+
+	/**
+	 * Gets the key of a host in the sorted hosts, ordering the hosts by free PEs then by position.
+	 *
+	 * @param freePes the free PEs of the host
+	 * @param idx the position of the host in the host list
+	 * @return the key
+	 */
+	private static long getSortKey(int freePes, int idx) {
+		return ((long) freePes << 32) | idx;
+	}
+
+}
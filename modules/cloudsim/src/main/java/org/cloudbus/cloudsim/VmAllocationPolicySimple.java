@@ -9,11 +9,11 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * VmAllocationPolicySimple is an VmAllocationPolicy that chooses, as the host for a VM, the host
@@ -27,12 +27,12 @@ import org.cloudbus.cloudsim.core.CloudSim;
 public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 	/** The map between each VM and its allocated host.
-         * The map key is a VM UID and the value is the allocated host for that VM. */
-	private Map<String, Host> vmTable;
+         * The map key is a VM key and the value is the allocated host for that VM. */
+	private LongHashMap<Host> vmTable;
 
 	/** The map between each VM and the number of Pes used. 
-         * The map key is a VM UID and the value is the number of used Pes for that VM. */
-	private Map<String, Integer> usedPes;
+         * The map key is a VM key and the value is the number of used Pes for that VM. */
+	private LongHashMap<Integer> usedPes;
 
 	/** The number of free Pes for each host from {@link #getHostList() }. */
 	private List<Integer> freePes;
@@ -53,8 +53,8 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 		}
 
-		setVmTable(new HashMap<>());
-		setUsedPes(new HashMap<>());
+		setVmTableByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
+		setUsedPesByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 	}
 
 	/**
@@ -72,7 +72,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 		int tries = 0;
 		List<Integer> freePesTmp = new ArrayList<>(getFreePes());
 
-		if (!getVmTable().containsKey(vm.getUid())) { // if this vm was not created
+		if (!getVmTableByKey().containsKey(vm.getKey())) { // if this vm was not created
 			do {// we still trying until we find a host or until we try all of them
 				int moreFree = Integer.MIN_VALUE;
 				int idx = -1;
@@ -89,8 +89,8 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 				result = host.vmCreate(vm);
 
 				if (result) { // if vm were succesfully created in the host
-					getVmTable().put(vm.getUid(), host);
-					getUsedPes().put(vm.getUid(), requiredPes);
+					getVmTableByKey().put(vm.getKey(), host);
+					getUsedPesByKey().put(vm.getKey(), requiredPes);
 					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
 					result = true;
 					break;
@@ -107,9 +107,9 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 	@Override
 	public void deallocateHostForVm(Vm vm) {
-		Host host = getVmTable().remove(vm.getUid());
+		Host host = getVmTableByKey().remove(vm.getKey());
 		int idx = getHostList().indexOf(host);
-		int pes = getUsedPes().remove(vm.getUid());
+		int pes = getUsedPesByKey().remove(vm.getKey());
 		if (host != null) {
 			host.vmDestroy(vm);
 			getFreePes().set(idx, getFreePes().get(idx) + pes);
@@ -118,47 +118,87 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getVmTableByKey().get(vm.getKey());
 	}
 
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return getVmTableByKey().get(Vm.getKey(userId, vmId));
 	}
 
 	/**
-	 * Gets the vm table.
+	 * Gets the vm table, as a view keyed by VM uid.
 	 * 
 	 * @return the vm table
+	 * @see #getVmTableByKey()
 	 */
 	public Map<String, Host> getVmTable() {
-		return vmTable;
+		return vmTable.asMap();
 	}
 
 	/**
-	 * Sets the vm table.
+	 * Sets the vm table, copying a map keyed by VM uid.
 	 * 
 	 * @param vmTable the vm table
+	 * @see #setVmTableByKey(LongHashMap)
 	 */
 	protected void setVmTable(Map<String, Host> vmTable) {
+		setVmTableByKey(LongHashMap.copyOf(vmTable, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the vm table, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the vm table
+	 */
+	public LongHashMap<Host> getVmTableByKey() {
+		return vmTable;
+	}
+
+	/**
+	 * Sets the vm table, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param vmTable the vm table
+	 */
+	protected void setVmTableByKey(LongHashMap<Host> vmTable) {
 		this.vmTable = vmTable;
 	}
 
 	/**
-	 * Gets the used pes.
+	 * Gets the used pes, as a view keyed by VM uid.
 	 * 
 	 * @return the used pes
+	 * @see #getUsedPesByKey()
 	 */
 	protected Map<String, Integer> getUsedPes() {
-		return usedPes;
+		return usedPes.asMap();
 	}
 
 	/**
-	 * Sets the used pes.
+	 * Sets the used pes, copying a map keyed by VM uid.
 	 * 
 	 * @param usedPes the used pes
+	 * @see #setUsedPesByKey(LongHashMap)
 	 */
 	protected void setUsedPes(Map<String, Integer> usedPes) {
+		setUsedPesByKey(LongHashMap.copyOf(usedPes, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the used pes, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the used pes
+	 */
+	protected LongHashMap<Integer> getUsedPesByKey() {
+		return usedPes;
+	}
+
+	/**
+	 * Sets the used pes, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param usedPes the used pes
+	 */
+	protected void setUsedPesByKey(LongHashMap<Integer> usedPes) {
 		this.usedPes = usedPes;
 	}
 
@@ -189,11 +229,11 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	@Override
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
-			getVmTable().put(vm.getUid(), host);
+			getVmTableByKey().put(vm.getKey(), host);
 
 			int requiredPes = vm.getNumberOfPes();
 			int idx = getHostList().indexOf(host);
-			getUsedPes().put(vm.getUid(), requiredPes);
+			getUsedPesByKey().put(vm.getKey(), requiredPes);
 			getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
 
 			Log.formatLine(
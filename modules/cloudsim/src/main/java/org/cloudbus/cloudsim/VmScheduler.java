@@ -8,11 +8,11 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * VmScheduler is an abstract class that represents the policy used by a Virtual Machine Monitor (VMM) 
@@ -30,11 +30,11 @@ public abstract class VmScheduler {
 	/** The PEs of the host where the scheduler is associated. */
 	private List<? extends Pe> peList;
 
-	/** The map of VMs to PEs, where each key is a VM id and each value is 
+	/** The map of VMs to PEs, where each key is a VM key and each value is 
          * a list of PEs allocated to that VM. */
-	private Map<String, List<Pe>> peMap;
+	private LongHashMap<List<Pe>> peMap;
 
-	/** The map of VMs to MIPS, were each key is a VM id and each value is 
+	/** The map of VMs to MIPS, were each key is a VM key and each value is 
          * the currently allocated MIPS from the respective PE to that VM. 
          * The PEs where the MIPS capacity is get are defined
          * in the {@link #peMap}.
@@ -44,7 +44,7 @@ public abstract class VmScheduler {
          * may be confused with this one. So, the name of this one
          * may be changed to something such as allocatedMipsMap
          */
-	private Map<String, List<Double>> mipsMap;
+	private LongHashMap<List<Double>> mipsMap;
 
 	/** The total available MIPS that can be allocated on demand for VMs. */
 	private double availableMips;
@@ -64,8 +64,8 @@ public abstract class VmScheduler {
 	 */
 	public VmScheduler(List<? extends Pe> pelist) {
 		setPeList(pelist);
-		setPeMap(new HashMap<>());
-		setMipsMap(new HashMap<>());
+		setPeMapByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
+		setMipsMapByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 		setAvailableMips(PeList.getTotalMips(getPeList()));
 		setVmsMigratingIn(new ArrayList<>());
 		setVmsMigratingOut(new ArrayList<>());
@@ -100,7 +100,7 @@ public abstract class VmScheduler {
 	 * @post $none
 	 */
 	public void deallocatePesForAllVms() {
-		getMipsMap().clear();
+		getMipsMapByKey().clear();
 		setAvailableMips(PeList.getTotalMips(getPeList()));
 		for (Pe pe : getPeList()) {
 			pe.getPeProvisioner().deallocateMipsForAllVms();
@@ -114,7 +114,7 @@ public abstract class VmScheduler {
 	 * @return the pes allocated for the given vm
 	 */
 	public List<Pe> getPesAllocatedForVM(Vm vm) {
-		return getPeMap().get(vm.getUid());
+		return getPeMapByKey().get(vm.getKey());
 	}
 
 	/**
@@ -126,7 +126,7 @@ public abstract class VmScheduler {
 	 * @post $none
 	 */
 	public List<Double> getAllocatedMipsForVm(Vm vm) {
-		return getMipsMap().get(vm.getUid());
+		return getMipsMapByKey().get(vm.getKey());
 	}
 
 	/**
@@ -208,20 +208,40 @@ public abstract class VmScheduler {
 	}
 
 	/**
-	 * Gets the mips map.
+	 * Gets the mips map, as a view keyed by VM uid.
 	 * 
 	 * @return the mips map
+	 * @see #getMipsMapByKey()
 	 */
 	protected Map<String, List<Double>> getMipsMap() {
-		return mipsMap;
+		return mipsMap.asMap();
 	}
 
 	/**
-	 * Sets the mips map.
+	 * Sets the mips map, copying a map keyed by VM uid.
 	 * 
 	 * @param mipsMap the mips map
+	 * @see #setMipsMapByKey(LongHashMap)
 	 */
 	protected void setMipsMap(Map<String, List<Double>> mipsMap) {
+		setMipsMapByKey(LongHashMap.copyOf(mipsMap, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the mips map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the mips map
+	 */
+	protected LongHashMap<List<Double>> getMipsMapByKey() {
+		return mipsMap;
+	}
+
+	/**
+	 * Sets the mips map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param mipsMap the mips map
+	 */
+	protected void setMipsMapByKey(LongHashMap<List<Double>> mipsMap) {
 		this.mipsMap = mipsMap;
 	}
 
@@ -280,20 +300,60 @@ public abstract class VmScheduler {
 	}
 
 	/**
-	 * Gets the pe map.
+	 * Checks if a VM is migrating out of the host, building its uid only if some VM is.
+	 *
+	 * @param vmKey the vm key, as given by {@link Vm#getKey()}
+	 * @return true, if the VM is in the vms migrating out
+	 */
+	protected boolean isVmMigratingOut(long vmKey) {
+		return !getVmsMigratingOut().isEmpty() && getVmsMigratingOut().contains(Vm.getUid(vmKey));
+	}
+
+	/**
+	 * Checks if a VM is migrating into the host, building its uid only if some VM is.
+	 *
+	 * @param vmKey the vm key, as given by {@link Vm#getKey()}
+	 * @return true, if the VM is in the vms migrating in
+	 */
+	protected boolean isVmMigratingIn(long vmKey) {
+		return !getVmsMigratingIn().isEmpty() && getVmsMigratingIn().contains(Vm.getUid(vmKey));
+	}
+
+	/**
+	 * Gets the pe map, as a view keyed by VM uid.
 	 * 
 	 * @return the pe map
+	 * @see #getPeMapByKey()
 	 */
 	public Map<String, List<Pe>> getPeMap() {
-		return peMap;
+		return peMap.asMap();
 	}
 
 	/**
-	 * Sets the pe map.
+	 * Sets the pe map, copying a map keyed by VM uid.
 	 * 
 	 * @param peMap the pe map
+	 * @see #setPeMapByKey(LongHashMap)
 	 */
 	protected void setPeMap(Map<String, List<Pe>> peMap) {
+		setPeMapByKey(LongHashMap.copyOf(peMap, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the pe map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the pe map
+	 */
+	public LongHashMap<List<Pe>> getPeMapByKey() {
+		return peMap;
+	}
+
+	/**
+	 * Sets the pe map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param peMap the pe map
+	 */
+	protected void setPeMapByKey(LongHashMap<List<Pe>> peMap) {
 		this.peMap = peMap;
 	}
 
@@ -9,11 +9,12 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.util.LongHashMap;
+
 /**
  * VmSchedulerSpaceShared is a VMM allocation policy that allocates one or more PEs from a host to a 
  * Virtual Machine Monitor (VMM), and doesn't allow sharing of PEs. 
@@ -28,9 +29,9 @@ import java.util.Map;
  */
 public class VmSchedulerSpaceShared extends VmScheduler {
 
-	/** A map between each VM and its allocated PEs, where the key is a VM ID and
+	/** A map between each VM and its allocated PEs, where the key is a VM key and
          * the value a list of PEs allocated to VM. */
-	private Map<String, List<Pe>> peAllocationMap;
+	private LongHashMap<List<Pe>> peAllocationMap;
 
 	/** The list of free PEs yet available in the host. */
 	private List<Pe> freePes;
@@ -42,7 +43,7 @@ public class VmSchedulerSpaceShared extends VmScheduler {
 	 */
 	public VmSchedulerSpaceShared(List<? extends Pe> pelist) {
 		super(pelist);
-		setPeAllocationMap(new HashMap<>());
+		setPeAllocationMapByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 		setFreePes(new ArrayList<>());
 		getFreePes().addAll(pelist);
 	}
@@ -74,41 +75,58 @@ public class VmSchedulerSpaceShared extends VmScheduler {
 
 		getFreePes().removeAll(selectedPes);
 
-		getPeAllocationMap().put(vm.getUid(), selectedPes);
-		getMipsMap().put(vm.getUid(), mipsShare);
+		getPeAllocationMapByKey().put(vm.getKey(), selectedPes);
+		getMipsMapByKey().put(vm.getKey(), mipsShare);
 		setAvailableMips(getAvailableMips() - totalMips);
 		return true;
 	}
 
 	@Override
 	public void deallocatePesForVm(Vm vm) {
-		getFreePes().addAll(getPeAllocationMap().get(vm.getUid()));
-		getPeAllocationMap().remove(vm.getUid());
+		getFreePes().addAll(getPeAllocationMapByKey().remove(vm.getKey()));
 
 		double totalMips = 0;
-		for (double mips : getMipsMap().get(vm.getUid())) {
+		for (double mips : getMipsMapByKey().remove(vm.getKey())) {
 			totalMips += mips;
 		}
 		setAvailableMips(getAvailableMips() + totalMips);
-
-		getMipsMap().remove(vm.getUid());
 	}
 
 	/**
-	 * Sets the pe allocation map.
+	 * Sets the pe allocation map, copying a map keyed by VM uid.
 	 * 
 	 * @param peAllocationMap the pe allocation map
+	 * @see #setPeAllocationMapByKey(LongHashMap)
 	 */
 	protected void setPeAllocationMap(Map<String, List<Pe>> peAllocationMap) {
-		this.peAllocationMap = peAllocationMap;
+		setPeAllocationMapByKey(LongHashMap.copyOf(peAllocationMap, Vm::getKey, Vm::getUid));
 	}
 
 	/**
-	 * Gets the pe allocation map.
+	 * Gets the pe allocation map, as a view keyed by VM uid.
 	 * 
 	 * @return the pe allocation map
+	 * @see #getPeAllocationMapByKey()
 	 */
 	protected Map<String, List<Pe>> getPeAllocationMap() {
+		return peAllocationMap.asMap();
+	}
+
+	/**
+	 * Sets the pe allocation map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param peAllocationMap the pe allocation map
+	 */
+	protected void setPeAllocationMapByKey(LongHashMap<List<Pe>> peAllocationMap) {
+		this.peAllocationMap = peAllocationMap;
+	}
+
+	/**
+	 * Gets the pe allocation map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the pe allocation map
+	 */
+	protected LongHashMap<List<Pe>> getPeAllocationMapByKey() {
 		return peAllocationMap;
 	}
 
@@ -8,7 +8,6 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,6 +15,7 @@ import java.util.Map;
 
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.PeProvisioner;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * VmSchedulerTimeShared is a Virtual Machine Monitor (VMM) allocation policy that allocates one or more PEs 
@@ -31,10 +31,10 @@ import org.cloudbus.cloudsim.provisioners.PeProvisioner;
  */
 public class VmSchedulerTimeShared extends VmScheduler {
 
-	/** The map of requested mips, where each key is a VM
+	/** The map of requested mips, where each key is a VM key
          * and each value is a list of MIPS requested by that VM. 
          */
-	private Map<String, List<Double>> mipsMapRequested;
+	private LongHashMap<List<Double>> mipsMapRequested;
 
 	/** The number of host's PEs in use. */
 	private int pesInUse;
@@ -46,7 +46,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 */
 	public VmSchedulerTimeShared(List<? extends Pe> pelist) {
 		super(pelist);
-		setMipsMapRequested(new HashMap<>());
+		setMipsMapRequestedByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 	}
 
 	@Override
@@ -61,7 +61,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 		} else {
 			getVmsMigratingOut().remove(vm.getUid());
 		}
-		boolean result = allocatePesForVm(vm.getUid(), mipsShareRequested);
+		boolean result = allocatePesForVm(vm.getKey(), mipsShareRequested);
 		updatePeProvisioning();
 		return result;
 	}
@@ -74,6 +74,17 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 * @return true, if successful
 	 */
 	protected boolean allocatePesForVm(String vmUid, List<Double> mipsShareRequested) {
+		return allocatePesForVm(Vm.getKey(vmUid), mipsShareRequested);
+	}
+
+	/**
+	 * Allocate PEs for a vm.
+	 * 
+	 * @param vmKey the vm key, as given by {@link Vm#getKey()}
+	 * @param mipsShareRequested the list of mips share requested by the vm
+	 * @return true, if successful
+	 */
+	protected boolean allocatePesForVm(long vmKey, List<Double> mipsShareRequested) {
 		double totalRequestedMips = 0;
 		double peMips = getPeCapacity();
 		for (Double mips : mipsShareRequested) {
@@ -89,27 +100,29 @@ public class VmSchedulerTimeShared extends VmScheduler {
 			return false;
 		}
 
-		getMipsMapRequested().put(vmUid, mipsShareRequested);
+		getMipsMapRequestedByKey().put(vmKey, mipsShareRequested);
 		setPesInUse(getPesInUse() + mipsShareRequested.size());
 
-		if (getVmsMigratingIn().contains(vmUid)) {
+		boolean migratingIn = isVmMigratingIn(vmKey);
+		boolean migratingOut = isVmMigratingOut(vmKey);
+		if (migratingIn) {
 			// the destination host only experience 10% of the migrating VM's MIPS
 			totalRequestedMips *= 0.1;
 		}
 
 		List<Double> mipsShareAllocated = new ArrayList<>();
 		for (Double mipsRequested : mipsShareRequested) {
-			if (getVmsMigratingOut().contains(vmUid)) {
+			if (migratingOut) {
 				// performance degradation due to migration = 10% MIPS
 				mipsRequested *= 0.9;
-			} else if (getVmsMigratingIn().contains(vmUid)) {
+			} else if (migratingIn) {
 				// the destination host only experience 10% of the migrating VM's MIPS
 				mipsRequested *= 0.1;
 			}
 			mipsShareAllocated.add(mipsRequested);
 		}
 
-		getMipsMap().put(vmUid, mipsShareAllocated);
+		getMipsMapByKey().put(vmKey, mipsShareAllocated);
 		setAvailableMips(getAvailableMips() - totalRequestedMips);
 
 		return true;
@@ -121,7 +134,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
          * responsibility.
 	 */
 	protected void updatePeProvisioning() {
-		getPeMap().clear();
+		getPeMapByKey().clear();
 		for (Pe pe : getPeList()) {
 			pe.getPeProvisioner().deallocateMipsForAllVms();
 		}
@@ -131,26 +144,26 @@ public class VmSchedulerTimeShared extends VmScheduler {
 		PeProvisioner peProvisioner = pe.getPeProvisioner();
 		double availableMips = peProvisioner.getAvailableMips();
 
-		for (Map.Entry<String, List<Double>> entry : getMipsMap().entrySet()) {
-			String vmUid = entry.getKey();
-			getPeMap().put(vmUid, new LinkedList<>());
+		for (long vmKey : getMipsMapByKey().keys()) {
+			List<Pe> vmPes = new LinkedList<>();
+			getPeMapByKey().put(vmKey, vmPes);
 
-			for (double mips : entry.getValue()) {
+			for (double mips : getMipsMapByKey().get(vmKey)) {
 				while (mips >= 0.1) {
 					if (availableMips >= mips) {
-						peProvisioner.allocateMipsForVm(vmUid, mips);
-						getPeMap().get(vmUid).add(pe);
+						peProvisioner.allocateMipsForVm(vmKey, mips);
+						vmPes.add(pe);
 						availableMips -= mips;
 						break;
 					} else {
-						peProvisioner.allocateMipsForVm(vmUid, availableMips);
-						getPeMap().get(vmUid).add(pe);
+						peProvisioner.allocateMipsForVm(vmKey, availableMips);
+						vmPes.add(pe);
 						mips -= availableMips;
 						if (mips <= 0.1) {
 							break;
 						}
 						if (!peIterator.hasNext()) {
-							Log.printConcatLine("There is no enough MIPS (", mips, ") to accommodate VM ", vmUid);
+							Log.printConcatLine("There is no enough MIPS (", mips, ") to accommodate VM ", Vm.getUid(vmKey));
 							// System.exit(0);
 						}
 						pe = peIterator.next();
@@ -164,18 +177,17 @@ public class VmSchedulerTimeShared extends VmScheduler {
 
 	@Override
 	public void deallocatePesForVm(Vm vm) {
-		getMipsMapRequested().remove(vm.getUid());
+		getMipsMapRequestedByKey().remove(vm.getKey());
 		setPesInUse(0);
-		getMipsMap().clear();
+		getMipsMapByKey().clear();
 		setAvailableMips(PeList.getTotalMips(getPeList()));
 
 		for (Pe pe : getPeList()) {
 			pe.getPeProvisioner().deallocateMipsForVm(vm);
 		}
 
-		for (Map.Entry<String, List<Double>> entry : getMipsMapRequested().entrySet()) {
-			allocatePesForVm(entry.getKey(), entry.getValue());
-		}
+		// re-allocating a VM only replaces its requested mips, so the map can be iterated
+		getMipsMapRequestedByKey().forEach(this::allocatePesForVm);
 
 		updatePeProvisioning();
 	}
@@ -189,7 +201,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	@Override
 	public void deallocatePesForAllVms() {
 		super.deallocatePesForAllVms();
-		getMipsMapRequested().clear();
+		getMipsMapRequestedByKey().clear();
 		setPesInUse(0);
 	}
 
@@ -223,20 +235,40 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	}
 
 	/**
-	 * Gets the mips map requested.
+	 * Gets the mips map requested, as a view keyed by VM uid.
 	 * 
 	 * @return the mips map requested
+	 * @see #getMipsMapRequestedByKey()
 	 */
 	protected Map<String, List<Double>> getMipsMapRequested() {
-		return mipsMapRequested;
+		return mipsMapRequested.asMap();
 	}
 
 	/**
-	 * Sets the mips map requested.
+	 * Sets the mips map requested, copying a map keyed by VM uid.
 	 * 
 	 * @param mipsMapRequested the mips map requested
+	 * @see #setMipsMapRequestedByKey(LongHashMap)
 	 */
 	protected void setMipsMapRequested(Map<String, List<Double>> mipsMapRequested) {
+		setMipsMapRequestedByKey(LongHashMap.copyOf(mipsMapRequested, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the mips map requested, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the mips map requested
+	 */
+	protected LongHashMap<List<Double>> getMipsMapRequestedByKey() {
+		return mipsMapRequested;
+	}
+
+	/**
+	 * Sets the mips map requested, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param mipsMapRequested the mips map requested
+	 */
+	protected void setMipsMapRequestedByKey(LongHashMap<List<Double>> mipsMapRequested) {
 		this.mipsMapRequested = mipsMapRequested;
 	}
 
@@ -8,12 +8,10 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * This is a Time-Shared VM Scheduler, which allows over-subscription. In other words, the scheduler
@@ -42,12 +40,12 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
          * It cannot be allocated more CPU capacity for each virtual PE than the MIPS 
          * capacity of a single physical PE.
 	 * 
-	 * @param vmUid the vm uid
+	 * @param vmKey the vm key, as given by {@link Vm#getKey()}
 	 * @param mipsShareRequested the list of mips share requested
 	 * @return true, if successful
 	 */
 	@Override
-	protected boolean allocatePesForVm(String vmUid, List<Double> mipsShareRequested) {
+	protected boolean allocatePesForVm(long vmKey, List<Double> mipsShareRequested) {
 		double totalRequestedMips = 0;
 
 		// if the requested mips is bigger than the capacity of a single PE, we cap
@@ -64,10 +62,12 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 			}
 		}
 
-		getMipsMapRequested().put(vmUid, mipsShareRequested);
+		getMipsMapRequestedByKey().put(vmKey, mipsShareRequested);
 		setPesInUse(getPesInUse() + mipsShareRequested.size());
 
-		if (getVmsMigratingIn().contains(vmUid)) {
+		boolean migratingIn = isVmMigratingIn(vmKey);
+		boolean migratingOut = isVmMigratingOut(vmKey);
+		if (migratingIn) {
 			// the destination host only experience 10% of the migrating VM's MIPS
 			totalRequestedMips *= 0.1;
 		}
@@ -75,17 +75,17 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		if (getAvailableMips() >= totalRequestedMips) {
 			List<Double> mipsShareAllocated = new ArrayList<>();
 			for (Double mipsRequested : mipsShareRequestedCapped) {
-				if (getVmsMigratingOut().contains(vmUid)) {
+				if (migratingOut) {
 					// performance degradation due to migration = 10% MIPS
 					mipsRequested *= 0.9;
-				} else if (getVmsMigratingIn().contains(vmUid)) {
+				} else if (migratingIn) {
 					// the destination host only experience 10% of the migrating VM's MIPS
 					mipsRequested *= 0.1;
 				}
 				mipsShareAllocated.add(mipsRequested);
 			}
 
-			getMipsMap().put(vmUid, mipsShareAllocated);
+			getMipsMapByKey().put(vmKey, mipsShareAllocated);
 			setAvailableMips(getAvailableMips() - totalRequestedMips);
 		} else {
 			redistributeMipsDueToOverSubscription();
@@ -103,12 +103,11 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		// proportionally
 		double totalRequiredMipsByAllVms = 0;
 
-		Map<String, List<Double>> mipsMapCapped = new HashMap<>();
-		for (Entry<String, List<Double>> entry : getMipsMapRequested().entrySet()) {
+		LongHashMap<List<Double>> mipsMapCapped = new LongHashMap<>(getMipsMapRequestedByKey().size());
+		for (long vmKey : getMipsMapRequestedByKey().keys()) {
 
 			double requiredMipsByThisVm = 0.0;
-			String vmId = entry.getKey();
-			List<Double> mipsShareRequested = entry.getValue();
+			List<Double> mipsShareRequested = getMipsMapRequestedByKey().get(vmKey);
 			List<Double> mipsShareRequestedCapped = new ArrayList<>();
 			double peMips = getPeCapacity();
 			for (Double mips : mipsShareRequested) {
@@ -121,9 +120,9 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 				}
 			}
 
-			mipsMapCapped.put(vmId, mipsShareRequestedCapped);
+			mipsMapCapped.put(vmKey, mipsShareRequestedCapped);
 
-			if (getVmsMigratingIn().contains(entry.getKey())) {
+			if (isVmMigratingIn(vmKey)) {
 				// the destination host only experience 10% of the migrating VM's MIPS
 				requiredMipsByThisVm *= 0.1;
 			}
@@ -134,21 +133,22 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		double scalingFactor = totalAvailableMips / totalRequiredMipsByAllVms;
 
 		// Clear the old MIPS allocation
-		getMipsMap().clear();
+		getMipsMapByKey().clear();
 
 		// Update the actual MIPS allocated to the VMs
-		for (Entry<String, List<Double>> entry : mipsMapCapped.entrySet()) {
-			String vmUid = entry.getKey();
-			List<Double> requestedMips = entry.getValue();
+		for (long vmKey : mipsMapCapped.keys()) {
+			List<Double> requestedMips = mipsMapCapped.get(vmKey);
+			boolean migratingIn = isVmMigratingIn(vmKey);
+			boolean migratingOut = isVmMigratingOut(vmKey);
 
 			List<Double> updatedMipsAllocation = new ArrayList<>();
 			for (Double mips : requestedMips) {
-				if (getVmsMigratingOut().contains(vmUid)) {
+				if (migratingOut) {
 					// the original amount is scaled
 					mips *= scalingFactor;
 					// performance degradation due to migration = 10% MIPS
 					mips *= 0.9;
-				} else if (getVmsMigratingIn().contains(vmUid)) {
+				} else if (migratingIn) {
 					// the destination host only experiences 10% of the migrating VM's MIPS
 					mips *= 0.1;
 					// the final 10% of the requested MIPS are scaled
@@ -161,7 +161,7 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 			}
 
 			// add in the new map
-			getMipsMap().put(vmUid, updatedMipsAllocation);
+			getMipsMapByKey().put(vmKey, updatedMipsAllocation);
 
 		}
 
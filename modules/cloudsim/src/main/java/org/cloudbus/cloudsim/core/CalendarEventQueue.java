@@ -0,0 +1,342 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event queue implemented as a calendar queue (R. Brown, "Calendar queues: a fast O(1)
+ * priority queue implementation for the simulation event set problem", Communications of the ACM,
+ * 1988). The events are hashed by time into an array of buckets, each one covering an interval of
+ * time of fixed width; the array is a "year" that wraps around. The number of buckets and their
+ * width are recomputed as the queue grows and shrinks, so that adding and removing the first event
+ * cost O(1) on average.
+ * <p>
+ * The events are ordered by time and serial number, as in the {@link FutureQueue}. Since all the
+ * events with the same time fall into the same bucket, events with the same time and serial are
+ * kept in insertion order.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see EventQueue
+ */
+public class CalendarEventQueue implements EventQueue {
+
+	/** The minimum number of buckets of the calendar. */
+	private static final int MIN_BUCKETS = 8;
+
+	/** The number of events used to estimate the width of the buckets. */
+	private static final int WIDTH_SAMPLE_SIZE = 25;
+
+	/**
+	 * The buckets of the calendar. Each bucket keeps its events in decreasing order, so that the
+	 * first event of the bucket is the last of the list.
+	 */
+	private List<SimEvent>[] buckets;
+
+	/** The interval of time covered by each bucket. */
+	private double width;
+
+	/**
+	 * The virtual bucket (i.e. the bucket number without wrapping around the year) where the
+	 * search for the first event starts. No event in the queue belongs to an earlier virtual bucket.
+	 */
+	private long current;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/** A incremental number used for {@link SimEvent#setSerial(long)} event attribute. */
+	private long serial = 0;
+
+	/**
+	 * Creates a calendar queue with buckets one time unit wide.
+	 */
+	public CalendarEventQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a calendar queue.
+	 *
+	 * @param initialWidth the initial width of the buckets. It is adjusted later to the
+	 *            separation between the events in the queue.
+	 */
+	public CalendarEventQueue(double initialWidth) {
+		if (initialWidth <= 0) {
+			throw new IllegalArgumentException("The width of the buckets should be positive, but is: " + initialWidth);
+		}
+		width = initialWidth;
+		buckets = newBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		List<SimEvent> bucket = buckets[findFirstBucket()];
+		return bucket.get(bucket.size() - 1);
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		List<SimEvent> bucket = buckets[findFirstBucket()];
+		SimEvent first = bucket.remove(bucket.size() - 1);
+		size--;
+		shrinkIfNeeded();
+		return first;
+	}
+
+	/**
+	 * Returns an iterator to the queue. The events are iterated in no particular order. The
+	 * iterator works on a copy of the queue, so that events removed through it do not disturb
+	 * the iteration.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] snapshot = toArray();
+		return new Iterator<>() {
+
+			private int cursor = 0;
+
+			private SimEvent last = null;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < snapshot.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (cursor >= snapshot.length) {
+					throw new NoSuchElementException();
+				}
+				last = snapshot[cursor++];
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				CalendarEventQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		List<SimEvent> bucket = buckets[bucketIndex(virtualBucket(event.eventTime()))];
+		for (int i = bucket.size() - 1; i >= 0; i--) {
+			if (bucket.get(i) == event) {
+				bucket.remove(i);
+				size--;
+				shrinkIfNeeded();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		buckets = newBuckets(MIN_BUCKETS);
+		current = 0;
+		size = 0;
+	}
+
+	/**
+	 * Puts an event into its bucket, after the events with the same time and serial.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		long virtual = virtualBucket(event.eventTime());
+		List<SimEvent> bucket = buckets[bucketIndex(virtual)];
+		int low = 0;
+		int high = bucket.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (compare(bucket.get(mid), event) > 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		bucket.add(low, event);
+		if (size == 0 || virtual < current) {
+			current = virtual;
+		}
+		size++;
+	}
+
+	/**
+	 * Finds the bucket holding the first event of the queue. It goes through the buckets of the
+	 * current year and, if the first event is not there, falls back to a direct search over the
+	 * first event of every bucket.
+	 *
+	 * @return the index of the bucket
+	 * @pre size > 0
+	 */
+	private int findFirstBucket() {
+		for (long virtual = current; virtual < current + buckets.length; virtual++) {
+			int index = bucketIndex(virtual);
+			List<SimEvent> bucket = buckets[index];
+			if (!bucket.isEmpty() && virtualBucket(bucket.get(bucket.size() - 1).eventTime()) <= virtual) {
+				current = virtual;
+				return index;
+			}
+		}
+
+		int first = -1;
+		SimEvent firstEvent = null;
+		for (int i = 0; i < buckets.length; i++) {
+			List<SimEvent> bucket = buckets[i];
+			if (!bucket.isEmpty()) {
+				SimEvent head = bucket.get(bucket.size() - 1);
+				if (firstEvent == null || compare(head, firstEvent) < 0) {
+					first = i;
+					firstEvent = head;
+				}
+			}
+		}
+		current = virtualBucket(firstEvent.eventTime());
+		return first;
+	}
+
+	private void shrinkIfNeeded() {
+		if (buckets.length > MIN_BUCKETS && size < buckets.length / 2) {
+			resize(buckets.length / 2);
+		}
+	}
+
+	/**
+	 * Rebuilds the calendar with a new number of buckets, estimating the width of the buckets
+	 * from the average separation between the first events of the queue.
+	 *
+	 * @param numBuckets the new number of buckets
+	 */
+	private void resize(int numBuckets) {
+		SimEvent[] events = toArray();
+		// stable sort: events with the same time and serial keep their insertion order
+		Arrays.sort(events, CalendarEventQueue::compare);
+
+		int samples = Math.min(events.length, WIDTH_SAMPLE_SIZE);
+		if (samples > 1) {
+			double average = (events[samples - 1].eventTime() - events[0].eventTime()) / (samples - 1);
+			double total = 0;
+			int count = 0;
+			for (int i = 1; i < samples; i++) {
+				double separation = events[i].eventTime() - events[i - 1].eventTime();
+				if (separation <= 2 * average) {
+					total += separation;
+					count++;
+				}
+			}
+			if (count > 0 && total > 0) {
+				width = 3 * total / count;
+			}
+		}
+
+		buckets = newBuckets(numBuckets);
+		size = 0;
+		for (SimEvent event : events) {
+			insert(event);
+		}
+	}
+
+	/**
+	 * Returns the events in the queue, taking each bucket from its first event.
+	 *
+	 * @return the events
+	 */
+	private SimEvent[] toArray() {
+		SimEvent[] events = new SimEvent[size];
+		int i = 0;
+		for (List<SimEvent> bucket : buckets) {
+			for (int j = bucket.size() - 1; j >= 0; j--) {
+				events[i++] = bucket.get(j);
+			}
+		}
+		return events;
+	}
+
+	private long virtualBucket(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	private int bucketIndex(long virtual) {
+		return (int) Math.floorMod(virtual, (long) buckets.length);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<SimEvent>[] newBuckets(int numBuckets) {
+		List<SimEvent>[] buckets = new List[numBuckets];
+		for (int i = 0; i < numBuckets; i++) {
+			buckets[i] = new ArrayList<>();
+		}
+		return buckets;
+	}
+
+	/**
+	 * Compares two events by time and serial.
+	 */
+	private static int compare(SimEvent a, SimEvent b) {
+		int result = Double.compare(a.eventTime(), b.eventTime());
+		if (result == 0) {
+			result = Long.compare(a.getSerial(), b.getSerial());
+		}
+		return result;
+	}
+
+}
@@ -161,6 +161,35 @@ public class CloudSim {
 	    init(numUser, cal, traceFlag);
 	    minTimeBetweenEvents = periodBetweenEvents;
 	}
+
+	/**
+	 * Initialises CloudSim parameters, using a given queue to hold the future events of the
+	 * simulation. This method should be called before creating any entities.
+	 * <p>
+	 * The default {@link FutureQueue} keeps the events in a sorted set; large simulations, with
+	 * millions of events, run faster with a {@link HeapEventQueue} or a {@link CalendarEventQueue}.
+	 * All of them process the events in the same order.
+	 * 
+	 * @param numUser the number of User Entities created. This parameters indicates that
+	 *            {@link CloudSimShutdown} first waits for all user entities's
+	 *            END_OF_SIMULATION signal before issuing terminate signal to other entities
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureQueue the (empty) queue of future events
+	 * @see EventQueue
+	 * @pre numUser >= 0
+	 * @pre futureQueue != null
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, EventQueue futureQueue) {
+		if (futureQueue == null || futureQueue.size() > 0) {
+			throw new IllegalArgumentException("The future event queue should be an empty queue.");
+		}
+
+		init(numUser, cal, traceFlag);
+		future = new IndexedEventQueue(futureQueue);
+	}
 	
 	
 	
@@ -305,8 +334,8 @@ public class CloudSim {
 	/** The entities. */
 	private static List<SimEntity> entities;
 
-	/** The future event queue. */
-	protected static FutureQueue future;
+	/** The future event queue, indexed by source entity to speed up the cancellation of events. */
+	protected static IndexedEventQueue future;
 
 	/** The deferred event queue. */
 	protected static DeferredQueue deferred;
@@ -343,7 +372,7 @@ public class CloudSim {
 		Log.printLine("Initialising...");
 		entities = new ArrayList<>();
 		entitiesByName = new LinkedHashMap<>();
-		future = new FutureQueue();
+		future = new IndexedEventQueue(new FutureQueue());
 		deferred = new DeferredQueue();
 		waitPredicates = new HashMap<>();
 		clock = 0;
@@ -518,30 +547,17 @@ public class CloudSim {
 				
 		// If there are more future events then deal with them
 		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<>();
-			Iterator<SimEvent> fit = future.iterator();
 			queue_empty = false;
-			SimEvent first = fit.next();
+			SimEvent first = future.poll();
 			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
 
 			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
-				}
+			SimEvent next = future.peek();
+			while (next != null && next.eventTime() == first.eventTime()) {
+				processEvent(future.poll());
+				next = future.peek();
 			}
 
-			future.removeAll(toRemove);
-
 		} else {
 			queue_empty = true;
 			running = false;
@@ -645,12 +661,14 @@ public class CloudSim {
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
+		if (p == SIM_ANY) {
+			return deferred.size(d);
+		}
+
 		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
+		Iterator<SimEvent> iterator = deferred.iterator(d);
 		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
+			if (p.match(iterator.next())) {
 				count++;
 			}
 		}
@@ -662,19 +680,18 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no event matches the predicate
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
+		Iterator<SimEvent> iterator = deferred.iterator(src);
 		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
+			SimEvent ev = iterator.next();
+			if (p.match(ev)) {
 				iterator.remove();
-				break;
+				return ev;
 			}
 		}
-		return ev;
+		return null;
 	}
 
 	/**
@@ -682,37 +699,37 @@ public class CloudSim {
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no event matches the predicate
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
+		Iterator<SimEvent> iterator = deferred.iterator(src);
 		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
+			SimEvent ev = iterator.next();
+			if (p.match(ev)) {
+				return ev;
 			}
 		}
-		return ev;
+		return null;
 	}
 
 	/**
-	 * Removes an event from the event queue.
+	 * Removes an event from the event queue. If several events match the predicate, the first one
+	 * (in temporal order) is removed.
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or <tt>null</tt> if no event matches the predicate
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
 		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
+		for (SimEvent event : future.getEvents(src, p)) {
+			if (ev == null || event.compareTo(ev) < 0) {
+				ev = event;
 			}
 		}
+		if (ev != null) {
+			future.remove(ev);
+		}
 
 		return ev;
 	}
@@ -726,16 +743,9 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
 		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
+		future.removeAll(future.getEvents(src, p));
+		return future.size() < previousSize;
 	}
 
 	//
@@ -886,8 +896,8 @@ public class CloudSim {
 			}
 
 			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.peek().eventTime())
+							|| future.size() == 0 && pauseAt <= clock)) {
 				pauseSimulation();
 				clock = pauseAt;
 			}
@@ -8,15 +8,19 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
 /**
- * This class implements the deferred event queue used by {@link CloudSim}. 
- * The event queue uses a linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link CloudSim}.
+ * The events are kept in one linked list per destination entity, so that the events
+ * waiting for a given entity can be found without going through the events of
+ * all the other entities.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see CloudSim
@@ -24,65 +28,128 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list of events. */
-	private final List<SimEvent> list = new LinkedList<>();
+	/** The lists of events, indexed by the id of their destination entity. */
+	private final List<LinkedList<SimEvent>> lists = new ArrayList<>();
 
-	/** The max time that an added event is scheduled. */
-	private double maxTime = -1;
+	/** The number of events in the queue. */
+	private int size = 0;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
-	 * of the events.
-	 * 
+	 * of the events with the same destination.
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
+		int destination = newEvent.getDestination();
+		while (lists.size() <= destination) {
+			lists.add(null);
+		}
+		LinkedList<SimEvent> list = lists.get(destination);
+		if (list == null) {
+			list = new LinkedList<>();
+			lists.set(destination, list);
+		}
+		size++;
+
 		// The event has to be inserted as the last of all events
 		// with the same event_time(). Yes, this matters.
 		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
+		if (list.isEmpty() || eventTime >= list.getLast().eventTime()) {
 			list.add(newEvent);
-			maxTime = eventTime;
 			return;
 		}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
+		// Late events are usually close to the tail, so look for the position backwards
+		ListIterator<SimEvent> iterator = list.listIterator(list.size());
+		while (iterator.hasPrevious()) {
+			if (iterator.previous().eventTime() <= eventTime) {
+				iterator.next();
 				iterator.add(newEvent);
 				return;
 			}
 		}
 
-		list.add(newEvent);
+		list.addFirst(newEvent);
+	}
+
+	/**
+	 * Returns an iterator to the events in the queue whose destination is a given entity, in
+	 * temporal order. The iterator supports {@link Iterator#remove()}.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the iterator
+	 */
+	public Iterator<SimEvent> iterator(int destination) {
+		if (destination < 0 || destination >= lists.size() || lists.get(destination) == null) {
+			return Collections.emptyIterator();
+		}
+
+		final Iterator<SimEvent> iterator = lists.get(destination).iterator();
+		return new Iterator<>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				size--;
+			}
+		};
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue. The events are grouped by destination
+	 * entity and, within each group, are in temporal order.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		List<SimEvent> events = new ArrayList<>(size);
+		for (List<SimEvent> list : lists) {
+			if (list != null) {
+				events.addAll(list);
+			}
+		}
+		return Collections.unmodifiableList(events).iterator();
+	}
+
+	/**
+	 * Returns the number of events in the queue whose destination is a given entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the number of events
+	 */
+	public int size(int destination) {
+		if (destination < 0 || destination >= lists.size() || lists.get(destination) == null) {
+			return 0;
+		}
+		return lists.get(destination).size();
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		lists.clear();
+		size = 0;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * The interface of the future event queue used by {@link CloudSim}. Implementations have to keep
+ * the events ordered by their time and, for events with the same time, by their
+ * serial number. Events having both the same time and the same serial
+ * (which only happens with {@link #addEventFirst(SimEvent)}) are returned in insertion order.
+ * <p>
+ * The queue to be used by a simulation can be selected through
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, EventQueue)}. When no queue is given,
+ * the {@link FutureQueue} is used.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueue
+ * @see HeapEventQueue
+ * @see CalendarEventQueue
+ */
+public interface EventQueue extends Iterable<SimEvent> {
+
+	/**
+	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order of
+	 * the events in the queue.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEvent(SimEvent newEvent);
+
+	/**
+	 * Adds a new event to the head of the queue, i.e. before any other event having the same time.
+	 *
+	 * @param newEvent The event to be put in the queue.
+	 */
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue, without removing it.
+	 *
+	 * @return the first event or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event or <tt>null</tt> if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Returns an iterator to the queue. Only the {@link FutureQueue} guarantees that the events
+	 * are iterated in temporal order; other implementations may return them in any order. The
+	 * iterator supports {@link Iterator#remove()}.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	Iterator<SimEvent> iterator();
+
+	/**
+	 * Returns the size of this event queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Removes the event from the queue.
+	 *
+	 * @param event the event
+	 * @return true, if successful
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue.
+	 *
+	 * @param events the events
+	 * @return true, if successful
+	 */
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Clears the queue.
+	 */
+	void clear();
+
+}
@@ -10,7 +10,6 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
 import java.util.TreeSet;
 
 /**
@@ -21,14 +20,12 @@ import java.util.TreeSet;
  * @since CloudSim Toolkit 1.0
  * @see Simulation
  * @see java.util.TreeSet
- * 
- * //TODO It would be used a common interface for queues
- * such as this one and {@link DeferredQueue}
+ * @see EventQueue
  */
-public class FutureQueue {
+public class FutureQueue implements EventQueue {
 
 	/** The sorted set of events. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<>();
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<>();
 
 	/** A incremental number used for {@link SimEvent#serial} event attribute.
          */
@@ -40,6 +37,7 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
 		sortedSet.add(newEvent);
@@ -50,16 +48,28 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
+	@Override
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
 		sortedSet.add(newEvent);
 	}
 
+	@Override
+	public SimEvent peek() {
+		return sortedSet.isEmpty() ? null : sortedSet.first();
+	}
+
+	@Override
+	public SimEvent poll() {
+		return sortedSet.pollFirst();
+	}
+
 	/**
 	 * Returns an iterator to the queue.
 	 * 
 	 * @return the iterator
 	 */
+	@Override
 	public Iterator<SimEvent> iterator() {
 		return sortedSet.iterator();
 	}
@@ -69,6 +79,7 @@ public class FutureQueue {
 	 * 
 	 * @return the size
 	 */
+	@Override
 	public int size() {
 		return sortedSet.size();
 	}
@@ -79,8 +90,22 @@ public class FutureQueue {
 	 * @param event the event
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
+		if (event.getSerial() != 0) {
+			return sortedSet.remove(event);
+		}
+
+		// events added with addEventFirst share the same serial, so they are not ordered among
+		// themselves and the tree search may miss them: they are only removed by identity
+		Iterator<SimEvent> iterator = sortedSet.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next() == event) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -89,13 +114,19 @@ public class FutureQueue {
 	 * @param events the events
 	 * @return true, if successful
 	 */
+	@Override
 	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
+	@Override
 	public void clear() {
 		sortedSet.clear();
 	}
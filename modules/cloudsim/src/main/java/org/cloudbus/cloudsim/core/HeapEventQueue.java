@@ -0,0 +1,275 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event queue backed by an implicit d-ary heap (binary when the arity is 2, 4-ary by
+ * default). Adding and removing the first event cost O(log N), and any event in the queue can be
+ * removed in O(log N) as well since each event keeps track of its position in the heap.
+ * <p>
+ * The events are ordered by time and serial number, as in the {@link FutureQueue}. Events with
+ * the same time and serial are kept in insertion order through an internal sequence number.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see EventQueue
+ */
+public class HeapEventQueue implements EventQueue {
+
+	/** The default arity of the heap. */
+	public static final int DEFAULT_ARITY = 4;
+
+	/** The initial capacity of the heap. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The number of children of each node of the heap. */
+	private final int arity;
+
+	/** The events in the heap. */
+	private SimEvent[] heap;
+
+	/** The insertion sequence of each event in the heap, used as last tie-breaker. */
+	private long[] sequence;
+
+	/** The number of events in the heap. */
+	private int size;
+
+	/** A incremental number used for {@link SimEvent#setSerial(long)} event attribute. */
+	private long serial = 0;
+
+	/** A incremental number used to keep the insertion order of the events. */
+	private long nextSequence = 0;
+
+	/**
+	 * Creates a 4-ary heap event queue.
+	 */
+	public HeapEventQueue() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a heap event queue.
+	 *
+	 * @param arity the number of children of each node (2 for a binary heap)
+	 */
+	public HeapEventQueue(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity of the heap should be at least 2, but is: " + arity);
+		}
+		this.arity = arity;
+		heap = new SimEvent[INITIAL_CAPACITY];
+		sequence = new long[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		insert(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		insert(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	/**
+	 * Returns an iterator to the queue. The events are iterated in heap order, not in temporal
+	 * order. The iterator works on a copy of the heap, so that events removed through it do not
+	 * disturb the iteration.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final SimEvent[] snapshot = Arrays.copyOf(heap, size);
+		return new Iterator<>() {
+
+			private int cursor = 0;
+
+			private SimEvent last = null;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < snapshot.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (cursor >= snapshot.length) {
+					throw new NoSuchElementException();
+				}
+				last = snapshot[cursor++];
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				HeapEventQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		int index = event.getQueueIndex();
+		if (index < 0 || index >= size || heap[index] != event) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			heap[i].setQueueIndex(-1);
+			heap[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Puts an event at the bottom of the heap and moves it up to its position.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+			sequence = Arrays.copyOf(sequence, size * 2);
+		}
+		heap[size] = event;
+		sequence[size] = nextSequence++;
+		event.setQueueIndex(size);
+		siftUp(size++);
+	}
+
+	/**
+	 * Removes the event at a given position of the heap, replacing it with the last event.
+	 *
+	 * @param index the position of the event
+	 */
+	private void removeAt(int index) {
+		heap[index].setQueueIndex(-1);
+		int last = --size;
+		if (index != last) {
+			SimEvent moved = heap[last];
+			move(last, index);
+			heap[last] = null;
+			siftDown(index);
+			if (heap[index] == moved) {
+				siftUp(index);
+			}
+		} else {
+			heap[last] = null;
+		}
+	}
+
+	private void siftUp(int index) {
+		SimEvent event = heap[index];
+		long seq = sequence[index];
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			if (!isBefore(event, seq, heap[parent], sequence[parent])) {
+				break;
+			}
+			move(parent, index);
+			index = parent;
+		}
+		place(event, seq, index);
+	}
+
+	private void siftDown(int index) {
+		SimEvent event = heap[index];
+		long seq = sequence[index];
+		while (true) {
+			int firstChild = index * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int min = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (isBefore(heap[child], sequence[child], heap[min], sequence[min])) {
+					min = child;
+				}
+			}
+			if (!isBefore(heap[min], sequence[min], event, seq)) {
+				break;
+			}
+			move(min, index);
+			index = min;
+		}
+		place(event, seq, index);
+	}
+
+	private void move(int from, int to) {
+		heap[to] = heap[from];
+		sequence[to] = sequence[from];
+		heap[to].setQueueIndex(to);
+	}
+
+	private void place(SimEvent event, long seq, int index) {
+		heap[index] = event;
+		sequence[index] = seq;
+		event.setQueueIndex(index);
+	}
+
+	/**
+	 * Checks if an event has to be processed before another one.
+	 */
+	private static boolean isBefore(SimEvent a, long seqA, SimEvent b, long seqB) {
+		if (a.eventTime() != b.eventTime()) {
+			return a.eventTime() < b.eventTime();
+		}
+		if (a.getSerial() != b.getSerial()) {
+			return a.getSerial() < b.getSerial();
+		}
+		return seqA < seqB;
+	}
+
+}
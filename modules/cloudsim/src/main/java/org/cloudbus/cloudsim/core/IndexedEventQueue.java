@@ -0,0 +1,199 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * An {@link EventQueue} that wraps another queue and keeps an index of its events by source
+ * entity and tag. It is used by {@link CloudSim} to find the events to be cancelled by
+ * {@link CloudSim#cancel(int, Predicate)} and {@link CloudSim#cancelAll(int, Predicate)} without
+ * going through the whole future event queue.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see EventQueue
+ */
+public class IndexedEventQueue implements EventQueue {
+
+	/** The queue actually holding the events. */
+	private final EventQueue queue;
+
+	/** The events in the queue, indexed by source entity id and then by tag. */
+	private final Map<Integer, Map<Integer, Set<SimEvent>>> index = new HashMap<>();
+
+	/**
+	 * Creates an indexed queue.
+	 *
+	 * @param queue the (empty) queue holding the events
+	 */
+	public IndexedEventQueue(EventQueue queue) {
+		if (queue == null || queue.size() > 0) {
+			throw new IllegalArgumentException("The indexed event queue should be an empty queue.");
+		}
+		this.queue = queue;
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		queue.addEvent(newEvent);
+		addToIndex(newEvent);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		queue.addEventFirst(newEvent);
+		addToIndex(newEvent);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return queue.peek();
+	}
+
+	@Override
+	public SimEvent poll() {
+		SimEvent first = queue.poll();
+		if (first != null) {
+			removeFromIndex(first);
+		}
+		return first;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final Iterator<SimEvent> iterator = queue.iterator();
+		return new Iterator<>() {
+
+			private SimEvent last = null;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				last = iterator.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				removeFromIndex(last);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (queue.remove(event)) {
+			removeFromIndex(event);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		queue.clear();
+		index.clear();
+	}
+
+	/**
+	 * Gets the events in the queue sent by a given entity that match a predicate. When the
+	 * predicate is a {@link PredicateType}, only the events with the selected tags are looked at.
+	 *
+	 * @param source the id of the source entity
+	 * @param p the predicate
+	 * @return the matching events, in no particular order
+	 */
+	public List<SimEvent> getEvents(int source, Predicate p) {
+		List<SimEvent> events = new ArrayList<>();
+		Map<Integer, Set<SimEvent>> byTag = index.get(source);
+		if (byTag == null) {
+			return events;
+		}
+
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				Set<SimEvent> tagged = byTag.get(tag);
+				if (tagged != null) {
+					events.addAll(tagged);
+				}
+			}
+		} else {
+			for (Set<SimEvent> tagged : byTag.values()) {
+				for (SimEvent event : tagged) {
+					if (p.match(event)) {
+						events.add(event);
+					}
+				}
+			}
+		}
+		return events;
+	}
+
+	private void addToIndex(SimEvent event) {
+		index.computeIfAbsent(event.getSource(), k -> new HashMap<>())
+				.computeIfAbsent(event.getTag(), k -> new LinkedHashSet<>())
+				.add(event);
+	}
+
+	/**
+	 * Removes an event from the index, with its tag set and source map once they are empty, so
+	 * that they do not keep the table of their peak size.
+	 */
+	private void removeFromIndex(SimEvent event) {
+		Map<Integer, Set<SimEvent>> byTag = index.get(event.getSource());
+		if (byTag != null) {
+			Set<SimEvent> tagged = byTag.get(event.getTag());
+			if (tagged != null && tagged.remove(event) && tagged.isEmpty()) {
+				byTag.remove(event.getTag());
+				if (byTag.isEmpty()) {
+					index.remove(event.getSource());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of sources that have events in the queue.
+	 *
+	 * @return the number of indexed sources
+	 */
+	int getIndexedSourceNum() {
+		return index.size();
+	}
+
+}
@@ -52,6 +52,12 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          */
 	private long serial = -1;
 
+	/**
+	 * The position of the event inside the {@link EventQueue} holding it, for queues that
+	 * need it to remove events without searching for them (e.g. {@link HeapEventQueue}).
+	 */
+	private int queueIndex = -1;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -98,6 +104,18 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this.serial = serial;
 	}
 
+	long getSerial() {
+		return serial;
+	}
+
+	int getQueueIndex() {
+		return queueIndex;
+	}
+
+	void setQueueIndex(int queueIndex) {
+		this.queueIndex = queueIndex;
+	}
+
 	/**
 	 * Sets the time that the event was removed from the queue to start service. 
 	 * 
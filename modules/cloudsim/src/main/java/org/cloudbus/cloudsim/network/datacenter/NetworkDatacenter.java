@@ -146,6 +146,7 @@ public class NetworkDatacenter extends Datacenter {
 
 			vm.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(vm).getVmScheduler()
 					.getAllocatedMipsForVm(vm));
+			markHostDirty(vm.getHost());
 		}
 		return result;
 	}
@@ -199,6 +200,7 @@ public class NetworkDatacenter extends Datacenter {
 
 			Host host = getVmAllocationPolicy().getHost(vmId, userId);
 			Vm vm = host.getVm(vmId, userId);
+			markHostDirty(host);
 			CloudletScheduler scheduler = vm.getCloudletScheduler();
 			double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
 
@@ -232,4 +234,15 @@ public class NetworkDatacenter extends Datacenter {
 		checkCloudletCompletion();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The cloudlets of a network datacenter progress through their stages as packets arrive, and
+	 * schedule their own update events, so the active hosts are updated by every update.
+	 */
+	@Override
+	protected boolean isHostUpdateDeferrable() {
+		return false;
+	}
+
 }
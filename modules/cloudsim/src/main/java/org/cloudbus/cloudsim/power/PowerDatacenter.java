@@ -13,6 +13,7 @@ import java.util.Map;
 
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.Vm;
@@ -116,6 +117,7 @@ public class PowerDatacenter extends Datacenter {
 									targetHost.getId());
 						}
 
+						markHostDirty(targetHost);
 						targetHost.addMigratingInVm(vm);
 						incrementMigrationCount();
 
@@ -175,10 +177,11 @@ public class PowerDatacenter extends Datacenter {
 		Log.printLine("\n\n--------------------------------------------------------------\n\n");
 		Log.formatLine("New resource usage for the time frame starting at %.2f:", currentTime);
 
-		for (PowerHost host : this.<PowerHost> getHostList()) {
+		for (PowerHost host : this.<PowerHost> getHostsToUpdate()) {
 			Log.printLine();
 
 			double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
+			setHostUpdated(host, time);
 			if (time < minTime) {
 				minTime = time;
 			}
@@ -245,6 +248,32 @@ public class PowerDatacenter extends Datacenter {
 		return minTime;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The utilization of the VMs of a power-aware datacenter changes over time, so the active
+	 * hosts are updated by every update.
+	 */
+	@Override
+	protected boolean isHostUpdateDeferrable() {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A host of a power-aware datacenter is active while it has VMs or its utilization, which
+	 * accounts for its energy consumption, was not zero at the last two updates.
+	 */
+	@Override
+	protected boolean isHostActive(Host host) {
+		if (!host.getVmList().isEmpty() || !host.getVmsMigratingIn().isEmpty()) {
+			return true;
+		}
+		PowerHost powerHost = (PowerHost) host;
+		return powerHost.getUtilizationMips() > 0 || powerHost.getPreviousUtilizationMips() > 0;
+	}
+
 	@Override
 	protected void processVmMigrate(SimEvent ev, boolean ack) {
 		updateCloudetProcessingWithoutSchedulingFutureEvents();
@@ -103,11 +103,12 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 
 			Log.printLine("\n\n--------------------------------------------------------------\n\n");
 
-			for (PowerHost host : this.<PowerHost> getHostList()) {
+			for (PowerHost host : this.<PowerHost> getHostsToUpdate()) {
 				Log.formatLine("\n%.2f: Host #%d", CloudSim.clock(), host.getId());
 
 				double time = host.updateVmsProcessing(currentTime); // inform VMs to update
 																		// processing
+				setHostUpdated(host, time);
 				if (time < minTime) {
 					minTime = time;
 				}
@@ -153,6 +154,7 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 									targetHost.getId());
 						}
 
+						markHostDirty(targetHost);
 						targetHost.addMigratingInVm(vm);
 						incrementMigrationCount();
 
@@ -8,7 +8,6 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,6 +16,7 @@ import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * An abstract power-aware VM allocation policy.
@@ -36,9 +36,9 @@ import org.cloudbus.cloudsim.core.CloudSim;
  */
 public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy {
 
-	/** The map map where each key is a VM id and
+	/** The map map where each key is a VM key and
          * each value is the host where the VM is placed. */
-	private final Map<String, Host> vmTable = new HashMap<>();
+	private final LongHashMap<Host> vmTable = new LongHashMap<>(Vm::getKey, Vm::getUid);
 
 	/**
 	 * Instantiates a new PowerVmAllocationPolicyAbstract.
@@ -61,7 +61,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 			return false;
 		}
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
-			getVmTable().put(vm.getUid(), host);
+			getVmTableByKey().put(vm.getKey(), host);
 			Log.formatLine(
 					"%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
 					CloudSim.clock());
@@ -90,7 +90,7 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 
 	@Override
 	public void deallocateHostForVm(Vm vm) {
-		Host host = getVmTable().remove(vm.getUid());
+		Host host = getVmTableByKey().remove(vm.getKey());
 		if (host != null) {
 			host.vmDestroy(vm);
 		}
@@ -98,20 +98,30 @@ public abstract class PowerVmAllocationPolicyAbstract extends VmAllocationPolicy
 
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getVmTableByKey().get(vm.getKey());
 	}
 
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return getVmTableByKey().get(Vm.getKey(userId, vmId));
 	}
 
 	/**
-	 * Gets the vm table.
+	 * Gets the vm table, as a view keyed by VM uid.
 	 * 
 	 * @return the vm table
+	 * @see #getVmTableByKey()
 	 */
 	public Map<String, Host> getVmTable() {
+		return vmTable.asMap();
+	}
+
+	/**
+	 * Gets the vm table, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the vm table
+	 */
+	public LongHashMap<Host> getVmTableByKey() {
 		return vmTable;
 	}
 
@@ -546,7 +546,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 				Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
 				System.exit(0);
 			}
-			getVmTable().put(vm.getUid(), host);
+			getVmTableByKey().put(vm.getKey(), host);
 		}
 	}
 
@@ -8,10 +8,10 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * BwProvisionerSimple is an extension of {@link BwProvisioner} which uses a best-effort policy to
@@ -25,9 +25,9 @@ import org.cloudbus.cloudsim.Vm;
  */
 public class BwProvisionerSimple extends BwProvisioner {
 
-	/** The BW map, where each key is a VM id and each value
+	/** The BW map, where each key is a VM key and each value
          * is the amount of BW allocated to that VM. */
-	private Map<String, Long> bwTable;
+	private LongHashMap<Long> bwTable;
 
 	/**
 	 * Instantiates a new bw provisioner simple.
@@ -36,7 +36,7 @@ public class BwProvisionerSimple extends BwProvisioner {
 	 */
 	public BwProvisionerSimple(long bw) {
 		super(bw);
-		setBwTable(new HashMap<>());
+		setBwTableByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 	}
 
 	@Override
@@ -45,7 +45,7 @@ public class BwProvisionerSimple extends BwProvisioner {
 
 		if (getAvailableBw() >= bw) {
 			setAvailableBw(getAvailableBw() - bw);
-			getBwTable().put(vm.getUid(), bw);
+			getBwTableByKey().put(vm.getKey(), bw);
 			vm.setCurrentAllocatedBw(getAllocatedBwForVm(vm));
 			return true;
 		}
@@ -56,16 +56,14 @@ public class BwProvisionerSimple extends BwProvisioner {
 
 	@Override
 	public long getAllocatedBwForVm(Vm vm) {
-		if (getBwTable().containsKey(vm.getUid())) {
-			return getBwTable().get(vm.getUid());
-		}
-		return 0;
+		Long allocatedBw = getBwTableByKey().get(vm.getKey());
+		return allocatedBw == null ? 0 : allocatedBw;
 	}
 
 	@Override
 	public void deallocateBwForVm(Vm vm) {
-		if (getBwTable().containsKey(vm.getUid())) {
-			long amountFreed = getBwTable().remove(vm.getUid());
+		Long amountFreed = getBwTableByKey().remove(vm.getKey());
+		if (amountFreed != null) {
 			setAvailableBw(getAvailableBw() + amountFreed);
 			vm.setCurrentAllocatedBw(0);
 		}
@@ -74,7 +72,7 @@ public class BwProvisionerSimple extends BwProvisioner {
 	@Override
 	public void deallocateBwForAllVms() {
 		super.deallocateBwForAllVms();
-		getBwTable().clear();
+		getBwTableByKey().clear();
 	}
 
 	@Override
@@ -89,20 +87,40 @@ public class BwProvisionerSimple extends BwProvisioner {
 	}
 
 	/**
-	 * Gets the map between VMs and allocated bw.
+	 * Gets the map between VMs and allocated bw, as a view keyed by VM uid.
 	 * 
 	 * @return the bw map
+	 * @see #getBwTableByKey()
 	 */
 	protected Map<String, Long> getBwTable() {
-		return bwTable;
+		return bwTable.asMap();
 	}
 
 	/**
-	 * Sets the map between VMs and allocated bw.
+	 * Sets the map between VMs and allocated bw, copying a map keyed by VM uid.
 	 * 
 	 * @param bwTable the bw map
+	 * @see #setBwTableByKey(LongHashMap)
 	 */
 	protected void setBwTable(Map<String, Long> bwTable) {
+		setBwTableByKey(LongHashMap.copyOf(bwTable, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the map between VMs and allocated bw, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the bw map
+	 */
+	protected LongHashMap<Long> getBwTableByKey() {
+		return bwTable;
+	}
+
+	/**
+	 * Sets the map between VMs and allocated bw, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param bwTable the bw map
+	 */
+	protected void setBwTableByKey(LongHashMap<Long> bwTable) {
 		this.bwTable = bwTable;
 	}
 
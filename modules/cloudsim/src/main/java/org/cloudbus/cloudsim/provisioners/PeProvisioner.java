@@ -76,6 +76,25 @@ public abstract class PeProvisioner {
 	 */
 	public abstract boolean allocateMipsForVm(String vmUid, double mips);
 
+	/**
+	 * Allocates a new virtual PE with a specific capacity for a given VM.
+	 * This implementation converts the key to the uid of the VM; provisioners
+	 * keeping their tables by VM key override it to avoid building the uid.
+	 * 
+	 * @param vmKey the key of the virtual machine for which the new virtual PE is being allocated,
+	 *            as given by {@link Vm#getKey()}
+	 * @param mips the mips to be allocated to the virtual PE of the given VM
+	 * 
+	 * @return $true if the virtual PE could be allocated; $false otherwise
+	 * 
+	 * @pre $none
+	 * @post $none
+	 * @see #allocateMipsForVm(String, double) 
+	 */
+	public boolean allocateMipsForVm(long vmKey, double mips) {
+		return allocateMipsForVm(Vm.getUid(vmKey), mips);
+	}
+
 	/**
 	 * Allocates a new set of virtual PEs with a specific capacity for a given VM.
          * The virtual PE to be added will use the total or partial mips capacity
@@ -9,11 +9,11 @@
 package org.cloudbus.cloudsim.provisioners;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * PeProvisionerSimple is an extension of {@link PeProvisioner} which uses a best-effort policy to
@@ -26,10 +26,10 @@ import org.cloudbus.cloudsim.Vm;
  */
 public class PeProvisionerSimple extends PeProvisioner {
 
-	/** The PE map, where each key is a VM id and each value
+	/** The PE map, where each key is a VM key and each value
          * is the list of PEs (in terms of their amount of MIPS) 
          * allocated to that VM. */
-	private Map<String, List<Double>> peTable;
+	private LongHashMap<List<Double>> peTable;
 
 	/**
 	 * Instantiates a new pe provisioner simple.
@@ -41,32 +41,34 @@ public class PeProvisionerSimple extends PeProvisioner {
 	 */
 	public PeProvisionerSimple(double availableMips) {
 		super(availableMips);
-		setPeTable(new HashMap<String, ArrayList<Double>>());
+		setPeTableByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 	}
 
 	@Override
 	public boolean allocateMipsForVm(Vm vm, double mips) {
-		return allocateMipsForVm(vm.getUid(), mips);
+		return allocateMipsForVm(vm.getKey(), mips);
 	}
 
 	@Override
 	public boolean allocateMipsForVm(String vmUid, double mips) {
+		return allocateMipsForVm(Vm.getKey(vmUid), mips);
+	}
+
+	@Override
+	public boolean allocateMipsForVm(long vmKey, double mips) {
 		if (getAvailableMips() < mips) {
 			return false;
 		}
 
-		List<Double> allocatedMips;
-
-		if (getPeTable().containsKey(vmUid)) {
-			allocatedMips = getPeTable().get(vmUid);
-		} else {
+		List<Double> allocatedMips = getPeTableByKey().get(vmKey);
+		if (allocatedMips == null) {
 			allocatedMips = new ArrayList<>();
+			getPeTableByKey().put(vmKey, allocatedMips);
 		}
 
 		allocatedMips.add(mips);
 
 		setAvailableMips(getAvailableMips() - mips);
-		getPeTable().put(vmUid, allocatedMips);
 
 		return true;
 	}
@@ -84,7 +86,7 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 		setAvailableMips(getAvailableMips() + getTotalAllocatedMipsForVm(vm) - totalMipsToAllocate);
 
-		getPeTable().put(vm.getUid(), mips);
+		getPeTableByKey().put(vm.getKey(), mips);
 
 		return true;
 	}
@@ -92,14 +94,15 @@ public class PeProvisionerSimple extends PeProvisioner {
 	@Override
 	public void deallocateMipsForAllVms() {
 		super.deallocateMipsForAllVms();
-		getPeTable().clear();
+		getPeTableByKey().clear();
 	}
 
 	@Override
 	public double getAllocatedMipsForVmByVirtualPeId(Vm vm, int peId) {
-		if (getPeTable().containsKey(vm.getUid())) {
+		List<Double> allocatedMips = getPeTableByKey().get(vm.getKey());
+		if (allocatedMips != null) {
 			try {
-				return getPeTable().get(vm.getUid()).get(peId);
+				return allocatedMips.get(peId);
 			} catch (Exception e) {
 			}
 		}
@@ -108,17 +111,15 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 	@Override
 	public List<Double> getAllocatedMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
-			return getPeTable().get(vm.getUid());
-		}
-		return null;
+		return getPeTableByKey().get(vm.getKey());
 	}
 
 	@Override
 	public double getTotalAllocatedMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
+		List<Double> allocatedMips = getPeTableByKey().get(vm.getKey());
+		if (allocatedMips != null) {
 			double totalAllocatedMips = 0.0;
-			for (double mips : getPeTable().get(vm.getUid())) {
+			for (double mips : allocatedMips) {
 				totalAllocatedMips += mips;
 			}
 			return totalAllocatedMips;
@@ -128,31 +129,50 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 	@Override
 	public void deallocateMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
-			for (double mips : getPeTable().get(vm.getUid())) {
+		List<Double> allocatedMips = getPeTableByKey().remove(vm.getKey());
+		if (allocatedMips != null) {
+			for (double mips : allocatedMips) {
 				setAvailableMips(getAvailableMips() + mips);
 			}
-			getPeTable().remove(vm.getUid());
 		}
 	}
 
 	/**
-	 * Gets the pe map.
+	 * Gets the pe map, as a view keyed by VM uid.
 	 * 
 	 * @return the pe map
+	 * @see #getPeTableByKey()
 	 */
 	protected Map<String, List<Double>> getPeTable() {
-		return peTable;
+		return peTable.asMap();
 	}
 
 	/**
-	 * Sets the pe map.
+	 * Sets the pe map, copying a map keyed by VM uid.
 	 * 
 	 * @param peTable the peTable to set
+	 * @see #setPeTableByKey(LongHashMap)
 	 */
-	@SuppressWarnings("unchecked")
 	protected void setPeTable(Map<String, ? extends List<Double>> peTable) {
-		this.peTable = (Map<String, List<Double>>) peTable;
+		setPeTableByKey(LongHashMap.<String, List<Double>> copyOf(peTable, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the pe map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the pe map
+	 */
+	protected LongHashMap<List<Double>> getPeTableByKey() {
+		return peTable;
+	}
+
+	/**
+	 * Sets the pe map, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param peTable the peTable to set
+	 */
+	protected void setPeTableByKey(LongHashMap<List<Double>> peTable) {
+		this.peTable = peTable;
 	}
 
 }
@@ -8,10 +8,10 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.LongHashMap;
 
 /**
  * RamProvisionerSimple is an extension of {@link RamProvisioner} which uses a best-effort policy to
@@ -24,9 +24,9 @@ import org.cloudbus.cloudsim.Vm;
  */
 public class RamProvisionerSimple extends RamProvisioner {
 
-	/** The RAM map, where each key is a VM id and each value
+	/** The RAM map, where each key is a VM key and each value
          * is the amount of RAM allocated to that VM. */
-	private Map<String, Integer> ramTable;
+	private LongHashMap<Integer> ramTable;
 
 	/**
 	 * Instantiates a new ram provisioner simple.
@@ -35,7 +35,7 @@ public class RamProvisionerSimple extends RamProvisioner {
 	 */
 	public RamProvisionerSimple(int availableRam) {
 		super(availableRam);
-		setRamTable(new HashMap<>());
+		setRamTableByKey(new LongHashMap<>(Vm::getKey, Vm::getUid));
 	}
 
 	@Override
@@ -52,7 +52,7 @@ public class RamProvisionerSimple extends RamProvisioner {
 
 		if (getAvailableRam() >= ram) {
 			setAvailableRam(getAvailableRam() - ram);
-			getRamTable().put(vm.getUid(), ram);
+			getRamTableByKey().put(vm.getKey(), ram);
 			vm.setCurrentAllocatedRam(getAllocatedRamForVm(vm));
 			return true;
 		}
@@ -64,16 +64,14 @@ public class RamProvisionerSimple extends RamProvisioner {
 
 	@Override
 	public int getAllocatedRamForVm(Vm vm) {
-		if (getRamTable().containsKey(vm.getUid())) {
-			return getRamTable().get(vm.getUid());
-		}
-		return 0;
+		Integer allocatedRam = getRamTableByKey().get(vm.getKey());
+		return allocatedRam == null ? 0 : allocatedRam;
 	}
 
 	@Override
 	public void deallocateRamForVm(Vm vm) {
-		if (getRamTable().containsKey(vm.getUid())) {
-			int amountFreed = getRamTable().remove(vm.getUid());
+		Integer amountFreed = getRamTableByKey().remove(vm.getKey());
+		if (amountFreed != null) {
 			setAvailableRam(getAvailableRam() + amountFreed);
 			vm.setCurrentAllocatedRam(0);
 		}
@@ -82,7 +80,7 @@ public class RamProvisionerSimple extends RamProvisioner {
 	@Override
 	public void deallocateRamForAllVms() {
 		super.deallocateRamForAllVms();
-		getRamTable().clear();
+		getRamTableByKey().clear();
 	}
 
 	@Override
@@ -97,20 +95,40 @@ public class RamProvisionerSimple extends RamProvisioner {
 	}
 
 	/**
-	 * Gets the map between VMs and allocated ram.
+	 * Gets the map between VMs and allocated ram, as a view keyed by VM uid.
 	 * 
 	 * @return the ram map
+	 * @see #getRamTableByKey()
 	 */
 	protected Map<String, Integer> getRamTable() {
-		return ramTable;
+		return ramTable.asMap();
 	}
 
 	/**
-	 * Sets the map between VMs and allocated ram.
+	 * Sets the map between VMs and allocated ram, copying a map keyed by VM uid.
 	 * 
 	 * @param ramTable the ram map
+	 * @see #setRamTableByKey(LongHashMap)
 	 */
 	protected void setRamTable(Map<String, Integer> ramTable) {
+		setRamTableByKey(LongHashMap.copyOf(ramTable, Vm::getKey, Vm::getUid));
+	}
+
+	/**
+	 * Gets the map between VMs and allocated ram, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @return the ram map
+	 */
+	protected LongHashMap<Integer> getRamTableByKey() {
+		return ramTable;
+	}
+
+	/**
+	 * Sets the map between VMs and allocated ram, keyed by {@link Vm#getKey() VM key}.
+	 * 
+	 * @param ramTable the ram map
+	 */
+	protected void setRamTableByKey(LongHashMap<Integer> ramTable) {
 		this.ramTable = ramTable;
 	}
 
@@ -0,0 +1,494 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A hash map with primitive long keys, using open addressing with linear probing. It does not
+ * allocate an object for each entry, nor box or compare objects to find a key, so it is used
+ * for the tables indexed by VM, whose keys are given by
+ * {@link org.cloudbus.cloudsim.Vm#getKey(int, int)}. Null values are not allowed.
+ * <p>
+ * The entries are iterated in the order of their slots, which only depends on the keys and the
+ * operations done on the map. A map created with functions converting its keys to and from keys
+ * of another type has a view with such keys, given by {@link #asMap()}, for the methods that
+ * still expose such a map.
+ *
+ * @param <V> the type of the values
+ * @since CloudSim Toolkit 3.0
+ */
+public class LongHashMap<V> {
+
+	/**
+	 * An action on the entries of a map.
+	 *
+	 * @param <V> the type of the values
+	 */
+	public interface EntryConsumer<V> {
+
+		/**
+		 * Performs the action on an entry.
+		 *
+		 * @param key the key
+		 * @param value the value
+		 */
+		void accept(long key, V value);
+	}
+
+	/** The smallest capacity of the tables. */
+	private static final int MIN_CAPACITY = 8;
+
+	/** The keys, in the slots whose value is not null. */
+	private long[] keys;
+
+	/** The values, null for the free slots. */
+	private Object[] values;
+
+	/** The number of entries. */
+	private int size;
+
+	/** The number of entries beyond which the tables grow, 3/4 of their capacity. */
+	private int threshold;
+
+	/** The view of the map with keys of another type, null if it has no key conversion. */
+	private final Map<?, V> view;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public LongHashMap() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * Creates a new empty map with a view whose keys are converted to and from long keys.
+	 *
+	 * @param <K> the type of the keys of the view
+	 * @param toKey converts a key of the view to a long key
+	 * @param fromKey converts a long key to a key of the view
+	 */
+	public <K> LongHashMap(ToLongFunction<? super K> toKey, LongFunction<? extends K> fromKey) {
+		this(MIN_CAPACITY / 2, toKey, fromKey);
+	}
+
+	/**
+	 * Creates a new empty map able to hold a number of entries without growing.
+	 *
+	 * @param expectedSize the expected number of entries
+	 */
+	public LongHashMap(int expectedSize) {
+		this(expectedSize, null, null);
+	}
+
+	/**
+	 * Creates a new empty map able to hold a number of entries without growing, with a view
+	 * whose keys are converted to and from long keys if the functions are given.
+	 *
+	 * @param <K> the type of the keys of the view
+	 * @param expectedSize the expected number of entries
+	 * @param toKey converts a key of the view to a long key, or null for no view
+	 * @param fromKey converts a long key to a key of the view, or null for no view
+	 */
+	public <K> LongHashMap(int expectedSize, ToLongFunction<? super K> toKey,
+			LongFunction<? extends K> fromKey) {
+		view = toKey == null || fromKey == null ? null : new View<>(toKey, fromKey);
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 / 4 < expectedSize) {
+			capacity *= 2;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * Creates a new map with the entries of a map with keys of another type, and a view with such
+	 * keys.
+	 *
+	 * @param <K> the type of the keys of the map
+	 * @param <V> the type of the values
+	 * @param map the map
+	 * @param toKey converts a key of the map to a long key
+	 * @param fromKey converts a long key to a key of the map
+	 * @return the new map
+	 */
+	public static <K, V> LongHashMap<V> copyOf(Map<? extends K, ? extends V> map,
+			ToLongFunction<? super K> toKey, LongFunction<? extends K> fromKey) {
+		LongHashMap<V> result = new LongHashMap<>(map.size(), toKey, fromKey);
+		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			result.put(toKey.applyAsLong(entry.getKey()), entry.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return true, if the map has no entry
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the value of a key.
+	 *
+	 * @param key the key
+	 * @return the value, or null if the map does not contain the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int slot = find(key);
+		return slot < 0 ? null : (V) values[slot];
+	}
+
+	/**
+	 * Checks if the map contains a key.
+	 *
+	 * @param key the key
+	 * @return true, if the map contains the key
+	 */
+	public boolean containsKey(long key) {
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Associates a value with a key, replacing the previous value of the key.
+	 *
+	 * @param key the key
+	 * @param value the value, not null
+	 * @return the previous value of the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new NullPointerException("Null values are not allowed");
+		}
+		int mask = values.length - 1;
+		int slot = slot(key, mask);
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > threshold) {
+			resize(values.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a key from the map.
+	 *
+	 * @param key the key
+	 * @return the value of the key, or null if the map did not contain it
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return null;
+		}
+		V value = (V) values[slot];
+		delete(slot);
+		return value;
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		if (size > 0) {
+			Arrays.fill(values, null);
+			size = 0;
+		}
+	}
+
+	/**
+	 * Performs an action on each entry. The action may replace the values of existing keys, but
+	 * must not add nor remove keys.
+	 *
+	 * @param action the action
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super V> action) {
+		for (int slot = 0; slot < values.length; slot++) {
+			if (values[slot] != null) {
+				action.accept(keys[slot], (V) values[slot]);
+			}
+		}
+	}
+
+	/**
+	 * Gets the keys of the map.
+	 *
+	 * @return a new array with the keys, in iteration order
+	 */
+	public long[] keys() {
+		long[] result = new long[size];
+		int i = 0;
+		for (int slot = 0; slot < values.length; slot++) {
+			if (values[slot] != null) {
+				result[i++] = keys[slot];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the view of this map whose keys are converted to and from long keys by the functions
+	 * given when the map was created. Changes to the view are made to this map and the other way
+	 * around. Looking up a key that can't be converted finds nothing, while adding it fails with
+	 * the exception of the conversion.
+	 *
+	 * @param <K> the type of the keys of the view, the one of the functions
+	 * @return the view
+	 * @throws IllegalStateException if the map was created without key conversion
+	 */
+	@SuppressWarnings("unchecked")
+	public <K> Map<K, V> asMap() {
+		if (view == null) {
+			throw new IllegalStateException("The map was created without key conversion");
+		}
+		return (Map<K, V>) view;
+	}
+
+	/**
+	 * Finds the slot of a key.
+	 *
+	 * @param key the key
+	 * @return the slot, or -1 if the map does not contain the key
+	 */
+	private int find(long key) {
+		int mask = values.length - 1;
+		int slot = slot(key, mask);
+		while (values[slot] != null) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Frees a slot, moving back the following entries of its probe sequence so that no lookup
+	 * stops at the free slot before reaching its key.
+	 *
+	 * @param slot the slot
+	 */
+	private void delete(int slot) {
+		int mask = values.length - 1;
+		int free = slot;
+		int next = (free + 1) & mask;
+		while (values[next] != null) {
+			int home = slot(keys[next], mask);
+			// moves the entry if its home slot is not between the free slot and its own
+			if (((next - home) & mask) >= ((next - free) & mask)) {
+				keys[free] = keys[next];
+				values[free] = values[next];
+				free = next;
+			}
+			next = (next + 1) & mask;
+		}
+		values[free] = null;
+		size--;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(capacity);
+		int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = slot(oldKeys[i], mask);
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		threshold = capacity * 3 / 4;
+	}
+
+	/**
+	 * Gets the home slot of a key, spreading the bits of both halves of the key.
+	 *
+	 * @param key the key
+	 * @param mask the capacity minus one
+	 * @return the slot
+	 */
+	private static int slot(long key, int mask) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * A view of the map with keys of another type.
+	 *
+	 * @param <K> the type of the keys of the view
+	 */
+	private class View<K> extends AbstractMap<K, V> {
+
+		private final ToLongFunction<? super K> toKey;
+
+		private final LongFunction<? extends K> fromKey;
+
+		private View(ToLongFunction<? super K> toKey, LongFunction<? extends K> fromKey) {
+			this.toKey = toKey;
+			this.fromKey = fromKey;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return find(key) >= 0;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V get(Object key) {
+			int slot = find(key);
+			return slot < 0 ? null : (V) values[slot];
+		}
+
+		@Override
+		public V put(K key, V value) {
+			return LongHashMap.this.put(toKey.applyAsLong(key), value);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V remove(Object key) {
+			int slot = find(key);
+			if (slot < 0) {
+				return null;
+			}
+			V value = (V) values[slot];
+			delete(slot);
+			return value;
+		}
+
+		@Override
+		public void clear() {
+			LongHashMap.this.clear();
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {
+			return new AbstractSet<Map.Entry<K, V>>() {
+
+				@Override
+				public int size() {
+					return size;
+				}
+
+				@Override
+				public Iterator<Map.Entry<K, V>> iterator() {
+					// iterates over the keys at the creation of the iterator, so that removing
+					// an entry does not move the others under the iterator
+					final long[] iteratedKeys = keys();
+					return new Iterator<Map.Entry<K, V>>() {
+
+						private int next;
+
+						private long current;
+
+						private boolean removable;
+
+						@Override
+						public boolean hasNext() {
+							return next < iteratedKeys.length;
+						}
+
+						@Override
+						public Map.Entry<K, V> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							current = iteratedKeys[next++];
+							removable = true;
+							final long key = current;
+							return new AbstractMap.SimpleEntry<K, V>(fromKey.apply(key),
+									LongHashMap.this.get(key)) {
+
+								private static final long serialVersionUID = 1L;
+
+								@Override
+								public V setValue(V value) {
+									super.setValue(value);
+									return LongHashMap.this.put(key, value);
+								}
+							};
+						}
+
+						@Override
+						public void remove() {
+							if (!removable) {
+								throw new IllegalStateException();
+							}
+							removable = false;
+							LongHashMap.this.remove(current);
+						}
+					};
+				}
+			};
+		}
+
+		/**
+		 * Finds the slot of a key of the view.
+		 *
+		 * @param key the key
+		 * @return the slot, or -1 if the key can't be converted or the map does not contain it
+		 */
+		@SuppressWarnings("unchecked")
+		private int find(Object key) {
+			long longKey;
+			try {
+				longKey = toKey.applyAsLong((K) key);
+			} catch (ClassCastException | IllegalArgumentException | NullPointerException e) {
+				return -1;
+			}
+			return LongHashMap.this.find(longKey);
+		}
+	}
+
+}
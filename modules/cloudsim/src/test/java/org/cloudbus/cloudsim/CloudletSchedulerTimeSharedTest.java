@@ -0,0 +1,255 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Test;
+
+/**
+ * Checks that {@link CloudletSchedulerTimeShared}, which counts the PEs in use incrementally,
+ * processes the cloudlets exactly as when the PEs in use are counted again for each cloudlet, and
+ * that the count follows the changes of the exec list made by a subclass.
+ */
+public class CloudletSchedulerTimeSharedTest {
+
+	/**
+	 * The original scheduler, counting the PEs in use each time the capacity is needed.
+	 */
+	private static class CountingScheduler extends CloudletSchedulerTimeShared {
+
+		@Override
+		public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+			setCurrentMipsShare(mipsShare);
+			double timeSpam = currentTime - getPreviousTime();
+
+			for (ResCloudlet rcl : getCloudletExecList()) {
+				rcl.updateCloudletFinishedSoFar((long) (getCapacity(mipsShare) * timeSpam
+						* rcl.getNumberOfPes() * Consts.MILLION));
+			}
+
+			if (getCloudletExecList().size() == 0) {
+				setPreviousTime(currentTime);
+				return 0.0;
+			}
+
+			double nextEvent = Double.MAX_VALUE;
+			List<ResCloudlet> toRemove = new ArrayList<>();
+			for (ResCloudlet rcl : getCloudletExecList()) {
+				if (rcl.getRemainingCloudletLength() == 0) {
+					toRemove.add(rcl);
+					cloudletFinish(rcl);
+				}
+			}
+			getCloudletExecList().removeAll(toRemove);
+
+			for (ResCloudlet rcl : getCloudletExecList()) {
+				double estimatedFinishTime = currentTime
+						+ (rcl.getRemainingCloudletLength() / (getCapacity(mipsShare) * rcl.getNumberOfPes()));
+				if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+					estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+				}
+				if (estimatedFinishTime < nextEvent) {
+					nextEvent = estimatedFinishTime;
+				}
+			}
+
+			setPreviousTime(currentTime);
+			return nextEvent;
+		}
+
+		@Override
+		protected double getCapacity(List<Double> mipsShare) {
+			double capacity = 0.0;
+			int cpus = 0;
+			for (Double mips : mipsShare) {
+				capacity += mips;
+				if (mips > 0.0) {
+					cpus++;
+				}
+			}
+			currentCPUs = cpus;
+
+			int pesInUse = 0;
+			for (ResCloudlet rcl : getCloudletExecList()) {
+				pesInUse += rcl.getNumberOfPes();
+			}
+			return capacity / Math.max(pesInUse, currentCPUs);
+		}
+	}
+
+	@Test
+	public void testSameProcessing() {
+		Random random = new Random(1);
+		for (int round = 0; round < 50; round++) {
+			checkSameProcessing(random.nextLong());
+		}
+	}
+
+	@Test
+	public void testProgress() {
+		CloudletSchedulerTimeShared scheduler = new CloudletSchedulerTimeShared();
+		List<Double> mipsShare = Arrays.asList(1000.0, 1000.0);
+		scheduler.updateVmProcessing(0.0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet(0, 2000, 1));
+		scheduler.cloudletSubmit(createCloudlet(1, 4500, 2));
+
+		// three PEs share the two of the VM, so each runs at 666.67 MIPS
+		assertEquals(3.0, scheduler.updateVmProcessing(1.5, mipsShare), 1e-9);
+		assertEquals(2, scheduler.runningCloudlets());
+		assertEquals(3, scheduler.getPesInUse());
+		assertEquals(1000, scheduler.getCloudletExecList().get(0).getRemainingCloudletLength());
+		// the length of a cloudlet counts the instructions of all its PEs
+		assertEquals(7000, scheduler.getCloudletExecList().get(1).getRemainingCloudletLength());
+
+		// the second cloudlet then has the two PEs to itself
+		assertEquals(5.5, scheduler.updateVmProcessing(3.0, mipsShare), 1e-9);
+		assertEquals(1, scheduler.runningCloudlets());
+		assertEquals(2, scheduler.getPesInUse());
+		assertEquals(5000, scheduler.getCloudletExecList().get(0).getRemainingCloudletLength());
+		assertEquals(Double.MAX_VALUE, scheduler.updateVmProcessing(5.5, mipsShare), 0);
+		assertEquals(0, scheduler.getPesInUse());
+		assertEquals(2, scheduler.getCloudletFinishedList().size());
+	}
+
+	@Test
+	public void testDynamicWorkloadPesInUse() {
+		Random random = new Random(1);
+		CloudletSchedulerDynamicWorkload scheduler = new CloudletSchedulerDynamicWorkload(1000, 2);
+		List<Double> mipsShare = Arrays.asList(1000.0, 1000.0);
+		scheduler.updateVmProcessing(0.0, mipsShare);
+
+		double time = 0.0;
+		int cloudletId = 0;
+		for (int step = 0; step < 400; step++) {
+			int id = random.nextInt(Math.max(cloudletId, 1));
+			switch (random.nextInt(4)) {
+				case 0:
+				case 1:
+					scheduler.cloudletSubmit(createCloudlet(cloudletId++, 1 + random.nextInt(5000),
+							1 + random.nextInt(3)));
+					break;
+				case 2:
+					scheduler.cloudletPause(id);
+					break;
+				default:
+					time += random.nextDouble() * 3;
+					scheduler.updateVmProcessing(time, mipsShare);
+					break;
+			}
+			// not after each step, so that cloudlets both leave and enter the exec list in between
+			if (random.nextInt(4) == 0) {
+				assertEquals(countPes(scheduler.getCloudletExecList()), scheduler.getPesInUse());
+			}
+		}
+	}
+
+	@Test
+	public void testSetCloudletExecList() {
+		CloudletSchedulerTimeShared scheduler = new CloudletSchedulerTimeShared();
+		scheduler.updateVmProcessing(0.0, Arrays.asList(1000.0, 1000.0));
+		scheduler.cloudletSubmit(createCloudlet(0, 1000, 1));
+		assertEquals(1, scheduler.getPesInUse());
+
+		List<ResCloudlet> execList = new ArrayList<>();
+		execList.add(new ResCloudlet(createCloudlet(1, 1000, 3)));
+		scheduler.setCloudletExecList(execList);
+		assertEquals(3, scheduler.getPesInUse());
+	}
+
+	private void checkSameProcessing(long seed) {
+		Random random = new Random(seed);
+		CloudletSchedulerTimeShared expected = new CountingScheduler();
+		CloudletSchedulerTimeShared actual = new CloudletSchedulerTimeShared();
+		List<Double> mipsShare = Arrays.asList(1000.0, 1000.0);
+		expected.updateVmProcessing(0.0, mipsShare);
+		actual.updateVmProcessing(0.0, mipsShare);
+
+		double time = 0.0;
+		int cloudletId = 0;
+		for (int step = 0; step < 400; step++) {
+			int id = random.nextInt(Math.max(cloudletId, 1));
+			switch (random.nextInt(8)) {
+				case 0:
+				case 1:
+				case 2:
+					long length = 1 + random.nextInt(5000);
+					int pes = 1 + random.nextInt(3);
+					double fileTransferTime = random.nextInt(3);
+					assertEquals(expected.cloudletSubmit(createCloudlet(cloudletId, length, pes), fileTransferTime),
+							actual.cloudletSubmit(createCloudlet(cloudletId, length, pes), fileTransferTime), 0);
+					cloudletId++;
+					break;
+				case 3:
+					assertEquals(expected.cloudletPause(id), actual.cloudletPause(id));
+					break;
+				case 4:
+					assertEquals(expected.cloudletResume(id), actual.cloudletResume(id), 0);
+					break;
+				case 5:
+					Cloudlet cancelled = expected.cloudletCancel(id);
+					assertEquals(cancelled == null ? -1 : cancelled.getCloudletId(),
+							cloudletId(actual.cloudletCancel(id)));
+					break;
+				case 6:
+					int cpus = 1 + random.nextInt(4);
+					mipsShare = new ArrayList<>();
+					for (int i = 0; i < cpus; i++) {
+						mipsShare.add(500.0 * random.nextInt(3));
+					}
+					break;
+				default:
+					time += random.nextDouble() * 3;
+					assertEquals(expected.updateVmProcessing(time, mipsShare),
+							actual.updateVmProcessing(time, mipsShare), 0);
+					break;
+			}
+			assertEquals(expected.runningCloudlets(), actual.runningCloudlets());
+			assertEquals(expected.getCloudletPausedList().size(), actual.getCloudletPausedList().size());
+			assertEquals(expected.getCloudletFinishedList().size(), actual.getCloudletFinishedList().size());
+		}
+		List<ResCloudlet> expectedList = expected.getCloudletExecList();
+		List<ResCloudlet> actualList = actual.getCloudletExecList();
+		for (int i = 0; i < expectedList.size(); i++) {
+			assertEquals(expectedList.get(i).getCloudletId(), actualList.get(i).getCloudletId());
+			assertEquals(expectedList.get(i).getRemainingCloudletLength(),
+					actualList.get(i).getRemainingCloudletLength());
+		}
+		while (expected.isFinishedCloudlets()) {
+			assertEquals(expected.getNextFinishedCloudlet().getCloudletId(),
+					actual.getNextFinishedCloudlet().getCloudletId());
+		}
+	}
+
+	private static Cloudlet createCloudlet(int id, long length, int pes) {
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		Cloudlet cloudlet = new Cloudlet(id, length, pes, 300, 300, utilizationModel,
+				utilizationModel, utilizationModel);
+		cloudlet.setResourceParameter(0, 0, 0);
+		return cloudlet;
+	}
+
+	private static int countPes(List<ResCloudlet> execList) {
+		int pes = 0;
+		for (ResCloudlet rcl : execList) {
+			pes += rcl.getNumberOfPes();
+		}
+		return pes;
+	}
+
+	private static int cloudletId(Cloudlet cloudlet) {
+		return cloudlet == null ? -1 : cloudlet.getCloudletId();
+	}
+}
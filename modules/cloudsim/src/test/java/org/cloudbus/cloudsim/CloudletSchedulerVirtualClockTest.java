@@ -0,0 +1,214 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link CloudletSchedulerVirtualClock} finishes the same cloudlets at the same times
+ * as {@link CloudletSchedulerTimeShared}.
+ */
+public class CloudletSchedulerVirtualClockTest {
+
+	private static final double DELTA = 1e-6;
+
+	@Test
+	public void testUpdateVmProcessing() {
+		CloudletSchedulerVirtualClock scheduler = new CloudletSchedulerVirtualClock();
+		List<Double> mipsShare = Arrays.asList(1000.0, 1000.0);
+		scheduler.updateVmProcessing(0.0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet(0, 1000, 1));
+		scheduler.cloudletSubmit(createCloudlet(1, 3000, 1));
+		scheduler.cloudletSubmit(createCloudlet(2, 2000, 2));
+
+		// 4 PEs in use share 2000 MIPS: 500 MIPS for each PE
+		assertEquals(2.0, scheduler.updateVmProcessing(0.0, mipsShare), DELTA);
+		assertEquals(2.0, scheduler.updateVmProcessing(1.0, mipsShare), DELTA);
+		assertFalse(scheduler.isFinishedCloudlets());
+
+		// then 3 PEs share 2000 MIPS, leaving 1000 MI on each PE of the last cloudlet
+		assertEquals(3.5, scheduler.updateVmProcessing(2.0, mipsShare), DELTA);
+		assertEquals(0, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(2, scheduler.runningCloudlets());
+
+		// and the first cloudlet has 1000 MI left, running alone on a PE
+		assertEquals(4.5, scheduler.updateVmProcessing(3.5, mipsShare), DELTA);
+		assertEquals(2, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(Double.MAX_VALUE, scheduler.updateVmProcessing(4.5, mipsShare), 0);
+		assertEquals(1, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(0, scheduler.runningCloudlets());
+		assertEquals(0.0, scheduler.getVirtualTime(), 0);
+	}
+
+	@Test
+	public void testPauseResume() {
+		CloudletSchedulerVirtualClock scheduler = new CloudletSchedulerVirtualClock();
+		List<Double> mipsShare = Arrays.asList(1000.0);
+		scheduler.updateVmProcessing(0.0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet(0, 1000, 1));
+		scheduler.cloudletSubmit(createCloudlet(1, 1000, 1));
+		assertEquals(2.0, scheduler.updateVmProcessing(0.0, mipsShare), DELTA);
+
+		assertEquals(2.0, scheduler.updateVmProcessing(1.0, mipsShare), DELTA);
+		assertTrue(scheduler.cloudletPause(1));
+		ResCloudlet paused = scheduler.getCloudletPausedList().get(0);
+		assertEquals(500, paused.getRemainingCloudletLength());
+		// the other cloudlet now runs alone
+		assertEquals(1.5, scheduler.updateVmProcessing(1.0, mipsShare), DELTA);
+		assertEquals(Double.MAX_VALUE, scheduler.updateVmProcessing(1.5, mipsShare), 0);
+		assertEquals(0, scheduler.getNextFinishedCloudlet().getCloudletId());
+
+		assertEquals(0.0, scheduler.updateVmProcessing(2.5, mipsShare), 0);
+		scheduler.cloudletResume(1);
+		assertEquals(3.0, scheduler.updateVmProcessing(2.5, mipsShare), DELTA);
+		assertEquals(Double.MAX_VALUE, scheduler.updateVmProcessing(3.0, mipsShare), 0);
+		assertEquals(1, scheduler.getNextFinishedCloudlet().getCloudletId());
+	}
+
+	@Test
+	public void testLeaveExecList() {
+		CloudletSchedulerVirtualClock scheduler = new CloudletSchedulerVirtualClock();
+		List<Double> mipsShare = Arrays.asList(1000.0, 1000.0);
+		scheduler.updateVmProcessing(0.0, mipsShare);
+		for (int id = 0; id < 5; id++) {
+			scheduler.cloudletSubmit(createCloudlet(id, 1000 * (id + 1), 1));
+		}
+		assertEquals(2.5, scheduler.updateVmProcessing(0.0, mipsShare), DELTA);
+
+		// the last cloudlet takes the place of each one leaving the exec list
+		assertTrue(scheduler.cloudletPause(1));
+		assertEquals(Arrays.asList(0, 4, 2, 3), execIds(scheduler));
+		assertEquals(4, scheduler.cloudletCancel(4).getCloudletId());
+		assertEquals(Arrays.asList(0, 3, 2), execIds(scheduler));
+		assertEquals(0, scheduler.migrateCloudlet().getCloudletId());
+		assertEquals(Arrays.asList(2, 3), execIds(scheduler));
+		assertFalse(scheduler.cloudletPause(4));
+
+		// the two cloudlets left have a PE each
+		assertEquals(3.0, scheduler.updateVmProcessing(0.0, mipsShare), DELTA);
+		assertEquals(4.0, scheduler.updateVmProcessing(3.0, mipsShare), DELTA);
+		assertEquals(2, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(Arrays.asList(3), execIds(scheduler));
+		scheduler.cloudletResume(1);
+		assertEquals(Arrays.asList(3, 1), execIds(scheduler));
+		assertEquals(4.0, scheduler.updateVmProcessing(3.0, mipsShare), DELTA);
+		assertEquals(5.0, scheduler.updateVmProcessing(4.0, mipsShare), DELTA);
+		assertEquals(3, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(Arrays.asList(1), execIds(scheduler));
+	}
+
+	@Test
+	public void testSameFinishTimes() {
+		Random random = new Random(1);
+		for (int round = 0; round < 50; round++) {
+			long seed = random.nextLong();
+			Map<Integer, Double> expected = run(new CloudletSchedulerTimeShared(), seed);
+			Map<Integer, Double> actual = run(new CloudletSchedulerVirtualClock(), seed);
+			assertEquals(expected.keySet(), actual.keySet());
+			for (Map.Entry<Integer, Double> entry : expected.entrySet()) {
+				// the time-shared scheduler estimates the finish times from the remaining MI rounded down
+				assertEquals(entry.getValue(), actual.get(entry.getKey()), 0.1);
+			}
+		}
+	}
+
+	/**
+	 * Submits, pauses, resumes and cancels cloudlets at random times, updating the scheduler at
+	 * the finish times it estimates as a datacenter does.
+	 *
+	 * @param scheduler the scheduler
+	 * @param seed the seed of the random operations
+	 * @return the finish time of each finished cloudlet
+	 */
+	private static Map<Integer, Double> run(CloudletScheduler scheduler, long seed) {
+		Random random = new Random(seed);
+		Map<Integer, Double> finishTimes = new TreeMap<>();
+		List<Double> mipsShare = Arrays.asList(1000.0, 1000.0);
+		double time = 0.0;
+		double nextEvent = scheduler.updateVmProcessing(time, mipsShare);
+		int cloudletId = 0;
+		for (int step = 0; step < 200; step++) {
+			double operationTime = time + random.nextDouble() * 5;
+			while (nextEvent > 0.0 && nextEvent <= operationTime) {
+				time = nextEvent;
+				nextEvent = update(scheduler, time, mipsShare, finishTimes);
+			}
+			time = operationTime;
+			update(scheduler, time, mipsShare, finishTimes);
+
+			int id = random.nextInt(Math.max(cloudletId, 1));
+			switch (random.nextInt(6)) {
+				case 0:
+				case 1:
+					long length = 1 + random.nextInt(5000);
+					int pes = 1 + random.nextInt(3);
+					scheduler.cloudletSubmit(createCloudlet(cloudletId++, length, pes));
+					break;
+				case 2:
+					scheduler.cloudletPause(id);
+					break;
+				case 3:
+					scheduler.cloudletResume(id);
+					break;
+				case 4:
+					scheduler.cloudletCancel(id);
+					break;
+				default:
+					int cpus = 1 + random.nextInt(4);
+					mipsShare = new ArrayList<>();
+					for (int i = 0; i < cpus; i++) {
+						mipsShare.add(500.0 * (1 + random.nextInt(2)));
+					}
+					break;
+			}
+			nextEvent = update(scheduler, time, mipsShare, finishTimes);
+		}
+		while (nextEvent > 0.0 && nextEvent != Double.MAX_VALUE) {
+			time = nextEvent;
+			nextEvent = update(scheduler, time, mipsShare, finishTimes);
+		}
+		return finishTimes;
+	}
+
+	private static double update(CloudletScheduler scheduler, double time, List<Double> mipsShare,
+			Map<Integer, Double> finishTimes) {
+		double nextEvent = scheduler.updateVmProcessing(time, mipsShare);
+		while (scheduler.isFinishedCloudlets()) {
+			finishTimes.put(scheduler.getNextFinishedCloudlet().getCloudletId(), time);
+		}
+		return nextEvent;
+	}
+
+	private static List<Integer> execIds(CloudletScheduler scheduler) {
+		List<Integer> ids = new ArrayList<>();
+		for (ResCloudlet rcl : scheduler.getCloudletExecList()) {
+			ids.add(rcl.getCloudletId());
+		}
+		return ids;
+	}
+
+	private static Cloudlet createCloudlet(int id, long length, int pes) {
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		Cloudlet cloudlet = new Cloudlet(id, length, pes, 300, 300, utilizationModel,
+				utilizationModel, utilizationModel);
+		cloudlet.setResourceParameter(0, 0, 0);
+		return cloudlet;
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link Datacenter} tracking the hosts to update runs the cloudlets as when it
+ * updates all the hosts, while updating fewer of them, and that it brings the hosts it did not
+ * update up to date before changing them.
+ */
+public class DatacenterHostTrackingTest {
+
+	private static final int HOSTS = 40;
+
+	private static final int VMS = 8;
+
+	private static final int CLOUDLETS = 40;
+
+	private static final double NEW_VM_TIME = 12.1;
+
+	/** A datacenter counting the hosts it updates, and those it brings up to date. */
+	private static class CountingDatacenter extends Datacenter {
+
+		private long hostUpdates;
+
+		/** The hosts brought up to the last update before a change of their own. */
+		private long hostCatchUps;
+
+		/** The hosts other than its own brought up to the last update before a VM is created. */
+		private long vmCreateCatchUps;
+
+		/** The hosts brought up to date while a VM is created, null otherwise. */
+		private Set<Host> vmCreateHosts;
+
+		public CountingDatacenter(String name, DatacenterCharacteristics characteristics,
+				VmAllocationPolicy vmAllocationPolicy, List<Storage> storageList) throws Exception {
+			super(name, characteristics, vmAllocationPolicy, storageList, 0);
+		}
+
+		@Override
+		protected <T extends Host> List<T> getHostsToUpdate() {
+			List<T> hosts = super.getHostsToUpdate();
+			hostUpdates += hosts.size();
+			return hosts;
+		}
+
+		@Override
+		protected void processVmCreate(SimEvent ev, boolean ack) {
+			vmCreateHosts = new HashSet<>();
+			super.processVmCreate(ev, ack);
+			vmCreateHosts.remove(((Vm) ev.getData()).getHost());
+			vmCreateCatchUps += vmCreateHosts.size();
+			vmCreateHosts = null;
+		}
+
+		private void caughtUp(Host host) {
+			if (vmCreateHosts != null) {
+				vmCreateHosts.add(host);
+			} else {
+				hostCatchUps++;
+			}
+		}
+	}
+
+	/** A host telling its datacenter when it is updated to a time before the current one. */
+	private static class CatchUpHost extends Host {
+
+		private CountingDatacenter datacenter;
+
+		public CatchUpHost(int id, List<Pe> peList) {
+			super(id, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), Consts.MILLION,
+					peList, new VmSchedulerTimeShared(peList));
+		}
+
+		@Override
+		public double updateVmsProcessing(double currentTime) {
+			if (datacenter != null && currentTime < CloudSim.clock()) {
+				datacenter.caughtUp(this);
+			}
+			return super.updateVmsProcessing(currentTime);
+		}
+	}
+
+	/**
+	 * Submits cloudlets at different times, pauses and resumes some of them, and creates a VM
+	 * while the others run, sending the requests directly to the datacenter.
+	 */
+	private static class Driver extends SimEntity {
+
+		private final int datacenterId;
+
+		private final Map<Integer, Double> finishTimes;
+
+		public Driver(int datacenterId, Map<Integer, Double> finishTimes) {
+			super("Driver");
+			this.datacenterId = datacenterId;
+			this.finishTimes = finishTimes;
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 0; i < VMS; i++) {
+				schedule(datacenterId, 0.0, CloudSimTags.VM_CREATE_ACK, createVm(i));
+			}
+			schedule(datacenterId, NEW_VM_TIME, CloudSimTags.VM_CREATE_ACK, createVm(VMS));
+
+			Random random = new Random(1);
+			UtilizationModel utilizationModel = new UtilizationModelFull();
+			int[] vmIds = new int[CLOUDLETS];
+			for (int i = 0; i < CLOUDLETS; i++) {
+				double time = 0.5 + 0.9 * i;
+				Cloudlet cloudlet = new Cloudlet(i, 1000 + random.nextInt(20000), 1 + random.nextInt(2),
+						300, 300, utilizationModel, utilizationModel, utilizationModel);
+				cloudlet.setUserId(getId());
+				// the cloudlets submitted after the new VM is created may run on it
+				vmIds[i] = random.nextInt(time > NEW_VM_TIME ? VMS + 1 : VMS);
+				cloudlet.setVmId(vmIds[i]);
+				schedule(datacenterId, time, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+			}
+			for (int i = 0; i < CLOUDLETS / 4; i++) {
+				int id = 2 * i;
+				int[] data = {id, getId(), vmIds[id]};
+				schedule(datacenterId, 5.3 + 4 * i, CloudSimTags.CLOUDLET_PAUSE, data);
+				schedule(datacenterId, 7.7 + 4 * i, CloudSimTags.CLOUDLET_RESUME, data);
+			}
+		}
+
+		private Vm createVm(int id) {
+			return new Vm(id, getId(), 1000, 2, 512, 1000, 10000, "Xen", new CloudletSchedulerTimeShared());
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == CloudSimTags.CLOUDLET_RETURN) {
+				Cloudlet cloudlet = (Cloudlet) ev.getData();
+				finishTimes.put(cloudlet.getCloudletId(), cloudlet.getFinishTime());
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	@Test
+	public void testSameFinishTimes() throws Exception {
+		Map<Integer, Double> expected = new TreeMap<>();
+		long expectedUpdates = run(false, expected);
+		Map<Integer, Double> actual = new TreeMap<>();
+		long actualUpdates = run(true, actual);
+
+		assertEquals(CLOUDLETS, expected.size());
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<Integer, Double> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), actual.get(entry.getKey()), 0.01);
+		}
+		// the hosts without VMs are only updated once
+		assertTrue(actualUpdates * 4 < expectedUpdates);
+	}
+
+	@Test
+	public void testStaggeredChanges() throws Exception {
+		Map<Integer, Double> expected = new TreeMap<>();
+		CountingDatacenter untracked = runStaggered(false, expected);
+		Map<Integer, Double> actual = new TreeMap<>();
+		CountingDatacenter tracked = runStaggered(true, actual);
+
+		assertEquals(CLOUDLETS, expected.size());
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<Integer, Double> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), actual.get(entry.getKey()), 0.01);
+		}
+		// without tracking every host is updated each time, so none lags behind
+		assertEquals(0, untracked.hostCatchUps + untracked.vmCreateCatchUps);
+		assertTrue(tracked.hostCatchUps > 0);
+		assertTrue(tracked.vmCreateCatchUps > 0);
+		assertTrue(tracked.hostUpdates < untracked.hostUpdates);
+	}
+
+	/**
+	 * Runs the requests of a {@link Driver} on a datacenter with many hosts.
+	 *
+	 * @param hostTracking true to track the hosts to update
+	 * @param finishTimes the map where to put the finish time of each cloudlet
+	 * @return the datacenter
+	 */
+	private static CountingDatacenter runStaggered(boolean hostTracking, Map<Integer, Double> finishTimes)
+			throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		List<CatchUpHost> hostList = new ArrayList<>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			peList.add(new Pe(1, new PeProvisionerSimple(1000)));
+			hostList.add(new CatchUpHost(i, peList));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux",
+				"Xen", hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		CountingDatacenter datacenter = new CountingDatacenter("Datacenter_0", characteristics,
+				new VmAllocationPolicySimple(hostList), new LinkedList<>());
+		datacenter.setHostTracking(hostTracking);
+		for (CatchUpHost host : hostList) {
+			host.datacenter = datacenter;
+		}
+		new Driver(datacenter.getId(), finishTimes);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+		return datacenter;
+	}
+
+	/**
+	 * Runs cloudlets of random lengths on a few VMs of a datacenter with many hosts.
+	 *
+	 * @param hostTracking true to track the hosts to update
+	 * @param finishTimes the map where to put the finish time of each cloudlet
+	 * @return the number of hosts updated
+	 */
+	private static long run(boolean hostTracking, Map<Integer, Double> finishTimes) throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		List<Host> hostList = new ArrayList<>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			peList.add(new Pe(1, new PeProvisionerSimple(1000)));
+			hostList.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000),
+					Consts.MILLION, peList, new VmSchedulerTimeShared(peList)));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux",
+				"Xen", hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		CountingDatacenter datacenter = new CountingDatacenter("Datacenter_0", characteristics,
+				new VmAllocationPolicySimple(hostList), new LinkedList<>());
+		datacenter.setHostTracking(hostTracking);
+
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		List<Vm> vmList = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			vmList.add(new Vm(i, broker.getId(), 1000, 2, 512, 1000, 10000, "Xen",
+					new CloudletSchedulerTimeShared()));
+		}
+		broker.submitVmList(vmList);
+
+		Random random = new Random(1);
+		List<Cloudlet> cloudletList = new ArrayList<>();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000 + random.nextInt(50000), 1 + random.nextInt(2),
+					300, 300, utilizationModel, utilizationModel, utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setVmId(random.nextInt(VMS));
+			cloudletList.add(cloudlet);
+		}
+		broker.submitCloudletList(cloudletList);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		for (Cloudlet cloudlet : broker.<Cloudlet> getCloudletReceivedList()) {
+			finishTimes.put(cloudlet.getCloudletId(), cloudlet.getFinishTime());
+		}
+		return datacenter.hostUpdates;
+	}
+}
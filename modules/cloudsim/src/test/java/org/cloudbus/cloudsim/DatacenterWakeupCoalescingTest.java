@@ -0,0 +1,206 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link Datacenter} coalescing its internal update events keeps a single one of
+ * them pending, while updating the cloudlets at the same times as without coalescing.
+ */
+public class DatacenterWakeupCoalescingTest {
+
+	private static final int HOSTS = 10;
+
+	private static final int VMS = 8;
+
+	private static final int CLOUDLETS = 40;
+
+	/** A datacenter counting its update requests, or recording its update times. */
+	private static class CountingDatacenter extends Datacenter {
+
+		private long wakeupRequests;
+
+		private final List<Double> updateTimes = new ArrayList<>();
+
+		private final double[] startDelays;
+
+		public CountingDatacenter(List<Host> hostList, double... startDelays) throws Exception {
+			super("Datacenter_0", new DatacenterCharacteristics("x86", "Linux", "Xen", hostList, 10.0,
+					3.0, 0.05, 0.001, 0.0), new VmAllocationPolicySimple(hostList),
+					new LinkedList<>(), 0);
+			this.startDelays = startDelays;
+		}
+
+		@Override
+		public void startEntity() {
+			super.startEntity();
+			for (double delay : startDelays) {
+				scheduleNextWakeup(delay);
+			}
+		}
+
+		@Override
+		protected void scheduleNextWakeup(double delay) {
+			wakeupRequests++;
+			super.scheduleNextWakeup(delay);
+		}
+
+		@Override
+		protected void updateCloudletProcessing() {
+			if (startDelays.length > 0) {
+				updateTimes.add(CloudSim.clock());
+			} else {
+				super.updateCloudletProcessing();
+			}
+		}
+	}
+
+	@Before
+	public void setUp() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+	}
+
+	@After
+	public void tearDown() {
+		Log.enable();
+	}
+
+	@Test
+	public void testSuppressedAndReplaced() throws Exception {
+		CountingDatacenter datacenter = new CountingDatacenter(createHosts(1), 5.0, 7.0, 5.0, 2.0);
+		datacenter.setWakeupCoalescing(true);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+
+		// the second 5 is dropped, 7 is only recorded, 2 replaces the pending 5
+		assertEquals(1, datacenter.getSuppressedWakeups());
+		assertEquals(1, datacenter.getDeferredWakeups());
+		assertEquals(1, datacenter.getReplacedWakeups());
+		// 5 and 2, then 5 and 7 once the earlier ones are processed
+		assertEquals(4, datacenter.getScheduledWakeups());
+		assertEquals(Arrays.asList(2.0, 5.0, 7.0), datacenter.updateTimes);
+	}
+
+	@Test
+	public void testOtherEventsNotCancelled() throws Exception {
+		CountingDatacenter datacenter = new CountingDatacenter(createHosts(1), 5.0) {
+
+			@Override
+			public void startEntity() {
+				super.startEntity();
+				// an update event that is not a wakeup, then a wakeup replacing the pending one
+				schedule(getId(), 3.0, CloudSimTags.VM_DATACENTER_EVENT);
+				scheduleNextWakeup(1.0);
+			}
+		};
+		datacenter.setWakeupCoalescing(true);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+
+		assertEquals(1, datacenter.getReplacedWakeups());
+		assertEquals(Arrays.asList(1.0, 3.0, 5.0), datacenter.updateTimes);
+	}
+
+	@Test
+	public void testSameFinishTimes() throws Exception {
+		Map<Integer, Double> expected = new TreeMap<>();
+		CountingDatacenter expectedDatacenter = run(false, expected);
+		setUp();
+		Map<Integer, Double> actual = new TreeMap<>();
+		CountingDatacenter actualDatacenter = run(true, actual);
+
+		assertEquals(CLOUDLETS, expected.size());
+		assertEquals(expected, actual);
+		assertEquals(0, expectedDatacenter.getScheduledWakeups());
+		assertEquals(expectedDatacenter.wakeupRequests, actualDatacenter.wakeupRequests);
+		assertTrue(actualDatacenter.getSuppressedWakeups() > 0);
+		assertTrue(actualDatacenter.getDeferredWakeups() > 0);
+		// each request is dropped, or scheduled now or once the earlier ones are processed, and
+		// a replaced event is scheduled again
+		assertEquals(actualDatacenter.wakeupRequests - actualDatacenter.getSuppressedWakeups()
+				+ actualDatacenter.getReplacedWakeups(), actualDatacenter.getScheduledWakeups());
+		assertTrue(actualDatacenter.getScheduledWakeups() < actualDatacenter.wakeupRequests);
+	}
+
+	/**
+	 * Runs cloudlets of random lengths on the VMs of a datacenter.
+	 *
+	 * @param wakeupCoalescing true to coalesce the internal update events
+	 * @param finishTimes the map where to put the finish time of each cloudlet
+	 * @return the datacenter
+	 */
+	private static CountingDatacenter run(boolean wakeupCoalescing, Map<Integer, Double> finishTimes)
+			throws Exception {
+		CountingDatacenter datacenter = new CountingDatacenter(createHosts(HOSTS));
+		datacenter.setWakeupCoalescing(wakeupCoalescing);
+
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		List<Vm> vmList = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			vmList.add(new Vm(i, broker.getId(), 1000, 2, 512, 1000, 10000, "Xen",
+					new CloudletSchedulerTimeShared()));
+		}
+		broker.submitVmList(vmList);
+
+		Random random = new Random(1);
+		List<Cloudlet> cloudletList = new ArrayList<>();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000 + random.nextInt(50000), 1 + random.nextInt(2),
+					300, 300, utilizationModel, utilizationModel, utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setVmId(random.nextInt(VMS));
+			cloudletList.add(cloudlet);
+		}
+		broker.submitCloudletList(cloudletList);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+
+		for (Cloudlet cloudlet : broker.<Cloudlet> getCloudletReceivedList()) {
+			finishTimes.put(cloudlet.getCloudletId(), cloudlet.getFinishTime());
+		}
+		return datacenter;
+	}
+
+	private static List<Host> createHosts(int num) {
+		List<Host> hostList = new ArrayList<>();
+		for (int i = 0; i < num; i++) {
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			peList.add(new Pe(1, new PeProvisionerSimple(1000)));
+			hostList.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000),
+					Consts.MILLION, peList, new VmSchedulerTimeShared(peList)));
+		}
+		return hostList;
+	}
+}
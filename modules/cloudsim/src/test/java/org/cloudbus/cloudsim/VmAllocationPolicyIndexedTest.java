@@ -0,0 +1,170 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.VmAllocationPolicyIndexed.Fit;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that {@link VmAllocationPolicyIndexed} places the VMs on the same hosts as a scan of
+ * all the hosts.
+ */
+public class VmAllocationPolicyIndexedTest {
+
+	private static final int HOSTS = 50;
+
+	private static final int VMS = 300;
+
+	/** A policy scanning all the hosts for the one to try, as the indexed policy should choose. */
+	private static class ScanningPolicy extends VmAllocationPolicySimple {
+
+		private final Fit fit;
+
+		public ScanningPolicy(List<? extends Host> list, Fit fit) {
+			super(list);
+			this.fit = fit;
+		}
+
+		@Override
+		public boolean allocateHostForVm(Vm vm) {
+			int requiredPes = vm.getNumberOfPes();
+			Set<Integer> tried = new HashSet<>();
+			while (true) {
+				int idx = -1;
+				for (int i = 0; i < getFreePes().size(); i++) {
+					int free = getFreePes().get(i);
+					if (tried.contains(i) || (fit != Fit.WORST_FIT && free < requiredPes)) {
+						continue;
+					}
+					if (idx < 0 || (fit == Fit.BEST_FIT && free < getFreePes().get(idx))
+							|| (fit == Fit.WORST_FIT && free > getFreePes().get(idx))) {
+						idx = i;
+					}
+					if (fit == Fit.FIRST_FIT) {
+						break;
+					}
+				}
+				if (idx < 0) {
+					return false;
+				}
+				if (allocateHostForVm(vm, getHostList().get(idx))) {
+					return true;
+				}
+				tried.add(idx);
+			}
+		}
+	}
+
+	@Before
+	public void setUp() {
+		Log.disable();
+	}
+
+	@After
+	public void tearDown() {
+		Log.enable();
+	}
+
+	@Test
+	public void testWorstFitAsSimple() {
+		assertSamePlacement(new VmAllocationPolicySimple(createHosts()),
+				new VmAllocationPolicyIndexed(createHosts()));
+	}
+
+	@Test
+	public void testWorstFit() {
+		assertSamePlacement(new ScanningPolicy(createHosts(), Fit.WORST_FIT),
+				new VmAllocationPolicyIndexed(createHosts(), Fit.WORST_FIT));
+	}
+
+	@Test
+	public void testFirstFit() {
+		assertSamePlacement(new ScanningPolicy(createHosts(), Fit.FIRST_FIT),
+				new VmAllocationPolicyIndexed(createHosts(), Fit.FIRST_FIT));
+	}
+
+	@Test
+	public void testBestFit() {
+		assertSamePlacement(new ScanningPolicy(createHosts(), Fit.BEST_FIT),
+				new VmAllocationPolicyIndexed(createHosts(), Fit.BEST_FIT));
+	}
+
+	/**
+	 * Allocates and deallocates random VMs with both policies, checking that each VM gets a host
+	 * at the same position.
+	 */
+	private static void assertSamePlacement(VmAllocationPolicy expected, VmAllocationPolicy actual) {
+		Random random = new Random(1);
+		// the VMs allocated by each policy, at the same positions
+		List<Vm> expectedAllocated = new ArrayList<>();
+		List<Vm> actualAllocated = new ArrayList<>();
+		int failures = 0;
+		for (int i = 0; i < VMS; i++) {
+			if (!actualAllocated.isEmpty() && random.nextInt(4) == 0) {
+				int index = random.nextInt(actualAllocated.size());
+				expected.deallocateHostForVm(expectedAllocated.remove(index));
+				actual.deallocateHostForVm(actualAllocated.remove(index));
+				continue;
+			}
+			int pes = 1 + random.nextInt(4);
+			int ram = 256 * (1 + random.nextInt(8));
+			Vm expectedVm = new Vm(i, 0, 1000, pes, ram, 1000, 1000, "Xen",
+					new CloudletSchedulerTimeShared());
+			Vm actualVm = new Vm(i, 0, 1000, pes, ram, 1000, 1000, "Xen",
+					new CloudletSchedulerTimeShared());
+
+			boolean result = expected.allocateHostForVm(expectedVm);
+			assertEquals(result, actual.allocateHostForVm(actualVm));
+			if (result) {
+				assertEquals(expected.getHostList().indexOf(expected.getHost(expectedVm)),
+						actual.getHostList().indexOf(actual.getHost(actualVm)));
+				expectedAllocated.add(expectedVm);
+				actualAllocated.add(actualVm);
+			} else {
+				failures++;
+			}
+		}
+		// some VMs do not fit, so that hosts are masked and skipped
+		assertTrue(failures > 0);
+	}
+
+	/**
+	 * Creates hosts with various PEs and RAM, so that some have free PEs but not enough RAM.
+	 */
+	private static List<Host> createHosts() {
+		Random random = new Random(2);
+		List<Host> hostList = new ArrayList<>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<>();
+			int pes = 1 + random.nextInt(8);
+			for (int j = 0; j < pes; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1000)));
+			}
+			hostList.add(new Host(i, new RamProvisionerSimple(512 * (1 + random.nextInt(8))),
+					new BwProvisionerSimple(100000), Consts.MILLION, peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+		return hostList;
+	}
+
+}
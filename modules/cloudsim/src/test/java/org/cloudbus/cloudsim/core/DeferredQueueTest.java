@@ -0,0 +1,90 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeferredQueueTest {
+
+	private DeferredQueue queue;
+
+	@Before
+	public void setUp() throws Exception {
+		queue = new DeferredQueue();
+	}
+
+	@Test
+	public void testEventsAreGroupedByDestination() {
+		SimEvent a = event(1.0, 2);
+		SimEvent b = event(1.0, 0);
+		SimEvent c = event(2.0, 2);
+		queue.addEvent(a);
+		queue.addEvent(b);
+		queue.addEvent(c);
+
+		assertEquals(3, queue.size());
+		assertEquals(2, queue.size(2));
+		assertEquals(1, queue.size(0));
+		assertEquals(0, queue.size(1));
+		assertEquals(0, queue.size(5));
+		assertFalse(queue.iterator(7).hasNext());
+
+		Iterator<SimEvent> iterator = queue.iterator(2);
+		assertSame(a, iterator.next());
+		assertSame(c, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testLateEventIsInsertedAfterEventsWithSameTime() {
+		SimEvent a = event(1.0, 0);
+		SimEvent b = event(2.0, 0);
+		SimEvent c = event(3.0, 0);
+		SimEvent late = event(2.0, 0);
+		SimEvent earliest = event(0.5, 0);
+		queue.addEvent(a);
+		queue.addEvent(b);
+		queue.addEvent(c);
+		queue.addEvent(late);
+		queue.addEvent(earliest);
+
+		Iterator<SimEvent> iterator = queue.iterator(0);
+		assertSame(earliest, iterator.next());
+		assertSame(a, iterator.next());
+		assertSame(b, iterator.next());
+		assertSame(late, iterator.next());
+		assertSame(c, iterator.next());
+	}
+
+	@Test
+	public void testRemoveThroughIterator() {
+		queue.addEvent(event(1.0, 1));
+		queue.addEvent(event(2.0, 1));
+
+		Iterator<SimEvent> iterator = queue.iterator(1);
+		iterator.next();
+		iterator.remove();
+
+		assertEquals(1, queue.size());
+		assertEquals(1, queue.size(1));
+		assertEquals(2.0, queue.iterator(1).next().eventTime(), 0);
+	}
+
+	private static SimEvent event(double time, int destination) {
+		return new SimEvent(SimEvent.SEND, time, 0, destination, 0, null);
+	}
+
+}
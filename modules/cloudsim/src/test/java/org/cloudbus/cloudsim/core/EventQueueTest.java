@@ -0,0 +1,202 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link EventQueue} implementations return the events in the same order as the
+ * {@link FutureQueue}.
+ */
+public class EventQueueTest {
+
+	private static final int EVENTS = 5000;
+
+	@Test
+	public void testBinaryHeapOrder() {
+		checkSameOrder(new HeapEventQueue(2));
+	}
+
+	@Test
+	public void testFourAryHeapOrder() {
+		checkSameOrder(new HeapEventQueue(4));
+	}
+
+	@Test
+	public void testCalendarQueueOrder() {
+		checkSameOrder(new CalendarEventQueue());
+	}
+
+	@Test
+	public void testCalendarQueueSparseTimes() {
+		EventQueue queue = new CalendarEventQueue(0.001);
+		SimEvent late = new SimEvent(SimEvent.SEND, 1e6, 0, 0, 0, null);
+		SimEvent early = new SimEvent(SimEvent.SEND, 3.5, 0, 0, 0, null);
+		queue.addEvent(late);
+		queue.addEvent(early);
+		assertSame(early, queue.poll());
+		assertSame(late, queue.poll());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testRemove() {
+		for (EventQueue queue : new EventQueue[] { new HeapEventQueue(), new CalendarEventQueue() }) {
+			SimEvent first = new SimEvent(SimEvent.SEND, 1, 0, 0, 0, null);
+			SimEvent second = new SimEvent(SimEvent.SEND, 2, 0, 0, 0, null);
+			SimEvent third = new SimEvent(SimEvent.SEND, 3, 0, 0, 0, null);
+			queue.addEvent(third);
+			queue.addEvent(first);
+			queue.addEvent(second);
+
+			assertTrue(queue.remove(second));
+			assertFalse(queue.remove(second));
+			assertEquals(2, queue.size());
+
+			Iterator<SimEvent> iterator = queue.iterator();
+			while (iterator.hasNext()) {
+				if (iterator.next() == first) {
+					iterator.remove();
+				}
+			}
+			assertEquals(1, queue.size());
+			assertSame(third, queue.peek());
+			assertSame(third, queue.poll());
+			assertEquals(0, queue.size());
+		}
+	}
+
+	@Test
+	public void testRemoveEventAddedFirst() {
+		for (EventQueue queue : new EventQueue[] { new FutureQueue(), new HeapEventQueue(),
+				new CalendarEventQueue(), new IndexedEventQueue(new FutureQueue()) }) {
+			SimEvent first = new SimEvent(SimEvent.SEND, 1, 0, 0, 0, null);
+			SimEvent second = new SimEvent(SimEvent.SEND, 1, 0, 0, 0, null);
+			queue.addEventFirst(first);
+			queue.addEventFirst(second);
+
+			assertTrue(queue.remove(second));
+			assertFalse(queue.remove(second));
+			assertEquals(1, queue.size());
+			assertSame(first, queue.poll());
+			assertNull(queue.poll());
+		}
+	}
+
+	@Test
+	public void testIndexedQueueFindsEventsBySourceAndTag() {
+		IndexedEventQueue queue = new IndexedEventQueue(new HeapEventQueue());
+		SimEvent a = new SimEvent(SimEvent.SEND, 1, 3, 0, 41, null);
+		SimEvent b = new SimEvent(SimEvent.SEND, 2, 3, 0, 42, null);
+		SimEvent c = new SimEvent(SimEvent.SEND, 3, 3, 0, 41, null);
+		SimEvent d = new SimEvent(SimEvent.SEND, 1, 4, 0, 41, null);
+		queue.addEvent(a);
+		queue.addEvent(b);
+		queue.addEvent(c);
+		queue.addEvent(d);
+
+		assertEquals(2, queue.getEvents(3, new PredicateType(41)).size());
+		assertEquals(3, queue.getEvents(3, new PredicateType(new int[] { 41, 42 })).size());
+		assertEquals(3, queue.getEvents(3, new PredicateFrom(3)).size());
+		assertEquals(0, queue.getEvents(3, new PredicateFrom(0)).size());
+		assertEquals(0, queue.getEvents(5, new PredicateType(41)).size());
+
+		assertSame(a, queue.poll());
+		assertTrue(queue.remove(c));
+		assertEquals(0, queue.getEvents(3, new PredicateType(41)).size());
+		assertEquals(1, queue.getEvents(4, new PredicateType(41)).size());
+		assertEquals(1, queue.getEvents(3, CloudSim.SIM_ANY).size());
+	}
+
+	@Test
+	public void testIndexedQueuePrunesEmptyEntries() {
+		IndexedEventQueue queue = new IndexedEventQueue(new HeapEventQueue());
+		SimEvent a = new SimEvent(SimEvent.SEND, 1, 3, 0, 41, null);
+		SimEvent b = new SimEvent(SimEvent.SEND, 2, 3, 0, 42, null);
+		SimEvent c = new SimEvent(SimEvent.SEND, 3, 4, 0, 41, null);
+		queue.addEvent(a);
+		queue.addEvent(b);
+		queue.addEvent(c);
+		assertEquals(2, queue.getIndexedSourceNum());
+
+		assertTrue(queue.remove(c));
+		assertEquals(1, queue.getIndexedSourceNum());
+		assertSame(a, queue.poll());
+		assertEquals(1, queue.getEvents(3, CloudSim.SIM_ANY).size());
+		Iterator<SimEvent> it = queue.iterator();
+		it.next();
+		it.remove();
+		assertEquals(0, queue.getIndexedSourceNum());
+	}
+
+	/**
+	 * Runs the same random sequence of operations on the given queue and on a {@link FutureQueue},
+	 * checking that both return the very same events.
+	 */
+	private void checkSameOrder(EventQueue queue) {
+		FutureQueue expected = new FutureQueue();
+		Random random = new Random(7);
+		List<SimEvent[]> pending = new ArrayList<>();
+		double clock = 0;
+
+		for (int i = 0; i < EVENTS; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				// a few distinct times, so that there are many events at the same time
+				double time = clock + random.nextInt(20) * 0.5;
+				SimEvent a = new SimEvent(SimEvent.SEND, time, 0, 0, i, null);
+				SimEvent b = new SimEvent(SimEvent.SEND, time, 0, 0, i, null);
+				if (random.nextInt(10) == 0) {
+					expected.addEventFirst(a);
+					queue.addEventFirst(b);
+				} else {
+					expected.addEvent(a);
+					queue.addEvent(b);
+				}
+				pending.add(new SimEvent[] { a, b });
+			} else if (operation < 9) {
+				SimEvent a = expected.poll();
+				SimEvent b = queue.poll();
+				if (a == null) {
+					assertNull(b);
+				} else {
+					assertEquals(a.eventTime(), b.eventTime(), 0);
+					assertEquals(a.getTag(), b.getTag());
+					clock = a.eventTime();
+				}
+			} else if (!pending.isEmpty()) {
+				SimEvent[] pair = pending.remove(random.nextInt(pending.size()));
+				assertEquals(expected.remove(pair[0]), queue.remove(pair[1]));
+			}
+			assertEquals(expected.size(), queue.size());
+		}
+
+		while (expected.size() > 0) {
+			SimEvent a = expected.poll();
+			SimEvent b = queue.poll();
+			assertEquals(a.eventTime(), b.eventTime(), 0);
+			assertEquals(a.getTag(), b.getTag());
+		}
+		assertNull(queue.poll());
+	}
+
+}
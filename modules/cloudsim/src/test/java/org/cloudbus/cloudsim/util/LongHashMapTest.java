@@ -0,0 +1,105 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Test;
+
+public class LongHashMapTest {
+
+	@Test
+	public void testAgainstHashMap() {
+		LongHashMap<Integer> map = new LongHashMap<>();
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(1);
+		for (int i = 0; i < 20000; i++) {
+			// few distinct keys, so that removals hit existing entries and probe chains
+			long key = Vm.getKey(random.nextInt(4), random.nextInt(200));
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+		final Map<Long, Integer> visited = new HashMap<>();
+		map.forEach((key, value) -> visited.put(key, value));
+		assertEquals(expected, visited);
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(Vm.getKey(0, 0)));
+	}
+
+	@Test
+	public void testUidView() {
+		LongHashMap<String> map = new LongHashMap<>(Vm::getKey, Vm::getUid);
+		Map<String, String> view = map.asMap();
+		map.put(Vm.getKey(1, 2), "a");
+		view.put(Vm.getUid(3, 4), "b");
+
+		assertEquals("a", view.get("1-2"));
+		assertEquals("b", map.get(Vm.getKey(3, 4)));
+		assertNull(view.get("not a uid"));
+		assertNull(view.get(12));
+		assertEquals(2, view.size());
+
+		Iterator<Map.Entry<String, String>> iterator = view.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, String> entry = iterator.next();
+			if (entry.getKey().equals("1-2")) {
+				iterator.remove();
+			} else {
+				entry.setValue("c");
+			}
+		}
+		assertEquals(1, map.size());
+		assertEquals("c", map.get(Vm.getKey(3, 4)));
+	}
+
+	@Test
+	public void testCopyView() {
+		Map<String, String> source = new HashMap<>();
+		source.put("1-2", "a");
+		LongHashMap<String> map = LongHashMap.copyOf(source, Vm::getKey, Vm::getUid);
+		assertEquals("a", map.get(Vm.getKey(1, 2)));
+		assertEquals(source, map.asMap());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoView() {
+		new LongHashMap<String>().asMap();
+	}
+
+	@Test
+	public void testVmKey() {
+		assertEquals(Vm.getKey(7, 42), Vm.getKey(Vm.getUid(7, 42)));
+		assertEquals("7-42", Vm.getUid(Vm.getKey(7, 42)));
+		assertEquals(Vm.getKey(-1, 3), Vm.getKey("-1-3"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullValue() {
+		new LongHashMap<String>().put(1, null);
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.arrival;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.statistics.MakespanStatistics;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+import org.workflowsim.utils.WorkflowArrivalProcess;
+
+/**
+ * This WorkflowSimArrivalExample1 simulates a workflow service: 50 workflows
+ * arrive one after the other, with exponential inter-arrival times of 300
+ * seconds on average. Each workflow is only loaded when it arrives, and the
+ * jobs are not kept once they return, so that the memory used only depends
+ * on the workflows running at the same time.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowSimArrivalExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+        try {
+            int vmNum = 20;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxDir = "modules/workflowsim-examples/src/main/java/org/workflowsim/examples/config/dax/";
+            List<String> daxPaths = Arrays.asList(daxDir + "Montage_100.xml",
+                    daxDir + "CyberShake_100.xml", daxDir + "Inspiral_100.xml");
+            for (String daxPath : daxPaths) {
+                if (!new File(daxPath).exists()) {
+                    Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                    return;
+                }
+            }
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters. The DAX paths are given by the
+             * workflow arrivals: a gamma distribution of shape 1 gives
+             * exponential inter-arrival times, that is Poisson arrivals.
+             */
+            Parameters.init(vmNum, (String) null, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            DistributionGenerator interArrivalTimes = new DistributionGenerator(
+                    DistributionGenerator.DistributionFamily.GAMMA, 300, 1.0);
+            Parameters.setWorkflowArrivalProcess(new WorkflowArrivalProcess(interArrivalTimes, daxPaths, 50));
+            ReplicaCatalog.init(file_system);
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            MakespanStatistics makespan = new MakespanStatistics();
+            wfEngine.addJobCompletionListener(makespan);
+            wfEngine.setJobListsKept(false);
+
+            List<Vm> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+            CloudSim.startSimulation();
+            CloudSim.stopSimulation();
+
+            DecimalFormat dft = new DecimalFormat("###.##");
+            Log.printLine();
+            Log.printLine("========== OUTPUT ==========");
+            Log.printLine("Workflows: " + Parameters.getWorkflowArrivalProcess().getArrivalNum()
+                    + "    Jobs: " + makespan.getJobNum()
+                    + "    Makespan: " + dft.format(makespan.getMakespan()));
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.planning;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+import org.workflowsim.planning.BasePlanningAlgorithm;
+import org.workflowsim.planning.DHEFTPlanningAlgorithm;
+import org.workflowsim.planning.HEFTPlanningAlgorithm;
+import org.workflowsim.planning.SparseDHEFTPlanningAlgorithm;
+import org.workflowsim.planning.SparseHEFTPlanningAlgorithm;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This ParallelPlanningBenchmark plans the Montage and CyberShake workflows
+ * with HEFT and DHEFT on a growing number of heterogeneous vms, evaluating the
+ * vms one by one and then in parallel. It prints the planning times and the
+ * speedup, and checks that both modes allocate every task to the same vm.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class ParallelPlanningBenchmark {
+
+    private static final String DAX_DIR = "modules/workflowsim-examples/src/main/java/org/workflowsim/examples/config/dax/";
+    private static final String[] DAX_FILES = {"Montage_1000.xml", "CyberShake_1000.xml"};
+    private static final int[] VM_NUMS = {16, 64, 256, 1024};
+    private static final int REPEATS = 5;
+
+    protected static List<CondorVM> createVM(int vms) {
+        List<CondorVM> list = new ArrayList<>();
+        // the same vms in every run
+        Random random = new Random(vms);
+        for (int i = 0; i < vms; i++) {
+            double ratio = 0.1 + random.nextDouble();
+            list.add(new CondorVM(i, 0, 1000 * ratio, 1, 512, (long) (1000 * ratio), 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+
+    /**
+     * Plans the workflow and gets the vm of each task
+     */
+    private static int[] plan(BasePlanningAlgorithm planner, List<Task> taskList, int vmNum,
+            boolean parallel) throws Exception {
+        planner.setTaskList(taskList);
+        planner.setVmList(createVM(vmNum));
+        planner.setParallel(parallel);
+        planner.run();
+        int[] allocation = new int[taskList.size()];
+        for (int i = 0; i < allocation.length; i++) {
+            allocation[i] = taskList.get(i).getVmId();
+        }
+        return allocation;
+    }
+
+    /**
+     * Gets the shortest planning time of a few runs, in milliseconds
+     */
+    private static double time(Supplier<BasePlanningAlgorithm> planner, List<Task> taskList,
+            int vmNum, boolean parallel) throws Exception {
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < REPEATS; i++) {
+            long start = System.nanoTime();
+            plan(planner.get(), taskList, vmNum, parallel);
+            best = Math.min(best, (System.nanoTime() - start) / 1e6);
+        }
+        return best;
+    }
+
+    private static void benchmark(String name, Supplier<BasePlanningAlgorithm> planner,
+            String daxFile, List<Task> taskList) throws Exception {
+        for (int vmNum : VM_NUMS) {
+            int[] sequential = plan(planner.get(), taskList, vmNum, false);
+            int[] parallel = plan(planner.get(), taskList, vmNum, true);
+            boolean same = Arrays.equals(sequential, parallel);
+
+            double sequentialTime = time(planner, taskList, vmNum, false);
+            double parallelTime = time(planner, taskList, vmNum, true);
+
+            Log.enable();
+            Log.printLine(String.format("%-12s %-20s %5d vms %10.1f ms %10.1f ms %6.2fx %s",
+                    name, daxFile, vmNum, sequentialTime, parallelTime,
+                    sequentialTime / parallelTime, same ? "same plan" : "DIFFERENT PLAN"));
+            Log.disable();
+        }
+    }
+
+    /**
+     * Creates main() to run this benchmark
+     */
+    public static void main(String[] args) {
+        try {
+            Log.printLine("Planner      Workflow             VMs  sequential   parallel  speedup ("
+                    + Runtime.getRuntime().availableProcessors() + " cores)");
+            for (String daxFile : DAX_FILES) {
+                String daxPath = DAX_DIR + daxFile;
+                if (!new File(daxPath).exists()) {
+                    Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                    return;
+                }
+                Log.disable();
+                Parameters.init(1, daxPath, null, null, null, null, null, null, null, 0);
+                ReplicaCatalog.init(ReplicaCatalog.FileSystem.LOCAL);
+                WorkflowParser parser = new WorkflowParser(0);
+                parser.parse();
+                List<Task> taskList = parser.getTaskList();
+
+                benchmark("HEFT", HEFTPlanningAlgorithm::new, daxFile, taskList);
+                benchmark("SparseHEFT", SparseHEFTPlanningAlgorithm::new, daxFile, taskList);
+                benchmark("DHEFT", DHEFTPlanningAlgorithm::new, daxFile, taskList);
+                benchmark("SparseDHEFT", SparseDHEFTPlanningAlgorithm::new, daxFile, taskList);
+                Log.enable();
+            }
+        } catch (Exception e) {
+            Log.enable();
+            Log.printLine("The benchmark has been terminated due to an unexpected error");
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.examples.statistics;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.Calendar;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.workflowsim.WorkflowDatacenter;
+import org.workflowsim.WorkflowEngine;
+import org.workflowsim.WorkflowPlanner;
+import org.workflowsim.examples.WorkflowSimBasicExample1;
+import org.workflowsim.statistics.CostStatistics;
+import org.workflowsim.statistics.FailureStatistics;
+import org.workflowsim.statistics.MakespanStatistics;
+import org.workflowsim.statistics.RuntimeStatistics;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * This WorkflowSimStatisticsExample1 runs the Montage workflow as
+ * WorkflowSimBasicExample1 does, but gathers the makespan, the runtime per
+ * depth, the cost and the failures while the jobs return, without keeping the
+ * jobs in the job lists of the workflow engine.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowSimStatisticsExample1 extends WorkflowSimBasicExample1 {
+
+    ////////////////////////// STATIC METHODS ///////////////////////
+    /**
+     * Creates main() to run this example This example has only one datacenter
+     * and one storage
+     */
+    public static void main(String[] args) {
+        try {
+            int vmNum = 20;//number of vms;
+            /**
+             * Should change this based on real physical path
+             */
+            String daxPath = "modules/workflowsim-examples/src/main/java/org/workflowsim/examples/config/dax/Montage_1000.xml";
+            File daxFile = new File(daxPath);
+            if (!daxFile.exists()) {
+                Log.printLine("Warning: Please replace daxPath with the physical path in your working environment!");
+                return;
+            }
+
+            Parameters.SchedulingAlgorithm sch_method = Parameters.SchedulingAlgorithm.MINMIN;
+            Parameters.PlanningAlgorithm pln_method = Parameters.PlanningAlgorithm.INVALID;
+            ReplicaCatalog.FileSystem file_system = ReplicaCatalog.FileSystem.SHARED;
+
+            /**
+             * No overheads
+             */
+            OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+
+            /**
+             * No Clustering
+             */
+            ClusteringParameters.ClusteringMethod method = ClusteringParameters.ClusteringMethod.NONE;
+            ClusteringParameters cp = new ClusteringParameters(0, 0, method, null);
+
+            /**
+             * Initialize static parameters
+             */
+            Parameters.init(vmNum, daxPath, null,
+                    null, op, cp, sch_method, pln_method,
+                    null, 0);
+            ReplicaCatalog.init(file_system);
+
+            // before creating any entities.
+            int num_user = 1;   // number of grid users
+            Calendar calendar = Calendar.getInstance();
+            boolean trace_flag = false;  // mean trace events
+
+            // Initialize the CloudSim library
+            CloudSim.init(num_user, calendar, trace_flag);
+
+            WorkflowDatacenter datacenter0 = createDatacenter("Datacenter_0");
+
+            /**
+             * Create a WorkflowPlanner with one schedulers.
+             */
+            WorkflowPlanner wfPlanner = new WorkflowPlanner("planner_0", 1);
+            /**
+             * Create a WorkflowEngine.
+             */
+            WorkflowEngine wfEngine = wfPlanner.getWorkflowEngine();
+            /**
+             * The statistics are gathered while the jobs return, so the jobs
+             * do not need to be kept until the end.
+             */
+            MakespanStatistics makespan = new MakespanStatistics();
+            RuntimeStatistics runtime = new RuntimeStatistics();
+            CostStatistics cost = new CostStatistics();
+            FailureStatistics failures = new FailureStatistics();
+            wfEngine.addJobCompletionListener(makespan);
+            wfEngine.addJobCompletionListener(runtime);
+            wfEngine.addJobCompletionListener(cost);
+            wfEngine.addJobCompletionListener(failures);
+            wfEngine.setJobListsKept(false);
+
+            List<Vm> vmlist0 = createVM(wfEngine.getSchedulerId(0), Parameters.getVmNum());
+
+            /**
+             * Submits this list of vms to this WorkflowEngine.
+             */
+            wfEngine.submitVmList(vmlist0, 0);
+
+            /**
+             * Binds the data centers with the scheduler.
+             */
+            wfEngine.bindSchedulerDatacenter(datacenter0.getId(), 0);
+            CloudSim.startSimulation();
+            CloudSim.stopSimulation();
+            printStatistics(makespan, runtime, cost, failures);
+        } catch (Exception e) {
+            Log.printLine("The simulation has been terminated due to an unexpected error");
+        }
+    }
+
+    /**
+     * Prints the statistics
+     */
+    protected static void printStatistics(MakespanStatistics makespan, RuntimeStatistics runtime,
+            CostStatistics cost, FailureStatistics failures) {
+        String indent = "    ";
+        DecimalFormat dft = new DecimalFormat("###.##");
+        Log.printLine();
+        Log.printLine("========== OUTPUT ==========");
+        Log.printLine("Jobs: " + makespan.getJobNum() + indent + "Failed jobs: " + failures.getFailedJobNum()
+                + indent + "Makespan: " + dft.format(makespan.getMakespan())
+                + indent + "Cost: " + dft.format(cost.getTotalCost()));
+        Log.printLine("Depth" + indent + "Jobs" + indent + "Mean" + indent + "Min" + indent
+                + "Median" + indent + "P95" + indent + "Max");
+        for (int depth = 0; depth < runtime.getDepthNum(); depth++) {
+            if (runtime.getJobNum(depth) == 0) {
+                continue;
+            }
+            Log.printLine(depth + indent + indent + runtime.getJobNum(depth)
+                    + indent + dft.format(runtime.getMeanRuntime(depth))
+                    + indent + dft.format(runtime.getMinRuntime(depth))
+                    + indent + dft.format(runtime.getPercentile(depth, 50))
+                    + indent + dft.format(runtime.getPercentile(depth, 95))
+                    + indent + dft.format(runtime.getMaxRuntime(depth)));
+        }
+    }
+}
@@ -0,0 +1,504 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.utils.IndexedReplicaCatalog;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.ReplicaCatalog;
+import org.workflowsim.utils.TaskOverrides;
+
+/**
+ * BinaryWorkflow is a compact binary form of a parsed DAX, so that the same
+ * workflow does not have to be parsed again in every experiment. The file
+ * holds the task lengths (before the runtime scales), depths and types, the
+ * parents and children of every task in compressed sparse row form, and a
+ * table of the files with their sizes and link types.
+ * <p>
+ * A binary workflow can be used wherever a DAX path is expected, since
+ * WorkflowParser recognizes it by its header. The file is memory mapped when
+ * opened and {@link #getTask(int, int, int)} only creates the tasks and files
+ * asked for. WorkflowParser however loads the whole workflow eagerly with
+ * {@link #getTaskList(int, int)}, since the clustering engine and the
+ * WorkflowEngine need every task and dependency: what a binary workflow saves
+ * is the parsing of the XML, not the creation of the tasks.
+ * <p>
+ * Usage: java org.workflowsim.BinaryWorkflow dax_path binary_path
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public final class BinaryWorkflow {
+
+    /**
+     * The first bytes of a binary workflow ("WFSB").
+     */
+    private static final int MAGIC = 0x57465342;
+    /**
+     * The version of the format.
+     */
+    private static final int VERSION = 1;
+    /**
+     * The number of int fields in the header, magic and version included.
+     */
+    private static final int HEADER_INTS = 8;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+    private final int taskNum;
+    private final int parentNum;
+    private final int childNum;
+    private final int useNum;
+    private final int fileNum;
+    private final int stringNum;
+    /**
+     * The positions of the sections of the file.
+     */
+    private final int lengthPos;
+    private final int depthPos;
+    private final int typePos;
+    private final int parentOffsetPos;
+    private final int parentPos;
+    private final int childOffsetPos;
+    private final int childPos;
+    private final int useOffsetPos;
+    private final int usePos;
+    private final int fileNamePos;
+    private final int fileSizePos;
+    private final int fileTypePos;
+    private final int stringOffsetPos;
+    private final int stringPos;
+    /**
+     * The tasks created so far.
+     */
+    private final Task[] tasks;
+    /**
+     * The strings decoded so far.
+     */
+    private final String[] strings;
+    /**
+     * Whether the dependencies of the tasks have been set.
+     */
+    private boolean linked;
+    /**
+     * The replica catalog the input files are added to.
+     */
+    private final IndexedReplicaCatalog replicaCatalog;
+
+    private BinaryWorkflow(ByteBuffer buffer, IndexedReplicaCatalog replicaCatalog) {
+        this.buffer = buffer;
+        this.replicaCatalog = replicaCatalog;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary workflow");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary workflow version " + buffer.getInt(4));
+        }
+        taskNum = buffer.getInt(8);
+        parentNum = buffer.getInt(12);
+        childNum = buffer.getInt(16);
+        useNum = buffer.getInt(20);
+        fileNum = buffer.getInt(24);
+        stringNum = buffer.getInt(28);
+
+        lengthPos = HEADER_INTS * 4;
+        depthPos = lengthPos + 8 * taskNum;
+        typePos = depthPos + 4 * taskNum;
+        parentOffsetPos = typePos + 4 * taskNum;
+        parentPos = parentOffsetPos + 4 * (taskNum + 1);
+        childOffsetPos = parentPos + 4 * parentNum;
+        childPos = childOffsetPos + 4 * (taskNum + 1);
+        useOffsetPos = childPos + 4 * childNum;
+        usePos = useOffsetPos + 4 * (taskNum + 1);
+        fileSizePos = usePos + 4 * useNum;
+        fileNamePos = fileSizePos + 8 * fileNum;
+        fileTypePos = fileNamePos + 4 * fileNum;
+        stringOffsetPos = fileTypePos + 4 * fileNum;
+        stringPos = stringOffsetPos + 4 * (stringNum + 1);
+
+        tasks = new Task[taskNum];
+        strings = new String[stringNum];
+    }
+
+    /**
+     * Opens a binary workflow by memory mapping it.
+     *
+     * @param path the binary workflow path
+     * @return the binary workflow
+     * @throws IOException if the file cannot be read
+     */
+    public static BinaryWorkflow open(String path) throws IOException {
+        return open(path, ReplicaCatalog.getCatalog());
+    }
+
+    /**
+     * Opens a binary workflow by memory mapping it.
+     *
+     * @param path the binary workflow path
+     * @param replicaCatalog the replica catalog the input files are added to
+     * @return the binary workflow
+     * @throws IOException if the file cannot be read
+     */
+    public static BinaryWorkflow open(String path, IndexedReplicaCatalog replicaCatalog) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            return new BinaryWorkflow(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), replicaCatalog);
+        }
+    }
+
+    /**
+     * Checks whether a file is a binary workflow, based on its first bytes.
+     *
+     * @param path the file path
+     * @return whether it is a binary workflow
+     */
+    public static boolean isBinaryWorkflow(String path) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(path))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int getTaskNum() {
+        return taskNum;
+    }
+
+    /**
+     * Gets a task, creating it and its files if needed. The dependencies of
+     * the task are only set by {@link #getTaskList(int, int)}. A task is
+     * created once, so it must always be asked for with the same ids.
+     *
+     * @param index the index of the task in the workflow
+     * @param userId the user id
+     * @param firstId the id of the first task of the workflow
+     * @return the task
+     * @throws IllegalArgumentException if the task was created with other ids
+     */
+    public Task getTask(int index, int userId, int firstId) {
+        Task task = tasks[index];
+        if (task != null) {
+            if (task.getUserId() != userId || task.getCloudletId() != firstId + index) {
+                throw new IllegalArgumentException("Task " + index
+                        + " already created with user id " + task.getUserId()
+                        + " and id " + task.getCloudletId());
+            }
+            return task;
+        }
+        long length = buffer.getLong(lengthPos + 8 * index);
+        int depth = buffer.getInt(depthPos + 4 * index);
+        //multiple the scale, by default it is 1.0
+        length *= Parameters.getRuntimeScale();
+        length *= Parameters.getRuntimeScale(depth);
+        task = new Task(firstId + index, length);
+        task.setType(getString(buffer.getInt(typePos + 4 * index)));
+        task.setUserId(userId);
+        task.setDepth(depth);
+
+        List<FileItem> mFileList = new ArrayList<>();
+        int end = buffer.getInt(useOffsetPos + 4 * (index + 1));
+        for (int i = buffer.getInt(useOffsetPos + 4 * index); i < end; i++) {
+            mFileList.add(getFile(buffer.getInt(usePos + 4 * i)));
+        }
+        for (FileItem file : mFileList) {
+            task.addRequiredFile(file.getName());
+        }
+        task.setFileList(mFileList);
+        tasks[index] = task;
+        return task;
+    }
+
+    /**
+     * Gets all the tasks of the workflow, with their dependencies.
+     *
+     * @param userId the user id
+     * @param firstId the id of the first task of the workflow
+     * @return the task list
+     * @throws IllegalArgumentException if a task was created with other ids
+     */
+    public List<Task> getTaskList(int userId, int firstId) {
+        List<Task> list = new ArrayList<>(taskNum);
+        for (int i = 0; i < taskNum; i++) {
+            list.add(getTask(i, userId, firstId));
+        }
+        if (linked) {
+            return list;
+        }
+        for (int i = 0; i < taskNum; i++) {
+            Task task = tasks[i];
+            int end = buffer.getInt(parentOffsetPos + 4 * (i + 1));
+            for (int j = buffer.getInt(parentOffsetPos + 4 * i); j < end; j++) {
+                task.addParent(tasks[buffer.getInt(parentPos + 4 * j)]);
+            }
+            end = buffer.getInt(childOffsetPos + 4 * (i + 1));
+            for (int j = buffer.getInt(childOffsetPos + 4 * i); j < end; j++) {
+                task.addChild(tasks[buffer.getInt(childPos + 4 * j)]);
+            }
+        }
+        linked = true;
+        return list;
+    }
+
+    /**
+     * Gets the file of an entry of the file table. Input files are shared
+     * through the ReplicaCatalog, and overridden sizes normalized, as in
+     * WorkflowParser.
+     */
+    private FileItem getFile(int index) {
+        String fileName = getString(buffer.getInt(fileNamePos + 4 * index));
+        double size = buffer.getDouble(fileSizePos + 8 * index);
+        TaskOverrides overrides = Parameters.getTaskOverrides();
+        if (overrides != null && !Double.isNaN(overrides.getDatasize(fileName))) {
+            size = WorkflowParser.normalizeFileSize(overrides.getDatasize(fileName));
+        }
+        FileType type = FileType.values()[buffer.getInt(fileTypePos + 4 * index)];
+        FileItem tFile;
+        if (type == FileType.OUTPUT) {
+            tFile = new FileItem(fileName, size);
+        } else {
+            tFile = replicaCatalog.internFile(fileName, size);
+        }
+        tFile.setType(type);
+        return tFile;
+    }
+
+    private String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null) {
+            int start = buffer.getInt(stringOffsetPos + 4 * index);
+            int end = buffer.getInt(stringOffsetPos + 4 * (index + 1));
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(stringPos + start + i);
+            }
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Writes a parsed workflow as a binary workflow. The task lengths are
+     * written as they are, so the workflow should have been parsed with a
+     * runtime scale of 1.0 and no runtime scale of any depth.
+     *
+     * @param taskList the tasks, as returned by WorkflowParser
+     * @param path the binary workflow path
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<Task> taskList, String path) throws IOException {
+        Map<Task, Integer> taskIndex = new IdentityHashMap<>();
+        for (Task task : taskList) {
+            taskIndex.put(task, taskIndex.size());
+        }
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> stringList = new ArrayList<>();
+        /**
+         * A file entry is a distinct (name, size, type).
+         */
+        Map<List<Object>, Integer> fileIndex = new HashMap<>();
+        List<FileItem> fileList = new ArrayList<>();
+        int parentNum = 0;
+        int childNum = 0;
+        int useNum = 0;
+        for (Task task : taskList) {
+            parentNum += task.getParentList().size();
+            childNum += task.getChildList().size();
+            useNum += task.getFileList().size();
+            index(stringIndex, stringList, task.getType());
+            for (FileItem file : task.getFileList()) {
+                index(stringIndex, stringList, file.getName());
+                List<Object> key = fileKey(file);
+                if (!fileIndex.containsKey(key)) {
+                    fileIndex.put(key, fileList.size());
+                    fileList.add(file);
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(taskList.size());
+            out.writeInt(parentNum);
+            out.writeInt(childNum);
+            out.writeInt(useNum);
+            out.writeInt(fileList.size());
+            out.writeInt(stringList.size());
+
+            for (Task task : taskList) {
+                out.writeLong(task.getCloudletLength());
+            }
+            for (Task task : taskList) {
+                out.writeInt(task.getDepth());
+            }
+            for (Task task : taskList) {
+                out.writeInt(index(stringIndex, stringList, task.getType()));
+            }
+
+            int offset = 0;
+            for (Task task : taskList) {
+                out.writeInt(offset);
+                offset += task.getParentList().size();
+            }
+            out.writeInt(offset);
+            for (Task task : taskList) {
+                for (Task parent : task.getParentList()) {
+                    out.writeInt(indexOf(taskIndex, parent));
+                }
+            }
+
+            offset = 0;
+            for (Task task : taskList) {
+                out.writeInt(offset);
+                offset += task.getChildList().size();
+            }
+            out.writeInt(offset);
+            for (Task task : taskList) {
+                for (Task child : task.getChildList()) {
+                    out.writeInt(indexOf(taskIndex, child));
+                }
+            }
+
+            offset = 0;
+            for (Task task : taskList) {
+                out.writeInt(offset);
+                offset += task.getFileList().size();
+            }
+            out.writeInt(offset);
+            for (Task task : taskList) {
+                for (FileItem file : task.getFileList()) {
+                    out.writeInt(fileIndex.get(fileKey(file)));
+                }
+            }
+
+            for (FileItem file : fileList) {
+                out.writeDouble(file.getSize());
+            }
+            for (FileItem file : fileList) {
+                out.writeInt(index(stringIndex, stringList, file.getName()));
+            }
+            for (FileItem file : fileList) {
+                out.writeInt(file.getType().ordinal());
+            }
+
+            List<byte[]> bytes = new ArrayList<>(stringList.size());
+            offset = 0;
+            for (String string : stringList) {
+                byte[] b = string.getBytes(StandardCharsets.UTF_8);
+                bytes.add(b);
+                out.writeInt(offset);
+                offset += b.length;
+            }
+            out.writeInt(offset);
+            for (byte[] b : bytes) {
+                out.write(b);
+            }
+        }
+    }
+
+    /**
+     * Parses a DAX file and writes it as a binary workflow. The
+     * ReplicaCatalog should have been initialized. The runtimes of the
+     * runtime file, if any, are written in place of those of the DAX, since
+     * the binary workflow does not keep the task ids.
+     *
+     * @param daxPath the DAX path
+     * @param path the binary workflow path
+     * @throws IOException if the file cannot be written
+     */
+    public static void convert(String daxPath, String path) throws IOException {
+        double scale = Parameters.getRuntimeScale();
+        double[] depthScales = Parameters.getDepthRuntimeScales();
+        Parameters.setRuntimeScale(1.0);
+        Parameters.setDepthRuntimeScales(new double[0]);
+        try {
+            WorkflowParser parser = new WorkflowParser(0, daxPath);
+            parser.parse();
+            write(parser.getTaskList(), path);
+        } finally {
+            Parameters.setRuntimeScale(scale);
+            Parameters.setDepthRuntimeScales(depthScales);
+        }
+    }
+
+    private static int index(Map<String, Integer> stringIndex, List<String> stringList, String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer index = stringIndex.get(string);
+        if (index == null) {
+            index = stringList.size();
+            stringIndex.put(string, index);
+            stringList.add(string);
+        }
+        return index;
+    }
+
+    private static int indexOf(Map<Task, Integer> taskIndex, Task task) {
+        Integer index = taskIndex.get(task);
+        if (index == null) {
+            throw new IllegalArgumentException("Task " + task.getCloudletId() + " is not in the task list");
+        }
+        return index;
+    }
+
+    private static List<Object> fileKey(FileItem file) {
+        List<Object> key = new ArrayList<>(3);
+        key.add(file.getName());
+        key.add(file.getSize());
+        key.add(file.getType());
+        return key;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            Log.printLine("Usage: java org.workflowsim.BinaryWorkflow dax_path binary_path");
+            return;
+        }
+        try {
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+            convert(args[0], args[1]);
+        } catch (IOException e) {
+            Log.printLine("IO Exception;Please make sure the binary path can be written");
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.workflowsim.clustering.balancing.BalancedClustering;
 import org.workflowsim.utils.ClusteringParameters;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
+import org.workflowsim.utils.IndexedReplicaCatalog;
 import org.workflowsim.utils.ReplicaCatalog;
 
 /**
@@ -74,6 +75,14 @@ public final class ClusteringEngine extends SimEntity {
      * The WorkflowEngine used in this ClusteringEngine
      */
     private final WorkflowEngine workflowEngine;
+    /**
+     * The replica catalog, or null to use the one of ReplicaCatalog.
+     */
+    private IndexedReplicaCatalog replicaCatalog;
+    /**
+     * The id of the first job of the workflow being clustered
+     */
+    private int jobIdStartsFrom = 0;
 
     /**
      * Created a new ClusteringEngine object.
@@ -177,6 +186,7 @@ public final class ClusteringEngine extends SimEntity {
                 this.engine = new BasicClustering();
                 break;
         }
+        engine.setJobIdStartsFrom(jobIdStartsFrom);
         engine.setTaskList(getTaskList());
         engine.run();
         setJobList(engine.getJobList());
@@ -197,22 +207,16 @@ public final class ClusteringEngine extends SimEntity {
          * of this job to be getJobList().size() is so that the job id is the
          * next available id
          */
-        Job job = new Job(getJobList().size(), 110);
+        Job job = new Job(jobIdStartsFrom + getJobList().size(), 110);
 
         /**
          * This is a very simple implementation of stage-in job, in which we Add
          * all the files to be the input of this stage-in job so that
          * WorkflowSim will transfers them when this job is executed
          */
-        List<FileItem> fileList = new ArrayList<>();
-        for (FileItem file : list) {
-            /**
-             * To avoid duplicate files
-             */
-            if (file.isRealInputFile(list)) {
-                ReplicaCatalog.addFileToStorage(file.getName(), Parameters.SOURCE);
-                fileList.add(file);
-            }
+        List<FileItem> fileList = FileItem.getRealInputFiles(list);
+        for (FileItem file : fileList) {
+            getReplicaCatalog().addFileToStorage(file.getName(), Parameters.SOURCE);
         }
         job.setFileList(fileList);
         job.setClassType(ClassType.STAGE_IN.value);
@@ -274,6 +278,19 @@ public final class ClusteringEngine extends SimEntity {
                 processDatastaging();
                 sendNow(this.workflowEngineId, WorkflowSimTags.JOB_SUBMIT, getJobList());
                 break;
+            case WorkflowSimTags.WORKFLOW_SUBMIT:
+                /**
+                 * An arrived workflow. Its jobs take the next ids of the
+                 * WorkflowEngine, which runs them with the jobs of the
+                 * workflows submitted before
+                 */
+                setTaskList((List) ev.getData());
+                jobIdStartsFrom = getWorkflowEngine().getNextJobId();
+                processClustering();
+                processDatastaging();
+                getWorkflowEngine().reserveJobIds(getJobList().size());
+                sendNow(this.workflowEngineId, WorkflowSimTags.WORKFLOW_SUBMIT, getJobList());
+                break;
             case CloudSimTags.END_OF_SIMULATION:
                 shutdownEntity();
                 break;
@@ -404,4 +421,26 @@ public final class ClusteringEngine extends SimEntity {
     protected void setTaskReceivedList(List<Task> taskReceivedList) {
         this.taskReceivedList = taskReceivedList;
     }
+
+    /**
+     * Gets the replica catalog used by this clustering engine
+     *
+     * @return the replica catalog
+     */
+    public IndexedReplicaCatalog getReplicaCatalog() {
+        if (replicaCatalog != null) {
+            return replicaCatalog;
+        }
+        return ReplicaCatalog.getCatalog();
+    }
+
+    /**
+     * Sets the replica catalog used by this clustering engine, instead of the one
+     * of ReplicaCatalog
+     *
+     * @param replicaCatalog the replica catalog
+     */
+    public void setReplicaCatalog(IndexedReplicaCatalog replicaCatalog) {
+        this.replicaCatalog = replicaCatalog;
+    }
 }
@@ -15,7 +15,10 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.workflowsim.utils.Parameters.FileType;
 
 /**
@@ -91,4 +94,51 @@ public class FileItem {
         }
         return false;
     }
+
+    /**
+     * Checks whether this is a real input file, as isRealInputFile does, given
+     * the names of the output files of the list
+     *
+     * @param outputFiles the names of the output files
+     * @return whether this is a real input file
+     * @see #getOutputFileNames(java.util.List)
+     */
+    public boolean isRealInputFile(Set<String> outputFiles) {
+        return this.getType() == FileType.INPUT && !outputFiles.contains(this.getName());
+    }
+
+    /**
+     * Gets the names of the output files of a list, to check in constant time
+     * whether a file of the list is a real input file
+     *
+     * @param list the files
+     * @return the names of the output files
+     */
+    public static Set<String> getOutputFileNames(List<FileItem> list) {
+        Set<String> outputFiles = new HashSet<>();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.OUTPUT) {
+                outputFiles.add(file.getName());
+            }
+        }
+        return outputFiles;
+    }
+
+    /**
+     * Gets the real input files of a list, in a single pass once the names of
+     * the output files are indexed
+     *
+     * @param list the files
+     * @return the real input files, in the order of the list
+     */
+    public static List<FileItem> getRealInputFiles(List<FileItem> list) {
+        Set<String> outputFiles = getOutputFileNames(list);
+        List<FileItem> inputFiles = new ArrayList<>();
+        for (FileItem file : list) {
+            if (file.isRealInputFile(outputFiles)) {
+                inputFiles.add(file);
+            }
+        }
+        return inputFiles;
+    }
 }
@@ -15,8 +15,9 @@
  */
 package org.workflowsim;
 
-import java.util.Iterator;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Consts;
@@ -30,6 +31,7 @@ import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.workflowsim.utils.IndexedReplicaCatalog;
 import org.workflowsim.utils.ReplicaCatalog;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.ClassType;
@@ -45,12 +47,19 @@ import org.workflowsim.utils.Parameters.FileType;
  */
 public class WorkflowDatacenter extends Datacenter {
 
+    /**
+     * The replica catalog, or null to use the one of ReplicaCatalog.
+     */
+    private IndexedReplicaCatalog replicaCatalog;
+
     public WorkflowDatacenter(String name,
             DatacenterCharacteristics characteristics,
             VmAllocationPolicy vmAllocationPolicy,
             List<Storage> storageList,
             double schedulingInterval) throws Exception {
         super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
+        // keep a single update event pending, the jobs finish at the same times
+        setWakeupCoalescing(true);
     }
 
     /**
@@ -104,6 +113,7 @@ public class WorkflowDatacenter extends Datacenter {
             int vmId = job.getVmId();
             Host host = getVmAllocationPolicy().getHost(vmId, userId);
             CondorVM vm = (CondorVM) host.getVm(vmId, userId);
+            markHostDirty(host);
 
             switch (Parameters.getCostModel()) {
                 case DATACENTER:
@@ -139,7 +149,7 @@ public class WorkflowDatacenter extends Datacenter {
 
             // if this cloudlet is in the exec queue
             if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
-                send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+                scheduleNextWakeup(estimatedFinishTime);
             } else {
                 Log.printLine("Warning: You schedule cloudlet to a busy VM");
             }
@@ -191,14 +201,15 @@ public class WorkflowDatacenter extends Datacenter {
     private void stageInFile2FileSystem(Job job) {
         List<FileItem> fList = job.getFileList();
 
+        IndexedReplicaCatalog catalog = getReplicaCatalog();
         for (FileItem file : fList) {
-            switch (ReplicaCatalog.getFileSystem()) {
+            switch (catalog.getFileSystem()) {
                 /**
                  * For local file system, add it to local storage (data center
                  * name)
                  */
                 case LOCAL:
-                    ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                    catalog.addFileToStorage(file.getName(), this.getName());
                     /**
                      * Is it not really needed currently but it is left for
                      * future usage
@@ -210,7 +221,7 @@ public class WorkflowDatacenter extends Datacenter {
                  * For shared file system, add it to the shared storage
                  */
                 case SHARED:
-                    ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                    catalog.addFileToStorage(file.getName(), this.getName());
                     break;
                 default:
                     break;
@@ -227,15 +238,18 @@ public class WorkflowDatacenter extends Datacenter {
      */
     protected double processDataStageInForComputeJob(List<FileItem> requiredFiles, Job job) throws Exception {
         double time = 0.0;
+        IndexedReplicaCatalog catalog = getReplicaCatalog();
+        Set<String> outputFiles = FileItem.getOutputFileNames(requiredFiles);
         for (FileItem file : requiredFiles) {
             //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
+            if (file.isRealInputFile(outputFiles)) {
                 double maxBwth = 0.0;
-                List siteList = ReplicaCatalog.getStorageList(file.getName());
+                int fileId = catalog.getFileId(file.getName());
+                BitSet siteList = catalog.getStorages(fileId);
                 if (siteList.isEmpty()) {
                     throw new Exception(file.getName() + " does not exist");
                 }
-                switch (ReplicaCatalog.getFileSystem()) {
+                switch (catalog.getFileSystem()) {
                     case SHARED:
                         //stage-in job
                         /**
@@ -256,34 +270,35 @@ public class WorkflowDatacenter extends Datacenter {
                         int userId = job.getUserId();
                         Host host = getVmAllocationPolicy().getHost(vmId, userId);
                         Vm vm = host.getVm(vmId, userId);
+                        int vmSite = catalog.getVmStorageId(vmId);
 
-                        boolean requiredFileStagein = true;
-                        for (Iterator it = siteList.iterator(); it.hasNext();) {
+                        /**
+                         * If this file is already in the local vm it is no
+                         * need to transfer
+                         */
+                        boolean requiredFileStagein = !siteList.get(vmSite);
+                        if (requiredFileStagein) {
+                            int localSite = catalog.getStorageId(this.getName());
+                            int sourceSite = catalog.getStorageId(Parameters.SOURCE);
                             //site is where one replica of this data is located at
-                            String site = (String) it.next();
-                            if (site.equals(this.getName())) {
-                                continue;
-                            }
-                            /**
-                             * This file is already in the local vm and thus it
-                             * is no need to transfer
-                             */
-                            if (site.equals(Integer.toString(vmId))) {
-                                requiredFileStagein = false;
-                                break;
-                            }
-                            double bwth;
-                            if (site.equals(Parameters.SOURCE)) {
-                                //transfers from the source to the VM is limited to the VM bw only
-                                bwth = vm.getBw();
-                                //bwth = dcStorage.getBaseBandwidth();
-                            } else {
-                                //transfers between two VMs is limited to both VMs
-                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
-                                //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
-                            }
-                            if (bwth > maxBwth) {
-                                maxBwth = bwth;
+                            for (int site = siteList.nextSetBit(0); site >= 0; site = siteList.nextSetBit(site + 1)) {
+                                if (site == localSite) {
+                                    continue;
+                                }
+                                double bwth;
+                                if (site == sourceSite) {
+                                    //transfers from the source to the VM is limited to the VM bw only
+                                    bwth = vm.getBw();
+                                    //bwth = dcStorage.getBaseBandwidth();
+                                } else {
+                                    //transfers between two VMs is limited to both VMs
+                                    int siteVmId = Integer.parseInt(catalog.getStorageName(site));
+                                    bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(siteVmId, userId).getVm(siteVmId, userId).getBw());
+                                    //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
+                                }
+                                if (bwth > maxBwth) {
+                                    maxBwth = bwth;
+                                }
                             }
                         }
                         if (requiredFileStagein && maxBwth > 0.0) {
@@ -297,7 +312,7 @@ public class WorkflowDatacenter extends Datacenter {
                         //We should add but since CondorVm has a small capability it often fails
                         //We currently don't use this storage to do anything meaningful. It is left for future. 
                         //condorVm.addLocalFile(file);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        catalog.addFileToStorage(fileId, vmSite);
                         break;
                 }
             }
@@ -312,49 +327,40 @@ public class WorkflowDatacenter extends Datacenter {
         // simulation step is skipped and schedulers are not properly initialized
         //this is a bug of CloudSim if the runtime is smaller than 0.1 (now is 0.01) it doesn't work at all
         if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + 0.01) {
-            List<? extends Host> list = getVmAllocationPolicy().getHostList();
+            List<? extends Host> list = getHostsToUpdate();
             double smallerTime = Double.MAX_VALUE;
             // for each host...
             for (Host host : list) {
                 // inform VMs to update processing
                 double time = host.updateVmsProcessing(CloudSim.clock());
+                setHostUpdated(host, time);
                 // what time do we expect that the next cloudlet will finish?
                 if (time < smallerTime) {
                     smallerTime = time;
                 }
             }
+            // and the hosts not updated
+            smallerTime = Math.min(smallerTime, getNextHostEventTime());
             // gurantees a minimal interval before scheduling the event
             if (smallerTime < CloudSim.clock() + 0.11) {
                 smallerTime = CloudSim.clock() + 0.11;
             }
             if (smallerTime != Double.MAX_VALUE) {
-                schedule(getId(), (smallerTime - CloudSim.clock()), CloudSimTags.VM_DATACENTER_EVENT);
+                scheduleNextWakeup(smallerTime - CloudSim.clock());
             }
             setLastProcessTime(CloudSim.clock());
         }
     }
 
     /**
-     * Verifies if some cloudlet inside this PowerDatacenter already finished.
-     * If yes, send it to the User/Broker
+     * Sends a finished job to the User/Broker and registers its output files
      *
-     * @pre $none
-     * @post $none
+     * @param cl the job
      */
     @Override
-    protected void checkCloudletCompletion() {
-        List<? extends Host> list = getVmAllocationPolicy().getHostList();
-        for (Host host : list) {
-            for (Vm vm : host.getVmList()) {
-                while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-                    Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-                    if (cl != null) {
-                        sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-                        register(cl);
-                    }
-                }
-            }
-        }
+    protected void returnCloudlet(Cloudlet cl) {
+        super.returnCloudlet(cl);
+        register(cl);
     }
     /*
      * Register a file to the storage if it is an output file
@@ -367,12 +373,13 @@ public class WorkflowDatacenter extends Datacenter {
     private void register(Cloudlet cl) {
         Task tl = (Task) cl;
         List<FileItem> fList = tl.getFileList();
+        IndexedReplicaCatalog catalog = getReplicaCatalog();
         for (FileItem file : fList) {
             if (file.getType() == FileType.OUTPUT)//output file
             {
-                switch (ReplicaCatalog.getFileSystem()) {
+                switch (catalog.getFileSystem()) {
                     case SHARED:
-                        ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                        catalog.addFileToStorage(file.getName(), this.getName());
                         break;
                     case LOCAL:
                         int vmId = cl.getVmId();
@@ -382,10 +389,32 @@ public class WorkflowDatacenter extends Datacenter {
                          * Left here for future work
                          */
                         CondorVM vm = (CondorVM) host.getVm(vmId, userId);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        catalog.addFileToStorage(catalog.getFileId(file.getName()), catalog.getVmStorageId(vmId));
                         break;
                 }
             }
         }
     }
+
+    /**
+     * Gets the replica catalog used by this data center
+     *
+     * @return the replica catalog
+     */
+    public IndexedReplicaCatalog getReplicaCatalog() {
+        if (replicaCatalog != null) {
+            return replicaCatalog;
+        }
+        return ReplicaCatalog.getCatalog();
+    }
+
+    /**
+     * Sets the replica catalog used by this data center, instead of the one
+     * of ReplicaCatalog
+     *
+     * @param replicaCatalog the replica catalog
+     */
+    public void setReplicaCatalog(IndexedReplicaCatalog replicaCatalog) {
+        this.replicaCatalog = replicaCatalog;
+    }
 }
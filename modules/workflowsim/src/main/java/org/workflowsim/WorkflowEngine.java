@@ -16,18 +16,27 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.workflowsim.reclustering.ReclusteringEngine;
+import org.workflowsim.statistics.JobCompletionListener;
+import org.workflowsim.utils.IndexedReplicaCatalog;
 import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.Parameters.DispatchPolicy;
+import org.workflowsim.utils.ReplicaCatalog;
 
 /**
  * WorkflowEngine represents a engine acting on behalf of a user. It hides VM
@@ -41,9 +50,28 @@ import org.workflowsim.utils.Parameters;
 public final class WorkflowEngine extends SimEntity {
 
     /**
-     * The job list.
+     * The jobs not submitted yet, indexed by job id in the order they were
+     * handed to the engine.
      */
-    protected List<? extends Cloudlet> jobsList;
+    private final Map<Integer, PendingJob> pendingJobs;
+    /**
+     * The pending jobs whose parents have all returned, in the order they were
+     * handed to the engine.
+     */
+    private final PriorityQueue<PendingJob> readyJobs;
+    /**
+     * The pending jobs still waiting for a job, indexed by the id of the job
+     * they wait for.
+     */
+    private final Map<Integer, List<PendingJob>> waitingJobs;
+    /**
+     * The ids of the jobs that have returned.
+     */
+    private final BitSet completedJobs;
+    /**
+     * The number of jobs handed to the engine so far, used to order them.
+     */
+    private int pendingSequence;
     /**
      * The job submitted list.
      */
@@ -56,6 +84,94 @@ public final class WorkflowEngine extends SimEntity {
      * The job submitted.
      */
     protected int jobsSubmitted;
+    /**
+     * Whether the submitted and received jobs are kept in their lists.
+     */
+    private boolean jobListsKept;
+    /**
+     * The listeners notified each time a job returns.
+     */
+    private final List<JobCompletionListener> completionListeners;
+    /**
+     * The id of the next job, larger than the ids of all the jobs handed to
+     * the engine or reserved so far.
+     */
+    private int nextJobId;
+    /**
+     * The number of workflows that will still be submitted in the workflow
+     * arrival mode. The simulation does not end before they are done.
+     */
+    private int pendingWorkflows;
+    /**
+     * The workflows submitted in the workflow arrival mode that are not done
+     * yet, indexed by the id of each of their jobs that has not returned.
+     */
+    private final Map<Integer, SubmittedWorkflow> jobWorkflows;
+    /**
+     * The number of workflows not done yet that use each file. A file is
+     * removed from the replica catalogs once no workflow uses it.
+     */
+    private final Map<String, Integer> fileWorkflowNums;
+    /**
+     * The files no workflow uses anymore, not removed from the replica
+     * catalogs yet.
+     */
+    private final List<String> unusedFiles;
+    /**
+     * The number of arrived workflows on their way to this engine. The files
+     * they share with the workflows done meanwhile are kept until they are
+     * submitted.
+     */
+    private int arrivingWorkflows;
+    /**
+     * Whether the schedulers have asked for jobs, that is whether their vms
+     * are created.
+     */
+    private boolean submitting;
+    /**
+     * How the ready jobs are dispatched to the schedulers.
+     */
+    private DispatchPolicy dispatchPolicy;
+    /**
+     * Whether idle schedulers steal the queued jobs of the others.
+     */
+    private boolean workStealing;
+    /**
+     * The index of each scheduler, indexed by scheduler id.
+     */
+    private final Map<Integer, Integer> schedulerIndexes;
+    /**
+     * Whether each scheduler has asked for jobs, that is whether its vms are
+     * created.
+     */
+    private final boolean[] schedulersReady;
+    /**
+     * The number of jobs dispatched to each scheduler that have not returned
+     * yet.
+     */
+    private final int[] outstandingJobs;
+    /**
+     * The number of jobs dispatched to each scheduler.
+     */
+    private final long[] dispatchedJobs;
+    /**
+     * The number of jobs each scheduler has stolen from the others.
+     */
+    private final long[] stolenJobs;
+    /**
+     * The schedulers that are idle and found no job to steal.
+     */
+    private final BitSet idleSchedulers;
+    /**
+     * The storages of the datacenters and vms of each scheduler, built when
+     * needed.
+     */
+    private BitSet[] schedulerSites;
+    /**
+     * The index of the scheduler of each vm, indexed by vm id, built when
+     * needed.
+     */
+    private Map<Integer, Integer> vmSchedulers;
     protected List<? extends Vm> vmList;
     /**
      * The associated scheduler id*
@@ -79,21 +195,43 @@ public final class WorkflowEngine extends SimEntity {
     public WorkflowEngine(String name, int schedulers) throws Exception {
         super(name);
 
-        setJobsList(new ArrayList<>());
+        pendingJobs = new LinkedHashMap<>();
+        readyJobs = new PriorityQueue<>((a, b) -> Integer.compare(a.sequence, b.sequence));
+        waitingJobs = new HashMap<>();
+        completedJobs = new BitSet();
+        pendingSequence = 0;
         setJobsSubmittedList(new ArrayList<>());
         setJobsReceivedList(new ArrayList<>());
 
         jobsSubmitted = 0;
+        jobListsKept = true;
+        completionListeners = new ArrayList<>();
+        nextJobId = 0;
+        pendingWorkflows = 0;
+        jobWorkflows = new HashMap<>();
+        fileWorkflowNums = new HashMap<>();
+        unusedFiles = new ArrayList<>();
+        arrivingWorkflows = 0;
+        submitting = false;
+        dispatchPolicy = DispatchPolicy.USER_ID;
+        workStealing = false;
 
         setSchedulers(new ArrayList<>());
         setSchedulerIds(new ArrayList<>());
+        schedulerIndexes = new HashMap<>();
 
         for (int i = 0; i < schedulers; i++) {
             WorkflowScheduler wfs = new WorkflowScheduler(name + "_Scheduler_" + i);
             getSchedulers().add(wfs);
             getSchedulerIds().add(wfs.getId());
+            schedulerIndexes.put(wfs.getId(), i);
             wfs.setWorkflowEngineId(this.getId());
         }
+        schedulersReady = new boolean[schedulers];
+        outstandingJobs = new int[schedulers];
+        dispatchedJobs = new long[schedulers];
+        stolenJobs = new long[schedulers];
+        idleSchedulers = new BitSet();
     }
 
     /**
@@ -132,7 +270,7 @@ public final class WorkflowEngine extends SimEntity {
      * @param list the list
      */
     public void submitCloudletList(List<? extends Cloudlet> list) {
-        getJobsList().addAll(list);
+        addPendingJobs(list);
     }
 
     /**
@@ -149,6 +287,11 @@ public final class WorkflowEngine extends SimEntity {
                 break;
             //this call is from workflow scheduler when all vms are created
             case CloudSimTags.CLOUDLET_SUBMIT:
+                Integer index = schedulerIndexes.get(ev.getSource());
+                if (index != null) {
+                    schedulersReady[index] = true;
+                }
+                submitting = true;
                 submitJobs();
                 break;
             case CloudSimTags.CLOUDLET_RETURN:
@@ -160,12 +303,145 @@ public final class WorkflowEngine extends SimEntity {
             case WorkflowSimTags.JOB_SUBMIT:
                 processJobSubmit(ev);
                 break;
+            case WorkflowSimTags.WORKFLOW_SUBMIT:
+                processWorkflowSubmit(ev);
+                break;
+            case WorkflowSimTags.JOB_STEAL:
+                processJobSteal(ev);
+                break;
             default:
                 processOtherEvent(ev);
                 break;
         }
     }
 
+    /**
+     * Adds a listener notified each time a job returns.
+     *
+     * @param listener the listener
+     */
+    public void addJobCompletionListener(JobCompletionListener listener) {
+        completionListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with addJobCompletionListener.
+     *
+     * @param listener the listener
+     */
+    public void removeJobCompletionListener(JobCompletionListener listener) {
+        completionListeners.remove(listener);
+    }
+
+    /**
+     * Sets whether the submitted and received jobs are kept in the job lists
+     * of this engine and of its schedulers. They are kept by default; large
+     * simulations may gather their statistics with a JobCompletionListener
+     * instead, so that the returned jobs can be garbage collected.
+     *
+     * @param kept whether the jobs are kept
+     */
+    public void setJobListsKept(boolean kept) {
+        this.jobListsKept = kept;
+        for (WorkflowScheduler wfs : getSchedulers()) {
+            wfs.setCloudletReceivedListKept(kept);
+        }
+    }
+
+    /**
+     * Gets whether the submitted and received jobs are kept in the job lists.
+     *
+     * @return whether the jobs are kept
+     */
+    public boolean isJobListsKept() {
+        return jobListsKept;
+    }
+
+    /**
+     * Sets how the ready jobs are dispatched to the schedulers. By default a
+     * job goes to the scheduler whose id is its user id.
+     *
+     * @param policy the dispatch policy
+     */
+    public void setDispatchPolicy(DispatchPolicy policy) {
+        this.dispatchPolicy = policy;
+    }
+
+    /**
+     * Gets how the ready jobs are dispatched to the schedulers.
+     *
+     * @return the dispatch policy
+     */
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    /**
+     * Sets whether a scheduler that is idle steals the queued jobs of the
+     * other schedulers. The jobs planned on a vm are never stolen.
+     *
+     * @param stealing whether the jobs are stolen
+     */
+    public void setWorkStealing(boolean stealing) {
+        this.workStealing = stealing;
+        for (WorkflowScheduler wfs : getSchedulers()) {
+            wfs.setWorkStealing(stealing);
+        }
+    }
+
+    /**
+     * Gets whether a scheduler that is idle steals the queued jobs of the
+     * other schedulers.
+     *
+     * @return whether the jobs are stolen
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Gets the number of jobs queued in a scheduler, that is received but not
+     * submitted to a vm yet.
+     *
+     * @param index the scheduler index
+     * @return the queue depth
+     */
+    public int getQueueDepth(int index) {
+        return getScheduler(index).getQueueDepth();
+    }
+
+    /**
+     * Gets the number of jobs dispatched to a scheduler that have not returned
+     * yet, whether they are queued, running or on their way.
+     *
+     * @param index the scheduler index
+     * @return the number of outstanding jobs
+     */
+    public int getOutstandingJobNum(int index) {
+        return outstandingJobs[index];
+    }
+
+    /**
+     * Gets the number of jobs dispatched to a scheduler, including those it
+     * has stolen.
+     *
+     * @param index the scheduler index
+     * @return the number of dispatched jobs
+     */
+    public long getDispatchedJobNum(int index) {
+        return dispatchedJobs[index];
+    }
+
+    /**
+     * Gets the number of jobs a scheduler has stolen from the others.
+     *
+     * @param index the scheduler index
+     * @return the number of stolen jobs
+     */
+    public long getStolenJobNum(int index) {
+        return stolenJobs[index];
+    }
+
     /**
      * Process a request for the characteristics of a PowerDatacenter.
      *
@@ -203,7 +479,71 @@ public final class WorkflowEngine extends SimEntity {
      */
     protected void processJobSubmit(SimEvent ev) {
         List<? extends Cloudlet> list = (List) ev.getData();
-        setJobsList(list);
+        pendingJobs.clear();
+        readyJobs.clear();
+        waitingJobs.clear();
+        addPendingJobs(list);
+    }
+
+    /**
+     * Process the submission of an arrived workflow. Its jobs are added to
+     * those of the workflows submitted before, and its files are removed from
+     * the replica catalogs once it is done.
+     *
+     * @param ev a SimEvent object
+     */
+    protected void processWorkflowSubmit(SimEvent ev) {
+        List<? extends Cloudlet> list = (List) ev.getData();
+        pendingWorkflows--;
+        addSubmittedWorkflow(list);
+        if (arrivingWorkflows > 0) {
+            arrivingWorkflows--;
+            removeUnusedFiles();
+        }
+        addPendingJobs(list);
+        if (submitting) {
+            submitJobs();
+        }
+    }
+
+    /**
+     * Announces a workflow that will be submitted later, in the workflow
+     * arrival mode, so that the simulation does not end before it is done.
+     */
+    public void addPendingWorkflow() {
+        pendingWorkflows++;
+    }
+
+    /**
+     * Announces that a workflow has arrived and is on its way to this engine,
+     * so that the files it shares with the workflows done meanwhile stay in
+     * the replica catalogs.
+     */
+    public void addArrivingWorkflow() {
+        arrivingWorkflows++;
+    }
+
+    /**
+     * Gets the id of the next job, larger than the ids of all the jobs handed
+     * to this engine or reserved so far.
+     *
+     * @return the next job id
+     */
+    public int getNextJobId() {
+        return nextJobId;
+    }
+
+    /**
+     * Reserves the next job ids, for jobs that will be handed to this engine
+     * later.
+     *
+     * @param num the number of ids
+     * @return the first reserved id
+     */
+    public int reserveJobIds(int num) {
+        int id = nextJobId;
+        nextJobId += num;
+        return id;
     }
 
     /**
@@ -216,15 +556,42 @@ public final class WorkflowEngine extends SimEntity {
     protected void processJobReturn(SimEvent ev) {
 
         Job job = (Job) ev.getData();
+        SubmittedWorkflow workflow = jobWorkflows.remove(job.getCloudletId());
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
+            int newId = nextJobId;
+            List<Job> retryJobs = ReclusteringEngine.process(job, newId);
+            if (workflow != null) {
+                workflow.jobNum += retryJobs.size();
+                for (Job retryJob : retryJobs) {
+                    jobWorkflows.put(retryJob.getCloudletId(), workflow);
+                }
+            }
+            addPendingJobs(retryJobs);
+            // the retry jobs have been added as parents of the children of this job
+            for (Job retryJob : retryJobs) {
+                for (Task child : distinct(retryJob.getChildList())) {
+                    waitFor(pendingJobs.get(child.getCloudletId()), retryJob);
+                }
+            }
         }
 
-        getJobsReceivedList().add(job);
+        if (jobListsKept) {
+            getJobsReceivedList().add(job);
+        }
+        for (JobCompletionListener listener : completionListeners) {
+            listener.jobCompleted(job);
+        }
         jobsSubmitted--;
-        if (getJobsList().isEmpty() && jobsSubmitted == 0) {
+        Integer index = schedulerIndexes.get(job.getUserId());
+        if (index != null) {
+            outstandingJobs[index]--;
+        }
+        completeJob(job.getCloudletId());
+        if (workflow != null && --workflow.jobNum == 0) {
+            completeWorkflow(workflow);
+        }
+        if (pendingJobs.isEmpty() && jobsSubmitted == 0 && pendingWorkflows == 0) {
             //send msg to all the schedulers
             for (int i = 0; i < getSchedulerIds().size(); i++) {
                 sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
@@ -234,6 +601,94 @@ public final class WorkflowEngine extends SimEntity {
         }
     }
 
+    /**
+     * Process a scheduler that is idle or has queued jobs. An idle scheduler
+     * steals the queued jobs of the scheduler with the deepest queue, or waits
+     * until a scheduler has queued jobs. The jobs stolen are those that the
+     * queue holds beyond the vms of its own scheduler, at most half of them
+     * and at most one per idle vm of the idle scheduler.
+     *
+     * @param ev a SimEvent object
+     */
+    protected void processJobSteal(SimEvent ev) {
+        Integer index = schedulerIndexes.get(ev.getSource());
+        if (!workStealing || index == null) {
+            return;
+        }
+        WorkflowScheduler wfs = getScheduler(index);
+        if (wfs.getQueueDepth() == 0) {
+            if (!hasIdleVm(index)) {
+                return;
+            }
+            // steal from the deepest queue
+            int victim = -1;
+            int maxExcess = 0;
+            for (int i = 0; i < getSchedulers().size(); i++) {
+                int excess = getExcessJobNum(i);
+                if (i != index && excess > maxExcess) {
+                    maxExcess = excess;
+                    victim = i;
+                }
+            }
+            if (victim < 0 || stealJobs(index, victim) == 0) {
+                idleSchedulers.set(index);
+            }
+        } else {
+            // let the idle schedulers steal from this one
+            for (int i = idleSchedulers.nextSetBit(0); i >= 0; i = idleSchedulers.nextSetBit(i + 1)) {
+                if (getExcessJobNum(index) == 0) {
+                    break;
+                }
+                if (i != index) {
+                    stealJobs(i, index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of jobs queued in a scheduler beyond its vms, that is
+     * the outstanding jobs that no vm of the scheduler will run soon.
+     *
+     * @param index the scheduler index
+     * @return the number of jobs
+     */
+    private int getExcessJobNum(int index) {
+        int excess = outstandingJobs[index] - getScheduler(index).getVmsCreatedList().size();
+        return Math.max(0, Math.min(getQueueDepth(index), excess));
+    }
+
+    /**
+     * Moves queued jobs from a scheduler to an idle one.
+     *
+     * @param thief the index of the idle scheduler
+     * @param victim the index of the scheduler with queued jobs
+     * @return the number of jobs moved
+     */
+    private int stealJobs(int thief, int victim) {
+        WorkflowScheduler wfs = getScheduler(thief);
+        int idleVmNum = getIdleVmNum(thief);
+        if (wfs.getQueueDepth() > 0 || idleVmNum == 0) {
+            idleSchedulers.clear(thief);
+            return 0;
+        }
+        int num = Math.min(idleVmNum, (getExcessJobNum(victim) + 1) / 2);
+        List<Job> stolenList = getScheduler(victim).releaseQueuedJobs(num);
+        if (stolenList.isEmpty()) {
+            return 0;
+        }
+        for (Job job : stolenList) {
+            job.setUserId(getSchedulerId(thief));
+        }
+        outstandingJobs[victim] -= stolenList.size();
+        outstandingJobs[thief] += stolenList.size();
+        dispatchedJobs[thief] += stolenList.size();
+        stolenJobs[thief] += stolenList.size();
+        idleSchedulers.clear(thief);
+        sendNow(getSchedulerId(thief), CloudSimTags.CLOUDLET_SUBMIT, stolenList);
+        return stolenList.size();
+    }
+
     /**
      * Overrides this method when making a new and different type of Broker.
      * This method is called by {@link #body()} for incoming unknown tags.
@@ -250,20 +705,185 @@ public final class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Checks whether a job list contains a id
+     * Adds jobs to the pending jobs. Each job waits for those of its parents
+     * that have not returned yet.
+     *
+     * @param list the jobs
+     */
+    private void addPendingJobs(List<? extends Cloudlet> list) {
+        for (Cloudlet cloudlet : list) {
+            Job job = (Job) cloudlet;
+            nextJobId = Math.max(nextJobId, job.getCloudletId() + 1);
+            PendingJob pending = new PendingJob(job, pendingSequence++);
+            pendingJobs.put(job.getCloudletId(), pending);
+            List<Task> parentList = job.getParentList();
+            for (Task parent : distinct(parentList)) {
+                waitFor(pending, parent);
+            }
+            if (pending.waitingParents == 0) {
+                release(pending);
+            }
+        }
+    }
+
+    /**
+     * Keeps track of the jobs of a submitted workflow and of the files they
+     * use, until the workflow is done.
+     *
+     * @param list the jobs of the workflow
+     */
+    private void addSubmittedWorkflow(List<? extends Cloudlet> list) {
+        if (list.isEmpty()) {
+            return;
+        }
+        Set<String> files = new HashSet<>();
+        for (Cloudlet cloudlet : list) {
+            Job job = (Job) cloudlet;
+            for (FileItem file : job.getFileList()) {
+                files.add(file.getName());
+            }
+            for (Task task : job.getTaskList()) {
+                for (FileItem file : task.getFileList()) {
+                    files.add(file.getName());
+                }
+            }
+        }
+        SubmittedWorkflow workflow = new SubmittedWorkflow(list.size(), files);
+        for (Cloudlet cloudlet : list) {
+            jobWorkflows.put(cloudlet.getCloudletId(), workflow);
+        }
+        for (String file : files) {
+            Integer num = fileWorkflowNums.get(file);
+            fileWorkflowNums.put(file, num == null ? 1 : num + 1);
+        }
+    }
+
+    /**
+     * Releases the files of a workflow whose jobs have all returned. Those no
+     * other workflow uses are removed from the replica catalogs, unless a
+     * workflow is on its way to this engine.
+     *
+     * @param workflow the workflow
+     */
+    private void completeWorkflow(SubmittedWorkflow workflow) {
+        for (String file : workflow.files) {
+            int num = fileWorkflowNums.get(file);
+            if (num == 1) {
+                fileWorkflowNums.remove(file);
+                unusedFiles.add(file);
+            } else {
+                fileWorkflowNums.put(file, num - 1);
+            }
+        }
+        if (arrivingWorkflows == 0) {
+            removeUnusedFiles();
+        }
+    }
+
+    /**
+     * Removes the files no workflow uses anymore from the replica catalog of
+     * the simulation and from those of the schedulers.
+     */
+    private void removeUnusedFiles() {
+        if (unusedFiles.isEmpty()) {
+            return;
+        }
+        Set<IndexedReplicaCatalog> catalogs = new HashSet<>();
+        if (ReplicaCatalog.getCatalog() != null) {
+            catalogs.add(ReplicaCatalog.getCatalog());
+        }
+        for (WorkflowScheduler wfs : getSchedulers()) {
+            catalogs.add(wfs.getReplicaCatalog());
+        }
+        for (String file : unusedFiles) {
+            // a workflow submitted since may use the file again
+            if (!fileWorkflowNums.containsKey(file)) {
+                for (IndexedReplicaCatalog catalog : catalogs) {
+                    catalog.removeFile(file);
+                }
+            }
+        }
+        unusedFiles.clear();
+    }
+
+    /**
+     * Gets the tasks of a list without those listed twice, in the order they
+     * first appear.
+     *
+     * @param list the tasks
+     * @return the distinct tasks, or the list itself if it has no duplicate
+     */
+    private static List<Task> distinct(List<Task> list) {
+        if (list.size() < 2) {
+            return list;
+        }
+        Set<Integer> ids = new HashSet<>(list.size() * 2);
+        List<Task> distinctList = null;
+        for (int i = 0; i < list.size(); i++) {
+            Task task = list.get(i);
+            if (ids.add(task.getCloudletId())) {
+                if (distinctList != null) {
+                    distinctList.add(task);
+                }
+            } else if (distinctList == null) {
+                distinctList = new ArrayList<>(list.subList(0, i));
+            }
+        }
+        return distinctList == null ? list : distinctList;
+    }
+
+    /**
+     * Makes a pending job wait for one of its parents, unless the parent has
+     * already returned. The job must not wait for the parent already, which is
+     * why the parent lists are made distinct first.
+     *
+     * @param pending the pending job, may be null
+     * @param parent the parent
+     */
+    private void waitFor(PendingJob pending, Task parent) {
+        if (pending == null || completedJobs.get(parent.getCloudletId())) {
+            return;
+        }
+        List<PendingJob> waiting = waitingJobs.get(parent.getCloudletId());
+        if (waiting == null) {
+            waiting = new ArrayList<>();
+            waitingJobs.put(parent.getCloudletId(), waiting);
+        }
+        waiting.add(pending);
+        pending.waitingParents++;
+    }
+
+    /**
+     * Marks a job as returned and releases the pending jobs that were only
+     * waiting for it.
      *
-     * @param jobList the job list
      * @param id the job id
-     * @return
      */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
+    private void completeJob(int id) {
+        completedJobs.set(id);
+        List<PendingJob> waiting = waitingJobs.remove(id);
+        if (waiting == null) {
+            return;
+        }
+        for (PendingJob pending : waiting) {
+            pending.waitingParents--;
+            if (pending.waitingParents == 0) {
+                release(pending);
             }
         }
-        return false;
+    }
+
+    /**
+     * Moves a pending job to the ready jobs. A job that has already returned
+     * is never submitted again.
+     *
+     * @param pending the pending job
+     */
+    private void release(PendingJob pending) {
+        //Dont use job.isFinished() it is not right
+        if (!completedJobs.get(pending.job.getCloudletId())) {
+            readyJobs.add(pending);
+        }
     }
 
     /**
@@ -274,41 +894,33 @@ public final class WorkflowEngine extends SimEntity {
      */
     protected void submitJobs() {
 
-        List<Job> list = getJobsList();
         Map<Integer, List> allocationList = new HashMap<>();
         for (int i = 0; i < getSchedulers().size(); i++) {
             List<Job> submittedList = new ArrayList<>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
-            //Dont use job.isFinished() it is not right
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                        flag = false;
-                        break;
-                    }
-                }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.
-                 */
-                if (flag) {
-                    List submittedList = allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
-                }
+        /**
+         * These jobs' parents have all completed successfully. Should submit.
+         */
+        while (!readyJobs.isEmpty()) {
+            Job job = readyJobs.poll().job;
+            if (dispatchPolicy != DispatchPolicy.USER_ID) {
+                int index = selectScheduler(job);
+                job.setUserId(getSchedulerId(index));
+                idleSchedulers.clear(index);
             }
-
+            Integer index = schedulerIndexes.get(job.getUserId());
+            if (index != null) {
+                outstandingJobs[index]++;
+                dispatchedJobs[index]++;
+            }
+            List submittedList = allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            if (jobListsKept) {
+                getJobsSubmittedList().add(job);
+            }
+            pendingJobs.remove(job.getCloudletId());
         }
         /**
          * If we have multiple schedulers. Divide them equally.
@@ -348,12 +960,163 @@ public final class WorkflowEngine extends SimEntity {
         }
     }
 
+    /**
+     * Selects the scheduler of a job. A job planned on a vm goes to the
+     * scheduler of the vm. Otherwise it goes to one of the schedulers whose
+     * vms are created, following the dispatch policy. With the LOCALITY
+     * policy, a job only goes to a scheduler holding its input data if that
+     * scheduler has an idle vm, so that the jobs do not all pile up where the
+     * first ones ran. Before any scheduler has created its vms, a job goes to
+     * the scheduler whose id is its user id, or to the first one.
+     *
+     * @param job the job
+     * @return the scheduler index
+     */
+    private int selectScheduler(Job job) {
+        if (vmSchedulers == null) {
+            vmSchedulers = new HashMap<>();
+            for (int i = 0; i < getSchedulers().size(); i++) {
+                for (Vm vm : getScheduler(i).getVmList()) {
+                    vmSchedulers.put(vm.getId(), i);
+                }
+            }
+        }
+        if (job.getVmId() >= 0 && vmSchedulers.containsKey(job.getVmId())) {
+            return vmSchedulers.get(job.getVmId());
+        }
+        double[] localBytes = null;
+        if (dispatchPolicy == DispatchPolicy.LOCALITY) {
+            localBytes = getLocalBytes(job);
+        }
+        int selected = -1;
+        for (int i = 0; i < getSchedulers().size(); i++) {
+            if (!schedulersReady[i]) {
+                continue;
+            }
+            if (selected < 0) {
+                selected = i;
+            } else if (localBytes != null && hasIdleVm(i) != hasIdleVm(selected)) {
+                if (hasIdleVm(i)) {
+                    selected = i;
+                }
+            } else if (localBytes != null && hasIdleVm(i) && localBytes[i] != localBytes[selected]) {
+                if (localBytes[i] > localBytes[selected]) {
+                    selected = i;
+                }
+            } else if (getLoad(i) < getLoad(selected)) {
+                selected = i;
+            }
+        }
+        if (selected < 0) {
+            Integer index = schedulerIndexes.get(job.getUserId());
+            selected = index == null ? 0 : index;
+        }
+        return selected;
+    }
+
+    /**
+     * Gets the number of created vms of a scheduler beyond its outstanding
+     * jobs. This is what idle means both to dispatch and to steal jobs: the
+     * jobs on their way to a scheduler are counted, so that the jobs
+     * dispatched or stolen at once do not all count on the same vm.
+     *
+     * @param index the scheduler index
+     * @return the number of idle vms
+     */
+    private int getIdleVmNum(int index) {
+        return Math.max(0, getScheduler(index).getVmsCreatedList().size() - outstandingJobs[index]);
+    }
+
+    /**
+     * Checks whether a scheduler has fewer outstanding jobs than vms.
+     *
+     * @param index the scheduler index
+     * @return whether a vm is idle
+     */
+    private boolean hasIdleVm(int index) {
+        return getIdleVmNum(index) > 0;
+    }
+
+    /**
+     * Gets the number of outstanding jobs per vm of a scheduler.
+     *
+     * @param index the scheduler index
+     * @return the load
+     */
+    private double getLoad(int index) {
+        int vmNum = getScheduler(index).getVmsCreatedList().size();
+        return (outstandingJobs[index] + 1) / (double) Math.max(vmNum, 1);
+    }
+
+    /**
+     * Gets the size of the input files of a job that each scheduler holds in
+     * the storages of its datacenters and vms, according to the replica
+     * catalog of the scheduler.
+     *
+     * @param job the job
+     * @return the sizes, indexed by scheduler index
+     */
+    private double[] getLocalBytes(Job job) {
+        if (schedulerSites == null) {
+            schedulerSites = new BitSet[getSchedulers().size()];
+        }
+        double[] localBytes = new double[getSchedulers().size()];
+        List<FileItem> fileList = job.getFileList();
+        Set<String> outputFiles = FileItem.getOutputFileNames(fileList);
+        for (int i = 0; i < localBytes.length; i++) {
+            if (!schedulersReady[i]) {
+                continue;
+            }
+            IndexedReplicaCatalog catalog = getScheduler(i).getReplicaCatalog();
+            if (schedulerSites[i] == null) {
+                schedulerSites[i] = getSites(catalog, getScheduler(i));
+            }
+            for (FileItem file : fileList) {
+                if (!file.isRealInputFile(outputFiles)) {
+                    continue;
+                }
+                // a file the catalog of the scheduler does not know is
+                // nowhere, and is not given an id there
+                int fileId = catalog.findFileId(file.getName());
+                if (fileId >= 0 && catalog.getStorages(fileId).intersects(schedulerSites[i])) {
+                    localBytes[i] += file.getSize();
+                }
+            }
+        }
+        return localBytes;
+    }
+
+    /**
+     * Gets the storages of the datacenters and created vms of a scheduler.
+     *
+     * @param catalog the replica catalog
+     * @param wfs the scheduler
+     * @return the storage ids
+     */
+    private static BitSet getSites(IndexedReplicaCatalog catalog, WorkflowScheduler wfs) {
+        BitSet sites = new BitSet();
+        for (int datacenterId : wfs.getBoundDatacenterIds()) {
+            sites.set(catalog.getStorageId(CloudSim.getEntityName(datacenterId)));
+        }
+        for (Vm vm : wfs.getVmsCreatedList()) {
+            sites.set(catalog.getVmStorageId(vm.getId()));
+        }
+        return sites;
+    }
+
     /*
      * (non-Javadoc)
      * @see cloudsim.core.SimEntity#shutdownEntity()
      */
     @Override
     public void shutdownEntity() {
+        if (dispatchPolicy != DispatchPolicy.USER_ID || workStealing) {
+            for (int i = 0; i < getSchedulers().size(); i++) {
+                Log.printLine(getScheduler(i).getName() + ": " + dispatchedJobs[i]
+                        + " jobs dispatched, " + stolenJobs[i] + " stolen, max queue depth "
+                        + getScheduler(i).getMaxQueueDepth());
+            }
+        }
         Log.printLine(getName() + " is shutting down...");
     }
 
@@ -369,24 +1132,18 @@ public final class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Gets the job list.
+     * Gets the jobs not submitted yet.
      *
      * @param <T> the generic type
-     * @return the job list
+     * @return a copy of the job list
      */
     @SuppressWarnings("unchecked")
     public <T extends Cloudlet> List<T> getJobsList() {
-        return (List<T>) jobsList;
-    }
-
-    /**
-     * Sets the job list.
-     *
-     * @param <T> the generic type
-     * @param cloudletList the new job list
-     */
-    private <T extends Cloudlet> void setJobsList(List<T> jobsList) {
-        this.jobsList = jobsList;
+        List<T> list = new ArrayList<>(pendingJobs.size());
+        for (PendingJob pending : pendingJobs.values()) {
+            list.add((T) pending.job);
+        }
+        return list;
     }
 
     /**
@@ -515,4 +1272,45 @@ public final class WorkflowEngine extends SimEntity {
         }
         return null;
     }
+
+    /**
+     * A workflow submitted in the workflow arrival mode.
+     */
+    private static final class SubmittedWorkflow {
+
+        /**
+         * The number of jobs of the workflow that have not returned yet.
+         */
+        private int jobNum;
+        /**
+         * The names of the files used by the workflow.
+         */
+        private final Set<String> files;
+
+        private SubmittedWorkflow(int jobNum, Set<String> files) {
+            this.jobNum = jobNum;
+            this.files = files;
+        }
+    }
+
+    /**
+     * A job waiting to be submitted.
+     */
+    private static final class PendingJob {
+
+        private final Job job;
+        /**
+         * The order in which the job was handed to the engine.
+         */
+        private final int sequence;
+        /**
+         * The number of parents the job is still waiting for.
+         */
+        private int waitingParents;
+
+        private PendingJob(Job job, int sequence) {
+            this.job = job;
+            this.sequence = sequence;
+        }
+    }
 }
@@ -22,10 +22,20 @@ import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.Parameters.ParserMode;
+import org.workflowsim.utils.IndexedReplicaCatalog;
 import org.workflowsim.utils.ReplicaCatalog;
+import org.workflowsim.utils.TaskOverrides;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 /**
@@ -60,6 +70,24 @@ public final class WorkflowParser {
      */
     private int jobIdStartsFrom;
 
+    /**
+     * The number of dependencies parsed so far.
+     */
+    private int parsedEdges;
+    /**
+     * The size of the task list when the current DAX started to be parsed, so
+     * that the ordinal of a task in its DAX is known.
+     */
+    private int workflowTaskStart;
+    /**
+     * The runtimes and file sizes overriding those of the DAX, or null.
+     */
+    private TaskOverrides overrides;
+    /**
+     * The replica catalog, or null to use the one of ReplicaCatalog.
+     */
+    private IndexedReplicaCatalog replicaCatalog;
+
     /**
      * Gets the task list
      *
@@ -90,10 +118,24 @@ public final class WorkflowParser {
      * mode
      */
     public WorkflowParser(int userId) {
+        this(userId, Parameters.getDaxPath(), Parameters.getDAXPaths());
+    }
+
+    /**
+     * Initialize a WorkflowParser for a given DAX file
+     *
+     * @param userId the user id
+     * @param daxPath the DAX path
+     */
+    public WorkflowParser(int userId, String daxPath) {
+        this(userId, daxPath, null);
+    }
+
+    private WorkflowParser(int userId, String daxPath, List<String> daxPaths) {
         this.userId = userId;
         this.mName2Task = new HashMap<>();
-        this.daxPath = Parameters.getDaxPath();
-        this.daxPaths = Parameters.getDAXPaths();
+        this.daxPath = daxPath;
+        this.daxPaths = daxPaths;
         this.jobIdStartsFrom = 1;
 
         setTaskList(new ArrayList<>());
@@ -104,14 +146,58 @@ public final class WorkflowParser {
      */
     public void parse() {
         if (this.daxPath != null) {
-            parseXmlFile(this.daxPath);
+            parse(this.daxPath);
         } else if (this.daxPaths != null) {
             for (String path : this.daxPaths) {
-                parseXmlFile(path);
+                parse(path);
             }
         }
     }
 
+    /**
+     * Parse a DAX file with the parser selected in Parameters, or load it if
+     * it is a binary workflow.
+     */
+    private void parse(String path) {
+        workflowTaskStart = getTaskList().size();
+        overrides = Parameters.getTaskOverrides();
+        if (BinaryWorkflow.isBinaryWorkflow(path)) {
+            loadBinary(path);
+        } else if (Parameters.getParserMode() == ParserMode.STREAMING) {
+            parseXmlStream(path);
+        } else {
+            parseXmlFile(path);
+        }
+    }
+
+    /**
+     * Gets the id of the next task parsed
+     *
+     * @return the next task id
+     */
+    public int getJobIdStartsFrom() {
+        return this.jobIdStartsFrom;
+    }
+
+    /**
+     * Sets the id of the next task parsed, so that the tasks of several
+     * parsers have different ids
+     *
+     * @param id the next task id
+     */
+    public void setJobIdStartsFrom(int id) {
+        this.jobIdStartsFrom = id;
+    }
+
+    /**
+     * Gets the number of dependencies parsed so far
+     *
+     * @return the number of dependencies
+     */
+    public int getParsedEdges() {
+        return parsedEdges;
+    }
+
     /**
      * Sets the depth of a task
      *
@@ -131,6 +217,9 @@ public final class WorkflowParser {
      * Parse a DAX file with jdom
      */
     private void parseXmlFile(String path) {
+        long start = System.nanoTime();
+        int tasks = getTaskList().size();
+        int edges = parsedEdges;
 
         try {
 
@@ -142,167 +231,118 @@ public final class WorkflowParser {
             for (Element node : list) {
                 switch (node.getName().toLowerCase()) {
                     case "job":
-                        long length = 0;
                         String nodeName = node.getAttributeValue("id");
-                        String nodeType = node.getAttributeValue("name");
-                        /**
-                         * capture runtime. If not exist, by default the runtime
-                         * is 0.1. Otherwise CloudSim would ignore this task.
-                         * BUG/#11
-                         */
-                        double runtime;
-                        if (node.getAttributeValue("runtime") != null) {
-                            String nodeTime = node.getAttributeValue("runtime");
-                            runtime = 1000 * Double.parseDouble(nodeTime);
-                            if (runtime < 100) {
-                                runtime = 100;
-                            }
-                            length = (long) runtime;
-                        } else {
-                            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
-                        }   //multiple the scale, by default it is 1.0
-                        length *= Parameters.getRuntimeScale();
+                        long length = parseLength(nodeName, node.getAttributeValue("runtime"));
                         List<Element> fileList = node.getChildren();
                         List<FileItem> mFileList = new ArrayList<>();
                         for (Element file : fileList) {
                             if (file.getName().toLowerCase().equals("uses")) {
-                                String fileName = file.getAttributeValue("name");//DAX version 3.3
-                                if (fileName == null) {
-                                    fileName = file.getAttributeValue("file");//DAX version 3.0
-                                }
-                                if (fileName == null) {
-                                    Log.print("Error in parsing xml");
-                                }
-
-                                String inout = file.getAttributeValue("link");
-                                double size = 0.0;
-
-                                String fileSize = file.getAttributeValue("size");
-                                if (fileSize != null) {
-                                    size = Double.parseDouble(fileSize) /*/ 1024*/;
-                                } else {
-                                    Log.printLine("File Size not found for " + fileName);
-                                }
-
-                                /**
-                                 * a bug of cloudsim, size 0 causes a problem. 1
-                                 * is ok.
-                                 */
-                                if (size == 0) {
-                                    size++;
-                                }
-                                /**
-                                 * Sets the file type 1 is input 2 is output
-                                 */
-                                FileType type = FileType.NONE;
-                                switch (inout) {
-                                    case "input":
-                                        type = FileType.INPUT;
-                                        break;
-                                    case "output":
-                                        type = FileType.OUTPUT;
-                                        break;
-                                    default:
-                                        Log.printLine("Parsing Error");
-                                        break;
-                                }
-                                FileItem tFile;
-                                /*
-                                 * Already exists an input file (forget output file)
-                                 */
-                                if (size < 0) {
-                                    /*
-                                     * Assuming it is a parsing error
-                                     */
-                                    size = 0 - size;
-                                    Log.printLine("Size is negative, I assume it is a parser error");
-                                }
-                                /*
-                                 * Note that CloudSim use size as MB, in this case we use it as Byte
-                                 */
-                                if (type == FileType.OUTPUT) {
-                                    /**
-                                     * It is good that CloudSim does tell
-                                     * whether a size is zero
-                                     */
-                                    tFile = new FileItem(fileName, size);
-                                } else if (ReplicaCatalog.containsFile(fileName)) {
-                                    tFile = ReplicaCatalog.getFile(fileName);
-                                } else {
-
-                                    tFile = new FileItem(fileName, size);
-                                    ReplicaCatalog.setFile(fileName, tFile);
-                                }
-
-                                tFile.setType(type);
-                                mFileList.add(tFile);
-
+                                mFileList.add(parseFile(file.getAttributeValue("name"),
+                                        file.getAttributeValue("file"),
+                                        file.getAttributeValue("link"),
+                                        file.getAttributeValue("size")));
                             }
                         }
-                        Task task;
-                        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
-                        synchronized (this) {
-                            task = new Task(this.jobIdStartsFrom, length);
-                            this.jobIdStartsFrom++;
-                        }
-                        task.setType(nodeType);
-                        task.setUserId(userId);
-                        mName2Task.put(nodeName, task);
-                        for (FileItem file : mFileList) {
-                            task.addRequiredFile(file.getName());
-                        }
-                        task.setFileList(mFileList);
-                        this.getTaskList().add(task);
-
-                        /**
-                         * Add dependencies info.
-                         */
+                        addTask(nodeName, node.getAttributeValue("name"), length, mFileList);
                         break;
                     case "child":
                         List<Element> pList = node.getChildren();
                         String childName = node.getAttributeValue("ref");
                         if (mName2Task.containsKey(childName)) {
-
-                            Task childTask = (Task) mName2Task.get(childName);
-
                             for (Element parent : pList) {
-                                String parentName = parent.getAttributeValue("ref");
-                                if (mName2Task.containsKey(parentName)) {
-                                    Task parentTask = (Task) mName2Task.get(parentName);
-                                    parentTask.addChild(childTask);
-                                    childTask.addParent(parentTask);
-                                }
+                                addEdge(childName, parent.getAttributeValue("ref"));
                             }
                         }
                         break;
                 }
             }
-            /**
-             * If a task has no parent, then it is root task.
-             */
-            ArrayList roots = new ArrayList<>();
-            for (Task task : mName2Task.values()) {
-                task.setDepth(0);
-                if (task.getParentList().isEmpty()) {
-                    roots.add(task);
-                }
-            }
+            setDepths();
+            logThroughput(path, start, tasks, edges);
+
+        } catch (JDOMException jde) {
+            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+        }
+    }
 
+    /**
+     * Parse a DAX file with StAX. The elements are read one at a time and
+     * turned into tasks and dependencies right away, so that the document is
+     * never held in memory.
+     */
+    private void parseXmlStream(String path) {
+        long start = System.nanoTime();
+        int tasks = getTaskList().size();
+        int edges = parsedEdges;
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            int depth = 0;
             /**
-             * Add depth from top to bottom.
+             * The job (or child) element being read, if any.
              */
-            for (Iterator it = roots.iterator(); it.hasNext();) {
-                Task task = (Task) it.next();
-                setDepth(task, 1);
+            String nodeName = null;
+            String nodeType = null;
+            long length = 0;
+            List<FileItem> mFileList = null;
+            String childName = null;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        String name = reader.getLocalName().toLowerCase();
+                        if (depth == 2) {
+                            switch (name) {
+                                case "job":
+                                    nodeName = reader.getAttributeValue(null, "id");
+                                    nodeType = reader.getAttributeValue(null, "name");
+                                    length = parseLength(nodeName, reader.getAttributeValue(null, "runtime"));
+                                    mFileList = new ArrayList<>();
+                                    break;
+                                case "child":
+                                    childName = reader.getAttributeValue(null, "ref");
+                                    if (!mName2Task.containsKey(childName)) {
+                                        childName = null;
+                                    }
+                                    break;
+                            }
+                        } else if (depth == 3) {
+                            if (mFileList != null && name.equals("uses")) {
+                                mFileList.add(parseFile(reader.getAttributeValue(null, "name"),
+                                        reader.getAttributeValue(null, "file"),
+                                        reader.getAttributeValue(null, "link"),
+                                        reader.getAttributeValue(null, "size")));
+                            } else if (childName != null) {
+                                addEdge(childName, reader.getAttributeValue(null, "ref"));
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == 2) {
+                            if (mFileList != null) {
+                                addTask(nodeName, nodeType, length, mFileList);
+                            }
+                            mFileList = null;
+                            childName = null;
+                        }
+                        depth--;
+                        break;
+                }
             }
-            /**
-             * Clean them so as to save memory. Parsing workflow may take much
-             * memory
-             */
-            this.mName2Task.clear();
+            reader.close();
+            setDepths();
+            logThroughput(path, start, tasks, edges);
 
-        } catch (JDOMException jde) {
-            Log.printLine("JDOM Exception;Please make sure your dax file is valid");
+        } catch (XMLStreamException xse) {
+            Log.printLine("XML Stream Exception;Please make sure your dax file is valid");
 
         } catch (IOException ioe) {
             Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
@@ -312,4 +352,263 @@ public final class WorkflowParser {
             Log.printLine("Parsing Exception");
         }
     }
+
+    /**
+     * Logs the number of tasks and dependencies parsed from a DAX file and the
+     * rate at which they were parsed, so that both parsers can be compared.
+     *
+     * @param path the DAX path
+     * @param start the time parsing started, in nanoseconds
+     * @param tasks the size of the task list when parsing started
+     * @param edges the number of dependencies parsed when parsing started
+     */
+    private void logThroughput(String path, long start, int tasks, int edges) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        tasks = getTaskList().size() - tasks;
+        edges = parsedEdges - edges;
+        Log.printLine(String.format("Parsed %s (%s): %d tasks, %d edges in %.3f s (%.0f tasks/s, %.0f edges/s)",
+                path, Parameters.getParserMode(), tasks, edges, seconds, tasks / seconds, edges / seconds));
+    }
+
+    /**
+     * Load a binary workflow written by BinaryWorkflow. All its tasks and
+     * their dependencies are created right away, as when parsing a DAX.
+     */
+    private void loadBinary(String path) {
+        try {
+            BinaryWorkflow workflow = BinaryWorkflow.open(path, getReplicaCatalog());
+            int firstId;
+            //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
+            synchronized (this) {
+                firstId = this.jobIdStartsFrom;
+                this.jobIdStartsFrom += workflow.getTaskNum();
+            }
+            this.getTaskList().addAll(workflow.getTaskList(userId, firstId));
+        } catch (IOException ioe) {
+            Log.printLine("IO Exception;Please make sure dax.path is correctly set in your config file");
+        } catch (Exception e) {
+            e.printStackTrace();
+            Log.printLine("Parsing Exception");
+        }
+    }
+
+    /**
+     * Gets the length of a task from the runtime file, or from its runtime
+     * attribute.
+     *
+     * @param nodeName the task name
+     * @param nodeTime the runtime attribute, may be null
+     * @return the length
+     */
+    private long parseLength(String nodeName, String nodeTime) {
+        long length = 0;
+        double override = Double.NaN;
+        if (overrides != null) {
+            // the task is the next one of the task list
+            override = overrides.getRuntime(getTaskList().size() - workflowTaskStart, nodeName);
+        }
+        /**
+         * capture runtime. If not exist, by default the runtime is 0.1.
+         * Otherwise CloudSim would ignore this task. BUG/#11
+         */
+        double runtime;
+        if (!Double.isNaN(override) || nodeTime != null) {
+            runtime = 1000 * (Double.isNaN(override) ? Double.parseDouble(nodeTime) : override);
+            if (runtime < 100) {
+                runtime = 100;
+            }
+            length = (long) runtime;
+        } else {
+            Log.printLine("Cannot find runtime for " + nodeName + ",set it to be 0");
+        }   //multiple the scale, by default it is 1.0
+        length *= Parameters.getRuntimeScale();
+        return length;
+    }
+
+    /**
+     * Gets the file used by a task. Input files are shared through the
+     * ReplicaCatalog, so that a file read by many tasks is a single object.
+     *
+     * @param fileName the name attribute (DAX version 3.3)
+     * @param file the file attribute (DAX version 3.0)
+     * @param inout the link attribute
+     * @param fileSize the size attribute
+     * @return the file
+     */
+    private FileItem parseFile(String fileName, String file, String inout, String fileSize) {
+        if (fileName == null) {
+            fileName = file;
+        }
+        if (fileName == null) {
+            Log.print("Error in parsing xml");
+        }
+
+        double size = 0.0;
+
+        double override = Double.NaN;
+        if (overrides != null) {
+            override = overrides.getDatasize(fileName);
+        }
+        if (!Double.isNaN(override)) {
+            size = override;
+        } else if (fileSize != null) {
+            size = Double.parseDouble(fileSize) /*/ 1024*/;
+        } else {
+            Log.printLine("File Size not found for " + fileName);
+        }
+
+        size = normalizeFileSize(size);
+        /**
+         * Sets the file type 1 is input 2 is output
+         */
+        FileType type = FileType.NONE;
+        switch (inout) {
+            case "input":
+                type = FileType.INPUT;
+                break;
+            case "output":
+                type = FileType.OUTPUT;
+                break;
+            default:
+                Log.printLine("Parsing Error");
+                break;
+        }
+        FileItem tFile;
+        /*
+         * Note that CloudSim use size as MB, in this case we use it as Byte
+         */
+        if (type == FileType.OUTPUT) {
+            /**
+             * It is good that CloudSim does tell whether a size is zero
+             */
+            tFile = new FileItem(fileName, size);
+        } else {
+            tFile = getReplicaCatalog().internFile(fileName, size);
+        }
+
+        tFile.setType(type);
+        return tFile;
+    }
+
+    /**
+     * Normalizes the size of a file, whether parsed or overridden.
+     *
+     * @param size the size
+     * @return the size, or 1 if it is 0, or its opposite if it is negative
+     */
+    static double normalizeFileSize(double size) {
+        /**
+         * a bug of cloudsim, size 0 causes a problem. 1 is ok.
+         */
+        if (size == 0) {
+            size++;
+        }
+        if (size < 0) {
+            /*
+             * Assuming it is a parsing error
+             */
+            size = 0 - size;
+            Log.printLine("Size is negative, I assume it is a parser error");
+        }
+        return size;
+    }
+
+    /**
+     * Creates a task and adds it to the task list.
+     *
+     * @param nodeName the task name
+     * @param nodeType the task type
+     * @param length the task length
+     * @param mFileList the files used by the task
+     */
+    private void addTask(String nodeName, String nodeType, long length, List<FileItem> mFileList) {
+        Task task;
+        //In case of multiple workflow submission. Make sure the jobIdStartsFrom is consistent.
+        synchronized (this) {
+            task = new Task(this.jobIdStartsFrom, length);
+            this.jobIdStartsFrom++;
+        }
+        task.setType(nodeType);
+        task.setUserId(userId);
+        mName2Task.put(nodeName, task);
+        for (FileItem file : mFileList) {
+            task.addRequiredFile(file.getName());
+        }
+        task.setFileList(mFileList);
+        this.getTaskList().add(task);
+    }
+
+    /**
+     * Adds a dependency between two tasks, if both of them exist.
+     *
+     * @param childName the child task name
+     * @param parentName the parent task name
+     */
+    private void addEdge(String childName, String parentName) {
+        Task childTask = mName2Task.get(childName);
+        Task parentTask = mName2Task.get(parentName);
+        if (childTask != null && parentTask != null) {
+            parentTask.addChild(childTask);
+            childTask.addParent(parentTask);
+            parsedEdges++;
+        }
+    }
+
+    /**
+     * Sets the depth of the tasks of the workflow just parsed and forgets
+     * their names.
+     */
+    private void setDepths() {
+        /**
+         * If a task has no parent, then it is root task.
+         */
+        ArrayList roots = new ArrayList<>();
+        for (Task task : mName2Task.values()) {
+            task.setDepth(0);
+            if (task.getParentList().isEmpty()) {
+                roots.add(task);
+            }
+        }
+
+        /**
+         * Add depth from top to bottom.
+         */
+        for (Iterator it = roots.iterator(); it.hasNext();) {
+            Task task = (Task) it.next();
+            setDepth(task, 1);
+        }
+        if (Parameters.hasDepthRuntimeScales()) {
+            for (Task task : mName2Task.values()) {
+                long length = (long) (task.getCloudletLength() * Parameters.getRuntimeScale(task.getDepth()));
+                task.setCloudletLength(length);
+            }
+        }
+        /**
+         * Clean them so as to save memory. Parsing workflow may take much
+         * memory
+         */
+        this.mName2Task.clear();
+    }
+
+    /**
+     * Gets the replica catalog used by this parser
+     *
+     * @return the replica catalog
+     */
+    public IndexedReplicaCatalog getReplicaCatalog() {
+        if (replicaCatalog != null) {
+            return replicaCatalog;
+        }
+        return ReplicaCatalog.getCatalog();
+    }
+
+    /**
+     * Sets the replica catalog used by this parser, instead of the one
+     * of ReplicaCatalog
+     *
+     * @param replicaCatalog the replica catalog
+     */
+    public void setReplicaCatalog(IndexedReplicaCatalog replicaCatalog) {
+        this.replicaCatalog = replicaCatalog;
+    }
 }
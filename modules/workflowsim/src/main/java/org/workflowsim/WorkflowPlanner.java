@@ -18,6 +18,7 @@ package org.workflowsim;
 import java.util.ArrayList;
 import java.util.List;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -25,8 +26,12 @@ import org.workflowsim.planning.BasePlanningAlgorithm;
 import org.workflowsim.planning.DHEFTPlanningAlgorithm;
 import org.workflowsim.planning.HEFTPlanningAlgorithm;
 import org.workflowsim.planning.RandomPlanningAlgorithm;
+import org.workflowsim.planning.SparseDHEFTPlanningAlgorithm;
+import org.workflowsim.planning.SparseHEFTPlanningAlgorithm;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.PlanningAlgorithm;
+import org.workflowsim.utils.Parameters.PlanningMode;
+import org.workflowsim.utils.WorkflowArrivalProcess;
 
 /**
  * WorkflowPlanner supports dynamic planning. In the future we will have global
@@ -53,6 +58,10 @@ public final class WorkflowPlanner extends SimEntity {
      */
     private int clusteringEngineId;
     private ClusteringEngine clusteringEngine;
+    /**
+     * The id of the first task of the next arrived workflow.
+     */
+    private int taskIdStartsFrom = 1;
 
     /**
      * Created a new WorkflowPlanner object.
@@ -133,12 +142,19 @@ public final class WorkflowPlanner extends SimEntity {
     public void processEvent(SimEvent ev) {
         switch (ev.getTag()) {
             case WorkflowSimTags.START_SIMULATION:
+                if (Parameters.getWorkflowArrivalProcess() != null) {
+                    scheduleNextArrival();
+                    break;
+                }
                 getWorkflowParser().parse();
                 setTaskList(getWorkflowParser().getTaskList());
                 processPlanning();
                 processImpactFactors(getTaskList());
                 sendNow(getClusteringEngineId(), WorkflowSimTags.JOB_SUBMIT, getTaskList());
                 break;
+            case WorkflowSimTags.WORKFLOW_ARRIVAL:
+                processWorkflowArrival((WorkflowArrivalProcess.Arrival) ev.getData());
+                break;
             case CloudSimTags.END_OF_SIMULATION:
                 shutdownEntity();
                 break;
@@ -149,6 +165,43 @@ public final class WorkflowPlanner extends SimEntity {
         }
     }
 
+    /**
+     * Schedules the arrival of the next workflow, if any. Only one arrival is
+     * scheduled at a time, and the workflow is only loaded when it arrives.
+     */
+    private void scheduleNextArrival() {
+        WorkflowArrivalProcess arrivals = Parameters.getWorkflowArrivalProcess();
+        if (!arrivals.hasNext()) {
+            return;
+        }
+        WorkflowArrivalProcess.Arrival arrival = arrivals.next();
+        getWorkflowEngine().addPendingWorkflow();
+        schedule(getId(), Math.max(0.0, arrival.getTime() - CloudSim.clock()),
+                WorkflowSimTags.WORKFLOW_ARRIVAL, arrival);
+    }
+
+    /**
+     * Loads and plans an arrived workflow, and submits it to the clustering
+     * engine. The task list only holds the last arrived workflow, so that the
+     * tasks of a workflow can be released once it is done. The engine removes
+     * its files from the replica catalogs then.
+     *
+     * @param arrival the arrival
+     */
+    private void processWorkflowArrival(WorkflowArrivalProcess.Arrival arrival) {
+        getWorkflowEngine().addArrivingWorkflow();
+        WorkflowParser workflowParser = new WorkflowParser(
+                getWorkflowEngine().getSchedulerId(0), arrival.getDaxPath());
+        workflowParser.setJobIdStartsFrom(taskIdStartsFrom);
+        workflowParser.parse();
+        taskIdStartsFrom = workflowParser.getJobIdStartsFrom();
+        setTaskList(workflowParser.getTaskList());
+        processPlanning();
+        processImpactFactors(getTaskList());
+        sendNow(getClusteringEngineId(), WorkflowSimTags.WORKFLOW_SUBMIT, getTaskList());
+        scheduleNextArrival();
+    }
+
     private void processPlanning() {
         if (Parameters.getPlanningAlgorithm().equals(PlanningAlgorithm.INVALID)) {
             return;
@@ -157,6 +210,7 @@ public final class WorkflowPlanner extends SimEntity {
         
         planner.setTaskList(getTaskList());
         planner.setVmList(getWorkflowEngine().getAllVmList());
+        planner.setParallel(Parameters.isParallelPlanning());
         try {
             planner.run();
         } catch (Exception e) {
@@ -185,10 +239,18 @@ public final class WorkflowPlanner extends SimEntity {
                 planner = new RandomPlanningAlgorithm();
                 break;
             case HEFT:
-                planner = new HEFTPlanningAlgorithm();
+                if (Parameters.getPlanningMode() == PlanningMode.SPARSE) {
+                    planner = new SparseHEFTPlanningAlgorithm();
+                } else {
+                    planner = new HEFTPlanningAlgorithm();
+                }
                 break;
             case DHEFT:
-                planner = new DHEFTPlanningAlgorithm();
+                if (Parameters.getPlanningMode() == PlanningMode.SPARSE) {
+                    planner = new SparseDHEFTPlanningAlgorithm();
+                } else {
+                    planner = new DHEFTPlanningAlgorithm();
+                }
                 break;
             default:
                 planner = null;
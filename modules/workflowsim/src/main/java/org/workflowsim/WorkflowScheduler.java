@@ -15,26 +15,34 @@
  */
 package org.workflowsim;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.lists.VmList;
 import org.workflowsim.failure.FailureGenerator;
 import org.workflowsim.scheduling.DataAwareSchedulingAlgorithm;
 import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
 import org.workflowsim.scheduling.FCFSSchedulingAlgorithm;
-import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
-import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
-import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
+import org.workflowsim.scheduling.HeapMCTSchedulingAlgorithm;
+import org.workflowsim.scheduling.HeapMaxMinSchedulingAlgorithm;
+import org.workflowsim.scheduling.HeapMinMinSchedulingAlgorithm;
 import org.workflowsim.scheduling.RoundRobinSchedulingAlgorithm;
 import org.workflowsim.scheduling.StaticSchedulingAlgorithm;
+import org.workflowsim.utils.IndexedReplicaCatalog;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
+import org.workflowsim.utils.ReplicaCatalog;
 
 /**
  * WorkflowScheduler represents a algorithm acting on behalf of a user. It hides
@@ -51,6 +59,69 @@ public class WorkflowScheduler extends DatacenterBroker {
      * The workflow engine id associated with this workflow algorithm.
      */
     private int workflowEngineId;
+    /**
+     * The time window in which the job returns are coalesced into a single
+     * scheduler run. If it is 0 the scheduler runs after every return.
+     */
+    private double schedulingQuantum;
+    /**
+     * The number of job returns that make the scheduler run right away,
+     * without waiting for the end of the scheduling quantum. Without a
+     * quantum, the scheduler waits for this many returns, or until no job is
+     * left running. 0 means no limit.
+     */
+    private int schedulingBatchSize;
+    /**
+     * The time of the pending update event, or Double.MAX_VALUE if there is
+     * none. Only used when the scheduling quantum or the batch size is
+     * positive.
+     */
+    private double updateTime = Double.MAX_VALUE;
+    /**
+     * The data of the update events scheduled by this scheduler, so that they
+     * are told apart from the CLOUDLET_UPDATE events sent by other entities.
+     */
+    private final Object updateData = new Object();
+    /**
+     * Matches the update events scheduled by this scheduler.
+     */
+    private final Predicate updatePredicate = new Predicate() {
+
+        @Override
+        public boolean match(SimEvent ev) {
+            return ev.getTag() == WorkflowSimTags.CLOUDLET_UPDATE && ev.getData() == updateData;
+        }
+    };
+    /**
+     * The number of job returns since the last scheduler run.
+     */
+    private int pendingReturns;
+    /**
+     * The number of times the scheduling algorithm has run.
+     */
+    private long schedulerRuns;
+    /**
+     * The number of update requests served by an update already pending, or
+     * by the run of a later batch.
+     */
+    private long coalescedUpdates;
+    /**
+     * Whether the returned jobs are kept in the cloudlet received list.
+     */
+    private boolean cloudletReceivedListKept = true;
+    /**
+     * Whether this scheduler steals the queued jobs of the other schedulers
+     * of its WorkflowEngine when it is idle, and lets them steal its own.
+     */
+    private boolean workStealing;
+    /**
+     * The largest number of jobs queued in this scheduler so far.
+     */
+    private int maxQueueDepth;
+    /**
+     * The created vms, indexed by vm id.
+     */
+    private final Map<Integer, CondorVM> createdVms = new HashMap<>();
 
     /**
      * Created a new WorkflowScheduler object.
@@ -78,6 +149,31 @@ public class WorkflowScheduler extends DatacenterBroker {
         this.datacenterIdsList.add(datacenterId);
     }
 
+    /**
+     * Gets the datacenters this scheduler is bound to
+     *
+     * @return the data center ids
+     */
+    public List<Integer> getBoundDatacenterIds() {
+        return this.datacenterIdsList;
+    }
+
+    /**
+     * Gets the replica catalog of the first datacenter this scheduler is
+     * bound to, or the one of ReplicaCatalog if it is not a
+     * WorkflowDatacenter
+     *
+     * @return the replica catalog
+     */
+    public IndexedReplicaCatalog getReplicaCatalog() {
+        for (int datacenterId : getBoundDatacenterIds()) {
+            if (CloudSim.getEntity(datacenterId) instanceof WorkflowDatacenter) {
+                return ((WorkflowDatacenter) CloudSim.getEntity(datacenterId)).getReplicaCatalog();
+            }
+        }
+        return ReplicaCatalog.getCatalog();
+    }
+
     /**
      * Sets the workflow engine id
      *
@@ -145,17 +241,18 @@ public class WorkflowScheduler extends DatacenterBroker {
             case FCFS:
                 algorithm = new FCFSSchedulingAlgorithm();
                 break;
+            //the heap variants schedule exactly as the original algorithms
             case MINMIN:
-                algorithm = new MinMinSchedulingAlgorithm();
+                algorithm = new HeapMinMinSchedulingAlgorithm();
                 break;
             case MAXMIN:
-                algorithm = new MaxMinSchedulingAlgorithm();
+                algorithm = new HeapMaxMinSchedulingAlgorithm();
                 break;
             case MCT:
-                algorithm = new MCTSchedulingAlgorithm();
+                algorithm = new HeapMCTSchedulingAlgorithm();
                 break;
             case DATA:
-                algorithm = new DataAwareSchedulingAlgorithm();
+                algorithm = new DataAwareSchedulingAlgorithm(getReplicaCatalog());
                 break;
             case STATIC:
                 algorithm = new StaticSchedulingAlgorithm();
@@ -193,6 +290,7 @@ public class WorkflowScheduler extends DatacenterBroker {
              */
             if (VmList.getById(getVmList(), vmId) != null) {
                 getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
+                createdVms.put(vmId, (CondorVM) VmList.getById(getVmList(), vmId));
                 Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId
                         + " has been created in Datacenter #" + datacenterId + ", Host #"
                         + VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
@@ -236,6 +334,11 @@ public class WorkflowScheduler extends DatacenterBroker {
      * @param ev a simEvent object
      */
     protected void processCloudletUpdate(SimEvent ev) {
+        if (ev.getData() == updateData) {
+            updateTime = Double.MAX_VALUE;
+        }
+        pendingReturns = 0;
+        schedulerRuns++;
 
         BaseSchedulingAlgorithm scheduler = getScheduler(Parameters.getSchedulingAlgorithm());
         scheduler.setCloudletList(getCloudletList());
@@ -257,9 +360,17 @@ public class WorkflowScheduler extends DatacenterBroker {
             }
             schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
         }
-        getCloudletList().removeAll(scheduledList);
+        if (!scheduledList.isEmpty()) {
+            Set<Cloudlet> scheduledSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            scheduledSet.addAll(scheduledList);
+            getCloudletList().removeIf(scheduledSet::contains);
+        }
         getCloudletSubmittedList().addAll(scheduledList);
         cloudletsSubmitted += scheduledList.size();
+        //the engine tells whether this scheduler has jobs to spare or idle vms
+        if (workStealing) {
+            sendNow(this.workflowEngineId, WorkflowSimTags.JOB_STEAL, null);
+        }
     }
 
     /**
@@ -279,10 +390,12 @@ public class WorkflowScheduler extends DatacenterBroker {
          */
         FailureGenerator.generate(job);
 
-        getCloudletReceivedList().add(cloudlet);
+        if (cloudletReceivedListKept) {
+            getCloudletReceivedList().add(cloudlet);
+        }
         getCloudletSubmittedList().remove(cloudlet);
 
-        CondorVM vm = (CondorVM) getVmsCreatedList().get(cloudlet.getVmId());
+        CondorVM vm = createdVms.get(cloudlet.getVmId());
         //so that this resource is released
         vm.setState(WorkflowSimTags.VM_STATUS_IDLE);
 
@@ -293,11 +406,47 @@ public class WorkflowScheduler extends DatacenterBroker {
         schedule(this.workflowEngineId, delay, CloudSimTags.CLOUDLET_RETURN, cloudlet);
 
         cloudletsSubmitted--;
-        //not really update right now, should wait 1 s until many jobs have returned
-        schedule(this.getId(), 0.0, WorkflowSimTags.CLOUDLET_UPDATE);
+        pendingReturns++;
+        if (schedulingBatchSize > 0 && pendingReturns >= schedulingBatchSize) {
+            scheduleUpdate(0.0);
+        } else if (schedulingQuantum > 0) {
+            //with a scheduling quantum, wait until many jobs have returned
+            scheduleUpdate(schedulingQuantum);
+        } else if (schedulingBatchSize > 0 && cloudletsSubmitted > 0) {
+            //the batch is not full yet and the running jobs will return
+            coalescedUpdates++;
+        } else {
+            scheduleUpdate(0.0);
+        }
 
     }
 
+    /**
+     * Schedules a CLOUDLET_UPDATE to run the scheduling algorithm after a
+     * given delay. If the scheduling quantum or the batch size is positive,
+     * the scheduler keeps at most one update pending: a request for the same
+     * time or later than the pending update is served by it, and an earlier
+     * request replaces it.
+     *
+     * @param delay the delay of the update
+     */
+    protected void scheduleUpdate(double delay) {
+        if (schedulingQuantum <= 0 && schedulingBatchSize <= 0) {
+            schedule(this.getId(), delay, WorkflowSimTags.CLOUDLET_UPDATE, updateData);
+            return;
+        }
+        double time = CloudSim.clock() + delay;
+        if (updateTime != Double.MAX_VALUE) {
+            coalescedUpdates++;
+            if (time >= updateTime) {
+                return;
+            }
+            CloudSim.cancel(getId(), updatePredicate);
+        }
+        schedule(this.getId(), delay, WorkflowSimTags.CLOUDLET_UPDATE, updateData);
+        updateTime = time;
+    }
+
     /**
      * Start this entity (WorkflowScheduler)
      */
@@ -323,6 +472,10 @@ public class WorkflowScheduler extends DatacenterBroker {
     @Override
     public void shutdownEntity() {
         clearDatacenters();
+        if (schedulingQuantum > 0 || schedulingBatchSize > 0) {
+            Log.printLine(getName() + ": " + schedulerRuns + " scheduler runs, "
+                    + coalescedUpdates + " updates coalesced");
+        }
         Log.printLine(getName() + " is shutting down...");
     }
 
@@ -332,6 +485,9 @@ public class WorkflowScheduler extends DatacenterBroker {
     @Override
     protected void submitCloudlets() {
         sendNow(this.workflowEngineId, CloudSimTags.CLOUDLET_SUBMIT, null);
+        if (workStealing) {
+            sendNow(this.workflowEngineId, WorkflowSimTags.JOB_STEAL, null);
+        }
     }
     /**
      * A trick here. Assure that we just submit it once
@@ -346,8 +502,9 @@ public class WorkflowScheduler extends DatacenterBroker {
     protected void processCloudletSubmit(SimEvent ev) {
         List<Job> list = (List) ev.getData();
         getCloudletList().addAll(list);
+        maxQueueDepth = Math.max(maxQueueDepth, getCloudletList().size());
 
-        sendNow(this.getId(), WorkflowSimTags.CLOUDLET_UPDATE);
+        scheduleUpdate(0.0);
         if (!processCloudletSubmitHasShown) {
             processCloudletSubmitHasShown = true;
         }
@@ -369,4 +526,155 @@ public class WorkflowScheduler extends DatacenterBroker {
             sendNow(datacenterId, CloudSimTags.RESOURCE_CHARACTERISTICS, getId());
         }
     }
+
+    /**
+     * Removes queued jobs so that another scheduler runs them. The jobs are
+     * taken from the end of the queue, and the jobs planned on a vm are left.
+     *
+     * @param num the largest number of jobs to remove
+     * @return the removed jobs
+     */
+    public List<Job> releaseQueuedJobs(int num) {
+        List<Job> releasedList = new ArrayList<>();
+        List<Cloudlet> queue = getCloudletList();
+        for (int i = queue.size() - 1; i >= 0 && releasedList.size() < num; i--) {
+            Job job = (Job) queue.get(i);
+            if (job.getVmId() < 0) {
+                releasedList.add(job);
+            }
+        }
+        if (!releasedList.isEmpty()) {
+            Set<Cloudlet> releasedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            releasedSet.addAll(releasedList);
+            queue.removeIf(releasedSet::contains);
+        }
+        return releasedList;
+    }
+
+    /**
+     * Gets the number of jobs queued in this scheduler, that is received from
+     * the WorkflowEngine but not submitted to a vm yet
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return getCloudletList().size();
+    }
+
+    /**
+     * Gets the largest number of jobs queued in this scheduler so far
+     *
+     * @return the largest queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Gets the number of jobs submitted to a vm that have not returned yet
+     *
+     * @return the number of running jobs
+     */
+    public int getRunningJobNum() {
+        return cloudletsSubmitted;
+    }
+
+    /**
+     * Sets whether this scheduler steals the queued jobs of the other
+     * schedulers of its WorkflowEngine when it is idle. It is set by
+     * WorkflowEngine.setWorkStealing.
+     *
+     * @param workStealing whether the jobs are stolen
+     */
+    public void setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+    }
+
+    /**
+     * Gets whether this scheduler steals the queued jobs of the other
+     * schedulers when it is idle
+     *
+     * @return whether the jobs are stolen
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Gets the scheduling quantum
+     *
+     * @return the time window in which job returns are coalesced
+     */
+    public double getSchedulingQuantum() {
+        return schedulingQuantum;
+    }
+
+    /**
+     * Sets the scheduling quantum. If it is positive, the job returns within
+     * this time window are coalesced into a single scheduler run.
+     *
+     * @param schedulingQuantum the time window, 0 to run after every return
+     */
+    public void setSchedulingQuantum(double schedulingQuantum) {
+        this.schedulingQuantum = schedulingQuantum;
+    }
+
+    /**
+     * Gets the scheduling batch size
+     *
+     * @return the number of returns that make the scheduler run right away
+     */
+    public int getSchedulingBatchSize() {
+        return schedulingBatchSize;
+    }
+
+    /**
+     * Sets the number of job returns that make the scheduler run right away,
+     * without waiting for the end of the scheduling quantum. Without a
+     * quantum, the scheduler only runs once this many jobs have returned, or
+     * when no job is left running, or when new jobs are submitted.
+     *
+     * @param schedulingBatchSize the number of returns, 0 for no limit
+     */
+    public void setSchedulingBatchSize(int schedulingBatchSize) {
+        this.schedulingBatchSize = schedulingBatchSize;
+    }
+
+    /**
+     * Sets whether the returned jobs are kept in the cloudlet received list.
+     *
+     * @param kept whether the returned jobs are kept
+     */
+    public void setCloudletReceivedListKept(boolean kept) {
+        this.cloudletReceivedListKept = kept;
+    }
+
+    /**
+     * Gets whether the returned jobs are kept in the cloudlet received list.
+     *
+     * @return whether the returned jobs are kept
+     */
+    public boolean isCloudletReceivedListKept() {
+        return cloudletReceivedListKept;
+    }
+
+    /**
+     * Gets the number of times the scheduling algorithm has run
+     *
+     * @return the number of scheduler runs
+     */
+    public long getSchedulerRuns() {
+        return schedulerRuns;
+    }
+
+    /**
+     * Gets the number of update requests that did not need a scheduler run of
+     * their own, since an update was already pending or the batch of returns
+     * was not full yet
+     *
+     * @return the number of scheduler runs saved
+     */
+    public long getCoalescedUpdates() {
+        return coalescedUpdates;
+    }
 }
@@ -44,6 +44,20 @@ public class WorkflowSimTags {
     public static final int JOB_SUBMIT = BASE + 1;
     public static final int CLOUDLET_UPDATE = BASE + 5;
     public static final int CLOUDLET_CHECK = BASE + 6;
+    /**
+     * A workflow arrives at the WorkflowPlanner
+     */
+    public static final int WORKFLOW_ARRIVAL = BASE + 7;
+    /**
+     * The tasks or jobs of an arrived workflow are submitted, in addition to
+     * those submitted before
+     */
+    public static final int WORKFLOW_SUBMIT = BASE + 8;
+    /**
+     * A scheduler tells the WorkflowEngine that it is idle or that it has
+     * queued jobs, so that idle schedulers steal the queued jobs of the others
+     */
+    public static final int JOB_STEAL = BASE + 9;
 
     /**
      * Private Constructor
@@ -16,9 +16,13 @@
 package org.workflowsim.clustering;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.workflowsim.FileItem;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
@@ -51,6 +55,10 @@ public class BasicClustering implements ClusteringInterface {
      * All the files.
      */
     private final List<FileItem> allFileList;
+    /**
+     * The input files in allFileList, to avoid adding them twice.
+     */
+    private final Set<FileItem> allInputFiles;
     /**
      * The root task.
      */
@@ -78,10 +86,21 @@ public class BasicClustering implements ClusteringInterface {
         this.taskList = new ArrayList<>();
         this.mTask2Job = new HashMap<>();
         this.allFileList = new ArrayList<>();
+        this.allInputFiles = Collections.newSetFromMap(new IdentityHashMap<>());
         this.idIndex = 0;
         this.root = null;
     }
 
+    /**
+     * Sets the id of the first job, so that the jobs of several workflows
+     * have different ids
+     *
+     * @param id the id of the first job
+     */
+    public void setJobIdStartsFrom(int id) {
+        this.idIndex = id;
+    }
+
     /**
      * Sets the task list
      *
@@ -169,6 +188,9 @@ public class BasicClustering implements ClusteringInterface {
             /// a bug of cloudsim makes it final of input file size and output file size
             Job job = new Job(idIndex, length/*, inputFileSize, outputFileSize*/);
             job.setClassType(ClassType.COMPUTE.value);
+            // the files and required files already in the job
+            Set<FileItem> jobFiles = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<String> requiredFiles = new HashSet<>();
             for (Task task : taskList) {
                 length += task.getCloudletLength();
 
@@ -180,12 +202,12 @@ public class BasicClustering implements ClusteringInterface {
 
                 getTask2Job().put(task, job);
                 for (FileItem file : fileList) {
-                    boolean hasFile = job.getFileList().contains(file);
+                    boolean hasFile = !jobFiles.add(file);
                     if (!hasFile) {
                         job.getFileList().add(file);
                         if (file.getType() == FileType.INPUT) {
                             //for stag-in jobs to be used
-                            if (!this.allFileList.contains(file)) {
+                            if (this.allInputFiles.add(file)) {
                                 this.allFileList.add(file);
                             }
                         } else if (file.getType() == FileType.OUTPUT) {
@@ -194,7 +216,7 @@ public class BasicClustering implements ClusteringInterface {
                     }
                 }
                 for (String fileName : task.getRequiredFiles()) {
-                    if (!job.getRequiredFiles().contains(fileName)) {
+                    if (requiredFiles.add(fileName)) {
                         job.getRequiredFiles().add(fileName);
                     }
                 }
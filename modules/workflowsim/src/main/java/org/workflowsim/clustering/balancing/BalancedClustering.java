@@ -30,6 +30,7 @@ import org.workflowsim.clustering.balancing.methods.HorizontalDistanceBalancing;
 import org.workflowsim.clustering.balancing.methods.HorizontalImpactBalancing;
 import org.workflowsim.clustering.balancing.methods.HorizontalRandomClustering;
 import org.workflowsim.clustering.balancing.methods.HorizontalRuntimeBalancing;
+import org.workflowsim.clustering.balancing.methods.IncrementalDistanceBalancing;
 import org.workflowsim.clustering.balancing.methods.VerticalBalancing;
 import org.workflowsim.clustering.balancing.metrics.DistanceVariance;
 import org.workflowsim.clustering.balancing.metrics.HorizontalRuntimeVariance;
@@ -339,6 +340,11 @@ public class BalancedClustering extends BasicClustering {
                                 new HorizontalDistanceBalancing(map, this.mTask2TaskSet, this.clusterNum);
                         d.run();
                         break;
+                    case 'D':
+                        IncrementalDistanceBalancing id =
+                                new IncrementalDistanceBalancing(map, this.mTask2TaskSet, this.clusterNum);
+                        id.run();
+                        break;
                     case 'h':
                         HorizontalRandomClustering h =
                                 new HorizontalRandomClustering(map, this.mTask2TaskSet, this.clusterNum);
@@ -156,14 +156,17 @@ public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
         return avg;
     }
 
-    private List<TaskSet> preprocessing(List<TaskSet> taskList, List<TaskSet> jobList) {
+    /**
+     * Selects the taskSets that are the first taskSets of the jobs: the two
+     * most distant taskSets, then the taskSets whose average distance to the
+     * selected ones is the longest distance
+     *
+     * @param taskList the taskSets of a level
+     * @param num the number of jobs
+     * @return the indexes of the selected taskSets in taskList
+     */
+    protected List<Integer> selectDistantTaskSets(List<TaskSet> taskList, int num) {
         int size = taskList.size();
-        int[] record = new int[size];
-        for (int i = 0; i < size; i++) {
-            record[i] = -1;
-        }
-        int index_record = 0;
-
         int[][] distances = new int[size][size];
 
         for (int i = 0; i < size; i++) {
@@ -176,9 +179,20 @@ public class HorizontalDistanceBalancing extends HorizontalImpactBalancing {
 
             }
         }
+        return sortDistanceIncreasing(distances, size, num);
+    }
+
+    private List<TaskSet> preprocessing(List<TaskSet> taskList, List<TaskSet> jobList) {
+        int size = taskList.size();
+        int[] record = new int[size];
+        for (int i = 0; i < size; i++) {
+            record[i] = -1;
+        }
+        int index_record = 0;
+
         int job_index = 0;
         //boolean [] popped = new boolean[size];
-        List<Integer> idList = sortDistanceIncreasing(distances, size, jobList.size());
+        List<Integer> idList = selectDistantTaskSets(taskList, jobList.size());
         for (int max_i : idList) {
             record[index_record] = max_i;
             index_record++;
@@ -0,0 +1,177 @@
+/*
+ *
+ *  Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.workflowsim.clustering.balancing.methods;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.workflowsim.clustering.TaskSet;
+
+/**
+ * IncrementalDistanceBalancing merges tasks based on distance metric, as
+ * HorizontalDistanceBalancing does, without the distance matrix. The distances
+ * are calculated when needed, and the sum of the distances of each taskSet to
+ * the selected taskSets is updated when a taskSet is selected, so that the
+ * memory used is linear in the number of taskSets of a level.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class IncrementalDistanceBalancing extends HorizontalDistanceBalancing {
+
+    /**
+     * Initialize a IncrementalDistanceBalancing object
+     *
+     * @param levelMap the level map
+     * @param taskMap the task map
+     * @param clusterNum the clusters.num
+     */
+    public IncrementalDistanceBalancing(Map levelMap, Map taskMap, int clusterNum) {
+        super(levelMap, taskMap, clusterNum);
+    }
+
+    /**
+     * Selects the same taskSets as HorizontalDistanceBalancing does
+     *
+     * @param taskList the taskSets of a level
+     * @param num the number of jobs
+     * @return the indexes of the selected taskSets in taskList
+     */
+    @Override
+    protected List<Integer> selectDistantTaskSets(List<TaskSet> taskList, int num) {
+        int size = taskList.size();
+        //first two
+        int max = 0;
+        int max_i = 0;
+        int max_j = 0;
+        for (int i = 0; i < size; i++) {
+            TaskSet setA = taskList.get(i);
+            List<Set<TaskSet>> levels = getChildLevels(setA);
+            for (int j = 0; j < i; j++) {
+                int distance = calDistance(setA, levels, taskList.get(j));
+                if (distance > max) {
+                    max = distance;
+                    max_i = i;
+                    max_j = j;
+                }
+            }
+        }
+
+        List<Integer> newList = new ArrayList<>();
+        double[] sums = new double[size];
+        addDistantTaskSet(taskList, max_i, newList, sums);
+        addDistantTaskSet(taskList, max_j, newList, sums);
+
+        int max_index = 0;
+        for (int id = 0; id < num - 2; id++) {
+            double max_dist = 0;
+            for (int i = 0; i < size; i++) {
+                double dist = sums[i] / newList.size();
+                if (max_dist < dist) {
+                    max_dist = dist;
+                    max_index = i;
+                }
+            }
+            if (max_dist != max) {
+                // the list is unchanged, so would be the next ones
+                break;
+            }
+            addDistantTaskSet(taskList, max_index, newList, sums);
+        }
+        return newList;
+    }
+
+    /**
+     * Adds a taskSet to the selected ones, and its distance to the sum of the
+     * distances of each taskSet
+     */
+    private void addDistantTaskSet(List<TaskSet> taskList, int index, List<Integer> newList,
+            double[] sums) {
+        newList.add(index);
+        TaskSet setA = taskList.get(index);
+        List<Set<TaskSet>> levels = getChildLevels(setA);
+        for (int i = 0; i < sums.length; i++) {
+            if (i != index) {
+                sums[i] += calDistance(setA, levels, taskList.get(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the children of a taskSet, the children of its children, and so on
+     *
+     * @param set the taskSet
+     * @return the taskSets at each distance, the children first
+     */
+    private List<Set<TaskSet>> getChildLevels(TaskSet set) {
+        List<Set<TaskSet>> levels = new ArrayList<>();
+        if (set == null) {
+            return levels;
+        }
+        Set<TaskSet> level = Collections.singleton(set);
+        while (true) {
+            level = getChildren(level);
+            if (level.isEmpty()) {
+                return levels;
+            }
+            levels.add(level);
+        }
+    }
+
+    private Set<TaskSet> getChildren(Set<TaskSet> level) {
+        Set<TaskSet> children = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TaskSet set : level) {
+            children.addAll(set.getChildList());
+        }
+        return children;
+    }
+
+    /**
+     * Calculates the distance between two taskSet as HorizontalDistanceBalancing
+     * does, given the child levels of the first one
+     *
+     * @param taskA the first taskSet
+     * @param levelsA the child levels of taskA
+     * @param taskB the second taskSet
+     * @return the distance
+     */
+    private int calDistance(TaskSet taskA, List<Set<TaskSet>> levelsA, TaskSet taskB) {
+        if (taskA == null || taskB == null || taskA == taskB) {
+            return 0;
+        }
+        if (taskA.getTaskList().isEmpty() || taskB.getTaskList().isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+        Set<TaskSet> levelB = Collections.singleton(taskB);
+        for (int distance = 0;; distance++) {
+            levelB = getChildren(levelB);
+            Set<TaskSet> levelA = distance < levelsA.size()
+                    ? levelsA.get(distance) : Collections.<TaskSet>emptySet();
+            for (TaskSet set : levelA) {
+                if (levelB.contains(set)) {
+                    return distance * 2;
+                }
+            }
+            if (levelA.isEmpty() || levelB.isEmpty()) {
+                return (distance + 1) * 2;
+            }
+        }
+    }
+}
@@ -35,12 +35,9 @@ import org.workflowsim.utils.DistributionGenerator;
 public class FailureGenerator {
 
     /**
-     * FailureGenerator doubles the size of distribution samples each time 
-     * but only limits to maxFailureSizeExtension. Otherwise your failure rate 
-     * is too high for this workflow
+     * The failure times of the generators or of a replayed trace
      */
-    private static final int maxFailureSizeExtension = 50;
-    private static int failureSizeExtension = 0;
+    private static FailureTrace trace;
     private static final boolean hasChangeTime = false;
     /**
      *
@@ -71,6 +68,10 @@ public class FailureGenerator {
     }
 
     protected static void initFailureSamples() {
+        trace = null;
+        if (FailureParameters.getFailureGeneratorMode() != FailureParameters.FTCFailure.FAILURE_NONE) {
+            trace = new FailureTrace(FailureParameters.getFailureGenerators());
+        }
     }
 
     /**
@@ -81,68 +82,76 @@ public class FailureGenerator {
         initFailureSamples();
     }
 
+    /**
+     * Initialize a Failure Generator that replays a failure trace, for example
+     * one loaded with FailureTrace.load
+     *
+     * @param failureTrace the failure trace
+     */
+    public static void init(FailureTrace failureTrace) {
+        trace = failureTrace;
+    }
+
+    /**
+     * Gets the failure trace, whose failure times can be saved to be replayed
+     *
+     * @return the failure trace
+     */
+    public static FailureTrace getFailureTrace() {
+        return trace;
+    }
+
     protected static boolean checkFailureStatus(Task task, int vmId) throws Exception {
 
 
-        DistributionGenerator generator;
+        int vmIndex, depth;
         switch (FailureParameters.getFailureGeneratorMode()) {
             /**
              * Every task follows the same distribution.
              */
             case FAILURE_ALL:
-                generator = FailureParameters.getGenerator(0, 0);
+                vmIndex = 0;
+                depth = 0;
                 break;
             /**
              * Generate failures based on the type of job.
              */
             case FAILURE_JOB:
-                generator = FailureParameters.getGenerator(0, task.getDepth());
+                vmIndex = 0;
+                depth = task.getDepth();
                 break;
             /**
              * Generate failures based on the index of vm.
              */
             case FAILURE_VM:
-                generator = FailureParameters.getGenerator(vmId, 0);
+                vmIndex = vmId;
+                depth = 0;
                 break;
             /**
              * Generator failures based on vmId and level both
              */
             case FAILURE_VM_JOB:
-                generator = FailureParameters.getGenerator(vmId, task.getDepth());
+                vmIndex = vmId;
+                depth = task.getDepth();
                 break;
             default:
                 return false;
         }
-        
+        if (trace == null) {
+            initFailureSamples();
+        }
+
         double start = task.getExecStartTime();
         double end = task.getTaskFinishTime();
-        
-        
-        double[] samples = generator.getCumulativeSamples();
-        
-        while (samples[samples.length - 1] < start) {
-            generator.extendSamples();
-            samples = generator.getCumulativeSamples();
-            failureSizeExtension++;
-            if (failureSizeExtension >= maxFailureSizeExtension) {
-                throw new Exception("Error rate is too high such that the simulator terminates");
 
-            }
-        }
-
-        for (int sampleId = 0; sampleId < samples.length; sampleId++) {
-            if (end < samples[sampleId]) {
-                //no failure
-                return false;
-            }
-            if (start <= samples[sampleId]) {
-                //has a failure
+        if (trace.hasFailure(vmIndex, depth, start, end)) {
+            DistributionGenerator generator = trace.getGenerator(vmIndex, depth);
+            if (generator != null) {
                 /** The idea is we need to update the cursor in generator**/
                 generator.getNextSample();
-                return true;
             }
+            return true;
         }
-
         return false;
     }
 
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.failure;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import org.workflowsim.utils.DistributionGenerator;
+
+/**
+ * FailureTrace keeps the failure times of each vm and depth in increasing
+ * order, so that whether a task fails is found with a binary search. The
+ * failure times are either the cumulative samples of the failure generators,
+ * generated further when a task runs after the last failure time, or the
+ * failure times of a trace file, which are replayed as they are.
+ *
+ * A trace file has one failure per line: the vm index, the depth and the
+ * failure time, separated by spaces. Lines starting with # are ignored.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FailureTrace {
+
+    /**
+     * FailureTrace generates more failure times each time a task runs after
+     * the last one but only limits to maxFailureSizeExtension. Otherwise your
+     * failure rate is too high for this workflow
+     */
+    private static final int maxFailureSizeExtension = 50;
+    private int failureSizeExtension = 0;
+    /**
+     * The generators of the failure times, null if the trace is replayed
+     */
+    private final DistributionGenerator[][] generators;
+    /**
+     * The failure times, first index is the vm index; second index is the
+     * depth
+     */
+    private final double[][][] times;
+    /**
+     * The number of failure times of each vm index and depth
+     */
+    private final int[][] sizes;
+
+    /**
+     * Initialize a FailureTrace with the failure times of the generators
+     *
+     * @param generators the failure generators, first index is the vm index;
+     * second index is the depth
+     */
+    public FailureTrace(DistributionGenerator[][] generators) {
+        this.generators = generators;
+        this.times = new double[generators.length][][];
+        this.sizes = new int[generators.length][];
+        for (int i = 0; i < generators.length; i++) {
+            this.times[i] = new double[generators[i].length][];
+            this.sizes[i] = new int[generators[i].length];
+            for (int j = 0; j < generators[i].length; j++) {
+                if (generators[i][j] != null) {
+                    double[] samples = generators[i][j].getCumulativeSamples();
+                    this.times[i][j] = Arrays.copyOf(samples, samples.length);
+                    this.sizes[i][j] = samples.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Initialize a FailureTrace to be replayed, without failure times
+     *
+     * @param vmNum the number of vm indexes
+     * @param depthNum the number of depths
+     */
+    public FailureTrace(int vmNum, int depthNum) {
+        this.generators = null;
+        this.times = new double[vmNum][depthNum][];
+        this.sizes = new int[vmNum][depthNum];
+    }
+
+    /**
+     * Loads a FailureTrace to be replayed from a trace file
+     *
+     * @param path the path of the trace file
+     * @return the FailureTrace
+     * @throws IOException if the file cannot be read or is not a trace file
+     */
+    public static FailureTrace load(String path) throws IOException {
+        int vmNum = 0, depthNum = 0, size = 0;
+        int[] vms = new int[16];
+        int[] depths = new int[16];
+        double[] failures = new double[16];
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length != 3) {
+                    throw new IOException("Invalid failure at line " + lineNum + " of " + path);
+                }
+                if (size == failures.length) {
+                    vms = Arrays.copyOf(vms, size * 2);
+                    depths = Arrays.copyOf(depths, size * 2);
+                    failures = Arrays.copyOf(failures, size * 2);
+                }
+                try {
+                    vms[size] = Integer.parseInt(fields[0]);
+                    depths[size] = Integer.parseInt(fields[1]);
+                    failures[size] = Double.parseDouble(fields[2]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid failure at line " + lineNum + " of " + path, e);
+                }
+                if (vms[size] < 0 || depths[size] < 0) {
+                    throw new IOException("Invalid failure at line " + lineNum + " of " + path);
+                }
+                vmNum = Math.max(vmNum, vms[size] + 1);
+                depthNum = Math.max(depthNum, depths[size] + 1);
+                size++;
+            }
+        }
+        FailureTrace trace = new FailureTrace(vmNum, depthNum);
+        for (int i = 0; i < size; i++) {
+            trace.add(vms[i], depths[i], failures[i]);
+        }
+        for (int i = 0; i < vmNum; i++) {
+            for (int j = 0; j < depthNum; j++) {
+                if (trace.times[i][j] != null) {
+                    Arrays.sort(trace.times[i][j], 0, trace.sizes[i][j]);
+                }
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Saves the failure times generated so far to a trace file, so that they
+     * can be replayed
+     *
+     * @param path the path of the trace file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(String path) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+            writer.write("# vm depth time");
+            writer.newLine();
+            for (int i = 0; i < times.length; i++) {
+                for (int j = 0; j < times[i].length; j++) {
+                    for (int k = 0; k < sizes[i][j]; k++) {
+                        writer.write(i + " " + j + " " + times[i][j][k]);
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the generator of a vm index and depth
+     *
+     * @param vmIndex the vm index
+     * @param depth the depth
+     * @return the generator, null if the trace is replayed
+     */
+    public DistributionGenerator getGenerator(int vmIndex, int depth) {
+        if (generators == null) {
+            return null;
+        }
+        return generators[vmIndex][depth];
+    }
+
+    /**
+     * Gets the number of failure times of a vm index and depth
+     *
+     * @param vmIndex the vm index
+     * @param depth the depth
+     * @return the number of failure times
+     */
+    public int size(int vmIndex, int depth) {
+        if (vmIndex >= sizes.length || depth >= sizes[vmIndex].length) {
+            return 0;
+        }
+        return sizes[vmIndex][depth];
+    }
+
+    /**
+     * Gets a failure time of a vm index and depth
+     *
+     * @param vmIndex the vm index
+     * @param depth the depth
+     * @param index the index of the failure time, in increasing order
+     * @return the failure time
+     */
+    public double getFailureTime(int vmIndex, int depth, int index) {
+        if (index >= size(vmIndex, depth)) {
+            throw new IndexOutOfBoundsException("Failure " + index + " of vm " + vmIndex
+                    + " and depth " + depth + " does not exist");
+        }
+        return times[vmIndex][depth][index];
+    }
+
+    /**
+     * Checks whether there is a failure between start and end
+     *
+     * @param vmIndex the vm index
+     * @param depth the depth
+     * @param start the start time
+     * @param end the end time
+     * @return whether there is a failure
+     * @throws Exception if the failure rate is too high
+     */
+    public boolean hasFailure(int vmIndex, int depth, double start, double end) throws Exception {
+        if (generators != null) {
+            while (sizes[vmIndex][depth] == 0
+                    || times[vmIndex][depth][sizes[vmIndex][depth] - 1] < start) {
+                extend(vmIndex, depth);
+            }
+        }
+        int size = size(vmIndex, depth);
+        if (size == 0) {
+            return false;
+        }
+        double[] failures = times[vmIndex][depth];
+        // the first failure not before start
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (failures[mid] < start) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < size && failures[low] <= end;
+    }
+
+    /**
+     * Generates the failure times following the last one
+     */
+    private void extend(int vmIndex, int depth) throws Exception {
+        failureSizeExtension++;
+        if (failureSizeExtension >= maxFailureSizeExtension) {
+            throw new Exception("Error rate is too high such that the simulator terminates");
+        }
+        int size = sizes[vmIndex][depth];
+        double time = size == 0 ? 0.0 : times[vmIndex][depth][size - 1];
+        for (double sample : generators[vmIndex][depth].generateSamples(time)) {
+            time += sample;
+            add(vmIndex, depth, time);
+        }
+    }
+
+    private void add(int vmIndex, int depth, double time) {
+        double[] failures = times[vmIndex][depth];
+        int size = sizes[vmIndex][depth];
+        if (failures == null) {
+            failures = times[vmIndex][depth] = new double[16];
+        } else if (size == failures.length) {
+            failures = times[vmIndex][depth] = Arrays.copyOf(failures, size * 2);
+        }
+        failures[size] = time;
+        sizes[vmIndex][depth] = size + 1;
+    }
+}
@@ -17,6 +17,8 @@ package org.workflowsim.planning;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.Task;
@@ -44,6 +46,12 @@ public abstract class BasePlanningAlgorithm implements PlanningAlgorithmInterfac
      * the datacenter list
      */
     private List<? extends Datacenter> datacenterList;
+    
+    /**
+     * whether the vms are evaluated in parallel
+     */
+    private boolean parallel;
+    
     /**
      * Initialize a BaseScheduler
      */
@@ -106,6 +114,56 @@ public abstract class BasePlanningAlgorithm implements PlanningAlgorithmInterfac
         this.datacenterList = list;
     }
     
+    /**
+     * Sets whether the vms are evaluated in parallel, in the fork join common
+     * pool, when looking for the best vm of a task
+     *
+     * @param parallel whether the vms are evaluated in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Checks whether the vms are evaluated in parallel
+     *
+     * @return whether the vms are evaluated in parallel
+     */
+    public boolean isParallel() {
+        return this.parallel;
+    }
+
+    /**
+     * Finds the vm with the lowest cost. The vms are evaluated in parallel if
+     * enabled, so the cost function should not modify shared state. Ties go to
+     * the vm with the lowest id, so that the choice is the same in both modes.
+     *
+     * @param cost the cost of the vm at a given position of the vm list
+     * @return the position in the vm list of the chosen vm, or -1 if there is
+     * no vm
+     */
+    protected int findBestVm(IntToDoubleFunction cost) {
+        List<? extends Vm> list = this.vmList;
+        int size = list.size();
+        double[] costs = new double[size];
+        if (parallel && size > 1) {
+            IntStream.range(0, size).parallel().forEach(v -> costs[v] = cost.applyAsDouble(v));
+        } else {
+            for (int v = 0; v < size; v++) {
+                costs[v] = cost.applyAsDouble(v);
+            }
+        }
+
+        int best = -1;
+        for (int v = 0; v < size; v++) {
+            if (best < 0 || costs[v] < costs[best]
+                    || (costs[v] == costs[best] && list.get(v).getId() < list.get(best).getId())) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
     /**
      * The main function
      */
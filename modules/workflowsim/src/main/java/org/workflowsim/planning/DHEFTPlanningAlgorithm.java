@@ -16,7 +16,9 @@
 package org.workflowsim.planning;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.cloudbus.cloudsim.Vm;
 import org.workflowsim.FileItem;
 import org.workflowsim.Task;
@@ -58,12 +60,17 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
         int vmNum = getVmList().size();
         int taskNum = getTaskList().size();
         double [] availableTime = new double[vmNum];
-        //cloudlet id starts from 1
-        double [][] earliestStartTime = new double[taskNum + 1][vmNum];
-        double [][] earliestFinishTime = new double[taskNum + 1][vmNum];
-        int [] allocation = new int[taskNum + 1];
-        
+        //tasks are indexed by their position in the task list, since the
+        //cloudlet ids of a later workflow in the arrival mode go beyond it
+        Map<Task, Integer> positions = new HashMap<>();
         List<Task> taskList = new ArrayList(getTaskList());
+        for (Task task : taskList) {
+            positions.put(task, positions.size());
+        }
+        double [][] earliestStartTime = new double[taskNum][vmNum];
+        double [][] earliestFinishTime = new double[taskNum][vmNum];
+        int [] allocation = new int[taskNum];
+        
         List<Task> readyList = new ArrayList<>();
         while(!taskList.isEmpty()){
             readyList.clear();
@@ -82,6 +89,7 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
             taskList.removeAll(readyList);
             //schedule readylist
             for(Task task: readyList){
+                int position = positions.get(task);
                 long [] fileSizes = new long[task.getParentList().size()];
                 int parentIndex = 0;
                 for(Task parent: task.getParentList()){
@@ -100,34 +108,30 @@ public class DHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
                     parentIndex ++;
                 }     
                 
-                double minTime = Double.MAX_VALUE;
-                int minTimeIndex = 0;
-                
-                for(int vmIndex = 0; vmIndex < getVmList().size(); vmIndex++){
+                int minTimeIndex = findBestVm(vmIndex -> {
                     Vm vm = (Vm)getVmList().get(vmIndex);
                     double startTime = availableTime[vm.getId()];
-                    parentIndex = 0;
+                    int index = 0;
                     for(Task parent: task.getParentList()){
-                        int allocatedVmId = allocation[parent.getCloudletId()];
-                        double actualFinishTime = earliestFinishTime[parent.getCloudletId()][allocatedVmId];
-                        double communicationTime = fileSizes[parentIndex] / bandwidths[allocatedVmId][vm.getId()];
+                        int parentPosition = positions.get(parent);
+                        int allocatedVmId = allocation[parentPosition];
+                        double actualFinishTime = earliestFinishTime[parentPosition][allocatedVmId];
+                        double communicationTime = fileSizes[index] / bandwidths[allocatedVmId][vm.getId()];
                         
                         if(actualFinishTime + communicationTime > startTime){
                             startTime = actualFinishTime + communicationTime;
                         }
-                        parentIndex ++;
+                        index ++;
                     }
-                    earliestStartTime[task.getCloudletId()][vm.getId()] = startTime;
+                    earliestStartTime[position][vm.getId()] = startTime;
                     double runtime = task.getCloudletLength() / vm.getMips();
-                    earliestFinishTime[task.getCloudletId()][vm.getId()] = runtime + startTime;
-                    
-                    if(runtime + startTime < minTime){
-                        minTime = runtime + startTime;
-                        minTimeIndex = vmIndex;
-                    }
-                }
+                    earliestFinishTime[position][vm.getId()] = runtime + startTime;
+                    return runtime + startTime;
+                });
+                Vm minTimeVm = (Vm)getVmList().get(minTimeIndex);
+                double minTime = earliestFinishTime[position][minTimeVm.getId()];
                 
-                allocation[task.getCloudletId()] = minTimeIndex;//we do not really need it use task.getVmId
+                allocation[position] = minTimeIndex;//we do not really need it use task.getVmId
                 task.setVmId(minTimeIndex);
                 availableTime[minTimeIndex] = minTime;
             }
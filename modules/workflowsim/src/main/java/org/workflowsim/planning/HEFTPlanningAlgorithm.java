@@ -38,21 +38,10 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     private Map<Task, Map<CondorVM, Double>> computationCosts;
     private Map<Task, Map<Task, Double>> transferCosts;
     private Map<Task, Double> rank;
-    private Map<CondorVM, List<Event>> schedules;
+    private Map<CondorVM, IdleIntervalTree> schedules;
     private Map<Task, Double> earliestFinishTimes;
     private double averageBandwidth;
 
-    private class Event {
-
-        public double start;
-        public double finish;
-
-        public Event(double start, double finish) {
-            this.start = start;
-            this.finish = finish;
-        }
-    }
-
     private class TaskRank implements Comparable<TaskRank> {
 
         public Task task;
@@ -89,7 +78,7 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
         for (Object vmObject : getVmList()) {
             CondorVM vm = (CondorVM) vmObject;
-            schedules.put(vm, new ArrayList<>());
+            schedules.put(vm, new IdleIntervalTree());
         }
 
         // Prioritization phase
@@ -258,36 +247,40 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * @pre All parent tasks are already scheduled
      */
     private void allocateTask(Task task) {
-        CondorVM chosenVM = null;
-        double earliestFinishTime = Double.MAX_VALUE;
-        double bestReadyTime = 0.0;
-        double finishTime;
-
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            double minReadyTime = 0.0;
+        List<?> vmList = getVmList();
+        int best = findBestVm(v -> {
+            CondorVM vm = (CondorVM) vmList.get(v);
+            return findFinishTime(task, vm, calculateReadyTime(task, vm), false);
+        });
+        CondorVM chosenVM = (CondorVM) vmList.get(best);
+
+        double earliestFinishTime = findFinishTime(task, chosenVM,
+                calculateReadyTime(task, chosenVM), true);
+        earliestFinishTimes.put(task, earliestFinishTime);
 
-            for (Task parent : task.getParentList()) {
-                double readyTime = earliestFinishTimes.get(parent);
-                if (parent.getVmId() != vm.getId()) {
-                    readyTime += transferCosts.get(parent).get(task);
-                }
-                minReadyTime = Math.max(minReadyTime, readyTime);
-            }
+        task.setVmId(chosenVM.getId());
+    }
 
-            finishTime = findFinishTime(task, vm, minReadyTime, false);
+    /**
+     * Calculates the first moment that the task is available to be scheduled
+     * in the vm, once the files of all its parents are transferred
+     *
+     * @param task The task
+     * @param vm The vm
+     * @return The ready time
+     * @pre All parent tasks are already scheduled
+     */
+    private double calculateReadyTime(Task task, CondorVM vm) {
+        double minReadyTime = 0.0;
 
-            if (finishTime < earliestFinishTime) {
-                bestReadyTime = minReadyTime;
-                earliestFinishTime = finishTime;
-                chosenVM = vm;
+        for (Task parent : task.getParentList()) {
+            double readyTime = earliestFinishTimes.get(parent);
+            if (parent.getVmId() != vm.getId()) {
+                readyTime += transferCosts.get(parent).get(task);
             }
+            minReadyTime = Math.max(minReadyTime, readyTime);
         }
-
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
-
-        task.setVmId(chosenVM.getId());
+        return minReadyTime;
     }
 
     /**
@@ -304,75 +297,13 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      */
     private double findFinishTime(Task task, CondorVM vm, double readyTime,
             boolean occupySlot) {
-        List<Event> sched = schedules.get(vm);
+        IdleIntervalTree sched = schedules.get(vm);
         double computationCost = computationCosts.get(task).get(vm);
-        double start, finish;
-        int pos;
-
-        if (sched.isEmpty()) {
-            if (occupySlot) {
-                sched.add(new Event(readyTime, readyTime + computationCost));
-            }
-            return readyTime + computationCost;
-        }
-
-        if (sched.size() == 1) {
-            if (readyTime >= sched.get(0).finish) {
-                pos = 1;
-                start = readyTime;
-            } else if (readyTime + computationCost <= sched.get(0).start) {
-                pos = 0;
-                start = readyTime;
-            } else {
-                pos = 1;
-                start = sched.get(0).finish;
-            }
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
+        double start = sched.findStart(readyTime, computationCost);
 
-        // Trivial case: Start after the latest task scheduled
-        start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-        finish = start + computationCost;
-        int i = sched.size() - 1;
-        int j = sched.size() - 2;
-        pos = i + 1;
-        while (j >= 0) {
-            Event current = sched.get(i);
-            Event previous = sched.get(j);
-
-            if (readyTime > previous.finish) {
-                if (readyTime + computationCost <= current.start) {
-                    start = readyTime;
-                    finish = readyTime + computationCost;
-                }
-
-                break;
-            }
-            if (previous.finish + computationCost <= current.start) {
-                start = previous.finish;
-                finish = previous.finish + computationCost;
-                pos = i;
-            }
-            i--;
-            j--;
-        }
-
-        if (readyTime + computationCost <= sched.get(0).start) {
-            pos = 0;
-            start = readyTime;
-
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
         if (occupySlot) {
-            sched.add(pos, new Event(start, finish));
+            sched.reserve(start, computationCost);
         }
-        return finish;
+        return start + computationCost;
     }
 }
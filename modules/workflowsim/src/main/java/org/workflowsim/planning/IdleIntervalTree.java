@@ -0,0 +1,251 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+/**
+ * IdleIntervalTree keeps the idle time of a vm in an insertion based plan, for
+ * the planning algorithms. The idle intervals are kept in a balanced search
+ * tree (a treap) keyed by start time, where each node also holds the longest
+ * interval of its subtree, so that the earliest slot of a given length after a
+ * given time is found in logarithmic time. The vm is idle from time 0 to
+ * infinity at first.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class IdleIntervalTree {
+
+    private static final class Node {
+
+        private double start;
+        private double end;
+        /**
+         * The length of the longest interval in the subtree
+         */
+        private double maxLength;
+        private final int priority;
+        private Node left;
+        private Node right;
+
+        private Node(double start, double end, int priority) {
+            this.start = start;
+            this.end = end;
+            this.maxLength = end - start;
+            this.priority = priority;
+        }
+    }
+
+    private Node root;
+    /**
+     * The number of idle intervals
+     */
+    private int size;
+    /**
+     * The state of the generator of priorities, fixed so that the plans are
+     * reproducible
+     */
+    private int seed = 0x2545F491;
+
+    /**
+     * Initialize an IdleIntervalTree, idle from time 0 to infinity
+     */
+    public IdleIntervalTree() {
+        root = newNode(0.0, Double.POSITIVE_INFINITY);
+        size = 1;
+    }
+
+    /**
+     * Gets the number of idle intervals
+     *
+     * @return the number of idle intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the earliest time, not before readyTime, at which the vm is idle
+     * for the given length of time
+     *
+     * @param readyTime the first moment that the task is available
+     * @param length the length of the slot
+     * @return the start of the slot
+     */
+    public double findStart(double readyTime, double length) {
+        // the interval holding readyTime, if any
+        Node node = root;
+        while (node != null) {
+            if (readyTime < node.start) {
+                node = node.left;
+            } else if (readyTime >= node.end) {
+                node = node.right;
+            } else {
+                if (readyTime + length <= node.end) {
+                    return readyTime;
+                }
+                break;
+            }
+        }
+        // the last interval is infinite, so there always is a slot
+        return findFirstFit(root, readyTime, length).start;
+    }
+
+    /**
+     * Finds the interval with the lowest start after readyTime that is at
+     * least length long
+     */
+    private Node findFirstFit(Node node, double readyTime, double length) {
+        if (node == null || node.maxLength < length) {
+            return null;
+        }
+        if (node.start > readyTime) {
+            Node first = findFirstFit(node.left, readyTime, length);
+            if (first != null) {
+                return first;
+            }
+            if (node.end - node.start >= length) {
+                return node;
+            }
+        }
+        return findFirstFit(node.right, readyTime, length);
+    }
+
+    /**
+     * Reserves a slot, which is no longer idle
+     *
+     * @param start the start of the slot
+     * @param length the length of the slot
+     * @pre the vm is idle during the slot
+     */
+    public void reserve(double start, double length) {
+        double finish = start + length;
+        if (finish > start) {
+            root = reserve(root, start, finish);
+        }
+    }
+
+    private Node reserve(Node node, double start, double finish) {
+        if (node == null) {
+            throw new IllegalArgumentException("The vm is not idle at " + start);
+        }
+        if (start < node.start) {
+            node.left = reserve(node.left, start, finish);
+            if (node.left != null && node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else if (start >= node.end) {
+            node.right = reserve(node.right, start, finish);
+            if (node.right != null && node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        } else {
+            if (finish > node.end) {
+                throw new IllegalArgumentException("The vm is not idle until " + finish);
+            }
+            double end = node.end;
+            if (start > node.start) {
+                node.end = start;
+                if (finish < end) {
+                    // the interval is split in two
+                    node.right = insert(node.right, newNode(finish, end));
+                    size++;
+                    if (node.right.priority > node.priority) {
+                        return rotateLeft(node);
+                    }
+                }
+            } else if (finish < end) {
+                node.start = finish;
+            } else {
+                size--;
+                return merge(node.left, node.right);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (newNode.start < node.start) {
+            node.left = insert(node.left, newNode);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, newNode);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        double maxLength = node.end - node.start;
+        if (node.left != null) {
+            maxLength = Math.max(maxLength, node.left.maxLength);
+        }
+        if (node.right != null) {
+            maxLength = Math.max(maxLength, node.right.maxLength);
+        }
+        node.maxLength = maxLength;
+    }
+
+    private Node newNode(double start, double end) {
+        // xorshift
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return new Node(start, end, seed);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.Task;
+
+/**
+ * The Distributed HEFT planning algorithm, for large workflows. It plans as
+ * DHEFTPlanningAlgorithm does, level by level, but the levels are found in one
+ * pass in topological order, the file sizes are only kept for the edges of the
+ * workflow, and the finish times are kept per task instead of per task and
+ * vm.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see DHEFTPlanningAlgorithm
+ * @see TaskGraph
+ */
+public class SparseDHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() {
+        List<Vm> vmList = getVmList();
+        int vmNum = vmList.size();
+        double[][] bandwidths = new double[vmNum][vmNum];
+        for (int i = 0; i < vmNum; i++) {
+            for (int j = i; j < vmNum; j++) {
+                bandwidths[i][j] = bandwidths[j][i] = Math.min(vmList.get(i).getBw(), vmList.get(j).getBw());
+            }
+        }
+
+        TaskGraph graph = new TaskGraph(getTaskList());
+        int taskNum = graph.size();
+
+        // a task is ready once all the tasks of the previous levels are done
+        int[] level = new int[taskNum];
+        for (int task : graph.getTopologicalOrder()) {
+            for (int edge = graph.getChildStart(task); edge < graph.getChildStart(task + 1); edge++) {
+                int child = graph.getChild(edge);
+                level[child] = Math.max(level[child], level[task] + 1);
+            }
+        }
+        Integer[] readyOrder = new Integer[taskNum];
+        for (int i = 0; i < taskNum; i++) {
+            readyOrder[i] = i;
+        }
+        // the sort is stable, tasks of the same level keep the list order
+        Arrays.sort(readyOrder, (a, b) -> Integer.compare(level[a], level[b]));
+
+        double[] availableTime = new double[vmNum];
+        double[] actualFinishTime = new double[taskNum];
+        int[] allocation = new int[taskNum];
+
+        for (int t : readyOrder) {
+            Task task = graph.getTask(t);
+            IntToDoubleFunction finishTime = vmIndex -> {
+                double startTime = availableTime[vmIndex];
+                for (int entry = graph.getParentStart(t); entry < graph.getParentStart(t + 1); entry++) {
+                    int parent = graph.getParent(entry);
+                    double communicationTime = graph.getEdgeData(graph.getParentEdge(entry))
+                            / bandwidths[allocation[parent]][vmIndex];
+                    if (actualFinishTime[parent] + communicationTime > startTime) {
+                        startTime = actualFinishTime[parent] + communicationTime;
+                    }
+                }
+                return task.getCloudletLength() / vmList.get(vmIndex).getMips() + startTime;
+            };
+            int minTimeIndex = findBestVm(finishTime);
+            double minTime = finishTime.applyAsDouble(minTimeIndex);
+
+            allocation[t] = minTimeIndex;
+            actualFinishTime[t] = minTime;
+            task.setVmId(minTimeIndex);
+            availableTime[minTimeIndex] = minTime;
+        }
+    }
+}
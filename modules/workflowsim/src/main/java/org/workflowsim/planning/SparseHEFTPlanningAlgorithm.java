@@ -0,0 +1,233 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.List;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+
+/**
+ * The HEFT planning algorithm, for large workflows. It plans as
+ * HEFTPlanningAlgorithm does, but the costs are kept in arrays indexed by task
+ * and vm ordinals, the transfer costs are only kept for the edges of the
+ * workflow, and the ranks are calculated in one pass in reverse topological
+ * order. Tasks with the same rank are allocated in topological order.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see HEFTPlanningAlgorithm
+ * @see TaskGraph
+ */
+public class SparseHEFTPlanningAlgorithm extends BasePlanningAlgorithm {
+
+    private TaskGraph graph;
+    private CondorVM[] vms;
+    /**
+     * The time to compute task t in vm v, at t * vms.length + v
+     */
+    private double[] computationCosts;
+    /**
+     * The time to transfer the files of each edge
+     */
+    private double[] transferCosts;
+    private double[] rank;
+    private double[] earliestFinishTimes;
+    /**
+     * The vm ordinal of each allocated task
+     */
+    private int[] allocation;
+    private IdleIntervalTree[] schedules;
+
+    /**
+     * The main function
+     */
+    @Override
+    public void run() {
+        Log.printLine("Sparse HEFT planner running with " + getTaskList().size()
+                + " tasks.");
+
+        graph = new TaskGraph(getTaskList());
+        List<?> vmList = getVmList();
+        vms = vmList.toArray(new CondorVM[vmList.size()]);
+        schedules = new IdleIntervalTree[vms.length];
+        for (int v = 0; v < vms.length; v++) {
+            schedules[v] = new IdleIntervalTree();
+        }
+
+        // Prioritization phase
+        calculateComputationCosts();
+        calculateTransferCosts(calculateAverageBandwidth());
+        calculateRanks();
+
+        // Selection phase
+        allocateTasks();
+    }
+
+    /**
+     * Calculates the average available bandwidth among all VMs in Mbit/s
+     *
+     * @return Average available bandwidth in Mbit/s
+     */
+    private double calculateAverageBandwidth() {
+        double avg = 0.0;
+        for (CondorVM vm : vms) {
+            avg += vm.getBw();
+        }
+        return avg / vms.length;
+    }
+
+    /**
+     * Populates computationCosts with the time in seconds to compute a task in
+     * a vm.
+     */
+    private void calculateComputationCosts() {
+        computationCosts = new double[graph.size() * vms.length];
+        for (int t = 0, i = 0; t < graph.size(); t++) {
+            Task task = graph.getTask(t);
+            for (CondorVM vm : vms) {
+                if (vm.getNumberOfPes() < task.getNumberOfPes()) {
+                    computationCosts[i++] = Double.MAX_VALUE;
+                } else {
+                    computationCosts[i++] = task.getCloudletTotalLength() / vm.getMips();
+                }
+            }
+        }
+    }
+
+    /**
+     * Populates transferCosts with the time in seconds to transfer all files
+     * from the parent to the child of each edge
+     *
+     * @param averageBandwidth the average bandwidth in Mbit/s
+     */
+    private void calculateTransferCosts(double averageBandwidth) {
+        transferCosts = new double[graph.getEdgeCount()];
+        for (int edge = 0; edge < transferCosts.length; edge++) {
+            //file Size is in Bytes, acc in MB
+            double acc = graph.getEdgeData(edge) / Consts.MILLION;
+            // acc in MB, averageBandwidth in Mb/s
+            transferCosts[edge] = acc * 8 / averageBandwidth;
+        }
+    }
+
+    /**
+     * Populates rank with the rank of each task as defined in the HEFT paper,
+     * children first.
+     */
+    private void calculateRanks() {
+        rank = new double[graph.size()];
+        int[] order = graph.getTopologicalOrder();
+        for (int k = order.length - 1; k >= 0; k--) {
+            int t = order[k];
+            double averageComputationCost = 0.0;
+            for (int v = 0, i = t * vms.length; v < vms.length; v++, i++) {
+                averageComputationCost += computationCosts[i];
+            }
+            averageComputationCost /= vms.length;
+
+            double max = 0.0;
+            for (int edge = graph.getChildStart(t); edge < graph.getChildStart(t + 1); edge++) {
+                max = Math.max(max, transferCosts[edge] + rank[graph.getChild(edge)]);
+            }
+            rank[t] = averageComputationCost + max;
+        }
+    }
+
+    /**
+     * Allocates all tasks to be scheduled in non-ascending order of rank.
+     */
+    private void allocateTasks() {
+        int[] order = graph.getTopologicalOrder();
+        Integer[] taskRank = new Integer[order.length];
+        for (int k = 0; k < order.length; k++) {
+            taskRank[k] = order[k];
+        }
+        // Sorting in non-ascending order of rank, the sort is stable
+        Arrays.sort(taskRank, (a, b) -> Double.compare(rank[b], rank[a]));
+
+        earliestFinishTimes = new double[graph.size()];
+        allocation = new int[graph.size()];
+        for (Integer t : taskRank) {
+            allocateTask(t);
+        }
+    }
+
+    /**
+     * Schedules the task given in one of the VMs minimizing the earliest finish
+     * time
+     *
+     * @param t The ordinal of the task to be scheduled
+     * @pre All parent tasks are already scheduled
+     */
+    private void allocateTask(int t) {
+        int chosenVM = findBestVm(v -> findFinishTime(t, v, calculateReadyTime(t, v), false));
+
+        earliestFinishTimes[t] = findFinishTime(t, chosenVM,
+                calculateReadyTime(t, chosenVM), true);
+        allocation[t] = chosenVM;
+
+        graph.getTask(t).setVmId(vms[chosenVM].getId());
+    }
+
+    /**
+     * Calculates the first moment that the task is available to be scheduled
+     * in the vm, once the files of all its parents are transferred
+     *
+     * @param t The ordinal of the task
+     * @param v The ordinal of the vm
+     * @return The ready time
+     * @pre All parent tasks are already scheduled
+     */
+    private double calculateReadyTime(int t, int v) {
+        double minReadyTime = 0.0;
+
+        for (int entry = graph.getParentStart(t); entry < graph.getParentStart(t + 1); entry++) {
+            int parent = graph.getParent(entry);
+            double readyTime = earliestFinishTimes[parent];
+            if (allocation[parent] != v) {
+                readyTime += transferCosts[graph.getParentEdge(entry)];
+            }
+            minReadyTime = Math.max(minReadyTime, readyTime);
+        }
+        return minReadyTime;
+    }
+
+    /**
+     * Finds the best time slot available to minimize the finish time of the
+     * given task in the vm with the constraint of not scheduling it before
+     * readyTime. If occupySlot is true, reserves the time slot in the schedule.
+     *
+     * @param t The ordinal of the task to have the time slot reserved
+     * @param v The ordinal of the vm that will execute the task
+     * @param readyTime The first moment that the task is available to be
+     * scheduled
+     * @param occupySlot If true, reserves the time slot in the schedule.
+     * @return The minimal finish time of the task in the vm
+     */
+    private double findFinishTime(int t, int v, double readyTime,
+            boolean occupySlot) {
+        IdleIntervalTree sched = schedules[v];
+        double computationCost = computationCosts[t * vms.length + v];
+        double start = sched.findStart(readyTime, computationCost);
+
+        if (occupySlot) {
+            sched.reserve(start, computationCost);
+        }
+        return start + computationCost;
+    }
+}
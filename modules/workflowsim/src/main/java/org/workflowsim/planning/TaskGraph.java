@@ -0,0 +1,329 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * TaskGraph is a compact view of the dependencies of a task list, for the
+ * planning algorithms. Tasks are numbered by their position in the list, and
+ * the edges are kept in compressed sparse row form: the children of task i are
+ * children[childStart[i]] to children[childStart[i + 1] - 1], and an edge is
+ * identified by its position in the children array. Only the edges between
+ * tasks of the list are kept.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class TaskGraph {
+
+    /**
+     * The tasks, indexed by ordinal
+     */
+    private final Task[] tasks;
+    /**
+     * The first edge of each task in children, plus the number of edges
+     */
+    private final int[] childStart;
+    /**
+     * The child of each edge
+     */
+    private final int[] children;
+    /**
+     * The size in bytes of the files sent along each edge
+     */
+    private final double[] edgeData;
+    /**
+     * The first entry of each task in parents, plus the number of edges
+     */
+    private final int[] parentStart;
+    /**
+     * The parent of each entry
+     */
+    private final int[] parents;
+    /**
+     * The edge (position in children) of each entry of parents
+     */
+    private final int[] parentEdges;
+    /**
+     * The ordinals in topological order, sources first
+     */
+    private final int[] order;
+
+    /**
+     * Builds the graph of a task list
+     *
+     * @param taskList the tasks
+     * @throws IllegalArgumentException if the dependencies have a cycle
+     */
+    public TaskGraph(List<Task> taskList) {
+        int size = taskList.size();
+        tasks = taskList.toArray(new Task[size]);
+        Map<Task, Integer> ordinals = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            ordinals.put(tasks[i], i);
+        }
+
+        // the input and output files of each task, as file ids
+        Map<String, Integer> fileIds = new HashMap<>();
+        int[][] outputs = new int[size][];
+        long[][] inputs = new long[size][];
+        double[][] inputSizes = new double[size][];
+        for (int i = 0; i < size; i++) {
+            List<FileItem> files = tasks[i].getFileList();
+            int[] output = new int[files.size()];
+            long[] input = new long[files.size()];
+            int outputCount = 0, inputCount = 0;
+            for (int j = 0; j < files.size(); j++) {
+                FileItem file = files.get(j);
+                if (file.getType() == Parameters.FileType.OUTPUT) {
+                    output[outputCount++] = fileId(fileIds, file.getName());
+                } else if (file.getType() == Parameters.FileType.INPUT) {
+                    // the position breaks ties, so that the first file with
+                    // a name comes first
+                    input[inputCount++] = ((long) fileId(fileIds, file.getName()) << 32) | j;
+                }
+            }
+            outputs[i] = Arrays.copyOf(output, outputCount);
+            inputs[i] = Arrays.copyOf(input, inputCount);
+            Arrays.sort(inputs[i]);
+            inputSizes[i] = new double[inputCount];
+            for (int j = 0; j < inputCount; j++) {
+                inputSizes[i][j] = files.get((int) inputs[i][j]).getSize();
+                inputs[i][j] >>>= 32;
+            }
+        }
+
+        // the children, in the order of the child lists
+        childStart = new int[size + 1];
+        int[] parentCount = new int[size];
+        for (int i = 0; i < size; i++) {
+            int count = 0;
+            for (Task child : tasks[i].getChildList()) {
+                Integer c = ordinals.get(child);
+                if (c != null) {
+                    count++;
+                    parentCount[c]++;
+                }
+            }
+            childStart[i + 1] = childStart[i] + count;
+        }
+        children = new int[childStart[size]];
+        edgeData = new double[childStart[size]];
+        for (int i = 0, edge = 0; i < size; i++) {
+            for (Task child : tasks[i].getChildList()) {
+                Integer c = ordinals.get(child);
+                if (c != null) {
+                    children[edge] = c;
+                    edgeData[edge] = sharedData(outputs[i], inputs[c], inputSizes[c]);
+                    edge++;
+                }
+            }
+        }
+
+        // the parents, by transposing the children
+        parentStart = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            parentStart[i + 1] = parentStart[i] + parentCount[i];
+        }
+        parents = new int[children.length];
+        parentEdges = new int[children.length];
+        int[] next = Arrays.copyOf(parentStart, size);
+        for (int i = 0; i < size; i++) {
+            for (int edge = childStart[i]; edge < childStart[i + 1]; edge++) {
+                int position = next[children[edge]]++;
+                parents[position] = i;
+                parentEdges[position] = edge;
+            }
+        }
+
+        order = sortTopologically(parentCount);
+    }
+
+    private static int fileId(Map<String, Integer> fileIds, String name) {
+        Integer id = fileIds.get(name);
+        if (id == null) {
+            id = fileIds.size();
+            fileIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Accounts the size of the output files of a parent that are input files
+     * of a child. Each output file counts the size of the first input file of
+     * the child with the same name.
+     *
+     * @param outputs the output file ids of the parent
+     * @param inputs the sorted input file ids of the child
+     * @param inputSizes the sizes of the input files of the child
+     * @return the size in bytes
+     */
+    private static double sharedData(int[] outputs, long[] inputs, double[] inputSizes) {
+        double acc = 0.0;
+        for (int output : outputs) {
+            // lower bound of the file id
+            int low = 0, high = inputs.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (inputs[mid] < output) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low < inputs.length && inputs[low] == output) {
+                acc += inputSizes[low];
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Sorts the tasks topologically, breaking ties by ordinal within each
+     * generation (Kahn's algorithm with a FIFO queue)
+     *
+     * @param parentCount the number of parents of each task, which is cleared
+     * @return the ordinals in topological order
+     */
+    private int[] sortTopologically(int[] parentCount) {
+        int size = tasks.length;
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (parentCount[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int task = queue[head];
+            for (int edge = childStart[task]; edge < childStart[task + 1]; edge++) {
+                if (--parentCount[children[edge]] == 0) {
+                    queue[tail++] = children[edge];
+                }
+            }
+        }
+        if (tail < size) {
+            throw new IllegalArgumentException("The dependencies of the tasks have a cycle");
+        }
+        return queue;
+    }
+
+    /**
+     * Gets the number of tasks
+     *
+     * @return the number of tasks
+     */
+    public int size() {
+        return tasks.length;
+    }
+
+    /**
+     * Gets the number of edges
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return children.length;
+    }
+
+    /**
+     * Gets a task
+     *
+     * @param task the task ordinal
+     * @return the task
+     */
+    public Task getTask(int task) {
+        return tasks[task];
+    }
+
+    /**
+     * Gets the first edge of a task. The edges of task i are numbered from
+     * getChildStart(i) to getChildStart(i + 1) - 1.
+     *
+     * @param task the task ordinal, up to size()
+     * @return the first edge
+     */
+    public int getChildStart(int task) {
+        return childStart[task];
+    }
+
+    /**
+     * Gets the child of an edge
+     *
+     * @param edge the edge
+     * @return the ordinal of the child
+     */
+    public int getChild(int edge) {
+        return children[edge];
+    }
+
+    /**
+     * Gets the size of the files sent along an edge, that is the size of the
+     * output files of the parent that are input files of the child
+     *
+     * @param edge the edge
+     * @return the size in bytes
+     */
+    public double getEdgeData(int edge) {
+        return edgeData[edge];
+    }
+
+    /**
+     * Gets the first parent entry of a task. The parents of task i are
+     * numbered from getParentStart(i) to getParentStart(i + 1) - 1.
+     *
+     * @param task the task ordinal, up to size()
+     * @return the first parent entry
+     */
+    public int getParentStart(int task) {
+        return parentStart[task];
+    }
+
+    /**
+     * Gets the parent of a parent entry
+     *
+     * @param entry the parent entry
+     * @return the ordinal of the parent
+     */
+    public int getParent(int entry) {
+        return parents[entry];
+    }
+
+    /**
+     * Gets the edge of a parent entry
+     *
+     * @param entry the parent entry
+     * @return the edge from the parent to the task
+     */
+    public int getParentEdge(int entry) {
+        return parentEdges[entry];
+    }
+
+    /**
+     * Gets the tasks in topological order, parents before their children
+     *
+     * @return the ordinals, which should not be modified
+     */
+    public int[] getTopologicalOrder() {
+        return order;
+    }
+}
@@ -16,11 +16,13 @@
 package org.workflowsim.scheduling;
 
 import java.util.List;
+import java.util.Set;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.CondorVM;
 import org.workflowsim.FileItem;
 import org.workflowsim.Job;
 import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.utils.IndexedReplicaCatalog;
 import org.workflowsim.utils.ReplicaCatalog;
 
 /**
@@ -33,8 +35,36 @@ import org.workflowsim.utils.ReplicaCatalog;
  */
 public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
+    /**
+     * The replica catalog, or null to use the one of ReplicaCatalog.
+     */
+    private final IndexedReplicaCatalog replicaCatalog;
+
     public DataAwareSchedulingAlgorithm() {
+        this(null);
+    }
+
+    /**
+     * Initialize a DataAwareSchedulingAlgorithm
+     *
+     * @param replicaCatalog the replica catalog telling where the files are,
+     * or null to use the one of ReplicaCatalog
+     */
+    public DataAwareSchedulingAlgorithm(IndexedReplicaCatalog replicaCatalog) {
         super();
+        this.replicaCatalog = replicaCatalog;
+    }
+
+    /**
+     * Gets the replica catalog used by this algorithm
+     *
+     * @return the replica catalog
+     */
+    public IndexedReplicaCatalog getReplicaCatalog() {
+        if (replicaCatalog != null) {
+            return replicaCatalog;
+        }
+        return ReplicaCatalog.getCatalog();
     }
 
     @Override
@@ -81,19 +111,14 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
     protected double dataTransferTime(List<FileItem> requiredFiles, Cloudlet cl, int vmId)  {
         double time = 0.0;
+        IndexedReplicaCatalog catalog = getReplicaCatalog();
+        int site = catalog.getVmStorageId(vmId);
 
+        Set<String> outputFiles = FileItem.getOutputFileNames(requiredFiles);
         for (FileItem file : requiredFiles) {
             //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                List<String> siteList = ReplicaCatalog.getStorageList(file.getName());
-
-                boolean hasFile = false;
-                for (String site : siteList) {
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-                }
+            if (file.isRealInputFile(outputFiles)) {
+                boolean hasFile = catalog.hasReplica(catalog.getFileId(file.getName()), site);
                 if(!hasFile){
                     time += file.getSize() ;
                 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+
+/**
+ * MCT algorithm that keeps the idle vms in a priority queue, instead of
+ * scanning the vms for every cloudlet. It schedules the cloudlets exactly as
+ * MCTSchedulingAlgorithm.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class HeapMCTSchedulingAlgorithm extends MCTSchedulingAlgorithm {
+
+    public HeapMCTSchedulingAlgorithm() {
+        super();
+    }
+
+    @Override
+    public void run() {
+        IdleVmQueue idleVms = new IdleVmQueue(getVmList());
+        for (Object element : getCloudletList()) {
+            Cloudlet cloudlet = (Cloudlet) element;
+            CondorVM firstIdleVm = idleVms.poll();
+            if (firstIdleVm == null) {
+                break;
+            }
+            cloudlet.setVmId(firstIdleVm.getId());
+            getScheduledList().add(cloudlet);
+            Log.printLine("Schedules " + cloudlet.getCloudletId() + " with "
+                    + cloudlet.getCloudletLength() + " to VM " + firstIdleVm.getId()
+                    + " with " + firstIdleVm.getCurrentRequestedTotalMips());
+        }
+    }
+}
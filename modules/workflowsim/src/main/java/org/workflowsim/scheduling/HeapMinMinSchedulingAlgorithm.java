@@ -0,0 +1,53 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.workflowsim.CondorVM;
+
+/**
+ * MinMin algorithm that sorts the cloudlets once and keeps the idle vms in a
+ * priority queue, instead of scanning the cloudlets and the vms for every
+ * cloudlet. It schedules the cloudlets exactly as MinMinSchedulingAlgorithm.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class HeapMinMinSchedulingAlgorithm extends MinMinSchedulingAlgorithm {
+
+    public HeapMinMinSchedulingAlgorithm() {
+        super();
+    }
+
+    @Override
+    public void run() {
+        List<Cloudlet> cloudlets = new ArrayList<>(getCloudletList());
+        // stable sort: cloudlets of the same length keep their order
+        cloudlets.sort(Comparator.comparingLong(Cloudlet::getCloudletLength));
+
+        IdleVmQueue idleVms = new IdleVmQueue(getVmList());
+        for (Cloudlet minCloudlet : cloudlets) {
+            CondorVM firstIdleVm = idleVms.poll();
+            if (firstIdleVm == null) {
+                break;
+            }
+            minCloudlet.setVmId(firstIdleVm.getId());
+            getScheduledList().add(minCloudlet);
+        }
+    }
+}
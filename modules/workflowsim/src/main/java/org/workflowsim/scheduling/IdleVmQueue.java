@@ -0,0 +1,78 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowSimTags;
+
+/**
+ * The idle vms of a scheduling cycle, ordered by decreasing current requested
+ * MIPS and then by their position in the vm list. This is the order in which
+ * MinMin, MaxMin and MCT pick the vms, since a vm that is picked becomes busy
+ * and the MIPS of the vms do not change during the cycle.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+final class IdleVmQueue {
+
+    private final List<?> vmList;
+    /**
+     * The current requested total MIPS of the vms, indexed by position.
+     */
+    private final double[] mips;
+    /**
+     * The positions of the idle vms.
+     */
+    private final PriorityQueue<Integer> queue;
+
+    /**
+     * Initialize a IdleVmQueue
+     *
+     * @param vmList the vm list, whose elements are CondorVMs
+     */
+    IdleVmQueue(List<?> vmList) {
+        this.vmList = vmList;
+        this.mips = new double[vmList.size()];
+        this.queue = new PriorityQueue<>(Math.max(1, vmList.size()), (a, b) -> {
+            int result = Double.compare(mips[b], mips[a]);
+            return result != 0 ? result : Integer.compare(a, b);
+        });
+        for (int i = 0; i < vmList.size(); i++) {
+            CondorVM vm = (CondorVM) vmList.get(i);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                mips[i] = vm.getCurrentRequestedTotalMips();
+                queue.add(i);
+            }
+        }
+    }
+
+    /**
+     * Takes the idle vm with the most MIPS and marks it as busy.
+     *
+     * @return the vm, or null if there is no idle vm left
+     */
+    CondorVM poll() {
+        Integer index = queue.poll();
+        if (index == null) {
+            return null;
+        }
+        CondorVM vm = (CondorVM) vmList.get(index);
+        vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+        return vm;
+    }
+}
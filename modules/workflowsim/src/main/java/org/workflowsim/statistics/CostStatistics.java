@@ -0,0 +1,83 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.statistics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.workflowsim.Job;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * CostStatistics sums the processing cost of the returned jobs, per data
+ * center with the DATACENTER cost model and per vm with the VM cost model.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class CostStatistics implements JobCompletionListener {
+
+    private double totalCost = 0.0;
+    /**
+     * The cost of each data center or vm id
+     */
+    private final Map<Integer, Double> costs = new HashMap<>();
+
+    @Override
+    public void jobCompleted(Job job) {
+        double cost = job.getProcessingCost();
+        totalCost += cost;
+        int id;
+        switch (Parameters.getCostModel()) {
+            case VM:
+                id = job.getVmId();
+                break;
+            case DATACENTER:
+            default:
+                id = job.getResourceId();
+                break;
+        }
+        costs.merge(id, cost, Double::sum);
+    }
+
+    /**
+     * Gets the total cost of the returned jobs
+     *
+     * @return the total cost
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Gets the cost of a data center or vm, depending on the cost model
+     *
+     * @param id the data center or vm id
+     * @return the cost
+     */
+    public double getCost(int id) {
+        Double cost = costs.get(id);
+        return cost == null ? 0.0 : cost;
+    }
+
+    /**
+     * Gets the costs of the data centers or vms, depending on the cost model
+     *
+     * @return the costs indexed by data center or vm id
+     */
+    public Map<Integer, Double> getCosts() {
+        return Collections.unmodifiableMap(costs);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.statistics;
+
+import java.util.Arrays;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+
+/**
+ * FailureStatistics counts the failed jobs and tasks, in total and per depth.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class FailureStatistics implements JobCompletionListener {
+
+    private int jobNum = 0;
+    private int failedJobNum = 0;
+    private int failedTaskNum = 0;
+    /**
+     * The number of failed jobs of each depth
+     */
+    private int[] failedJobs = new int[0];
+
+    @Override
+    public void jobCompleted(Job job) {
+        jobNum++;
+        if (job.getCloudletStatus() != Cloudlet.FAILED) {
+            return;
+        }
+        failedJobNum++;
+        for (Task task : job.getTaskList()) {
+            if (task.getCloudletStatus() == Cloudlet.FAILED) {
+                failedTaskNum++;
+            }
+        }
+        int depth = job.getDepth();
+        if (depth >= failedJobs.length) {
+            failedJobs = Arrays.copyOf(failedJobs, depth + 1);
+        }
+        failedJobs[depth]++;
+    }
+
+    /**
+     * Gets the number of returned jobs
+     *
+     * @return the number of jobs
+     */
+    public int getJobNum() {
+        return jobNum;
+    }
+
+    /**
+     * Gets the number of failed jobs
+     *
+     * @return the number of failed jobs
+     */
+    public int getFailedJobNum() {
+        return failedJobNum;
+    }
+
+    /**
+     * Gets the number of failed tasks in the failed jobs
+     *
+     * @return the number of failed tasks
+     */
+    public int getFailedTaskNum() {
+        return failedTaskNum;
+    }
+
+    /**
+     * Gets the number of failed jobs of a depth
+     *
+     * @param depth the depth
+     * @return the number of failed jobs
+     */
+    public int getFailedJobNum(int depth) {
+        return depth < failedJobs.length ? failedJobs[depth] : 0;
+    }
+}
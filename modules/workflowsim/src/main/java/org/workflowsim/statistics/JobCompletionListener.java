@@ -0,0 +1,37 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.statistics;
+
+import org.workflowsim.Job;
+
+/**
+ * JobCompletionListener is notified by the WorkflowEngine each time a job
+ * returns, so that statistics can be gathered while the simulation runs
+ * instead of from the received job list at the end.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see org.workflowsim.WorkflowEngine#addJobCompletionListener
+ */
+public interface JobCompletionListener {
+
+    /**
+     * Called when a job returns to the WorkflowEngine. A failed job has
+     * already been handed to the ReclusteringEngine.
+     *
+     * @param job the job, whose status is either SUCCESS or FAILED
+     */
+    void jobCompleted(Job job);
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.statistics;
+
+import org.workflowsim.Job;
+
+/**
+ * MakespanStatistics keeps the makespan of the returned jobs, that is the
+ * latest finish time, without keeping the jobs.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class MakespanStatistics implements JobCompletionListener {
+
+    private int jobNum = 0;
+    private double startTime = Double.MAX_VALUE;
+    private double makespan = 0.0;
+
+    @Override
+    public void jobCompleted(Job job) {
+        jobNum++;
+        startTime = Math.min(startTime, job.getExecStartTime());
+        makespan = Math.max(makespan, job.getFinishTime());
+    }
+
+    /**
+     * Gets the number of returned jobs
+     *
+     * @return the number of jobs
+     */
+    public int getJobNum() {
+        return jobNum;
+    }
+
+    /**
+     * Gets the earliest start time of the returned jobs
+     *
+     * @return the start time, 0 if no job has returned
+     */
+    public double getStartTime() {
+        return jobNum == 0 ? 0.0 : startTime;
+    }
+
+    /**
+     * Gets the latest finish time of the returned jobs
+     *
+     * @return the makespan
+     */
+    public double getMakespan() {
+        return makespan;
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.statistics;
+
+import java.util.Arrays;
+import org.workflowsim.Job;
+
+/**
+ * RuntimeStatistics keeps a histogram of the runtime of the returned jobs for
+ * each depth. The bins are geometric: the first bin holds the runtimes below
+ * minRuntime, bin i the runtimes in [minRuntime * base^(i-1),
+ * minRuntime * base^i), and the last bin all the longer runtimes. The memory
+ * used only depends on the number of depths and bins.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class RuntimeStatistics implements JobCompletionListener {
+
+    private final double minRuntime;
+    private final double logBase;
+    private final int binNum;
+    /**
+     * The histogram of each depth
+     */
+    private long[][] bins = new long[0][];
+    private long[] jobNums = new long[0];
+    private double[] sums = new double[0];
+    private double[] mins = new double[0];
+    private double[] maxs = new double[0];
+
+    /**
+     * Initialize a RuntimeStatistics with 32 bins doubling from 1 second
+     */
+    public RuntimeStatistics() {
+        this(1.0, 2.0, 32);
+    }
+
+    /**
+     * Initialize a RuntimeStatistics
+     *
+     * @param minRuntime the upper bound of the first bin
+     * @param base the ratio between the bounds of two consecutive bins
+     * @param binNum the number of bins
+     */
+    public RuntimeStatistics(double minRuntime, double base, int binNum) {
+        if (minRuntime <= 0 || base <= 1 || binNum < 2) {
+            throw new IllegalArgumentException("Invalid runtime bins");
+        }
+        this.minRuntime = minRuntime;
+        this.logBase = Math.log(base);
+        this.binNum = binNum;
+    }
+
+    @Override
+    public void jobCompleted(Job job) {
+        int depth = job.getDepth();
+        if (depth >= jobNums.length) {
+            int depthNum = depth + 1;
+            int oldNum = jobNums.length;
+            bins = Arrays.copyOf(bins, depthNum);
+            jobNums = Arrays.copyOf(jobNums, depthNum);
+            sums = Arrays.copyOf(sums, depthNum);
+            mins = Arrays.copyOf(mins, depthNum);
+            maxs = Arrays.copyOf(maxs, depthNum);
+            for (int i = oldNum; i < depthNum; i++) {
+                bins[i] = new long[binNum];
+                mins[i] = Double.MAX_VALUE;
+            }
+        }
+        double runtime = job.getActualCPUTime();
+        bins[depth][getBin(runtime)]++;
+        jobNums[depth]++;
+        sums[depth] += runtime;
+        mins[depth] = Math.min(mins[depth], runtime);
+        maxs[depth] = Math.max(maxs[depth], runtime);
+    }
+
+    /**
+     * Gets the bin of a runtime
+     *
+     * @param runtime the runtime
+     * @return the bin
+     */
+    public int getBin(double runtime) {
+        if (!(runtime >= minRuntime)) {
+            return 0;
+        }
+        double log = Math.floor(Math.log(runtime / minRuntime) / logBase);
+        int bin = 1 + (int) Math.min(log, binNum);
+        // the logarithm may be off by one ulp at the bounds
+        if (bin > 1 && runtime < getBinLowerBound(bin)) {
+            bin--;
+        } else if (bin < binNum - 1 && runtime >= getBinLowerBound(bin + 1)) {
+            bin++;
+        }
+        return Math.min(bin, binNum - 1);
+    }
+
+    /**
+     * Gets the lower bound of a bin
+     *
+     * @param bin the bin
+     * @return the lower bound, 0 for the first bin
+     */
+    public double getBinLowerBound(int bin) {
+        if (bin == 0) {
+            return 0.0;
+        }
+        return minRuntime * Math.exp((bin - 1) * logBase);
+    }
+
+    /**
+     * Gets the number of bins
+     *
+     * @return the number of bins
+     */
+    public int getBinNum() {
+        return binNum;
+    }
+
+    /**
+     * Gets the number of depths seen so far
+     *
+     * @return the largest depth plus one
+     */
+    public int getDepthNum() {
+        return jobNums.length;
+    }
+
+    /**
+     * Gets the number of jobs of a depth in a bin
+     *
+     * @param depth the depth
+     * @param bin the bin
+     * @return the number of jobs
+     */
+    public long getBinCount(int depth, int bin) {
+        return depth < jobNums.length ? bins[depth][bin] : 0;
+    }
+
+    /**
+     * Gets the number of returned jobs of a depth
+     *
+     * @param depth the depth
+     * @return the number of jobs
+     */
+    public long getJobNum(int depth) {
+        return depth < jobNums.length ? jobNums[depth] : 0;
+    }
+
+    /**
+     * Gets the average runtime of the jobs of a depth
+     *
+     * @param depth the depth
+     * @return the average runtime, 0 if there is no job
+     */
+    public double getMeanRuntime(int depth) {
+        long num = getJobNum(depth);
+        return num == 0 ? 0.0 : sums[depth] / num;
+    }
+
+    /**
+     * Gets the shortest runtime of the jobs of a depth
+     *
+     * @param depth the depth
+     * @return the shortest runtime, 0 if there is no job
+     */
+    public double getMinRuntime(int depth) {
+        return getJobNum(depth) == 0 ? 0.0 : mins[depth];
+    }
+
+    /**
+     * Gets the longest runtime of the jobs of a depth
+     *
+     * @param depth the depth
+     * @return the longest runtime, 0 if there is no job
+     */
+    public double getMaxRuntime(int depth) {
+        return getJobNum(depth) == 0 ? 0.0 : maxs[depth];
+    }
+
+    /**
+     * Estimates a percentile of the runtimes of a depth, as the upper bound of
+     * the bin holding it, or the longest runtime for the last bin
+     *
+     * @param depth the depth
+     * @param percentile the percentile, between 0 and 100
+     * @return the estimated runtime, 0 if there is no job
+     */
+    public double getPercentile(int depth, double percentile) {
+        long num = getJobNum(depth);
+        if (num == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * num);
+        long count = 0;
+        for (int bin = 0; bin < binNum - 1; bin++) {
+            count += bins[depth][bin];
+            if (count >= rank && count > 0) {
+                return Math.min(getBinLowerBound(bin + 1), maxs[depth]);
+            }
+        }
+        return maxs[depth];
+    }
+}
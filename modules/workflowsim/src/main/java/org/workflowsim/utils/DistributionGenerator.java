@@ -102,6 +102,17 @@ public class DistributionGenerator {
         updateCumulativeSamples();
     }
 
+    /**
+     * Generates the samples following the ones generated so far, without
+     * adding them to samples
+     *
+     * @param currentTime the sum of the samples generated so far
+     * @return the new samples
+     */
+    public double[] generateSamples(double currentTime) {
+        return getDistribution(scale, shape).sample(SAMPLE_SIZE);
+    }
+
     /**
      * Update cumulativeSamples from samples
      */
@@ -0,0 +1,323 @@
+/*
+ *
+ *   Copyright 2012-2013 University Of Southern California
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.workflowsim.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.workflowsim.FileItem;
+import org.workflowsim.utils.ReplicaCatalog.FileSystem;
+
+/**
+ * IndexedReplicaCatalog stores all the data information and where (site) there
+ * are, for one simulation. File names and storage names (data centers, the
+ * source site and vms) are given int ids, and the storages holding a file are
+ * kept in a bitset, so that checking whether a storage has a file takes
+ * constant time.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ * @see ReplicaCatalog
+ */
+public class IndexedReplicaCatalog {
+
+    /**
+     * The selection of file.system
+     */
+    private final FileSystem fileSystem;
+    /**
+     * Map from file name to file id
+     */
+    private final Map<String, Integer> fileIds;
+    /**
+     * The file objects, indexed by file id (null if the file has none)
+     */
+    private final List<FileItem> files;
+    /**
+     * The storages holding each file, indexed by file id
+     */
+    private final List<BitSet> replicas;
+    /**
+     * The storages holding each file in the order they were added, indexed by
+     * file id (null if the file exists nowhere)
+     */
+    private final List<List<Integer>> replicaOrders;
+    /**
+     * The ids of the removed files, given to the next new files
+     */
+    private final List<Integer> freeFileIds;
+    /**
+     * Map from storage name to storage id
+     */
+    private final Map<String, Integer> storageIds;
+    /**
+     * The storage names, indexed by storage id
+     */
+    private final List<String> storageNames;
+    /**
+     * The storage id of each vm, indexed by vm id (-1 if not known yet)
+     */
+    private int[] vmStorageIds;
+
+    /**
+     * Initialize a IndexedReplicaCatalog
+     *
+     * @param fs the type of file system
+     */
+    public IndexedReplicaCatalog(FileSystem fs) {
+        this.fileSystem = fs;
+        this.fileIds = new HashMap<>();
+        this.files = new ArrayList<>();
+        this.replicas = new ArrayList<>();
+        this.replicaOrders = new ArrayList<>();
+        this.freeFileIds = new ArrayList<>();
+        this.storageIds = new HashMap<>();
+        this.storageNames = new ArrayList<>();
+        this.vmStorageIds = new int[0];
+    }
+
+    /**
+     * Gets the file system
+     *
+     * @return file system
+     */
+    public FileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    /**
+     * Gets the id of a file, giving it one if it has none yet
+     *
+     * @param fileName the file name
+     * @return the file id
+     */
+    public int getFileId(String fileName) {
+        Integer id = fileIds.get(fileName);
+        if (id == null) {
+            if (!freeFileIds.isEmpty()) {
+                id = freeFileIds.remove(freeFileIds.size() - 1);
+            } else {
+                id = files.size();
+                files.add(null);
+                replicas.add(new BitSet());
+                replicaOrders.add(null);
+            }
+            fileIds.put(fileName, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of a file, without giving it one if it has none
+     *
+     * @param fileName the file name
+     * @return the file id, or -1 if the file has none
+     */
+    public int findFileId(String fileName) {
+        Integer id = fileIds.get(fileName);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Removes a file and its replicas, once no workflow uses it, so that its
+     * id is given to the next new file
+     *
+     * @param fileName the file name
+     */
+    public void removeFile(String fileName) {
+        Integer id = fileIds.remove(fileName);
+        if (id != null) {
+            files.set(id, null);
+            replicas.get(id).clear();
+            replicaOrders.set(id, null);
+            freeFileIds.add(id);
+        }
+    }
+
+    /**
+     * Gets the number of files, that is those given an id and not removed
+     *
+     * @return the number of files
+     */
+    public int getFileNum() {
+        return fileIds.size();
+    }
+
+    /**
+     * Gets the id of a storage, giving it one if it has none yet
+     *
+     * @param storage the storage name
+     * @return the storage id
+     */
+    public int getStorageId(String storage) {
+        Integer id = storageIds.get(storage);
+        if (id == null) {
+            id = storageNames.size();
+            storageIds.put(storage, id);
+            storageNames.add(storage);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the id of the storage of a vm, whose name is the vm id
+     *
+     * @param vmId the vm id
+     * @return the storage id
+     */
+    public int getVmStorageId(int vmId) {
+        if (vmId >= vmStorageIds.length) {
+            int length = vmStorageIds.length;
+            vmStorageIds = Arrays.copyOf(vmStorageIds, Math.max(vmId + 1, 2 * length));
+            Arrays.fill(vmStorageIds, length, vmStorageIds.length, -1);
+        }
+        if (vmStorageIds[vmId] < 0) {
+            vmStorageIds[vmId] = getStorageId(Integer.toString(vmId));
+        }
+        return vmStorageIds[vmId];
+    }
+
+    /**
+     * Gets the name of a storage
+     *
+     * @param storageId the storage id
+     * @return the storage name
+     */
+    public String getStorageName(int storageId) {
+        return storageNames.get(storageId);
+    }
+
+    /**
+     * Gets the file object based its file name
+     *
+     * @param fileName, file name
+     * @return file object
+     */
+    public FileItem getFile(String fileName) {
+        Integer id = fileIds.get(fileName);
+        return id == null ? null : files.get(id);
+    }
+
+    /**
+     * Adds a file name and the associated file object
+     *
+     * @param fileName, the file name
+     * @param file , the file object
+     */
+    public void setFile(String fileName, FileItem file) {
+        files.set(getFileId(fileName), file);
+    }
+
+    /**
+     * Gets the file object with a given name, adding a new one if there is
+     * none yet
+     *
+     * @param fileName, the file name
+     * @param size, the size of the new file object
+     * @return file object
+     */
+    public FileItem internFile(String fileName, double size) {
+        int id = getFileId(fileName);
+        FileItem file = files.get(id);
+        if (file == null) {
+            file = new FileItem(fileName, size);
+            files.set(id, file);
+        }
+        return file;
+    }
+
+    /**
+     * Checks whether a file exists
+     *
+     * @param fileName file name
+     * @return boolean, whether the file exist
+     */
+    public boolean containsFile(String fileName) {
+        return getFile(fileName) != null;
+    }
+
+    /**
+     * Gets the storages a file exists
+     *
+     * @param fileId the file id
+     * @return the storage ids, which should not be modified
+     */
+    public BitSet getStorages(int fileId) {
+        return replicas.get(fileId);
+    }
+
+    /**
+     * Gets the list of storages a file exists, in the order the file was added
+     * to them
+     *
+     * @param file the file name
+     * @return list of storages, or null if the file exists nowhere
+     */
+    public List<String> getStorageList(String file) {
+        Integer id = fileIds.get(file);
+        if (id == null || replicaOrders.get(id) == null) {
+            return null;
+        }
+        List<Integer> storages = replicaOrders.get(id);
+        List<String> list = new ArrayList<>(storages.size());
+        for (int storageId : storages) {
+            list.add(storageNames.get(storageId));
+        }
+        return list;
+    }
+
+    /**
+     * Checks whether a storage has a file
+     *
+     * @param fileId the file id
+     * @param storageId the storage id
+     * @return whether the storage has the file
+     */
+    public boolean hasReplica(int fileId, int storageId) {
+        return replicas.get(fileId).get(storageId);
+    }
+
+    /**
+     * Adds a file to a storage
+     *
+     * @param fileId the file id
+     * @param storageId the storage id
+     */
+    public void addFileToStorage(int fileId, int storageId) {
+        BitSet storages = replicas.get(fileId);
+        if (!storages.get(storageId)) {
+            storages.set(storageId);
+            if (replicaOrders.get(fileId) == null) {
+                replicaOrders.set(fileId, new ArrayList<Integer>(1));
+            }
+            replicaOrders.get(fileId).add(storageId);
+        }
+    }
+
+    /**
+     * Adds a file to a storage
+     *
+     * @param file, a file object
+     * @param storage , the storage associated with this file
+     */
+    public void addFileToStorage(String file, String storage) {
+        addFileToStorage(getFileId(file), getStorageId(storage));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.workflowsim.utils;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import org.cloudbus.cloudsim.Log;
 
@@ -82,6 +84,36 @@ public class Parameters {
         }
     }
     
+    /**
+     * The DAX parser
+     * DOM: builds the whole document before reading it
+     * STREAMING: reads the document one element at a time
+     */
+    public enum ParserMode{
+        DOM, STREAMING
+    }
+    
+    /**
+     * The data structures of the HEFT and DHEFT planners
+     * DENSE: maps with the costs between every pair of tasks
+     * SPARSE: arrays indexed by task and vm ordinals, with the transfer costs
+     * of the edges only
+     */
+    public enum PlanningMode{
+        DENSE, SPARSE
+    }
+    
+    /**
+     * How the workflow engine dispatches the ready jobs to its schedulers
+     * USER_ID: to the scheduler whose id is the user id of the job
+     * LOAD: to the scheduler with the fewest outstanding jobs per vm
+     * LOCALITY: to the scheduler with an idle vm whose sites hold most of the
+     * input data of the job, or to the least loaded one if there is a tie
+     */
+    public enum DispatchPolicy{
+        USER_ID, LOAD, LOCALITY
+    }
+    
     /** 
      * Source Host (submit host)
      */
@@ -119,13 +151,15 @@ public class Parameters {
     /**
      * The physical path to runtime file In the runtime file, please use format
      * as below ID1 1.0 ID2 2.0 ... This is optional, if you have specified task
-     * runtime in DAX then you don't need to specify this file
+     * runtime in DAX then you don't need to specify this file. It may be
+     * compressed with gzip
      */
     private static String runtimePath;
     /**
      * The physical path to datasize file In the datasize file, please use
      * format as below DATA1 1000 DATA2 2000 ... This is optional, if you have
-     * specified datasize in DAX then you don't need to specify this file
+     * specified datasize in DAX then you don't need to specify this file. It
+     * may be compressed with gzip
      */
     private static String datasizePath;
     /**
@@ -170,16 +204,49 @@ public class Parameters {
      */
     private static double runtime_scale = 1.0;
     
+    /**
+     * The scale of runtime of each depth, in addition to runtime_scale.
+     * Depths beyond the end of the array are not scaled
+     */
+    private static double[] depthRuntimeScales = new double[0];
+    
+    /**
+     * The runtimes and file sizes of the runtime and datasize files, loaded
+     * when first needed
+     */
+    private static TaskOverrides taskOverrides = null;
+    private static boolean taskOverridesLoaded = false;
+    
     /**
      * The default cost model is based on datacenter, similar to CloudSim
      */
     private static CostModel costModel = CostModel.DATACENTER;
     
+    /**
+     * The default parser builds the whole DAX document
+     */
+    private static ParserMode parserMode = ParserMode.DOM;
+    
+    /**
+     * The default planners keep the costs in maps
+     */
+    private static PlanningMode planningMode = PlanningMode.DENSE;
+    
+    /**
+     * The default planners evaluate the vms one by one
+     */
+    private static boolean parallelPlanning = false;
+    
+    /**
+     * The workflow arrivals, null to submit all the workflows at once
+     */
+    private static WorkflowArrivalProcess arrivalProcess = null;
+    
     /**
      * A static function so that you can specify them in any place
      *
      * @param vm, the number of vms
-     * @param dax, the DAX path
+     * @param dax, the DAX path (or binary workflow path)
      * @param runtime, optional, the runtime file path
      * @param datasize, optional, the datasize file path
      * @param op, overhead parameters
@@ -200,6 +267,8 @@ public class Parameters {
         daxPath = dax;
         runtimePath = runtime;
         datasizePath = datasize;
+        taskOverrides = null;
+        taskOverridesLoaded = false;
 
         oParams = op;
         schedulingAlgorithm = scheduler;
@@ -213,7 +282,7 @@ public class Parameters {
      * A static function so that you can specify them in any place
      *
      * @param vm, the number of vms
-     * @param dax, the list of DAX paths 
+     * @param dax, the list of DAX paths (or binary workflow paths)
      * @param runtime, optional, the runtime file path
      * @param datasize, optional, the datasize file path
      * @param op, overhead parameters
@@ -234,6 +303,8 @@ public class Parameters {
         daxPaths = dax;
         runtimePath = runtime;
         datasizePath = datasize;
+        taskOverrides = null;
+        taskOverridesLoaded = false;
 
         oParams = op;
         schedulingAlgorithm = scheduler;
@@ -406,6 +477,79 @@ public class Parameters {
         runtime_scale = scale;
     }
     
+    /**
+     * Sets the runtime scale of a depth, which multiplies the runtime of the
+     * tasks of this depth in addition to the runtime scale
+     * @param depth the depth
+     * @param scale the scale
+     */
+    public static void setRuntimeScale(int depth, double scale){
+        if (depth >= depthRuntimeScales.length) {
+            int length = depthRuntimeScales.length;
+            depthRuntimeScales = Arrays.copyOf(depthRuntimeScales, depth + 1);
+            Arrays.fill(depthRuntimeScales, length, depth + 1, 1.0);
+        }
+        depthRuntimeScales[depth] = scale;
+    }
+    
+    /**
+     * Gets the runtime scale of a depth, 1.0 if it has not been set
+     * @param depth the depth
+     * @return the scale
+     */
+    public static double getRuntimeScale(int depth){
+        if (depth < 0 || depth >= depthRuntimeScales.length) {
+            return 1.0;
+        }
+        return depthRuntimeScales[depth];
+    }
+    
+    /**
+     * Checks whether the runtime of some depth is scaled
+     * @return whether a depth runtime scale has been set
+     */
+    public static boolean hasDepthRuntimeScales(){
+        return depthRuntimeScales.length > 0;
+    }
+    
+    /**
+     * Gets the runtime scales of all the depths
+     * @return the scales, indexed by depth
+     */
+    public static double[] getDepthRuntimeScales(){
+        return Arrays.copyOf(depthRuntimeScales, depthRuntimeScales.length);
+    }
+    
+    /**
+     * Sets the runtime scales of all the depths
+     * @param scales the scales, indexed by depth, or an empty array to scale
+     * no depth
+     */
+    public static void setDepthRuntimeScales(double[] scales){
+        depthRuntimeScales = Arrays.copyOf(scales, scales.length);
+    }
+    
+    /**
+     * Gets the runtimes and file sizes of the runtime and datasize files,
+     * loading the files the first time
+     * @return the overrides, or null if there is no such file or they cannot
+     * be read
+     */
+    public static TaskOverrides getTaskOverrides(){
+        if (!taskOverridesLoaded) {
+            taskOverridesLoaded = true;
+            if (runtimePath != null || datasizePath != null) {
+                try {
+                    taskOverrides = TaskOverrides.load(runtimePath, datasizePath);
+                } catch (IOException e) {
+                    Log.printLine("IO Exception;Please make sure runtime.path and datasize.path are correctly set: "
+                            + e.getMessage());
+                }
+            }
+        }
+        return taskOverrides;
+    }
+    
     /**
      * Sets the cost model
      * @param model
@@ -414,6 +558,73 @@ public class Parameters {
         costModel = model;
     }
     
+    /**
+     * Sets the DAX parser
+     * @param mode
+     */
+    public static void setParserMode(ParserMode mode){
+        parserMode = mode;
+    }
+    
+    /**
+     * Gets the DAX parser
+     * @return the DAX parser
+     */
+    public static ParserMode getParserMode(){
+        return parserMode;
+    }
+    
+    /**
+     * Sets the data structures of the HEFT and DHEFT planners
+     * @param mode
+     */
+    public static void setPlanningMode(PlanningMode mode){
+        planningMode = mode;
+    }
+    
+    /**
+     * Gets the data structures of the HEFT and DHEFT planners
+     * @return the planning mode
+     */
+    public static PlanningMode getPlanningMode(){
+        return planningMode;
+    }
+    
+    /**
+     * Sets whether the planners evaluate the vms in parallel
+     * @param parallel
+     */
+    public static void setParallelPlanning(boolean parallel){
+        parallelPlanning = parallel;
+    }
+    
+    /**
+     * Checks whether the planners evaluate the vms in parallel
+     * @return whether the planners evaluate the vms in parallel
+     */
+    public static boolean isParallelPlanning(){
+        return parallelPlanning;
+    }
+    
+    /**
+     * Sets the workflow arrivals. The WorkflowPlanner then loads each
+     * workflow when it arrives instead of all the DAX paths at the start
+     * @param arrivals the workflow arrivals, null to submit all the workflows
+     * at once
+     */
+    public static void setWorkflowArrivalProcess(WorkflowArrivalProcess arrivals){
+        arrivalProcess = arrivals;
+    }
+    
+    /**
+     * Gets the workflow arrivals
+     * @return the workflow arrivals, null if all the workflows are submitted
+     * at once
+     */
+    public static WorkflowArrivalProcess getWorkflowArrivalProcess(){
+        return arrivalProcess;
+    }
+    
     /**
      * Gets the runtime scale
      * @return 
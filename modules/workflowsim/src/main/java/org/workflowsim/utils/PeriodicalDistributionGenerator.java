@@ -81,6 +81,17 @@ public class PeriodicalDistributionGenerator extends DistributionGenerator{
         samples = concat(samples, new_samples);
         updateCumulativeSamples();
     }
+
+    /**
+     * Generates the periodical samples following the ones generated so far
+     *
+     * @param currentTime the sum of the samples generated so far
+     * @return the new samples
+     */
+    @Override
+    public double[] generateSamples(double currentTime) {
+        return generatePeriodicalSamples(currentTime);
+    }
     
     /**
      * Generates a periodical sample
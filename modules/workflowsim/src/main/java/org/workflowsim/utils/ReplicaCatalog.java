@@ -17,14 +17,13 @@
  */
 package org.workflowsim.utils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import org.workflowsim.FileItem;
 
 /**
- * ReplicaCatalog stores all the data information and where (site) there are
+ * ReplicaCatalog stores all the data information and where (site) there are.
+ * It gives static access to the catalog of the current simulation, which is
+ * an IndexedReplicaCatalog created by {@link #init(FileSystem)}.
  *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
@@ -39,27 +38,35 @@ public class ReplicaCatalog {
         SHARED, LOCAL
     }
     /**
-     * Map from file name to a file object
+     * The catalog of the current simulation
      */
-    private static Map<String, FileItem> fileName2File;
+    private static IndexedReplicaCatalog catalog;
+
     /**
-     * The selection of file.system
+     * Initialize a ReplicaCatalog
+     *
+     * @param fs the type of file system
      */
-    private static FileSystem fileSystem;
+    public static void init(FileSystem fs) {
+        catalog = new IndexedReplicaCatalog(fs);
+    }
+
     /**
-     * Map from file to a list of data storage
+     * Gets the catalog of the current simulation
+     *
+     * @return the catalog
      */
-    private static Map<String, List<String>> dataReplicaCatalog;
+    public static IndexedReplicaCatalog getCatalog() {
+        return catalog;
+    }
 
     /**
-     * Initialize a ReplicaCatalog
+     * Sets the catalog of the current simulation
      *
-     * @param fs the type of file system
+     * @param replicaCatalog the catalog
      */
-    public static void init(FileSystem fs) {
-        fileSystem = fs;
-        dataReplicaCatalog = new HashMap<>();
-        fileName2File = new HashMap<>();
+    public static void setCatalog(IndexedReplicaCatalog replicaCatalog) {
+        catalog = replicaCatalog;
     }
 
     /**
@@ -68,7 +75,7 @@ public class ReplicaCatalog {
      * @return file system
      */
     public static FileSystem getFileSystem() {
-        return fileSystem;
+        return catalog.getFileSystem();
     }
 
     /**
@@ -78,7 +85,7 @@ public class ReplicaCatalog {
      * @return file object
      */
     public static FileItem getFile(String fileName) {
-        return fileName2File.get(fileName);
+        return catalog.getFile(fileName);
     }
 
     /**
@@ -88,7 +95,19 @@ public class ReplicaCatalog {
      * @param file , the file object
      */
     public static void setFile(String fileName, FileItem file) {
-        fileName2File.put(fileName, file);
+        catalog.setFile(fileName, file);
+    }
+
+    /**
+     * Gets the file object with a given name, adding a new one if there is
+     * none yet
+     *
+     * @param fileName, the file name
+     * @param size, the size of the new file object
+     * @return file object
+     */
+    public static FileItem internFile(String fileName, double size) {
+        return catalog.internFile(fileName, size);
     }
 
     /**
@@ -98,7 +117,7 @@ public class ReplicaCatalog {
      * @return boolean, whether the file exist
      */
     public static boolean containsFile(String fileName) {
-        return fileName2File.containsKey(fileName);
+        return catalog.containsFile(fileName);
     }
 
     /**
@@ -108,7 +127,7 @@ public class ReplicaCatalog {
      * @return list of storages
      */
     public static List<String> getStorageList(String file) {
-        return dataReplicaCatalog.get(file);
+        return catalog.getStorageList(file);
     }
 
     /**
@@ -118,12 +137,6 @@ public class ReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addFileToStorage(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList<>());
-        }
-        List<String> list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
-        }
+        catalog.addFileToStorage(file, storage);
     }
 }
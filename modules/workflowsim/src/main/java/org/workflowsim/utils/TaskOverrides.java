@@ -0,0 +1,201 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * TaskOverrides holds the task runtimes of a runtime file and the file sizes of
+ * a datasize file, which override those of the DAX. Each file is read once
+ * into a column of names and a column of values, in the order of the file.
+ *
+ * A runtime file lists the task ids of the DAX with their runtime in seconds,
+ * and a datasize file lists the file names with their size in bytes, as in
+ * "ID00000 1.0 ID00001 2.0 ...". The pairs are separated by spaces or new
+ * lines, and lines starting with # are ignored. Files compressed with gzip are
+ * read as well.
+ *
+ * The runtime of a task is looked up by its ordinal, the position of the task
+ * in its DAX, so that a runtime file written in the order of the DAX costs no
+ * hashing. Otherwise, or if the names do not match, it is looked up by name.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class TaskOverrides {
+
+    /**
+     * A column of names and values, with the index of each name
+     */
+    private static class Column {
+
+        private String[] names = new String[16];
+        private double[] values = new double[16];
+        private int size = 0;
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        /**
+         * Adds a value, or replaces the value of a name added before
+         */
+        private void add(String name, double value) {
+            Integer index = indexes.get(name);
+            if (index != null) {
+                values[index] = value;
+                return;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            names[size] = name;
+            values[size] = value;
+            indexes.put(name, size);
+            size++;
+        }
+
+        private double get(int ordinal, String name) {
+            if (ordinal >= 0 && ordinal < size && names[ordinal].equals(name)) {
+                return values[ordinal];
+            }
+            Integer index = indexes.get(name);
+            return index == null ? Double.NaN : values[index];
+        }
+    }
+    private final Column runtimes = new Column();
+    private final Column datasizes = new Column();
+
+    /**
+     * Loads the runtime and datasize files
+     *
+     * @param runtimePath the path of the runtime file, may be null
+     * @param datasizePath the path of the datasize file, may be null
+     * @return the overrides
+     * @throws IOException if a file cannot be read or is not valid
+     */
+    public static TaskOverrides load(String runtimePath, String datasizePath) throws IOException {
+        TaskOverrides overrides = new TaskOverrides();
+        if (runtimePath != null) {
+            read(runtimePath, overrides.runtimes);
+        }
+        if (datasizePath != null) {
+            read(datasizePath, overrides.datasizes);
+        }
+        return overrides;
+    }
+
+    private static void read(String path, Column column) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(open(path), StandardCharsets.UTF_8))) {
+            String line;
+            String name = null;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                for (String field : line.split("\\s+")) {
+                    if (name == null) {
+                        name = field;
+                        continue;
+                    }
+                    double value;
+                    try {
+                        value = Double.parseDouble(field);
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Invalid value at line " + lineNum + " of " + path, e);
+                    }
+                    if (value < 0) {
+                        throw new IOException("Invalid value at line " + lineNum + " of " + path);
+                    }
+                    column.add(name, value);
+                    name = null;
+                }
+            }
+            if (name != null) {
+                throw new IOException("Missing value for " + name + " in " + path);
+            }
+        }
+    }
+
+    /**
+     * Opens a file, decompressing it if it starts with the gzip magic number
+     */
+    private static InputStream open(String path) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(path));
+        try {
+            in.mark(2);
+            int magic = in.read() | (in.read() << 8);
+            in.reset();
+            if (magic == GZIPInputStream.GZIP_MAGIC) {
+                return new GZIPInputStream(in, 1 << 16);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the runtime of a task
+     *
+     * @param ordinal the position of the task in its DAX
+     * @param taskName the task id in the DAX
+     * @return the runtime in seconds, or NaN if it is not overridden
+     */
+    public double getRuntime(int ordinal, String taskName) {
+        return runtimes.get(ordinal, taskName);
+    }
+
+    /**
+     * Gets the size of a file
+     *
+     * @param fileName the file name
+     * @return the size in bytes, or NaN if it is not overridden
+     */
+    public double getDatasize(String fileName) {
+        return datasizes.get(-1, fileName);
+    }
+
+    /**
+     * Gets the number of runtimes
+     *
+     * @return the number of runtimes
+     */
+    public int getRuntimeNum() {
+        return runtimes.size;
+    }
+
+    /**
+     * Gets the number of file sizes
+     *
+     * @return the number of file sizes
+     */
+    public int getDatasizeNum() {
+        return datasizes.size;
+    }
+}
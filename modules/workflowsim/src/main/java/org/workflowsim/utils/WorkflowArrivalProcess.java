@@ -0,0 +1,216 @@
+/*
+ * 
+ *   Copyright 2013-2014 University Of Southern California
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ * 
+ */
+package org.workflowsim.utils;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * WorkflowArrivalProcess gives the arrival time and the DAX path of each
+ * workflow submitted to a WorkflowPlanner in the workflow arrival mode. The
+ * arrivals either come from a trace file, or follow a distribution of the
+ * inter-arrival times, in which case the DAX paths are taken in turn. The
+ * arrivals are generated one at a time, when the planner asks for the next
+ * one.
+ *
+ * A trace file has one workflow per line: the arrival time and the DAX path,
+ * separated by spaces, in increasing order of arrival time. Lines starting
+ * with # are ignored.
+ *
+ * @since WorkflowSim Toolkit 1.1
+ */
+public class WorkflowArrivalProcess {
+
+    /**
+     * The arrival of a workflow
+     */
+    public static class Arrival {
+
+        private final double time;
+        private final String daxPath;
+
+        public Arrival(double time, String daxPath) {
+            this.time = time;
+            this.daxPath = daxPath;
+        }
+
+        /**
+         * Gets the arrival time
+         *
+         * @return the arrival time
+         */
+        public double getTime() {
+            return time;
+        }
+
+        /**
+         * Gets the DAX path (or binary workflow path)
+         *
+         * @return the DAX path
+         */
+        public String getDaxPath() {
+            return daxPath;
+        }
+    }
+
+    /**
+     * The generator of the inter-arrival times, null for a trace
+     */
+    private final DistributionGenerator generator;
+    /**
+     * The DAX paths, taken in turn, or one per arrival for a trace
+     */
+    private final List<String> daxPaths;
+    /**
+     * The arrival times of a trace
+     */
+    private final double[] times;
+    /**
+     * The number of workflows
+     */
+    private final int workflowNum;
+    /**
+     * The current block of inter-arrival times
+     */
+    private double[] samples = new double[0];
+    private int sampleIndex = 0;
+    private int arrivalNum = 0;
+    private double currentTime = 0.0;
+
+    /**
+     * Initialize a WorkflowArrivalProcess whose inter-arrival times follow a
+     * distribution. The first workflow arrives after the first inter-arrival
+     * time.
+     *
+     * @param interArrivalTimes the generator of the inter-arrival times
+     * @param daxPaths the DAX paths, taken in turn
+     * @param workflowNum the number of workflows
+     */
+    public WorkflowArrivalProcess(DistributionGenerator interArrivalTimes, List<String> daxPaths,
+            int workflowNum) {
+        if (daxPaths == null || daxPaths.isEmpty()) {
+            throw new IllegalArgumentException("No DAX path for the workflow arrivals");
+        }
+        this.generator = interArrivalTimes;
+        this.daxPaths = new ArrayList<>(daxPaths);
+        this.times = null;
+        this.workflowNum = workflowNum;
+    }
+
+    private WorkflowArrivalProcess(double[] times, List<String> daxPaths) {
+        this.generator = null;
+        this.daxPaths = daxPaths;
+        this.times = times;
+        this.workflowNum = times.length;
+    }
+
+    /**
+     * Loads a WorkflowArrivalProcess from a trace file
+     *
+     * @param path the path of the trace file
+     * @return the WorkflowArrivalProcess
+     * @throws IOException if the file cannot be read or is not a trace file
+     */
+    public static WorkflowArrivalProcess load(String path) throws IOException {
+        double[] times = new double[16];
+        List<String> daxPaths = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+", 2);
+                double time;
+                try {
+                    time = Double.parseDouble(fields[0]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid arrival at line " + lineNum + " of " + path, e);
+                }
+                int size = daxPaths.size();
+                if (fields.length != 2 || time < 0 || (size > 0 && time < times[size - 1])) {
+                    throw new IOException("Invalid arrival at line " + lineNum + " of " + path);
+                }
+                if (size == times.length) {
+                    times = Arrays.copyOf(times, size * 2);
+                }
+                times[size] = time;
+                daxPaths.add(fields[1]);
+            }
+        }
+        return new WorkflowArrivalProcess(Arrays.copyOf(times, daxPaths.size()), daxPaths);
+    }
+
+    /**
+     * Checks whether another workflow arrives
+     *
+     * @return whether another workflow arrives
+     */
+    public boolean hasNext() {
+        return arrivalNum < workflowNum;
+    }
+
+    /**
+     * Gets the next arrival
+     *
+     * @return the next arrival
+     */
+    public Arrival next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("All the workflows have arrived");
+        }
+        Arrival arrival;
+        if (generator == null) {
+            arrival = new Arrival(times[arrivalNum], daxPaths.get(arrivalNum));
+        } else {
+            if (sampleIndex == samples.length) {
+                samples = generator.generateSamples(currentTime);
+                sampleIndex = 0;
+            }
+            currentTime += samples[sampleIndex++];
+            arrival = new Arrival(currentTime, daxPaths.get(arrivalNum % daxPaths.size()));
+        }
+        arrivalNum++;
+        return arrival;
+    }
+
+    /**
+     * Gets the number of workflows that have arrived so far
+     *
+     * @return the number of arrivals
+     */
+    public int getArrivalNum() {
+        return arrivalNum;
+    }
+
+    /**
+     * Gets the number of workflows
+     *
+     * @return the number of workflows
+     */
+    public int getWorkflowNum() {
+        return workflowNum;
+    }
+}
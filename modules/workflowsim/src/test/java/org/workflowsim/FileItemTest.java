@@ -0,0 +1,90 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.workflowsim.utils.Parameters.FileType;
+
+/**
+ * Checks that the set of output file names finds the same real input files
+ * as the scan of the file list.
+ */
+public class FileItemTest {
+
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void testInputAndOutput() {
+        FileItem input = createFile("a.txt", FileType.INPUT);
+        // the same file written by the job, as after horizontal clustering
+        FileItem output = createFile("a.txt", FileType.OUTPUT);
+        FileItem other = createFile("b.txt", FileType.INPUT);
+        FileItem none = createFile("c.txt", FileType.NONE);
+        List<FileItem> list = Arrays.asList(input, output, other, none);
+
+        Set<String> outputFiles = FileItem.getOutputFileNames(list);
+        assertEquals(new HashSet<>(Arrays.asList("a.txt")), outputFiles);
+        assertFalse(input.isRealInputFile(outputFiles));
+        assertFalse(output.isRealInputFile(outputFiles));
+        assertTrue(other.isRealInputFile(outputFiles));
+        assertFalse(none.isRealInputFile(outputFiles));
+        assertEquals(Arrays.asList(other), FileItem.getRealInputFiles(list));
+    }
+
+    @Test
+    public void testSameAsScan() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<FileItem> list = new ArrayList<>();
+            int size = random.nextInt(30);
+            for (int i = 0; i < size; i++) {
+                FileType type = FileType.values()[random.nextInt(FileType.values().length)];
+                list.add(createFile("f" + random.nextInt(10), type));
+            }
+
+            Set<String> outputFiles = FileItem.getOutputFileNames(list);
+            List<FileItem> expected = new ArrayList<>();
+            for (FileItem file : list) {
+                assertEquals(file.isRealInputFile(list), file.isRealInputFile(outputFiles));
+                if (file.isRealInputFile(list)) {
+                    expected.add(file);
+                }
+            }
+            List<FileItem> actual = FileItem.getRealInputFiles(list);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    private static FileItem createFile(String name, FileType type) {
+        FileItem file = new FileItem(name, 1);
+        file.setType(type);
+        return file;
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.junit.After;
+import org.junit.Test;
+import org.workflowsim.failure.FailureGenerator;
+import org.workflowsim.failure.FailureMonitor;
+import org.workflowsim.failure.FailureParameters;
+import org.workflowsim.failure.FailureTrace;
+import org.workflowsim.statistics.CostStatistics;
+import org.workflowsim.statistics.FailureStatistics;
+import org.workflowsim.statistics.MakespanStatistics;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * Checks that the statistics gathered by the job completion listeners are
+ * those computed from the received job list, and that they do not depend on
+ * whether the job lists are kept.
+ */
+public class JobCompletionListenerTest {
+
+    private static final int JOBS = 60;
+
+    /**
+     * The failure times of the tasks of depths 1 to 3.
+     */
+    private static final String FAILURES = "0 1 4.5\n0 1 9.5\n0 2 30.5\n0 3 50.5\n0 3 51\n";
+
+    @After
+    public void tearDown() {
+        FailureParameters.init(FailureParameters.FTCluteringAlgorithm.FTCLUSTERING_NOOP,
+                FailureParameters.FTCMonitor.MONITOR_NONE, FailureParameters.FTCFailure.FAILURE_NONE,
+                null);
+        FailureGenerator.init(null);
+        Parameters.setCostModel(Parameters.CostModel.DATACENTER);
+    }
+
+    @Test
+    public void testDatacenterCosts() throws Exception {
+        Run run = new Run(Parameters.CostModel.DATACENTER, true);
+        checkStatistics(run);
+        assertEquals(2, run.cost.getCosts().size());
+    }
+
+    @Test
+    public void testVmCosts() throws Exception {
+        Run run = new Run(Parameters.CostModel.VM, true);
+        checkStatistics(run);
+        assertTrue(run.cost.getCosts().size() > 2);
+    }
+
+    @Test
+    public void testListsNotKept() throws Exception {
+        Run expected = new Run(Parameters.CostModel.DATACENTER, true);
+        Run actual = new Run(Parameters.CostModel.DATACENTER, false);
+
+        assertEquals(0, actual.engine.getJobsReceivedList().size());
+        assertEquals(0, actual.engine.getJobsSubmittedList().size());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, actual.engine.getScheduler(i).getCloudletReceivedList().size());
+        }
+        assertEquals(expected.cost.getTotalCost(), actual.cost.getTotalCost(), 0);
+        assertEquals(expected.cost.getCosts(), actual.cost.getCosts());
+        assertEquals(expected.makespan.getJobNum(), actual.makespan.getJobNum());
+        assertEquals(expected.makespan.getStartTime(), actual.makespan.getStartTime(), 0);
+        assertEquals(expected.makespan.getMakespan(), actual.makespan.getMakespan(), 0);
+        assertEquals(expected.failure.getJobNum(), actual.failure.getJobNum());
+        assertEquals(expected.failure.getFailedJobNum(), actual.failure.getFailedJobNum());
+        assertEquals(expected.failure.getFailedTaskNum(), actual.failure.getFailedTaskNum());
+        for (int depth = 0; depth < 10; depth++) {
+            assertEquals(expected.failure.getFailedJobNum(depth), actual.failure.getFailedJobNum(depth));
+        }
+    }
+
+    /**
+     * Checks the statistics of a run against the received job list.
+     */
+    private static void checkStatistics(Run run) {
+        List<Job> jobs = run.engine.getJobsReceivedList();
+        double totalCost = 0;
+        Map<Integer, Double> costs = new HashMap<>();
+        double startTime = Double.MAX_VALUE;
+        double makespan = 0;
+        int failedJobNum = 0;
+        int failedTaskNum = 0;
+        int[] failedJobs = new int[10];
+        for (Job job : jobs) {
+            double cost = job.getProcessingCost();
+            totalCost += cost;
+            int id = run.costModel == Parameters.CostModel.VM ? job.getVmId() : job.getResourceId();
+            costs.merge(id, cost, Double::sum);
+            startTime = Math.min(startTime, job.getExecStartTime());
+            makespan = Math.max(makespan, job.getFinishTime());
+            if (job.getCloudletStatus() == Cloudlet.FAILED) {
+                failedJobNum++;
+                failedJobs[job.getDepth()]++;
+                for (Task task : job.getTaskList()) {
+                    if (task.getCloudletStatus() == Cloudlet.FAILED) {
+                        failedTaskNum++;
+                    }
+                }
+            }
+        }
+
+        // the failed jobs are retried
+        assertTrue(failedJobNum > 2);
+        assertEquals(JOBS + failedJobNum, jobs.size());
+        assertEquals(totalCost, run.cost.getTotalCost(), 1e-9);
+        assertEquals(costs.keySet(), run.cost.getCosts().keySet());
+        for (Map.Entry<Integer, Double> entry : costs.entrySet()) {
+            assertEquals(entry.getValue(), run.cost.getCost(entry.getKey()), 1e-9);
+        }
+        assertEquals(jobs.size(), run.makespan.getJobNum());
+        assertEquals(startTime, run.makespan.getStartTime(), 0);
+        assertEquals(makespan, run.makespan.getMakespan(), 0);
+        assertEquals(jobs.size(), run.failure.getJobNum());
+        assertEquals(failedJobNum, run.failure.getFailedJobNum());
+        assertEquals(failedTaskNum, run.failure.getFailedTaskNum());
+        for (int depth = 0; depth < failedJobs.length; depth++) {
+            assertEquals(failedJobs[depth], run.failure.getFailedJobNum(depth));
+        }
+    }
+
+    /**
+     * Runs a random workflow on two datacenters, with the jobs of some depths
+     * failing at given times, and gathers its statistics.
+     */
+    private static class Run {
+
+        private final Parameters.CostModel costModel;
+        private final WorkflowEngine engine;
+        private final CostStatistics cost = new CostStatistics();
+        private final MakespanStatistics makespan = new MakespanStatistics();
+        private final FailureStatistics failure = new FailureStatistics();
+
+        Run(Parameters.CostModel costModel, boolean listsKept) throws Exception {
+            this.costModel = costModel;
+            TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+            Parameters.setCostModel(costModel);
+            FailureParameters.init(FailureParameters.FTCluteringAlgorithm.FTCLUSTERING_NOOP,
+                    FailureParameters.FTCMonitor.MONITOR_NONE, FailureParameters.FTCFailure.FAILURE_JOB,
+                    null);
+            FailureMonitor.init();
+            FailureGenerator.init(FailureTrace.load(writeFailures()));
+
+            engine = new WorkflowEngine("engine_0", 2);
+            for (int i = 0; i < 2; i++) {
+                WorkflowDatacenter datacenter = TestSimulation.createDatacenter("Datacenter_" + i, 2);
+                TestSimulation.addVms(engine, i, datacenter, 4 * i, 3);
+                engine.getScheduler(i).setCloudletReceivedListKept(listsKept);
+            }
+            engine.setJobListsKept(listsKept);
+            engine.addJobCompletionListener(cost);
+            engine.addJobCompletionListener(makespan);
+            engine.addJobCompletionListener(failure);
+
+            Random random = new Random(1);
+            List<Job> jobs = TestSimulation.createJobs(random, JOBS, 0, engine.getSchedulerId(0));
+            for (Job job : jobs) {
+                int userId = engine.getSchedulerId(random.nextInt(2));
+                job.setUserId(userId);
+                for (Task task : job.getTaskList()) {
+                    task.setUserId(userId);
+                    task.setDepth(job.getDepth());
+                }
+            }
+            engine.reserveJobIds(JOBS);
+            engine.submitCloudletList(new ArrayList<>(jobs));
+            TestSimulation.run();
+        }
+    }
+
+    private static String writeFailures() throws IOException {
+        File file = File.createTempFile("failures", ".txt");
+        file.deleteOnExit();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(FAILURES);
+        }
+        return file.getPath();
+    }
+}
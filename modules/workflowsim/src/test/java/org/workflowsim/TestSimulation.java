@@ -0,0 +1,204 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HarddriveStorage;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * Builds small simulations of a WorkflowEngine, its schedulers and their
+ * datacenters, with jobs created directly rather than parsed and clustered.
+ */
+final class TestSimulation {
+
+    /**
+     * The MIPS of the vms, so that a job of length 1000 runs for one second.
+     */
+    static final double MIPS = 1000;
+
+    private TestSimulation() {
+    }
+
+    /**
+     * Initializes the parameters, the replica catalog and CloudSim, without
+     * overheads, clustering or planning.
+     *
+     * @param algorithm the scheduling algorithm
+     */
+    static void init(Parameters.SchedulingAlgorithm algorithm) {
+        Log.disable();
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0,
+                ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(0, (String) null, null, null, op, cp, algorithm,
+                Parameters.PlanningAlgorithm.INVALID, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        CloudSim.init(1, Calendar.getInstance(), false);
+    }
+
+    /**
+     * Runs the simulation until all the jobs have returned.
+     */
+    static void run() {
+        CloudSim.startSimulation();
+        CloudSim.stopSimulation();
+        Log.enable();
+    }
+
+    /**
+     * Creates a datacenter whose hosts each hold two vms.
+     *
+     * @param name the datacenter name
+     * @param hostNum the number of hosts
+     * @return the datacenter
+     */
+    static WorkflowDatacenter createDatacenter(String name, int hostNum) throws Exception {
+        return createDatacenter(name, hostNum, new LinkedList<Storage>());
+    }
+
+    /**
+     * Creates a datacenter whose hosts each hold two vms, and whose vms share
+     * a storage of 15 MB/s to stage the files of the jobs.
+     *
+     * @param name the datacenter name
+     * @param hostNum the number of hosts
+     * @return the datacenter
+     */
+    static WorkflowDatacenter createStorageDatacenter(String name, int hostNum) throws Exception {
+        HarddriveStorage storage = new HarddriveStorage(name, 1e12);
+        storage.setMaxTransferRate(15);
+        List<Storage> storageList = new LinkedList<>();
+        storageList.add(storage);
+        return createDatacenter(name, hostNum, storageList);
+    }
+
+    private static WorkflowDatacenter createDatacenter(String name, int hostNum,
+            List<Storage> storageList) throws Exception {
+        List<Host> hostList = new ArrayList<>();
+        for (int i = 0; i < hostNum; i++) {
+            List<Pe> peList = new ArrayList<>();
+            peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+            peList.add(new Pe(1, new PeProvisionerSimple(MIPS)));
+            hostList.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000),
+                    1000000, peList, new VmSchedulerTimeShared(peList)));
+        }
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux",
+                "Xen", hostList, 10.0, 3.0, 0.05, 0.1, 0.1);
+        return new WorkflowDatacenter(name, characteristics, new VmAllocationPolicySimple(hostList),
+                storageList, 0);
+    }
+
+    /**
+     * Creates the vms of a scheduler of the engine, submits them and binds the
+     * scheduler to a datacenter.
+     *
+     * @param engine the engine
+     * @param index the scheduler index
+     * @param datacenter the datacenter
+     * @param firstId the id of the first vm
+     * @param num the number of vms
+     * @return the vms
+     */
+    static List<CondorVM> addVms(WorkflowEngine engine, int index, WorkflowDatacenter datacenter,
+            int firstId, int num) {
+        List<CondorVM> list = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            list.add(new CondorVM(firstId + i, engine.getSchedulerId(index), MIPS, 1, 512, 1000,
+                    10000, "Xen", new CloudletSchedulerSpaceShared()));
+        }
+        engine.submitVmList(list, index);
+        engine.bindSchedulerDatacenter(datacenter.getId(), index);
+        return list;
+    }
+
+    /**
+     * Creates a job holding a single task.
+     *
+     * @param id the job id
+     * @param seconds the runtime of the job
+     * @param userId the id of the scheduler of the job
+     * @param parents the parents of the job, in their order in its parent
+     * list
+     * @return the job
+     */
+    static Job createJob(int id, double seconds, int userId, Job... parents) {
+        long length = (long) (seconds * MIPS);
+        Job job = new Job(id, length);
+        Task task = new Task(id, length);
+        task.setUserId(userId);
+        job.getTaskList().add(task);
+        job.setUserId(userId);
+        int depth = 1;
+        for (Job parent : parents) {
+            job.addParent(parent);
+            if (!parent.getChildList().contains(job)) {
+                parent.addChild(job);
+            }
+            depth = Math.max(depth, parent.getDepth() + 1);
+        }
+        job.setDepth(depth);
+        return job;
+    }
+
+    /**
+     * Creates a random layered workflow of jobs with distinct runtimes. Some
+     * jobs list the same parent twice.
+     *
+     * @param random the random generator
+     * @param num the number of jobs
+     * @param firstId the id of the first job
+     * @param userId the id of the scheduler of the jobs
+     * @return the jobs, parents first
+     */
+    static List<Job> createJobs(Random random, int num, int firstId, int userId) {
+        int width = 2 + random.nextInt(6);
+        List<Job> list = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            List<Job> parents = new ArrayList<>();
+            for (int j = Math.max(0, i - 2 * width); j < i - width / 2; j++) {
+                if (random.nextInt(3) == 0) {
+                    parents.add(list.get(j));
+                    if (random.nextInt(4) == 0) {
+                        parents.add(list.get(j));
+                    }
+                }
+            }
+            double seconds = 1 + random.nextInt(20) + i / (double) num;
+            list.add(createJob(firstId + i, seconds, userId, parents.toArray(new Job[0])));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Test;
+import org.workflowsim.statistics.JobCompletionListener;
+import org.workflowsim.utils.IndexedReplicaCatalog;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * Checks how the WorkflowEngine dispatches the ready jobs to its schedulers,
+ * and how the idle schedulers steal the queued jobs of the others.
+ */
+public class WorkflowEngineDispatchTest {
+
+    private static final int ROUNDS = 10;
+
+    @Test
+    public void testLoadDispatch() throws Exception {
+        TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+        WorkflowEngine engine = new WorkflowEngine("engine_0", 2);
+        engine.setDispatchPolicy(Parameters.DispatchPolicy.LOAD);
+        TestSimulation.addVms(engine, 0, TestSimulation.createDatacenter("Datacenter_0", 1), 0, 1);
+        TestSimulation.addVms(engine, 1, TestSimulation.createDatacenter("Datacenter_1", 2), 1, 3);
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            jobs.add(TestSimulation.createJob(i, 5, engine.getSchedulerId(0)));
+        }
+        submitLater(engine, jobs);
+        TestSimulation.run();
+
+        // each job goes to the scheduler with the fewest outstanding jobs per vm
+        assertEquals(2, engine.getDispatchedJobNum(0));
+        assertEquals(6, engine.getDispatchedJobNum(1));
+        assertEquals(jobs.size(), engine.getJobsReceivedList().size());
+        for (Job job : jobs) {
+            assertTrue(isRunBy(engine, job.getUserId() == engine.getSchedulerId(0) ? 0 : 1, job));
+        }
+    }
+
+    @Test
+    public void testLocalityDispatch() throws Exception {
+        // by load, the scheduler with three vms takes all the jobs
+        assertEquals(Arrays.asList(0, 0, 0), runLocality(Parameters.DispatchPolicy.LOAD));
+        // the first job goes where its input is, the second one does not pile
+        // up behind it, and the third one has no input to follow
+        assertEquals(Arrays.asList(1, 0, 0), runLocality(Parameters.DispatchPolicy.LOCALITY));
+    }
+
+    @Test
+    public void testStealConsistency() throws Exception {
+        TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+        final WorkflowEngine engine = new WorkflowEngine("engine_0", 2);
+        engine.setWorkStealing(true);
+        TestSimulation.addVms(engine, 0, TestSimulation.createDatacenter("Datacenter_0", 1), 0, 1);
+        TestSimulation.addVms(engine, 1, TestSimulation.createDatacenter("Datacenter_1", 2), 1, 3);
+        final List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            jobs.add(TestSimulation.createJob(i, 3, engine.getSchedulerId(0)));
+        }
+        final int[] completed = new int[1];
+        engine.addJobCompletionListener(new JobCompletionListener() {
+
+            @Override
+            public void jobCompleted(Job job) {
+                // the returning job is still outstanding
+                assertEquals(jobs.size() - completed[0]++,
+                        engine.getOutstandingJobNum(0) + engine.getOutstandingJobNum(1));
+                for (int i = 0; i < 2; i++) {
+                    assertTrue(engine.getOutstandingJobNum(i) >= engine.getQueueDepth(i));
+                }
+            }
+        });
+        engine.submitCloudletList(new ArrayList<>(jobs));
+        TestSimulation.run();
+
+        assertEquals(jobs.size(), completed[0]);
+        assertTrue(engine.getStolenJobNum(1) > 0);
+        assertEquals(jobs.size() + engine.getStolenJobNum(0) + engine.getStolenJobNum(1),
+                engine.getDispatchedJobNum(0) + engine.getDispatchedJobNum(1));
+        int runBy1 = 0;
+        for (Job job : jobs) {
+            int index = job.getUserId() == engine.getSchedulerId(1) ? 1 : 0;
+            assertTrue(isRunBy(engine, index, job));
+            runBy1 += index;
+        }
+        assertEquals(engine.getStolenJobNum(1) - engine.getStolenJobNum(0), runBy1);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, engine.getOutstandingJobNum(i));
+            assertEquals(0, engine.getQueueDepth(i));
+        }
+        // 12 jobs of 3 seconds on a single vm would end at 36
+        double makespan = 0;
+        for (Job job : jobs) {
+            makespan = Math.max(makespan, job.getFinishTime());
+        }
+        assertTrue(makespan < 20);
+    }
+
+    @Test
+    public void testStealCompletion() throws Exception {
+        Random random = new Random(1);
+        long stolen = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+            WorkflowEngine engine = new WorkflowEngine("engine_0", 3);
+            engine.setWorkStealing(true);
+            for (int i = 0; i < 3; i++) {
+                TestSimulation.addVms(engine, i,
+                        TestSimulation.createDatacenter("Datacenter_" + i, 2), 10 * i, i + 1);
+            }
+            List<Job> jobs = TestSimulation.createJobs(random, 20 + random.nextInt(60), 0,
+                    engine.getSchedulerId(0));
+            for (Job job : jobs) {
+                job.setUserId(engine.getSchedulerId(random.nextInt(3)));
+            }
+            engine.submitCloudletList(new ArrayList<>(jobs));
+            TestSimulation.run();
+
+            List<Job> received = engine.getJobsReceivedList();
+            Set<Integer> ids = new HashSet<>();
+            for (Job job : received) {
+                ids.add(job.getCloudletId());
+            }
+            assertEquals(jobs.size(), received.size());
+            assertEquals(jobs.size(), ids.size());
+            for (Job job : jobs) {
+                List<Task> parentList = job.getParentList();
+                for (Task parent : parentList) {
+                    assertTrue(job.getExecStartTime() >= parent.getFinishTime());
+                }
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(0, engine.getOutstandingJobNum(i));
+                assertEquals(0, engine.getQueueDepth(i));
+                stolen += engine.getStolenJobNum(i);
+            }
+        }
+        assertTrue(stolen > 0);
+    }
+
+    /**
+     * Runs three jobs dispatched at once to a scheduler with three vms and a
+     * scheduler with one vm, whose datacenters have their own replica
+     * catalogs. The input of the first two jobs is in the datacenter of the
+     * second scheduler, and only at the source for the first one.
+     *
+     * @param policy the dispatch policy
+     * @return the index of the scheduler of each job
+     */
+    private static List<Integer> runLocality(Parameters.DispatchPolicy policy) throws Exception {
+        TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+        WorkflowEngine engine = new WorkflowEngine("engine_0", 2);
+        engine.setDispatchPolicy(policy);
+        WorkflowDatacenter datacenter0 = TestSimulation.createDatacenter("Datacenter_0", 2);
+        WorkflowDatacenter datacenter1 = TestSimulation.createDatacenter("Datacenter_1", 1);
+        IndexedReplicaCatalog catalog0 = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        catalog0.addFileToStorage("input", Parameters.SOURCE);
+        datacenter0.setReplicaCatalog(catalog0);
+        IndexedReplicaCatalog catalog1 = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        catalog1.addFileToStorage("input", datacenter1.getName());
+        datacenter1.setReplicaCatalog(catalog1);
+        TestSimulation.addVms(engine, 0, datacenter0, 0, 3);
+        TestSimulation.addVms(engine, 1, datacenter1, 3, 1);
+
+        int userId = engine.getSchedulerId(0);
+        List<Job> jobs = Arrays.asList(TestSimulation.createJob(0, 5, userId),
+                TestSimulation.createJob(1, 5, userId), TestSimulation.createJob(2, 5, userId));
+        for (Job job : jobs.subList(0, 2)) {
+            FileItem file = new FileItem("input", 1000000);
+            file.setType(Parameters.FileType.INPUT);
+            job.getFileList().add(file);
+        }
+        submitLater(engine, jobs);
+        TestSimulation.run();
+
+        assertEquals(jobs.size(), engine.getJobsReceivedList().size());
+        List<Integer> indexes = new ArrayList<>();
+        for (Job job : jobs) {
+            int index = job.getUserId() == engine.getSchedulerId(1) ? 1 : 0;
+            assertTrue(isRunBy(engine, index, job));
+            indexes.add(index);
+        }
+        return indexes;
+    }
+
+    /**
+     * Submits a workflow once the schedulers have created their vms, so that
+     * the jobs are dispatched at once.
+     *
+     * @param engine the engine
+     * @param jobs the jobs
+     */
+    private static void submitLater(WorkflowEngine engine, List<Job> jobs) {
+        engine.addPendingWorkflow();
+        CloudSim.send(engine.getId(), engine.getId(), 10, WorkflowSimTags.WORKFLOW_SUBMIT, jobs);
+    }
+
+    /**
+     * Checks whether a job ran on a vm of a scheduler.
+     *
+     * @param engine the engine
+     * @param index the scheduler index
+     * @param job the job
+     * @return whether the vm of the job belongs to the scheduler
+     */
+    private static boolean isRunBy(WorkflowEngine engine, int index, Job job) {
+        for (Vm vm : engine.getScheduler(index).getVmList()) {
+            if (vm.getId() == job.getVmId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
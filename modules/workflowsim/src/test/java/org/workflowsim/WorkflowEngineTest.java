@@ -0,0 +1,149 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Test;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * Checks that the WorkflowEngine releases the jobs whose parents have all
+ * returned as the scan of the whole job list did.
+ */
+public class WorkflowEngineTest {
+
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void testScanOrder() throws Exception {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+            WorkflowDatacenter datacenter = TestSimulation.createDatacenter("Datacenter_0", 1);
+            WorkflowEngine engine = new WorkflowEngine("engine_0");
+            // a single vm, so that the jobs return one at a time
+            TestSimulation.addVms(engine, 0, datacenter, 0, 1);
+            List<Job> jobs = TestSimulation.createJobs(random, 1 + random.nextInt(60), 0,
+                    engine.getSchedulerId(0));
+            engine.submitCloudletList(new ArrayList<>(jobs));
+            TestSimulation.run();
+
+            List<Job> received = engine.getJobsReceivedList();
+            assertEquals(jobs.size(), received.size());
+            assertEquals(getIds(scan(jobs, received)), getIds(engine.getJobsSubmittedList()));
+        }
+    }
+
+    @Test
+    public void testDuplicateParents() throws Exception {
+        TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+        WorkflowDatacenter datacenter = TestSimulation.createDatacenter("Datacenter_0", 2);
+        WorkflowEngine engine = new WorkflowEngine("engine_0");
+        TestSimulation.addVms(engine, 0, datacenter, 0, 4);
+        int userId = engine.getSchedulerId(0);
+        Job a = TestSimulation.createJob(0, 2, userId);
+        Job b = TestSimulation.createJob(1, 3, userId, a, a);
+        Job c = TestSimulation.createJob(2, 1, userId, a, b, b, a);
+        engine.submitCloudletList(Arrays.asList(a, b, c));
+        TestSimulation.run();
+
+        assertEquals(Arrays.asList(0, 1, 2), getIds(engine.getJobsSubmittedList()));
+        assertEquals(Arrays.asList(0, 1, 2), getIds(engine.getJobsReceivedList()));
+        assertTrue(b.getExecStartTime() >= a.getFinishTime());
+        assertTrue(c.getExecStartTime() >= b.getFinishTime());
+    }
+
+    @Test
+    public void testParentsAlreadyReturned() throws Exception {
+        TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+        WorkflowDatacenter datacenter = TestSimulation.createDatacenter("Datacenter_0", 2);
+        WorkflowEngine engine = new WorkflowEngine("engine_0");
+        TestSimulation.addVms(engine, 0, datacenter, 0, 4);
+        int userId = engine.getSchedulerId(0);
+        Job a = TestSimulation.createJob(0, 2, userId);
+        Job b = TestSimulation.createJob(1, 20, userId);
+        engine.submitCloudletList(Arrays.asList(a, b));
+        // a workflow arriving once a has returned, but not b
+        Job c = TestSimulation.createJob(2, 1, userId, a, b);
+        Job d = TestSimulation.createJob(3, 1, userId, a, a);
+        engine.addPendingWorkflow();
+        CloudSim.send(engine.getId(), engine.getId(), 10, WorkflowSimTags.WORKFLOW_SUBMIT,
+                Arrays.asList(c, d));
+        TestSimulation.run();
+
+        assertEquals(Arrays.asList(0, 1, 3, 2), getIds(engine.getJobsSubmittedList()));
+        assertEquals(Arrays.asList(0, 3, 1, 2), getIds(engine.getJobsReceivedList()));
+        assertTrue(a.getFinishTime() < 10);
+        assertTrue(d.getExecStartTime() < 11);
+        assertTrue(c.getExecStartTime() >= b.getFinishTime());
+    }
+
+    /**
+     * Computes the order in which the scan of the whole job list submitted the
+     * jobs: all the jobs whose parents have returned, in list order, first at
+     * the start and then after each return.
+     *
+     * @param jobs the jobs, in the order they were handed to the engine
+     * @param received the jobs in the order they returned
+     * @return the jobs in the order they are submitted
+     */
+    private static List<Job> scan(List<Job> jobs, List<Job> received) {
+        List<Job> remaining = new ArrayList<>(jobs);
+        Set<Integer> returned = new HashSet<>();
+        List<Job> submitted = new ArrayList<>();
+        scan(remaining, returned, submitted);
+        for (Job job : received) {
+            returned.add(job.getCloudletId());
+            scan(remaining, returned, submitted);
+        }
+        return submitted;
+    }
+
+    private static void scan(List<Job> remaining, Set<Integer> returned, List<Job> submitted) {
+        for (int i = 0; i < remaining.size(); i++) {
+            Job job = remaining.get(i);
+            boolean ready = true;
+            List<Task> parentList = job.getParentList();
+            for (Task parent : parentList) {
+                if (!returned.contains(parent.getCloudletId())) {
+                    ready = false;
+                    break;
+                }
+            }
+            if (ready) {
+                submitted.add(job);
+                remaining.remove(i--);
+            }
+        }
+    }
+
+    private static List<Integer> getIds(List<Job> jobs) {
+        List<Integer> ids = new ArrayList<>();
+        for (Job job : jobs) {
+            ids.add(job.getCloudletId());
+        }
+        return ids;
+    }
+}
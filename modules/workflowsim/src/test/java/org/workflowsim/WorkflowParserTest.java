@@ -0,0 +1,162 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.cloudbus.cloudsim.Log;
+import org.junit.Test;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * Checks that the DOM and the STREAMING parsers, and the binary workflows,
+ * build the same tasks from the DAX files.
+ */
+public class WorkflowParserTest {
+
+    private static final String[] DAXES = {"Montage_25.xml", "CyberShake_30.xml"};
+
+    @Test
+    public void testStreamingSameAsDom() {
+        for (String dax : DAXES) {
+            List<Task> expected = parse(getPath(dax), Parameters.ParserMode.DOM);
+            List<Task> actual = parse(getPath(dax), Parameters.ParserMode.STREAMING);
+
+            assertTrue(expected.size() > 20);
+            assertEquals(describe(expected), describe(actual));
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        for (String dax : DAXES) {
+            File binary = File.createTempFile("workflow", ".bin");
+            binary.deleteOnExit();
+            // initializes the parameters and the replica catalog
+            parse(getPath(dax), Parameters.ParserMode.DOM);
+            Log.disable();
+            BinaryWorkflow.convert(getPath(dax), binary.getPath());
+            Log.enable();
+            assertTrue(BinaryWorkflow.isBinaryWorkflow(binary.getPath()));
+
+            List<Task> expected = parse(getPath(dax), Parameters.ParserMode.DOM);
+            List<Task> actual = parse(binary.getPath(), Parameters.ParserMode.DOM);
+            assertEquals(expected.size(), actual.size());
+            assertEquals(describe(expected), describe(actual));
+
+            // the runtime scales are applied when loading, as when parsing
+            expected = parse(getPath(dax), Parameters.ParserMode.DOM, 1.0, 2.5, 0.5);
+            actual = parse(binary.getPath(), Parameters.ParserMode.DOM, 1.0, 2.5, 0.5);
+            assertEquals(describe(expected), describe(actual));
+        }
+    }
+
+    @Test
+    public void testBinaryTaskIds() throws IOException {
+        File binary = File.createTempFile("workflow", ".bin");
+        binary.deleteOnExit();
+        parse(getPath(DAXES[0]), Parameters.ParserMode.DOM);
+        Log.disable();
+        BinaryWorkflow.convert(getPath(DAXES[0]), binary.getPath());
+        Log.enable();
+
+        BinaryWorkflow workflow = BinaryWorkflow.open(binary.getPath());
+        Task task = workflow.getTask(1, 3, 10);
+        assertEquals(11, task.getCloudletId());
+        assertSame(task, workflow.getTask(1, 3, 10));
+        assertSame(task, workflow.getTaskList(3, 10).get(1));
+        for (int[] ids : new int[][]{{4, 10}, {3, 0}}) {
+            try {
+                workflow.getTaskList(ids[0], ids[1]);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // the tasks keep the ids they were created with
+            }
+        }
+    }
+
+    /**
+     * Gets the path of a DAX file of the test resources.
+     *
+     * @param dax the DAX file name
+     * @return the path
+     */
+    static String getPath(String dax) {
+        return WorkflowParserTest.class.getClassLoader().getResource(dax).getPath();
+    }
+
+    /**
+     * Parses a DAX file with a new replica catalog.
+     *
+     * @param path the DAX path
+     * @param mode the parser to use
+     * @param depthScales the runtime scales of the depths, if any
+     * @return the tasks
+     */
+    static List<Task> parse(String path, Parameters.ParserMode mode, double... depthScales) {
+        Parameters.init(0, (String) null, null, null, null, null, null, null, null, 0);
+        Parameters.setParserMode(mode);
+        Parameters.setRuntimeScale(1.0);
+        Parameters.setDepthRuntimeScales(depthScales);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        Log.disable();
+        WorkflowParser parser = new WorkflowParser(0, path);
+        parser.parse();
+        Log.enable();
+        Parameters.setDepthRuntimeScales(new double[0]);
+        return parser.getTaskList();
+    }
+
+    /**
+     * Describes each task by its id, type, length and depth, the ids of its
+     * parents and children, and the name, size and type of its files, so that
+     * the tasks of two parses can be compared.
+     *
+     * @param tasks the tasks
+     * @return one line per task
+     */
+    static List<String> describe(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            StringBuilder line = new StringBuilder();
+            line.append(task.getCloudletId()).append(' ').append(task.getType())
+                    .append(' ').append(task.getCloudletLength())
+                    .append(' ').append(task.getDepth()).append(" parents");
+            for (Task parent : task.getParentList()) {
+                line.append(' ').append(parent.getCloudletId());
+            }
+            line.append(" children");
+            for (Task child : task.getChildList()) {
+                line.append(' ').append(child.getCloudletId());
+            }
+            line.append(" files");
+            for (FileItem file : task.getFileList()) {
+                line.append(' ').append(file.getName()).append(':').append(file.getSize())
+                        .append(':').append(file.getType());
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
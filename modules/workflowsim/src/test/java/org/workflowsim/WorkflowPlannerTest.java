@@ -0,0 +1,185 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.After;
+import org.junit.Test;
+import org.workflowsim.statistics.JobCompletionListener;
+import org.workflowsim.utils.ClusteringParameters;
+import org.workflowsim.utils.IndexedReplicaCatalog;
+import org.workflowsim.utils.OverheadParameters;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+import org.workflowsim.utils.WorkflowArrivalProcess;
+
+/**
+ * Checks how the WorkflowPlanner plans the workflows of the workflow arrival
+ * mode, and that their files are released once they are done.
+ */
+public class WorkflowPlannerTest {
+
+    private static final int WORKFLOWS = 30;
+
+    @After
+    public void tearDown() {
+        Parameters.setWorkflowArrivalProcess(null);
+    }
+
+    @Test
+    public void testArrivalsWithDHEFT() throws Exception {
+        // the task ids of the second workflow follow those of the first one,
+        // which uses the same files
+        String dax = WorkflowParserTest.getPath("Montage_25.xml");
+        WorkflowPlanner planner = createPlanner(Parameters.SchedulingAlgorithm.STATIC,
+                Parameters.PlanningAlgorithm.DHEFT, "0 " + dax + "\n5 " + dax + "\n");
+        WorkflowEngine engine = planner.getWorkflowEngine();
+        TestSimulation.run();
+
+        List<Job> received = engine.getJobsReceivedList();
+        Set<Integer> ids = new HashSet<>();
+        int taskNum = 0;
+        int lastTaskId = 0;
+        for (Job job : received) {
+            assertEquals(Cloudlet.SUCCESS, job.getCloudletStatus());
+            ids.add(job.getCloudletId());
+            List<Task> tasks = job.getTaskList();
+            for (Task task : tasks) {
+                // the job runs on the vm its task is planned on
+                assertTrue(task.getVmId() >= 0 && task.getVmId() < 4);
+                assertEquals(task.getVmId(), job.getVmId());
+                lastTaskId = Math.max(lastTaskId, task.getCloudletId());
+                taskNum++;
+            }
+        }
+        assertEquals(received.size(), ids.size());
+        assertEquals(50, taskNum);
+        assertEquals(50, lastTaskId);
+        assertEquals(0, ReplicaCatalog.getCatalog().getFileNum());
+    }
+
+    @Test
+    public void testCatalogReleasesFiles() throws Exception {
+        // each workflow runs for about 3 seconds, with files of its own and a
+        // file shared by all of them
+        File dir = Files.createTempDirectory("arrivals").toFile();
+        StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < WORKFLOWS; i++) {
+            File dax = new File(dir, "chain_" + i + ".xml");
+            dax.deleteOnExit();
+            try (FileWriter writer = new FileWriter(dax)) {
+                writer.write(createChain("w" + i + "_"));
+            }
+            trace.append(2 * i).append(' ').append(dax.getPath()).append('\n');
+        }
+        dir.deleteOnExit();
+        WorkflowPlanner planner = createPlanner(Parameters.SchedulingAlgorithm.FCFS,
+                Parameters.PlanningAlgorithm.INVALID, trace.toString());
+        WorkflowEngine engine = planner.getWorkflowEngine();
+        final IndexedReplicaCatalog catalog = ReplicaCatalog.getCatalog();
+        final int[] maxFileNum = new int[1];
+        engine.addJobCompletionListener(new JobCompletionListener() {
+
+            @Override
+            public void jobCompleted(Job job) {
+                maxFileNum[0] = Math.max(maxFileNum[0], catalog.getFileNum());
+            }
+        });
+        TestSimulation.run();
+
+        // each workflow has two tasks and a stage-in job
+        List<Job> received = engine.getJobsReceivedList();
+        assertEquals(3 * WORKFLOWS, received.size());
+        for (Job job : received) {
+            assertEquals(Cloudlet.SUCCESS, job.getCloudletStatus());
+        }
+        // at most two workflows run at once, rather than all the files of
+        // the workflows done staying in the catalog
+        assertTrue(maxFileNum[0] > 3);
+        assertTrue(maxFileNum[0] <= 7);
+        assertEquals(0, catalog.getFileNum());
+        // the ids of the removed files are given again
+        assertTrue(catalog.getFileId("new.txt") < 7);
+    }
+
+    /**
+     * Creates a DAX of two tasks of one second, the second one reading the
+     * output of the first one.
+     *
+     * @param prefix the prefix of the names of the files of the workflow
+     * @return the DAX
+     */
+    private static String createChain(String prefix) {
+        String uses = "    <uses file=\"%s\" link=\"%s\" size=\"1000000\"/>\n";
+        return "<adag>\n"
+                + "  <job id=\"ID00000\" name=\"first\" runtime=\"1\">\n"
+                + String.format(uses, "shared.txt", "input")
+                + String.format(uses, prefix + "in.txt", "input")
+                + String.format(uses, prefix + "mid.txt", "output")
+                + "  </job>\n"
+                + "  <job id=\"ID00001\" name=\"second\" runtime=\"1\">\n"
+                + String.format(uses, prefix + "mid.txt", "input")
+                + String.format(uses, prefix + "out.txt", "output")
+                + "  </job>\n"
+                + "  <child ref=\"ID00001\">\n"
+                + "    <parent ref=\"ID00000\"/>\n"
+                + "  </child>\n"
+                + "</adag>\n";
+    }
+
+    /**
+     * Creates a planner whose workflows arrive by a trace, with four vms and
+     * without overheads or clustering.
+     *
+     * @param scheduling the scheduling algorithm
+     * @param planning the planning algorithm
+     * @param trace the arrival trace
+     * @return the planner
+     */
+    private static WorkflowPlanner createPlanner(Parameters.SchedulingAlgorithm scheduling,
+            Parameters.PlanningAlgorithm planning, String trace) throws Exception {
+        Log.disable();
+        OverheadParameters op = new OverheadParameters(0, null, null, null, null, 0);
+        ClusteringParameters cp = new ClusteringParameters(0, 0,
+                ClusteringParameters.ClusteringMethod.NONE, null);
+        Parameters.init(4, (String) null, null, null, op, cp, scheduling, planning, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        File file = File.createTempFile("arrivals", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(trace);
+        }
+        Parameters.setWorkflowArrivalProcess(WorkflowArrivalProcess.load(file.getPath()));
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        WorkflowPlanner planner = new WorkflowPlanner("planner_0", 1);
+        TestSimulation.addVms(planner.getWorkflowEngine(), 0,
+                TestSimulation.createStorageDatacenter("Datacenter_0", 2), 0, 4);
+        return planner;
+    }
+}
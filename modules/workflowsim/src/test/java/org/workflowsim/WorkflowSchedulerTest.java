@@ -0,0 +1,161 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Test;
+import org.workflowsim.utils.IndexedReplicaCatalog;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * Checks the WorkflowScheduler: its replica catalog, and the scheduler runs
+ * saved by the scheduling quantum and the batch size.
+ */
+public class WorkflowSchedulerTest {
+
+    @Test
+    public void testReplicaCatalog() throws Exception {
+        TestSimulation.init(Parameters.SchedulingAlgorithm.DATA);
+        WorkflowDatacenter datacenter = TestSimulation.createDatacenter("Datacenter_0", 1);
+        WorkflowScheduler scheduler = new WorkflowScheduler("scheduler_0");
+        assertSame(ReplicaCatalog.getCatalog(), scheduler.getReplicaCatalog());
+
+        scheduler.bindSchedulerDatacenter(datacenter.getId());
+        assertSame(ReplicaCatalog.getCatalog(), scheduler.getReplicaCatalog());
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        datacenter.setReplicaCatalog(catalog);
+        assertSame(catalog, scheduler.getReplicaCatalog());
+    }
+
+    @Test
+    public void testQuantum() throws Exception {
+        // a returns at 1 and frees a vm, but c waits for the end of the quantum
+        Run plain = new Run(2, 0, 0, -1, 1, 5, 1, 1);
+        Run quantum = new Run(2, 10, 0, -1, 1, 5, 1, 1);
+
+        assertEquals(plain.getStartTime(2), plain.getFinishTime(0), 0.5);
+        assertEquals(11, quantum.getStartTime(2), 0.5);
+        assertEquals(11, quantum.getStartTime(3), 0.5);
+        assertEquals(0, plain.scheduler.getCoalescedUpdates());
+        assertTrue(quantum.scheduler.getCoalescedUpdates() > 0);
+        // every request is either served by a run of its own or coalesced
+        assertEquals(plain.scheduler.getSchedulerRuns(),
+                quantum.scheduler.getSchedulerRuns() + quantum.scheduler.getCoalescedUpdates());
+    }
+
+    @Test
+    public void testDebounce() throws Exception {
+        // an update sent by another entity at 3 runs the algorithm, but does
+        // not make the scheduler forget the update pending at 11
+        Run quantum = new Run(2, 10, 0, -1, 1, 5, 1, 1);
+        Run foreign = new Run(2, 10, 0, 3, 1, 5, 1, 1);
+
+        assertEquals(3, foreign.getStartTime(2), 0.5);
+        assertEquals(11, foreign.getStartTime(3), 0.5);
+        assertEquals(quantum.scheduler.getSchedulerRuns() + 1, foreign.scheduler.getSchedulerRuns());
+        assertEquals(quantum.scheduler.getCoalescedUpdates(), foreign.scheduler.getCoalescedUpdates());
+    }
+
+    @Test
+    public void testBatchSize() throws Exception {
+        // without a quantum, d and e wait for the second return, at 2
+        Run plain = new Run(3, 0, 0, -1, 1, 2, 10, 1, 1, 1);
+        Run batch = new Run(3, 0, 2, -1, 1, 2, 10, 1, 1, 1);
+
+        assertEquals(1, plain.getStartTime(3), 0.5);
+        assertEquals(2, batch.getStartTime(3), 0.5);
+        assertEquals(2, batch.getStartTime(4), 0.5);
+        assertEquals(3, batch.getStartTime(5), 0.5);
+        assertTrue(batch.scheduler.getCoalescedUpdates() > 0);
+        assertEquals(plain.scheduler.getSchedulerRuns(),
+                batch.scheduler.getSchedulerRuns() + batch.scheduler.getCoalescedUpdates());
+    }
+
+    @Test
+    public void testBatchSizeNotReached() throws Exception {
+        // the batch is never full, c runs once no job is left running
+        Run batch = new Run(2, 0, 5, -1, 1, 2, 1);
+
+        assertEquals(3, batch.engine.getJobsReceivedList().size());
+        assertEquals(batch.getFinishTime(1), batch.getStartTime(2), 0.5);
+    }
+
+    @Test
+    public void testBatchSizeWithQuantum() throws Exception {
+        // the second return runs the scheduler before the end of the quantum
+        Run batch = new Run(2, 10, 2, -1, 1, 2, 1, 1);
+
+        assertEquals(2, batch.getStartTime(2), 0.5);
+        assertEquals(2, batch.getStartTime(3), 0.5);
+    }
+
+    /**
+     * Runs independent jobs on the vms of a single scheduler, the jobs are
+     * submitted at once and scheduled in order.
+     */
+    private static class Run {
+
+        private final WorkflowEngine engine;
+        private final WorkflowScheduler scheduler;
+        private final List<Job> jobs;
+
+        /**
+         * @param vmNum the number of vms
+         * @param quantum the scheduling quantum
+         * @param batchSize the scheduling batch size
+         * @param updateTime the time of an update sent by another entity,
+         * negative for none
+         * @param seconds the runtimes of the jobs
+         */
+        Run(int vmNum, double quantum, int batchSize, double updateTime, double... seconds)
+                throws Exception {
+            TestSimulation.init(Parameters.SchedulingAlgorithm.FCFS);
+            WorkflowDatacenter datacenter = TestSimulation.createDatacenter("Datacenter_0", vmNum);
+            engine = new WorkflowEngine("engine_0");
+            TestSimulation.addVms(engine, 0, datacenter, 0, vmNum);
+            scheduler = engine.getScheduler(0);
+            scheduler.setSchedulingQuantum(quantum);
+            scheduler.setSchedulingBatchSize(batchSize);
+            Job[] list = new Job[seconds.length];
+            for (int i = 0; i < seconds.length; i++) {
+                list[i] = TestSimulation.createJob(i, seconds[i], scheduler.getId());
+            }
+            jobs = Arrays.asList(list);
+            engine.submitCloudletList(jobs);
+            if (updateTime >= 0) {
+                CloudSim.send(engine.getId(), scheduler.getId(), updateTime,
+                        WorkflowSimTags.CLOUDLET_UPDATE, null);
+            }
+            TestSimulation.run();
+            assertEquals(seconds.length, engine.getJobsReceivedList().size());
+        }
+
+        double getStartTime(int index) {
+            return jobs.get(index).getExecStartTime();
+        }
+
+        double getFinishTime(int index) {
+            return jobs.get(index).getFinishTime();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.clustering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.workflowsim.FileItem;
+import org.workflowsim.Job;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters.FileType;
+
+/**
+ * Checks that BasicClustering merges the files of the tasks of a job as the
+ * scan of the file lists did.
+ */
+public class BasicClusteringTest {
+
+    private static final int ROUNDS = 100;
+
+    /**
+     * Clusters the tasks into given groups.
+     */
+    private static class GroupClustering extends BasicClustering {
+
+        private final List<List<Task>> groups;
+
+        GroupClustering(List<List<Task>> groups) {
+            this.groups = groups;
+        }
+
+        @Override
+        public void run() {
+            for (List<Task> group : groups) {
+                addTasks2Job(group);
+            }
+        }
+    }
+
+    @Test
+    public void testSameFilesAsScan() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<List<Task>> groups = createGroups(random);
+            GroupClustering clustering = new GroupClustering(groups);
+            clustering.run();
+
+            List<FileItem> allFiles = new ArrayList<>();
+            List<Job> jobs = clustering.getJobList();
+            assertEquals(groups.size(), jobs.size());
+            for (int i = 0; i < groups.size(); i++) {
+                List<FileItem> files = new ArrayList<>();
+                List<String> requiredFiles = new ArrayList<>();
+                scan(groups.get(i), files, requiredFiles, allFiles);
+                assertSameItems(files, jobs.get(i).getFileList());
+                assertEquals(requiredFiles, jobs.get(i).getRequiredFiles());
+                assertEquals(groups.get(i), jobs.get(i).getTaskList());
+            }
+            assertSameItems(allFiles, clustering.getTaskFiles());
+        }
+    }
+
+    /**
+     * Merges the files of the tasks of a job as addTasks2Job did with
+     * List.contains.
+     */
+    private static void scan(List<Task> tasks, List<FileItem> files, List<String> requiredFiles,
+            List<FileItem> allFiles) {
+        for (Task task : tasks) {
+            for (FileItem file : task.getFileList()) {
+                if (!files.contains(file)) {
+                    files.add(file);
+                    if (file.getType() == FileType.INPUT) {
+                        if (!allFiles.contains(file)) {
+                            allFiles.add(file);
+                        }
+                    } else if (file.getType() == FileType.OUTPUT) {
+                        allFiles.add(file);
+                    }
+                }
+            }
+            List<String> taskRequiredFiles = task.getRequiredFiles();
+            for (String fileName : taskRequiredFiles) {
+                if (!requiredFiles.contains(fileName)) {
+                    requiredFiles.add(fileName);
+                }
+            }
+        }
+    }
+
+    private static void assertSameItems(List<FileItem> expected, List<FileItem> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * Creates tasks sharing their input files, as the parser does, and
+     * writing output files that some tasks also read under the same name.
+     * Some tasks list the same input file twice.
+     */
+    private static List<List<Task>> createGroups(Random random) {
+        List<FileItem> inputs = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            FileItem file = new FileItem("f" + i, 1 + i);
+            file.setType(FileType.INPUT);
+            inputs.add(file);
+        }
+        List<List<Task>> groups = new ArrayList<>();
+        int taskNum = random.nextInt(40);
+        List<Task> group = new ArrayList<>();
+        for (int i = 0; i < taskNum; i++) {
+            Task task = new Task(i, 1000);
+            int fileNum = random.nextInt(6);
+            for (int j = 0; j < fileNum; j++) {
+                FileItem file;
+                if (random.nextInt(3) == 0) {
+                    file = new FileItem("f" + random.nextInt(15), 1);
+                    file.setType(FileType.OUTPUT);
+                } else {
+                    file = inputs.get(random.nextInt(inputs.size()));
+                }
+                task.getFileList().add(file);
+                if (random.nextInt(5) == 0) {
+                    task.getFileList().add(file);
+                }
+                task.addRequiredFile(file.getName());
+            }
+            group.add(task);
+            if (random.nextInt(4) == 0) {
+                groups.add(group);
+                group = new ArrayList<>();
+            }
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+}
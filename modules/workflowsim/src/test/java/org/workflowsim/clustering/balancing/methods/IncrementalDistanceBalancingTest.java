@@ -0,0 +1,83 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.clustering.balancing.methods;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.workflowsim.Task;
+import org.workflowsim.clustering.TaskSet;
+
+/**
+ * Checks that IncrementalDistanceBalancing selects the same taskSets as
+ * HorizontalDistanceBalancing.
+ */
+public class IncrementalDistanceBalancingTest {
+
+    private static final int ROUNDS = 300;
+
+    @Test
+    public void testSelectDistantTaskSets() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            List<TaskSet> taskSets = createTaskSets(random);
+            List<TaskSet> level = new ArrayList<>();
+            for (TaskSet set : taskSets) {
+                if (random.nextBoolean()) {
+                    level.add(set);
+                }
+            }
+            if (level.size() < 2) {
+                continue;
+            }
+            int num = 2 + random.nextInt(level.size());
+            HorizontalDistanceBalancing expected =
+                    new HorizontalDistanceBalancing(new HashMap(), new HashMap(), num);
+            IncrementalDistanceBalancing actual =
+                    new IncrementalDistanceBalancing(new HashMap(), new HashMap(), num);
+            assertEquals(expected.selectDistantTaskSets(level, num),
+                    actual.selectDistantTaskSets(level, num));
+        }
+    }
+
+    /**
+     * Creates random dependent taskSets, a few of them without tasks.
+     */
+    private static List<TaskSet> createTaskSets(Random random) {
+        int size = 2 + random.nextInt(40);
+        int width = 1 + random.nextInt(8);
+        List<TaskSet> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            TaskSet set = new TaskSet();
+            if (random.nextInt(20) != 0) {
+                set.addTask(new Task(i, 10));
+            }
+            for (int j = Math.max(0, i - 2 * width); j < i - width / 2; j++) {
+                if (random.nextInt(4) == 0) {
+                    TaskSet parent = list.get(j);
+                    parent.getChildList().add(set);
+                    set.getParentList().add(parent);
+                }
+            }
+            list.add(set);
+        }
+        return list;
+    }
+}
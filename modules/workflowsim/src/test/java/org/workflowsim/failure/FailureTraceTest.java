@@ -0,0 +1,117 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.failure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+import org.junit.Test;
+import org.workflowsim.utils.DistributionGenerator;
+import org.workflowsim.utils.DistributionGenerator.DistributionFamily;
+
+/**
+ * Checks the failures found by FailureTrace against a scan of the failure
+ * times, and the replay of a saved trace.
+ */
+public class FailureTraceTest {
+
+    private static final int QUERIES = 2000;
+
+    @Test
+    public void testHasFailure() throws Exception {
+        DistributionGenerator[][] generators = createGenerators();
+        FailureTrace trace = new FailureTrace(generators);
+        Random random = new Random(1);
+        for (int i = 0; i < generators.length; i++) {
+            for (int j = 0; j < generators[i].length; j++) {
+                double[] samples = generators[i][j].getCumulativeSamples();
+                double last = samples[samples.length - 1];
+                for (int k = 0; k < QUERIES; k++) {
+                    double start = random.nextDouble() * last;
+                    double end = start + random.nextDouble() * 100;
+                    assertEquals(hasFailure(samples, start, end), trace.hasFailure(i, j, start, end));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExtend() throws Exception {
+        DistributionGenerator[][] generators = createGenerators();
+        FailureTrace trace = new FailureTrace(generators);
+        int size = trace.size(1, 1);
+        double last = trace.getFailureTime(1, 1, size - 1);
+        trace.hasFailure(1, 1, last * 3, last * 3);
+        assertTrue(trace.size(1, 1) > size);
+        assertTrue(trace.getFailureTime(1, 1, trace.size(1, 1) - 1) >= last * 3);
+        for (int k = 1; k < trace.size(1, 1); k++) {
+            assertTrue(trace.getFailureTime(1, 1, k - 1) <= trace.getFailureTime(1, 1, k));
+        }
+        assertEquals(size, trace.size(0, 1));
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        FailureTrace trace = new FailureTrace(createGenerators());
+        File file = File.createTempFile("failures", ".txt");
+        file.deleteOnExit();
+        trace.save(file.getPath());
+        FailureTrace replay = FailureTrace.load(file.getPath());
+        Random random = new Random(2);
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(trace.size(i, j), replay.size(i, j));
+                double last = trace.getFailureTime(i, j, trace.size(i, j) - 1);
+                for (int k = 0; k < QUERIES; k++) {
+                    double start = random.nextDouble() * last;
+                    double end = start + random.nextDouble() * 100;
+                    assertEquals(trace.hasFailure(i, j, start, end), replay.hasFailure(i, j, start, end));
+                }
+                // a replayed trace has no failure after its last failure
+                assertEquals(false, replay.hasFailure(i, j, last + 1, last * 2));
+            }
+        }
+        assertEquals(false, replay.hasFailure(5, 5, 0, Double.MAX_VALUE));
+    }
+
+    private static DistributionGenerator[][] createGenerators() {
+        DistributionGenerator[][] generators = new DistributionGenerator[2][3];
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                generators[i][j] = new DistributionGenerator(DistributionFamily.WEIBULL,
+                        100 * (i + j + 1), 1.0);
+            }
+        }
+        return generators;
+    }
+
+    /**
+     * Scans the failure times as FailureGenerator used to do
+     */
+    private static boolean hasFailure(double[] samples, double start, double end) {
+        for (double sample : samples) {
+            if (end < sample) {
+                return false;
+            }
+            if (start <= sample) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
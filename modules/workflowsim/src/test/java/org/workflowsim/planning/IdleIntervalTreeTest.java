@@ -0,0 +1,95 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks the slots found by IdleIntervalTree against a scan of the reserved
+ * slots.
+ */
+public class IdleIntervalTreeTest {
+
+    private static final int ROUNDS = 50;
+    private static final int SLOTS = 300;
+
+    @Test
+    public void testFindStart() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            IdleIntervalTree tree = new IdleIntervalTree();
+            List<double[]> busy = new ArrayList<>();
+            for (int i = 0; i < SLOTS; i++) {
+                // a few distinct times, so that slots often touch each other
+                double readyTime = random.nextInt(200) * 0.5;
+                double length = (1 + random.nextInt(10)) * 0.5;
+                double start = tree.findStart(readyTime, length);
+                assertEquals(findStart(busy, readyTime, length), start, 0);
+                tree.reserve(start, length);
+                busy.add(new double[]{start, start + length});
+            }
+        }
+    }
+
+    @Test
+    public void testSize() {
+        IdleIntervalTree tree = new IdleIntervalTree();
+        tree.reserve(10, 5);
+        assertEquals(2, tree.size());
+        tree.reserve(0, 10);
+        assertEquals(1, tree.size());
+        tree.reserve(20, 5);
+        assertEquals(2, tree.size());
+        assertEquals(15, tree.findStart(0, 5), 0);
+        assertEquals(25, tree.findStart(0, 6), 0);
+        tree.reserve(15, 5);
+        assertEquals(1, tree.size());
+        assertEquals(25, tree.findStart(0, 1), 0);
+    }
+
+    /**
+     * Finds the earliest start not before readyTime that does not overlap a
+     * reserved slot, among readyTime and the finish times of the slots.
+     */
+    private static double findStart(List<double[]> busy, double readyTime, double length) {
+        double best = Double.MAX_VALUE;
+        List<Double> candidates = new ArrayList<>();
+        candidates.add(readyTime);
+        for (double[] slot : busy) {
+            if (slot[1] >= readyTime) {
+                candidates.add(slot[1]);
+            }
+        }
+        for (double start : candidates) {
+            boolean idle = true;
+            for (double[] slot : busy) {
+                if (slot[0] < start + length && start < slot[1]) {
+                    idle = false;
+                    break;
+                }
+            }
+            if (idle) {
+                best = Math.min(best, start);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.planning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.workflowsim.CondorVM;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+import org.workflowsim.utils.Parameters;
+
+/**
+ * Checks that the sparse HEFT and DHEFT planners, and the planners evaluating
+ * the vms in parallel, allocate the tasks exactly as the original planners.
+ */
+public class SparsePlanningAlgorithmTest {
+
+    private static final int ROUNDS = 50;
+
+    @BeforeClass
+    public static void disableLog() {
+        Log.disable();
+    }
+
+    @AfterClass
+    public static void enableLog() {
+        Log.enable();
+    }
+
+    @Test
+    public void testHEFT() throws Exception {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            long seed = random.nextLong();
+            checkSamePlan(new HEFTPlanningAlgorithm(), new SparseHEFTPlanningAlgorithm(), seed);
+        }
+    }
+
+    @Test
+    public void testDHEFT() throws Exception {
+        Random random = new Random(2);
+        for (int round = 0; round < ROUNDS; round++) {
+            long seed = random.nextLong();
+            checkSamePlan(new DHEFTPlanningAlgorithm(), new SparseDHEFTPlanningAlgorithm(), seed);
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        Random random = new Random(4);
+        for (int round = 0; round < ROUNDS; round++) {
+            long seed = random.nextLong();
+            checkSamePlan(new HEFTPlanningAlgorithm(), parallel(new HEFTPlanningAlgorithm()), seed);
+            checkSamePlan(new SparseHEFTPlanningAlgorithm(), parallel(new SparseHEFTPlanningAlgorithm()), seed);
+            checkSamePlan(new DHEFTPlanningAlgorithm(), parallel(new DHEFTPlanningAlgorithm()), seed);
+            checkSamePlan(new SparseDHEFTPlanningAlgorithm(), parallel(new SparseDHEFTPlanningAlgorithm()), seed);
+        }
+    }
+
+    @Test
+    public void testTaskGraph() {
+        List<Task> tasks = createTasks(new Random(3));
+        TaskGraph graph = new TaskGraph(tasks);
+        int[] position = new int[graph.size()];
+        int[] order = graph.getTopologicalOrder();
+        for (int k = 0; k < order.length; k++) {
+            position[order[k]] = k;
+        }
+        int edges = 0;
+        for (int t = 0; t < graph.size(); t++) {
+            Task task = graph.getTask(t);
+            assertEquals(task.getChildList().size(), graph.getChildStart(t + 1) - graph.getChildStart(t));
+            assertEquals(task.getParentList().size(), graph.getParentStart(t + 1) - graph.getParentStart(t));
+            for (int entry = graph.getParentStart(t); entry < graph.getParentStart(t + 1); entry++) {
+                int parent = graph.getParent(entry);
+                assertEquals(t, graph.getChild(graph.getParentEdge(entry)));
+                assertEquals(true, position[parent] < position[t]);
+            }
+            edges += task.getChildList().size();
+        }
+        assertEquals(edges, graph.getEdgeCount());
+    }
+
+    private static BasePlanningAlgorithm parallel(BasePlanningAlgorithm planner) {
+        planner.setParallel(true);
+        return planner;
+    }
+
+    /**
+     * Runs both planners on the same random workflow and vms and checks that
+     * they allocate every task to the same vm. The task lengths are distinct,
+     * so that no two tasks have the same rank.
+     */
+    private void checkSamePlan(BasePlanningAlgorithm expected, BasePlanningAlgorithm actual,
+            long seed) throws Exception {
+        List<Task> expectedTasks = createTasks(new Random(seed));
+        List<Task> actualTasks = createTasks(new Random(seed));
+        expected.setTaskList(expectedTasks);
+        expected.setVmList(createVms());
+        actual.setTaskList(actualTasks);
+        actual.setVmList(createVms());
+
+        expected.run();
+        actual.run();
+
+        for (int i = 0; i < expectedTasks.size(); i++) {
+            assertEquals(expectedTasks.get(i).getVmId(), actualTasks.get(i).getVmId());
+        }
+    }
+
+    /**
+     * Creates a random layered workflow, where each task has an output file
+     * read by its children.
+     */
+    private static List<Task> createTasks(Random random) {
+        int size = 1 + random.nextInt(80);
+        int width = 1 + random.nextInt(8);
+        List<Task> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Task task = new Task(i + 1, 1000 * (1 + random.nextInt(20)) + i);
+            FileItem output = new FileItem("f" + i, 1000000 * (1 + random.nextInt(10)));
+            output.setType(Parameters.FileType.OUTPUT);
+            task.addFile(output);
+            for (int j = Math.max(0, i - 2 * width); j < i - width / 2; j++) {
+                if (random.nextInt(3) == 0) {
+                    Task parent = list.get(j);
+                    parent.addChild(task);
+                    task.addParent(parent);
+                    FileItem input = new FileItem("f" + j, parent.getFileList().get(0).getSize());
+                    input.setType(Parameters.FileType.INPUT);
+                    task.addFile(input);
+                }
+            }
+            list.add(task);
+        }
+        return list;
+    }
+
+    /**
+     * Creates vms whose ids are their positions in the list, two of them with
+     * the same MIPS but different bandwidths.
+     */
+    private static List<CondorVM> createVms() {
+        double[] mips = {500, 1000, 1500, 1000};
+        long[] bw = {100, 300, 500, 200};
+        List<CondorVM> list = new ArrayList<>();
+        for (int i = 0; i < mips.length; i++) {
+            list.add(new CondorVM(i, 0, mips[i], 1, 512, bw[i], 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.junit.Test;
+import org.workflowsim.CondorVM;
+import org.workflowsim.FileItem;
+import org.workflowsim.Job;
+import org.workflowsim.utils.IndexedReplicaCatalog;
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.ReplicaCatalog;
+
+/**
+ * Checks that the DataAwareSchedulingAlgorithm looks for the input files in
+ * the replica catalog it is given.
+ */
+public class DataAwareSchedulingAlgorithmTest {
+
+    @Test
+    public void testReplicaCatalog() throws Exception {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        catalog.addFileToStorage(catalog.getFileId("a.txt"), catalog.getVmStorageId(1));
+        // the static catalog has the file on the other vm
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.LOCAL);
+        IndexedReplicaCatalog other = ReplicaCatalog.getCatalog();
+        other.addFileToStorage(other.getFileId("a.txt"), other.getVmStorageId(0));
+
+        assertEquals(1, schedule(new DataAwareSchedulingAlgorithm(catalog)));
+        assertEquals(0, schedule(new DataAwareSchedulingAlgorithm()));
+    }
+
+    /**
+     * Schedules a job reading a.txt on two idle vms.
+     *
+     * @return the id of the vm the job is scheduled to
+     */
+    private static int schedule(DataAwareSchedulingAlgorithm algorithm) throws Exception {
+        Job job = new Job(0, 1000);
+        FileItem file = new FileItem("a.txt", 100);
+        file.setType(Parameters.FileType.INPUT);
+        job.getFileList().add(file);
+        List<CondorVM> vms = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            vms.add(new CondorVM(i, 0, 1000, 1, 512, 1000, 10000, "Xen",
+                    new CloudletSchedulerSpaceShared()));
+        }
+        algorithm.setCloudletList(new ArrayList<>(Arrays.asList(job)));
+        algorithm.setVmList(vms);
+        algorithm.run();
+        List<Cloudlet> scheduled = algorithm.getScheduledList();
+        assertEquals(1, scheduled.size());
+        return scheduled.get(0).getVmId();
+    }
+}
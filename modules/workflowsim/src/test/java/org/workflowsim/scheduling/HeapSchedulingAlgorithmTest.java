@@ -0,0 +1,151 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.scheduling;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowSimTags;
+
+/**
+ * Checks that the heap variants of MinMin, MaxMin and MCT schedule the
+ * cloudlets as the original algorithms: the cloudlets of the same length in
+ * list order, on the idle vms of the most MIPS first, the vms of the same MIPS
+ * in list order.
+ */
+public class HeapSchedulingAlgorithmTest {
+
+    @BeforeClass
+    public static void disableLog() {
+        Log.disable();
+    }
+
+    @AfterClass
+    public static void enableLog() {
+        Log.enable();
+    }
+
+    @Test
+    public void testMinMin() throws Exception {
+        // the shortest cloudlets first, and 0 is left for lack of an idle vm
+        List<String> expected = Arrays.asList("1:2", "3:9", "2:5");
+        assertEquals(expected, schedule(new MinMinSchedulingAlgorithm()));
+        assertEquals(expected, schedule(new HeapMinMinSchedulingAlgorithm()));
+    }
+
+    @Test
+    public void testMaxMin() throws Exception {
+        List<String> expected = Arrays.asList("0:2", "2:9", "1:5");
+        assertEquals(expected, schedule(new MaxMinSchedulingAlgorithm()));
+        assertEquals(expected, schedule(new HeapMaxMinSchedulingAlgorithm()));
+    }
+
+    @Test
+    public void testMCT() throws Exception {
+        List<String> expected = Arrays.asList("0:2", "1:9", "2:5");
+        assertEquals(expected, schedule(new MCTSchedulingAlgorithm()));
+        assertEquals(expected, schedule(new HeapMCTSchedulingAlgorithm()));
+    }
+
+    @Test
+    public void testNoCloudlets() throws Exception {
+        for (BaseSchedulingAlgorithm algorithm : new BaseSchedulingAlgorithm[]{
+            new HeapMinMinSchedulingAlgorithm(), new HeapMaxMinSchedulingAlgorithm(),
+            new HeapMCTSchedulingAlgorithm()}) {
+            List<CondorVM> vms = createVms();
+            algorithm.setCloudletList(new ArrayList<Cloudlet>());
+            algorithm.setVmList(vms);
+            algorithm.run();
+            assertEquals(0, algorithm.getScheduledList().size());
+            assertEquals(WorkflowSimTags.VM_STATUS_IDLE, vms.get(0).getState());
+        }
+    }
+
+    @Test
+    public void testNoIdleVm() throws Exception {
+        for (BaseSchedulingAlgorithm algorithm : new BaseSchedulingAlgorithm[]{
+            new HeapMinMinSchedulingAlgorithm(), new HeapMaxMinSchedulingAlgorithm(),
+            new HeapMCTSchedulingAlgorithm()}) {
+            algorithm.setCloudletList(createCloudlets());
+            algorithm.setVmList(Collections.singletonList(createVm(1, 1000, true)));
+            algorithm.run();
+            assertEquals(0, algorithm.getScheduledList().size());
+        }
+    }
+
+    /**
+     * Runs an algorithm on the cloudlets and vms of the tests.
+     *
+     * @param algorithm the algorithm
+     * @return the cloudlet id and vm id of each scheduled cloudlet, in order
+     */
+    private static List<String> schedule(BaseSchedulingAlgorithm algorithm) throws Exception {
+        List<CondorVM> vms = createVms();
+        algorithm.setCloudletList(createCloudlets());
+        algorithm.setVmList(vms);
+        algorithm.run();
+
+        List<String> scheduled = new ArrayList<>();
+        for (Object cloudlet : algorithm.getScheduledList()) {
+            scheduled.add(((Cloudlet) cloudlet).getCloudletId() + ":" + ((Cloudlet) cloudlet).getVmId());
+        }
+        for (CondorVM vm : vms) {
+            assertEquals(WorkflowSimTags.VM_STATUS_BUSY, vm.getState());
+        }
+        return scheduled;
+    }
+
+    /**
+     * Creates four cloudlets, two of which have the same length.
+     */
+    private static List<Cloudlet> createCloudlets() {
+        List<Cloudlet> list = new ArrayList<>();
+        list.add(new Task(0, 3000));
+        list.add(new Task(1, 1000));
+        list.add(new Task(2, 2000));
+        list.add(new Task(3, 1000));
+        return list;
+    }
+
+    /**
+     * Creates three idle vms, two of which have the same MIPS, and a busy vm
+     * with more MIPS than one of them.
+     */
+    private static List<CondorVM> createVms() {
+        return Arrays.asList(createVm(5, 500, false), createVm(2, 1500, false),
+                createVm(7, 1000, true), createVm(9, 1500, false));
+    }
+
+    private static CondorVM createVm(int id, double mips, boolean busy) {
+        CondorVM vm = new CondorVM(id, 0, mips, 1, 512, 1000, 10000, "Xen",
+                new CloudletSchedulerSpaceShared());
+        if (busy) {
+            vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+        }
+        return vm;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks the geometric bins of RuntimeStatistics.
+ */
+public class RuntimeStatisticsTest {
+
+    @Test
+    public void testGetBin() {
+        RuntimeStatistics statistics = new RuntimeStatistics(0.5, 1.5, 40);
+        assertEquals(0, statistics.getBin(0.0));
+        assertEquals(0, statistics.getBin(0.49));
+        assertEquals(1, statistics.getBin(0.5));
+        assertEquals(39, statistics.getBin(Double.MAX_VALUE));
+        for (int bin = 1; bin < statistics.getBinNum(); bin++) {
+            double lower = statistics.getBinLowerBound(bin);
+            assertEquals(bin, statistics.getBin(lower));
+            assertEquals(bin - 1, statistics.getBin(Math.nextDown(lower)));
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            double runtime = Math.exp(random.nextDouble() * 20 - 2);
+            int bin = statistics.getBin(runtime);
+            assertTrue(runtime >= statistics.getBinLowerBound(bin));
+            assertTrue(bin == statistics.getBinNum() - 1
+                    || runtime < statistics.getBinLowerBound(bin + 1));
+        }
+    }
+}
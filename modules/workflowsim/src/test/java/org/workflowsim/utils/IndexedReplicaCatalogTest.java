@@ -0,0 +1,168 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.workflowsim.FileItem;
+
+/**
+ * Checks that the IndexedReplicaCatalog, and ReplicaCatalog which gives static
+ * access to it, keep the files and their storages as the map of storage lists
+ * did.
+ */
+public class IndexedReplicaCatalogTest {
+
+    @Test
+    public void testStorageListOrder() {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        catalog.addFileToStorage("a.txt", "source");
+        catalog.addFileToStorage("a.txt", "Datacenter_0");
+        // the storages of b.txt are listed in the order b.txt was added to them
+        catalog.addFileToStorage("b.txt", "Datacenter_0");
+        catalog.addFileToStorage("b.txt", "source");
+        catalog.addFileToStorage("b.txt", "Datacenter_0");
+        catalog.addFileToStorage("a.txt", "source");
+
+        assertEquals(Arrays.asList("source", "Datacenter_0"), catalog.getStorageList("a.txt"));
+        assertEquals(Arrays.asList("Datacenter_0", "source"), catalog.getStorageList("b.txt"));
+        assertEquals(2, catalog.getStorages(catalog.getFileId("b.txt")).cardinality());
+        assertNull(catalog.getStorageList("c.txt"));
+        // a file with an id is still nowhere
+        catalog.getFileId("c.txt");
+        assertNull(catalog.getStorageList("c.txt"));
+        assertFalse(catalog.containsFile("c.txt"));
+    }
+
+    @Test
+    public void testAddFileToStorage() {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.SHARED);
+        int fileId = catalog.getFileId("a.txt");
+        int storageId = catalog.getStorageId("Datacenter_0");
+        assertFalse(catalog.hasReplica(fileId, storageId));
+        catalog.addFileToStorage(fileId, storageId);
+        catalog.addFileToStorage("a.txt", "Datacenter_0");
+
+        assertTrue(catalog.hasReplica(fileId, storageId));
+        assertEquals(fileId, catalog.getFileId("a.txt"));
+        assertEquals(storageId, catalog.getStorageId("Datacenter_0"));
+        assertEquals(Arrays.asList("Datacenter_0"), catalog.getStorageList("a.txt"));
+        assertEquals("Datacenter_0", catalog.getStorageName(storageId));
+    }
+
+    @Test
+    public void testVmStorageIdGrowth() {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        int source = catalog.getStorageId("source");
+        int[] vmIds = {3, 0, 4, 100, 7, 5000, 3};
+        int[] storageIds = new int[vmIds.length];
+        for (int i = 0; i < vmIds.length; i++) {
+            storageIds[i] = catalog.getVmStorageId(vmIds[i]);
+        }
+
+        // the ids are given in order of first use and kept when the table grows
+        assertEquals(source + 1, storageIds[0]);
+        assertEquals(storageIds[0], storageIds[6]);
+        for (int i = 0; i < vmIds.length; i++) {
+            assertEquals(storageIds[i], catalog.getVmStorageId(vmIds[i]));
+            assertEquals(Integer.toString(vmIds[i]), catalog.getStorageName(storageIds[i]));
+        }
+        // the storage of a vm is the one named by its id
+        assertEquals(catalog.getStorageId("100"), catalog.getVmStorageId(100));
+        assertEquals(catalog.getStorageId("6"), catalog.getVmStorageId(6));
+        catalog.addFileToStorage(catalog.getFileId("a.txt"), catalog.getVmStorageId(5000));
+        assertEquals(Arrays.asList("5000"), catalog.getStorageList("a.txt"));
+    }
+
+    @Test
+    public void testInternFile() {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.SHARED);
+        FileItem file = catalog.internFile("a.txt", 10);
+        assertSame(file, catalog.internFile("a.txt", 20));
+        assertEquals(10, file.getSize(), 0);
+        assertSame(file, catalog.getFile("a.txt"));
+
+        FileItem other = new FileItem("a.txt", 30);
+        catalog.setFile("a.txt", other);
+        assertSame(other, catalog.getFile("a.txt"));
+        assertNull(catalog.getFile("b.txt"));
+    }
+
+    @Test
+    public void testFindFileId() {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.LOCAL);
+        catalog.addFileToStorage("a.txt", "source");
+        assertEquals(catalog.getFileId("a.txt"), catalog.findFileId("a.txt"));
+        // looking for a file does not give it an id
+        assertEquals(-1, catalog.findFileId("b.txt"));
+        assertEquals(1, catalog.getFileNum());
+        assertEquals(-1, catalog.findFileId("b.txt"));
+    }
+
+    @Test
+    public void testRemoveFile() {
+        IndexedReplicaCatalog catalog = new IndexedReplicaCatalog(ReplicaCatalog.FileSystem.SHARED);
+        catalog.internFile("a.txt", 10);
+        catalog.addFileToStorage("a.txt", "source");
+        int fileId = catalog.getFileId("a.txt");
+        catalog.addFileToStorage("b.txt", "source");
+        assertEquals(2, catalog.getFileNum());
+
+        catalog.removeFile("a.txt");
+        catalog.removeFile("c.txt");
+        assertEquals(1, catalog.getFileNum());
+        assertFalse(catalog.containsFile("a.txt"));
+        assertNull(catalog.getStorageList("a.txt"));
+        assertEquals(Arrays.asList("source"), catalog.getStorageList("b.txt"));
+        // the id of the removed file is given to the next new file, without
+        // its replicas
+        assertEquals(fileId, catalog.getFileId("c.txt"));
+        assertTrue(catalog.getStorages(fileId).isEmpty());
+        assertNull(catalog.getFile("c.txt"));
+        assertEquals(fileId + 2, catalog.getFileId("a.txt"));
+    }
+
+    @Test
+    public void testStaticAdapters() {
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.LOCAL);
+        IndexedReplicaCatalog catalog = ReplicaCatalog.getCatalog();
+        assertEquals(ReplicaCatalog.FileSystem.LOCAL, ReplicaCatalog.getFileSystem());
+
+        ReplicaCatalog.addFileToStorage("a.txt", "Datacenter_1");
+        ReplicaCatalog.addFileToStorage("a.txt", "source");
+        ReplicaCatalog.addFileToStorage("a.txt", "Datacenter_1");
+        assertEquals(Arrays.asList("Datacenter_1", "source"), ReplicaCatalog.getStorageList("a.txt"));
+        assertEquals(ReplicaCatalog.getStorageList("a.txt"), catalog.getStorageList("a.txt"));
+        assertNull(ReplicaCatalog.getStorageList("b.txt"));
+
+        FileItem file = ReplicaCatalog.internFile("b.txt", 5);
+        assertTrue(ReplicaCatalog.containsFile("b.txt"));
+        assertSame(file, catalog.getFile("b.txt"));
+        ReplicaCatalog.setFile("c.txt", file);
+        assertSame(file, ReplicaCatalog.getFile("c.txt"));
+
+        // a new simulation starts with an empty catalog
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        assertNull(ReplicaCatalog.getStorageList("a.txt"));
+        assertFalse(ReplicaCatalog.containsFile("b.txt"));
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.cloudbus.cloudsim.Log;
+import org.junit.After;
+import org.junit.Test;
+import org.workflowsim.BinaryWorkflow;
+import org.workflowsim.FileItem;
+import org.workflowsim.Task;
+import org.workflowsim.WorkflowParser;
+
+/**
+ * Checks the runtimes and file sizes read by TaskOverrides, and that the
+ * WorkflowParser applies them with the runtime scales of the depths.
+ */
+public class TaskOverridesTest {
+
+    private static final String DAX = "<adag>\n"
+            + "<job id=\"ID00000\" name=\"a\" runtime=\"10.0\">\n"
+            + "<uses file=\"in.txt\" link=\"input\" size=\"100\"/>\n"
+            + "<uses file=\"mid.txt\" link=\"output\" size=\"200\"/>\n"
+            + "</job>\n"
+            + "<job id=\"ID00001\" name=\"b\" runtime=\"20.0\">\n"
+            + "<uses file=\"mid.txt\" link=\"input\" size=\"200\"/>\n"
+            + "</job>\n"
+            + "<job id=\"ID00002\" name=\"b\" runtime=\"30.0\">\n"
+            + "<uses file=\"mid.txt\" link=\"input\" size=\"200\"/>\n"
+            + "</job>\n"
+            + "<child ref=\"ID00001\"><parent ref=\"ID00000\"/></child>\n"
+            + "<child ref=\"ID00002\"><parent ref=\"ID00000\"/></child>\n"
+            + "</adag>\n";
+
+    @After
+    public void resetParameters() {
+        Parameters.init(0, (String) null, null, null, null, null, null, null, null, 0);
+        Parameters.setDepthRuntimeScales(new double[0]);
+        Parameters.setParserMode(Parameters.ParserMode.DOM);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        String runtimes = write("# id runtime\nID00000 1.5\nID00001 2.5 ID00002 3.5\n\nID00000 4.5\n", false);
+        String datasizes = write("in.txt 1000\nmid.txt 2e3\n", true);
+        TaskOverrides overrides = TaskOverrides.load(runtimes, datasizes);
+        assertEquals(3, overrides.getRuntimeNum());
+        assertEquals(2, overrides.getDatasizeNum());
+        // the later value of a task replaces the earlier one
+        assertEquals(4.5, overrides.getRuntime(0, "ID00000"), 0);
+        assertEquals(2.5, overrides.getRuntime(1, "ID00001"), 0);
+        // a task not at its ordinal is found by name
+        assertEquals(3.5, overrides.getRuntime(0, "ID00002"), 0);
+        assertEquals(3.5, overrides.getRuntime(7, "ID00002"), 0);
+        assertTrue(Double.isNaN(overrides.getRuntime(1, "ID00003")));
+        assertEquals(2000, overrides.getDatasize("mid.txt"), 0);
+        assertTrue(Double.isNaN(overrides.getDatasize("out.txt")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadMissingValue() throws IOException {
+        TaskOverrides.load(write("ID00000 1.5\nID00001\n", false), null);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadInvalidValue() throws IOException {
+        TaskOverrides.load(null, write("in.txt big\n", true));
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        for (Parameters.ParserMode mode : Parameters.ParserMode.values()) {
+            String dax = write(DAX, false);
+            String runtimes = write("ID00002 5.0\nID00000 1.0\n", true);
+            String datasizes = write("in.txt 1000\n", false);
+            Parameters.init(0, dax, runtimes, datasizes, null, null, null, null, null, 0);
+            Parameters.setParserMode(mode);
+            Parameters.setRuntimeScale(2, 3.0);
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+
+            Log.disable();
+            WorkflowParser parser = new WorkflowParser(0);
+            parser.parse();
+            Log.enable();
+            List<Task> tasks = parser.getTaskList();
+            assertEquals(3, tasks.size());
+            assertEquals(1000, tasks.get(0).getCloudletLength());
+            // the second depth is scaled by 3
+            assertEquals(60000, tasks.get(1).getCloudletLength());
+            assertEquals(15000, tasks.get(2).getCloudletLength());
+            for (FileItem file : tasks.get(0).getFileList()) {
+                assertEquals(file.getName().equals("in.txt") ? 1000 : 200, file.getSize(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testBinarySizes() throws IOException {
+        String dax = write(DAX, false);
+        File binary = File.createTempFile("workflow", ".bin");
+        binary.deleteOnExit();
+        Parameters.init(0, dax, null, null, null, null, null, null, null, 0);
+        ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+        Log.disable();
+        BinaryWorkflow.convert(dax, binary.getPath());
+        Log.enable();
+
+        // a size of 0 becomes 1, whether parsed or loaded
+        String datasizes = write("in.txt 0\nmid.txt 300\n", false);
+        for (String path : new String[]{dax, binary.getPath()}) {
+            Parameters.init(0, path, null, datasizes, null, null, null, null, null, 0);
+            ReplicaCatalog.init(ReplicaCatalog.FileSystem.SHARED);
+            Log.disable();
+            WorkflowParser parser = new WorkflowParser(0);
+            parser.parse();
+            Log.enable();
+            List<Task> tasks = parser.getTaskList();
+            assertEquals(3, tasks.size());
+            for (FileItem file : tasks.get(0).getFileList()) {
+                assertEquals(file.getName().equals("in.txt") ? 1 : 300, file.getSize(), 0);
+            }
+        }
+    }
+
+    private static String write(String content, boolean gzip) throws IOException {
+        File file = File.createTempFile("overrides", gzip ? ".gz" : ".txt");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        if (gzip) {
+            out = new GZIPOutputStream(out);
+        }
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        return file.getPath();
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2012-2013 University Of Southern California
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.workflowsim.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Checks the arrivals given by WorkflowArrivalProcess.
+ */
+public class WorkflowArrivalProcessTest {
+
+    @Test
+    public void testDistribution() {
+        DistributionGenerator generator = new DistributionGenerator(
+                DistributionGenerator.DistributionFamily.GAMMA, 10, 1.0);
+        WorkflowArrivalProcess arrivals = new WorkflowArrivalProcess(generator,
+                Arrays.asList("a.xml", "b.xml", "c.xml"), 5000);
+        double time = 0.0;
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(arrivals.hasNext());
+            WorkflowArrivalProcess.Arrival arrival = arrivals.next();
+            assertTrue(arrival.getTime() >= time);
+            assertEquals("abc".charAt(i % 3) + ".xml", arrival.getDaxPath());
+            time = arrival.getTime();
+        }
+        assertFalse(arrivals.hasNext());
+        assertEquals(5000, arrivals.getArrivalNum());
+        // 5000 arrivals of 10 seconds on average
+        assertEquals(50000, time, 5000);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        File file = File.createTempFile("arrivals", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("# time dax\n0 a.xml\n\n10.5 dir with space/b.xml\n10.5 a.xml\n");
+        }
+        WorkflowArrivalProcess arrivals = WorkflowArrivalProcess.load(file.getPath());
+        assertEquals(3, arrivals.getWorkflowNum());
+        WorkflowArrivalProcess.Arrival arrival = arrivals.next();
+        assertEquals(0.0, arrival.getTime(), 0);
+        assertEquals("a.xml", arrival.getDaxPath());
+        arrival = arrivals.next();
+        assertEquals(10.5, arrival.getTime(), 0);
+        assertEquals("dir with space/b.xml", arrival.getDaxPath());
+        arrivals.next();
+        assertFalse(arrivals.hasNext());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadDecreasingTimes() throws IOException {
+        File file = File.createTempFile("arrivals", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("10 a.xml\n5 b.xml\n");
+        }
+        WorkflowArrivalProcess.load(file.getPath());
+    }
+}